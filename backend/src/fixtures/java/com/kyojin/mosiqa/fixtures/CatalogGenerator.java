@@ -0,0 +1,235 @@
+package com.kyojin.mosiqa.fixtures;
+
+import com.kyojin.mosiqa.entity.AudioEncoding;
+import com.kyojin.mosiqa.entity.MusicCategory;
+import com.kyojin.mosiqa.entity.Track;
+import com.kyojin.mosiqa.entity.UuidV7;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Synthetic catalog of realistic shape, shared by the benchmarks, the load generator and the scale tests.
+ * <p>
+ * Artists are drawn from a Zipf distribution, so a few have hundreds of tracks and most have one or two.
+ * Each artist mostly sticks to one {@link MusicCategory}, and every category is used. Tracks share a small
+ * pool of audio files and real PNG covers, so blob storage stays small while every track keeps its own
+ * references; with an empty pool, tracks point at ids that hold no blob. The same seed always yields the
+ * same titles, artists and categories.
+ * <p>
+ * Rows go in as JDBC batches of {@value #BATCH_SIZE}, one transaction per batch, and {@link #fillTo} only
+ * adds what is missing, so one database can grow through several sizes.
+ */
+public final class CatalogGenerator {
+
+    private static final int BATCH_SIZE = 5_000;
+    private static final String[] ADJECTIVES = {
+            "Velvet", "Golden", "Silent", "Neon", "Hollow", "Lunar", "Wild", "Static", "Paper", "Crimson",
+            "Electric", "Distant", "Broken", "Northern", "Glass", "Midnight", "Falling", "Burning", "Quiet", "Wandering"
+    };
+    private static final String[] NOUNS = {
+            "Harbor", "River", "Echo", "Orbit", "Ember", "Signal", "Desert", "Cloud", "Garden", "Engine",
+            "Mirror", "Horizon", "Tide", "Lantern", "Forest", "Circuit", "Comet", "Canyon", "Avenue", "Choir"
+    };
+    private static final MusicCategory[] CATEGORIES = MusicCategory.values();
+
+    private final Random random;
+    private final double[] artistCdf;
+    private final int audioFiles;
+    private final int audioBytes;
+    private final int coverImages;
+    private final List<UUID> audioIds = new ArrayList<>();
+    private final List<UUID> coverIds = new ArrayList<>();
+    private final LocalDateTime origin = LocalDateTime.now();
+    private int generated;
+
+    public CatalogGenerator(int artists, double zipfExponent, int audioFiles, int audioBytes, int coverImages, long seed) {
+        this.random = new Random(seed);
+        this.artistCdf = zipfCdf(artists, zipfExponent);
+        this.audioFiles = audioFiles;
+        this.audioBytes = audioBytes;
+        this.coverImages = coverImages;
+    }
+
+    /**
+     * Artist names by popularity rank, 0 being the most frequent.
+     */
+    public static String artistName(int rank) {
+        String name = ADJECTIVES[rank % ADJECTIVES.length] + " " + NOUNS[(rank / ADJECTIVES.length) % NOUNS.length];
+        int pairs = ADJECTIVES.length * NOUNS.length;
+        return rank < pairs ? "The " + name : name + " " + (rank / pairs);
+    }
+
+    /**
+     * One word of the catalog vocabulary; every word appears in many titles and artist names.
+     */
+    public static String word(Random random) {
+        int index = random.nextInt(ADJECTIVES.length + NOUNS.length);
+        return index < ADJECTIVES.length ? ADJECTIVES[index] : NOUNS[index - ADJECTIVES.length];
+    }
+
+    /**
+     * A title in the catalog's style, without the numeric suffix generated tracks carry.
+     */
+    public static String title(Random random) {
+        return ADJECTIVES[random.nextInt(ADJECTIVES.length)] + " " + NOUNS[random.nextInt(NOUNS.length)]
+                + (random.nextInt(4) == 0 ? " (Live)" : "");
+    }
+
+    /**
+     * The next {@code count} tracks, built in memory only; ids are fresh, blob references point into the pool
+     * once {@link #fillTo} has inserted it.
+     */
+    public List<Track> tracks(int count) {
+        List<Track> tracks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            tracks.add(nextTrack(generated++));
+        }
+        return tracks;
+    }
+
+    /**
+     * Inserts tracks until the catalog holds {@code total} of them; returns how many were added.
+     */
+    public int fillTo(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, int total) {
+        if (audioIds.isEmpty() && audioFiles > 0) {
+            insertBlobs(jdbcTemplate);
+        }
+        int added = 0;
+        while (generated < total) {
+            List<Track> batch = tracks(Math.min(BATCH_SIZE, total - generated));
+            transactionTemplate.executeWithoutResult(status -> insertTracks(jdbcTemplate, batch));
+            added += batch.size();
+        }
+        return added;
+    }
+
+    private Track nextTrack(int index) {
+        int artist = nextArtist();
+        MusicCategory category = random.nextDouble() < 0.85
+                ? CATEGORIES[Math.floorMod(artist * 31 + 7, CATEGORIES.length)]
+                : CATEGORIES[random.nextInt(CATEGORIES.length)];
+        // Log-normal around three and a half minutes
+        double duration = Math.clamp(Math.exp(Math.log(210) + 0.35 * random.nextGaussian()), 30, 1200);
+        LocalDateTime createdAt = origin.minusSeconds(random.nextLong(3 * 365 * 24 * 3600L));
+        String title = title(random) + " #" + index;
+        String description = random.nextInt(10) == 0 ? "Track " + index + " by " + artistName(artist) : null;
+        boolean hasCover = random.nextInt(5) != 0;
+        return Track.builder()
+                .id(UuidV7.next())
+                .title(title)
+                .artist(artistName(artist))
+                .description(description)
+                .category(category)
+                .duration(duration)
+                .audioFileId(audioIds.isEmpty() ? UuidV7.next() : audioIds.get(random.nextInt(audioIds.size())))
+                .coverImageId(!hasCover ? null
+                        : coverIds.isEmpty() ? UuidV7.next() : coverIds.get(random.nextInt(coverIds.size())))
+                .createdAt(createdAt)
+                .updatedAt(createdAt)
+                .build();
+    }
+
+    private int nextArtist() {
+        int rank = Arrays.binarySearch(artistCdf, random.nextDouble());
+        return Math.min(rank >= 0 ? rank : -rank - 1, artistCdf.length - 1);
+    }
+
+    private static void insertTracks(JdbcTemplate jdbcTemplate, List<Track> tracks) {
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO tracks (id, title, artist, description, category, duration, audio_file_id, cover_image_id, "
+                        + "created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Track track = tracks.get(i);
+                        ps.setObject(1, track.getId());
+                        ps.setString(2, track.getTitle());
+                        ps.setString(3, track.getArtist());
+                        ps.setString(4, track.getDescription());
+                        ps.setString(5, track.getCategory().name());
+                        ps.setDouble(6, track.getDuration());
+                        ps.setObject(7, track.getAudioFileId());
+                        ps.setObject(8, track.getCoverImageId());
+                        ps.setTimestamp(9, Timestamp.valueOf(track.getCreatedAt()));
+                        ps.setTimestamp(10, Timestamp.valueOf(track.getUpdatedAt()));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return tracks.size();
+                    }
+                });
+    }
+
+    private void insertBlobs(JdbcTemplate jdbcTemplate) {
+        Timestamp now = Timestamp.valueOf(origin);
+        for (int i = 0; i < audioFiles; i++) {
+            byte[] audio = new byte[audioBytes];
+            random.nextBytes(audio);
+            UUID id = UuidV7.next();
+            jdbcTemplate.update(
+                    "INSERT INTO audio_files (id, name, size, mime_type, data, encoding, created_at) VALUES (?, ?, ?, ?, ?, ?, ?)",
+                    id, "synthetic-" + i + ".mp3", (long) audio.length, "audio/mpeg", audio, AudioEncoding.RAW.name(), now);
+            audioIds.add(id);
+        }
+        for (int i = 0; i < coverImages; i++) {
+            byte[] cover = cover();
+            UUID id = UuidV7.next();
+            jdbcTemplate.update(
+                    "INSERT INTO cover_images (id, name, size, mime_type, data, created_at) VALUES (?, ?, ?, ?, ?, ?)",
+                    id, "cover", (long) cover.length, "image/png", cover, now);
+            coverIds.add(id);
+        }
+    }
+
+    /**
+     * A 300 px gradient PNG; real image bytes so resizing code paths behave as in production.
+     */
+    private byte[] cover() {
+        BufferedImage image = new BufferedImage(300, 300, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setPaint(new GradientPaint(0, 0, new Color(random.nextInt(0xFFFFFF)),
+                300, 300, new Color(random.nextInt(0xFFFFFF))));
+        graphics.fillRect(0, 0, 300, 300);
+        graphics.dispose();
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ImageIO.write(image, "png", out);
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static double[] zipfCdf(int ranks, double exponent) {
+        double[] cdf = new double[ranks];
+        double sum = 0;
+        for (int i = 0; i < ranks; i++) {
+            sum += 1 / Math.pow(i + 1, exponent);
+            cdf[i] = sum;
+        }
+        for (int i = 0; i < ranks; i++) {
+            cdf[i] /= sum;
+        }
+        return cdf;
+    }
+}
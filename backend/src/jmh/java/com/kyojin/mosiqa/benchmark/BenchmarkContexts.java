@@ -0,0 +1,39 @@
+package com.kyojin.mosiqa.benchmark;
+
+import com.kyojin.mosiqa.MosiqaApplication;
+import com.kyojin.mosiqa.fixtures.CatalogGenerator;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Starts the application without a web server on its own in-memory database, with the test profile's
+ * quiet logging and no scheduled jobs, and hands out the catalog the benchmarks run on.
+ */
+final class BenchmarkContexts {
+
+    private BenchmarkContexts() {
+    }
+
+    static ConfigurableApplicationContext start(Map<String, Object> properties) {
+        Map<String, Object> merged = new HashMap<>(properties);
+        merged.put("spring.datasource.url", "jdbc:h2:mem:bench-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        return new SpringApplicationBuilder(MosiqaApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .properties(merged)
+                .logStartupInfo(false)
+                .run();
+    }
+
+    /**
+     * Seeded by its size, so every run of a benchmark sees the same tracks; none of them have blobs.
+     */
+    static CatalogGenerator catalog(int tracks) {
+        return new CatalogGenerator(Math.max(1, tracks / 20), 1.1, 0, 0, 0, tracks);
+    }
+}
@@ -0,0 +1,96 @@
+package com.kyojin.mosiqa.benchmark;
+
+import com.kyojin.mosiqa.entity.AudioFile;
+import com.kyojin.mosiqa.service.FileStorageService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Audio writes and full reads through {@code FileStorageServiceImpl}, with blobs in the database or on a
+ * storage volume. MP3 content, so nothing is re-encoded on the way in.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class BlobStorageBenchmark {
+
+    @Param({"1", "10", "50"})
+    private int megabytes;
+
+    @Param({"database", "volume"})
+    private String storage;
+
+    private ConfigurableApplicationContext context;
+    private FileStorageService fileStorageService;
+    private Path volume;
+    private MockMultipartFile upload;
+    private AudioFile stored;
+    private UUID written;
+
+    @Setup
+    public void setUp() throws IOException {
+        volume = Files.createTempDirectory("mosiqa-bench");
+        context = BenchmarkContexts.start(Map.of(
+                "mosiqa.storage.volumes", "volume".equals(storage) ? volume.toString() : ""));
+        fileStorageService = context.getBean(FileStorageService.class);
+
+        byte[] data = new byte[megabytes * 1024 * 1024];
+        new Random(megabytes).nextBytes(data);
+        upload = new MockMultipartFile("file", "bench.mp3", "audio/mpeg", data);
+        stored = fileStorageService.saveAudioFile(upload);
+    }
+
+    // Per invocation, or 50 MB writes would fill the in-memory database within an iteration
+    @TearDown(Level.Invocation)
+    public void deleteWritten() {
+        if (written != null) {
+            fileStorageService.deleteAudioFile(written);
+            written = null;
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        context.close();
+        FileSystemUtils.deleteRecursively(volume);
+    }
+
+    @Benchmark
+    public UUID write() {
+        written = fileStorageService.saveAudioFile(upload).getId();
+        return written;
+    }
+
+    @Benchmark
+    public AudioFile read() throws IOException {
+        AudioFile audioFile = fileStorageService.getAudioFile(stored.getId()).orElseThrow();
+        fileStorageService.writeAudio(audioFile, 0, audioFile.getSize(), OutputStream.nullOutputStream());
+        return audioFile;
+    }
+}
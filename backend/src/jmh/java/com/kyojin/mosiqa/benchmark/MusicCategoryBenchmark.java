@@ -0,0 +1,33 @@
+package com.kyojin.mosiqa.benchmark;
+
+import com.kyojin.mosiqa.entity.MusicCategory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MusicCategoryBenchmark {
+
+    // Early and late in the constant order, by value, by name and in mixed case
+    @Param({"pop", "rock", "other", "OTHER", "Other"})
+    private String value;
+
+    @Benchmark
+    public MusicCategory fromValue() {
+        return MusicCategory.fromValue(value);
+    }
+}
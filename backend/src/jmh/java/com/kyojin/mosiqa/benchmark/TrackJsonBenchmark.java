@@ -0,0 +1,47 @@
+package com.kyojin.mosiqa.benchmark;
+
+import com.kyojin.mosiqa.dto.TrackDTO;
+import com.kyojin.mosiqa.mapper.TrackMapperImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization of the track list as {@code GET /api/tracks} returns it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TrackJsonBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    private int tracks;
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private List<TrackDTO> dtos;
+
+    @Setup
+    public void setUp() {
+        dtos = new TrackMapperImpl().toDTOList(BenchmarkContexts.catalog(tracks).tracks(tracks));
+    }
+
+    @Benchmark
+    public byte[] writeTrackList() {
+        return jsonMapper.writeValueAsBytes(dtos);
+    }
+}
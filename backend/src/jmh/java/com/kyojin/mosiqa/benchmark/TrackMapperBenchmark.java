@@ -0,0 +1,45 @@
+package com.kyojin.mosiqa.benchmark;
+
+import com.kyojin.mosiqa.dto.TrackDTO;
+import com.kyojin.mosiqa.entity.Track;
+import com.kyojin.mosiqa.mapper.TrackMapper;
+import com.kyojin.mosiqa.mapper.TrackMapperImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TrackMapperBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    private int tracks;
+
+    private final TrackMapper trackMapper = new TrackMapperImpl();
+    private List<Track> catalog;
+
+    @Setup
+    public void setUp() {
+        catalog = BenchmarkContexts.catalog(tracks).tracks(tracks);
+    }
+
+    @Benchmark
+    public List<TrackDTO> toDTOList() {
+        return trackMapper.toDTOList(catalog);
+    }
+}
@@ -0,0 +1,63 @@
+package com.kyojin.mosiqa.benchmark;
+
+import com.kyojin.mosiqa.dto.TrackDTO;
+import com.kyojin.mosiqa.service.TrackService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code TrackService.searchTracks} against H2 through JPA, as {@code GET /api/tracks/search} runs it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TrackSearchBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    private int tracks;
+
+    // A common word matching about a tenth of the catalog, and a title suffix matching a handful
+    @Param({"velvet", "999"})
+    private String query;
+
+    private ConfigurableApplicationContext context;
+    private TrackService trackService;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContexts.start(Map.of());
+        BenchmarkContexts.catalog(tracks).fillTo(context.getBean(JdbcTemplate.class),
+                context.getBean(TransactionTemplate.class), tracks);
+        trackService = context.getBean(TrackService.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<TrackDTO> searchTracks() {
+        return trackService.searchTracks(query);
+    }
+}
@@ -0,0 +1,39 @@
+package com.kyojin.mosiqa.loadtest;
+
+/**
+ * The request types in the workload mix, named as in the {@code --mix} option.
+ */
+enum Endpoint {
+
+    LIBRARY("library", "GET /api/tracks (binary track list)"),
+    SEARCH("search", "GET /api/tracks/search?q="),
+    COVER("cover", "GET /api/files/cover/{id}"),
+    AUDIO("audio", "GET /api/files/audio/{id}, first chunk"),
+    SEEK("seek", "GET /api/files/audio/{id}, chunk at a random offset"),
+    UPLOAD("upload", "POST /api/tracks (multipart)");
+
+    private final String option;
+    private final String description;
+
+    Endpoint(String option, String description) {
+        this.option = option;
+        this.description = description;
+    }
+
+    String option() {
+        return option;
+    }
+
+    String description() {
+        return description;
+    }
+
+    static Endpoint fromOption(String option) {
+        for (Endpoint endpoint : values()) {
+            if (endpoint.option.equals(option)) {
+                return endpoint;
+            }
+        }
+        throw new IllegalArgumentException("Unknown endpoint in mix: " + option);
+    }
+}
@@ -0,0 +1,73 @@
+package com.kyojin.mosiqa.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies in microseconds, status codes and body bytes of one endpoint during the measured window.
+ */
+final class EndpointStats {
+
+    private static final long HIGHEST_MICROS = TimeUnit.MINUTES.toMicros(5);
+
+    private final Endpoint endpoint;
+    private final Histogram latencies = new ConcurrentHistogram(HIGHEST_MICROS, 3);
+    private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+
+    EndpointStats(Endpoint endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    void record(long latencyNanos, int status, long bodyBytes) {
+        latencies.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), HIGHEST_MICROS));
+        statuses.computeIfAbsent(status, ignored -> new LongAdder()).increment();
+        bytes.add(bodyBytes);
+    }
+
+    /**
+     * A request that got no response at all: refused connection, timeout, reset.
+     */
+    void recordFailure(long latencyNanos) {
+        latencies.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), HIGHEST_MICROS));
+        failures.increment();
+    }
+
+    long count() {
+        return latencies.getTotalCount();
+    }
+
+    void printSummary(PrintStream out, double seconds) {
+        Map<Integer, Long> byStatus = new TreeMap<>();
+        statuses.forEach((status, count) -> byStatus.put(status, count.sum()));
+        out.printf("%-8s %8d %9.1f/s %9.2f %9.2f %9.2f %9.2f %9.2f %10.2f MB/s  %s%s%n",
+                endpoint.option(), count(), count() / seconds,
+                millis(50), millis(90), millis(99), millis(99.9), latencies.getMaxValue() / 1000.0,
+                bytes.sum() / seconds / (1024 * 1024), byStatus,
+                failures.sum() > 0 ? " failed=" + failures.sum() : "");
+    }
+
+    /**
+     * Writes the full percentile distribution in milliseconds, readable by the HdrHistogram plotter.
+     */
+    void writeDistribution(Path directory) throws IOException {
+        try (PrintStream out = new PrintStream(Files.newOutputStream(directory.resolve(endpoint.option() + ".hgrm")))) {
+            latencies.outputPercentileDistribution(out, 1000.0);
+        }
+    }
+
+    private double millis(double percentile) {
+        return latencies.getValueAtPercentile(percentile) / 1000.0;
+    }
+}
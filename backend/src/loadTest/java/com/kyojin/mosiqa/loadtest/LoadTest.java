@@ -0,0 +1,151 @@
+package com.kyojin.mosiqa.loadtest;
+
+import com.kyojin.mosiqa.MosiqaApplication;
+import com.kyojin.mosiqa.fixtures.CatalogGenerator;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-model load generator for the whole backend.
+ * <p>
+ * Without {@code --base-url} it starts the application on a random port with a fresh in-memory H2 database
+ * seeded by {@link CatalogGenerator}; with it, it drives an already running server using whatever catalog that has.
+ * {@code --files-url} sends cover and audio requests to another listener, such as the reactive file server,
+ * while the catalog, searches and uploads stay on the base URL.
+ * Requests arrive as a Poisson process at {@code --rate} per second regardless of how fast responses come
+ * back, each on its own virtual thread, picked from {@code --mix}. After {@code --warmup} the next
+ * {@code --duration} is measured: per-endpoint latency percentiles and throughput go to stdout, and full
+ * HdrHistogram distributions to {@code --output}.
+ */
+public final class LoadTest {
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        ConfigurableApplicationContext application = null;
+        URI baseUrl = options.baseUrl();
+        try {
+            if (baseUrl == null) {
+                application = startApplication();
+                System.out.printf("Seeding %d tracks, %d audio files of %s, %d covers%n",
+                        options.tracks(), options.audioFiles(), options.audioSize(), options.covers());
+                new CatalogGenerator(Math.max(1, options.tracks() / 20), 1.1, options.audioFiles(),
+                        (int) options.audioSize().toBytes(), options.covers(), 42)
+                        .fillTo(application.getBean(JdbcTemplate.class), application.getBean(TransactionTemplate.class),
+                                options.tracks());
+                baseUrl = URI.create("http://localhost:" + application.getEnvironment().getProperty("local.server.port"));
+            }
+            run(baseUrl, options);
+        } finally {
+            if (application != null) {
+                application.close();
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext startApplication() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("server.port", 0);
+        properties.put("spring.datasource.url", "jdbc:h2:mem:load-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        // All traffic comes from one address; per-client limits would only measure the limiter
+        properties.put("mosiqa.rate-limit.search.capacity", 0);
+        properties.put("mosiqa.rate-limit.stream.capacity", 0);
+        return new SpringApplicationBuilder(MosiqaApplication.class)
+                .profiles("test")
+                .properties(properties)
+                .logStartupInfo(false)
+                .run();
+    }
+
+    private static void run(URI baseUrl, LoadTestOptions options) throws IOException, InterruptedException {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        URI filesUrl = options.filesUrl() != null ? options.filesUrl() : baseUrl;
+        Workload workload = new Workload(httpClient, baseUrl, filesUrl, options);
+        Map<Endpoint, EndpointStats> stats = new EnumMap<>(Endpoint.class);
+        NavigableMap<Integer, Endpoint> mix = new TreeMap<>();
+        int totalWeight = 0;
+        for (Map.Entry<Endpoint, Integer> weight : options.mix().entrySet()) {
+            if (weight.getValue() > 0) {
+                totalWeight += weight.getValue();
+                mix.put(totalWeight, weight.getKey());
+                stats.put(weight.getKey(), new EndpointStats(weight.getKey()));
+            }
+        }
+        if (totalWeight == 0) {
+            throw new IllegalArgumentException("The mix has no endpoint with a positive weight");
+        }
+
+        System.out.printf("Driving %s (files on %s) with %d tracks at %.0f req/s: %s warmup, %s measured%n",
+                baseUrl, filesUrl, workload.trackCount(), options.rate(), options.warmup(), options.duration());
+        long start = System.nanoTime();
+        long measureFrom = start + options.warmup().toNanos();
+        long end = measureFrom + options.duration().toNanos();
+        double meanGapNanos = 1_000_000_000.0 / options.rate();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        try (ExecutorService requests = Executors.newVirtualThreadPerTaskExecutor()) {
+            long next = start;
+            while (next < end) {
+                long wait = next - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                long intendedStart = next;
+                Endpoint endpoint = mix.ceilingEntry(random.nextInt(totalWeight) + 1).getValue();
+                EndpointStats recording = intendedStart >= measureFrom ? stats.get(endpoint) : null;
+                requests.execute(() -> workload.execute(endpoint, intendedStart, recording));
+                next += (long) (-Math.log(1 - random.nextDouble()) * meanGapNanos);
+            }
+            // Closing the executor waits for requests still in flight, bounded by --timeout
+        }
+
+        report(stats, options);
+    }
+
+    private static void report(Map<Endpoint, EndpointStats> stats, LoadTestOptions options) throws IOException {
+        double seconds = options.duration().toMillis() / 1000.0;
+        PrintStream out = System.out;
+        out.println();
+        out.printf("%-8s %8s %11s %9s %9s %9s %9s %9s %15s  %s%n",
+                "endpoint", "count", "throughput", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "bytes", "statuses");
+        long total = 0;
+        for (EndpointStats endpoint : stats.values()) {
+            endpoint.printSummary(out, seconds);
+            total += endpoint.count();
+        }
+        out.printf("%-8s %8d %9.1f/s%n", "total", total, total / seconds);
+        out.println();
+        for (Endpoint endpoint : stats.keySet()) {
+            out.printf("  %-8s %s%n", endpoint.option(), endpoint.description());
+        }
+
+        Files.createDirectories(options.output());
+        for (EndpointStats endpoint : stats.values()) {
+            endpoint.writeDistribution(options.output());
+        }
+        out.println("Latency distributions written to " + options.output().toAbsolutePath());
+    }
+}
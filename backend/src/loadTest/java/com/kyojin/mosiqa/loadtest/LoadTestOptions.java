@@ -0,0 +1,71 @@
+package com.kyojin.mosiqa.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.util.unit.DataSize;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Command line options, all given as {@code --name=value}; see the README for the list.
+ */
+record LoadTestOptions(URI baseUrl, URI filesUrl, double rate, Duration warmup, Duration duration, Duration timeout,
+                       int tracks, int audioFiles, DataSize audioSize, int covers, DataSize uploadSize,
+                       DataSize streamChunk, Map<Endpoint, Integer> mix, Path output) {
+
+    static LoadTestOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            values.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        URI baseUrl = url(values.remove("base-url"));
+        URI filesUrl = url(values.remove("files-url"));
+        if (filesUrl != null && baseUrl == null) {
+            throw new IllegalArgumentException("--files-url needs --base-url for the catalog and uploads");
+        }
+        LoadTestOptions options = new LoadTestOptions(
+                baseUrl,
+                filesUrl,
+                Double.parseDouble(take(values, "rate", "100")),
+                DurationStyle.detectAndParse(take(values, "warmup", "15s")),
+                DurationStyle.detectAndParse(take(values, "duration", "60s")),
+                DurationStyle.detectAndParse(take(values, "timeout", "30s")),
+                Integer.parseInt(take(values, "tracks", "5000")),
+                Integer.parseInt(take(values, "audio-files", "50")),
+                DataSize.parse(take(values, "audio-size", "4MB")),
+                Integer.parseInt(take(values, "covers", "500")),
+                DataSize.parse(take(values, "upload-size", "2MB")),
+                DataSize.parse(take(values, "stream-chunk", "256KB")),
+                parseMix(take(values, "mix", "library=10,search=20,cover=35,audio=15,seek=18,upload=2")),
+                Path.of(take(values, "output", "build/load-test")));
+        if (!values.isEmpty()) {
+            throw new IllegalArgumentException("Unknown options: " + values.keySet());
+        }
+        return options;
+    }
+
+    private static URI url(String value) {
+        return value != null ? URI.create(value.replaceAll("/+$", "")) : null;
+    }
+
+    private static String take(Map<String, String> values, String name, String defaultValue) {
+        String value = values.remove(name);
+        return value != null ? value : defaultValue;
+    }
+
+    private static Map<Endpoint, Integer> parseMix(String mix) {
+        Map<Endpoint, Integer> weights = new EnumMap<>(Endpoint.class);
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split("=");
+            weights.put(Endpoint.fromOption(parts[0]), Integer.parseInt(parts[1]));
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,162 @@
+package com.kyojin.mosiqa.loadtest;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.kyojin.mosiqa.converter.TrackListCodec;
+import com.kyojin.mosiqa.fixtures.CatalogGenerator;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Builds and sends one request of each kind against the catalog the server returned, the way the web
+ * client does: binary track list, search by a catalog word, single covers, audio in ranged chunks.
+ * Covers and audio go to {@code filesUrl}, which is the base URL unless file traffic is pointed at a
+ * separate listener.
+ */
+final class Workload {
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record TrackRef(String id, String audioFileId, String coverImageId) {
+    }
+
+    private final HttpClient httpClient;
+    private final URI baseUrl;
+    private final URI filesUrl;
+    private final LoadTestOptions options;
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private final List<TrackRef> tracks;
+    private final List<String> covers;
+    private final Map<String, Long> audioLengths = new ConcurrentHashMap<>();
+    private final byte[] upload;
+
+    Workload(HttpClient httpClient, URI baseUrl, URI filesUrl, LoadTestOptions options)
+            throws IOException, InterruptedException {
+        this.httpClient = httpClient;
+        this.baseUrl = baseUrl;
+        this.filesUrl = filesUrl;
+        this.options = options;
+        HttpResponse<byte[]> library = httpClient.send(
+                get(baseUrl, "/api/tracks").header("Accept", "application/json").build(), HttpResponse.BodyHandlers.ofByteArray());
+        if (library.statusCode() != 200) {
+            throw new IOException("Could not load the catalog: HTTP " + library.statusCode());
+        }
+        this.tracks = Arrays.asList(jsonMapper.readValue(library.body(), TrackRef[].class));
+        if (tracks.isEmpty()) {
+            throw new IOException("The server has no tracks to load test against");
+        }
+        this.covers = tracks.stream().map(TrackRef::coverImageId).filter(Objects::nonNull).distinct().toList();
+        this.upload = new byte[(int) options.uploadSize().toBytes()];
+        new Random(7).nextBytes(upload);
+    }
+
+    int trackCount() {
+        return tracks.size();
+    }
+
+    /**
+     * Sends the request and reads the whole body; latency counts from {@code intendedStart}, the moment
+     * the open-model schedule wanted the request sent, so a stalled server cannot hide its queueing delay.
+     */
+    void execute(Endpoint endpoint, long intendedStart, EndpointStats stats) {
+        try {
+            HttpResponse<InputStream> response = httpClient.send(request(endpoint), HttpResponse.BodyHandlers.ofInputStream());
+            long bytes;
+            try (InputStream body = response.body()) {
+                bytes = body.transferTo(OutputStream.nullOutputStream());
+            }
+            if (endpoint == Endpoint.AUDIO || endpoint == Endpoint.SEEK) {
+                rememberLength(response);
+            }
+            if (stats != null) {
+                stats.record(System.nanoTime() - intendedStart, response.statusCode(), bytes);
+            }
+        } catch (IOException e) {
+            if (stats != null) {
+                stats.recordFailure(System.nanoTime() - intendedStart);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private HttpRequest request(Endpoint endpoint) throws IOException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        TrackRef track = tracks.get(random.nextInt(tracks.size()));
+        long chunk = options.streamChunk().toBytes();
+        return switch (endpoint) {
+            case LIBRARY -> get(baseUrl, "/api/tracks").header("Accept", TrackListCodec.MEDIA_TYPE_VALUE).build();
+            case SEARCH -> get(baseUrl, "/api/tracks/search?q="
+                    + URLEncoder.encode(CatalogGenerator.word(random), StandardCharsets.UTF_8)).build();
+            case COVER -> get(filesUrl, "/api/files/cover/" + (covers.isEmpty() ? UUID.randomUUID() : covers.get(random.nextInt(covers.size()))))
+                    .build();
+            case AUDIO -> get(filesUrl, "/api/files/audio/" + track.audioFileId()).header("Range", "bytes=0-" + (chunk - 1)).build();
+            case SEEK -> {
+                Long length = audioLengths.get(track.audioFileId());
+                long start = length != null && length > chunk ? random.nextLong(length - chunk) : 0;
+                yield get(filesUrl, "/api/files/audio/" + track.audioFileId())
+                        .header("Range", "bytes=" + start + "-" + (start + chunk - 1)).build();
+            }
+            case UPLOAD -> uploadRequest(random);
+        };
+    }
+
+    private HttpRequest uploadRequest(Random random) throws IOException {
+        String boundary = "mosiqa-load-" + UUID.randomUUID();
+        byte[] metadata = jsonMapper.writeValueAsBytes(Map.of(
+                "title", CatalogGenerator.title(random),
+                "artist", CatalogGenerator.artistName(random.nextInt(1_000)),
+                "category", "OTHER",
+                "duration", 180.0));
+        ByteArrayOutputStream body = new ByteArrayOutputStream(upload.length + 1024);
+        part(body, boundary, "metadata", null, "application/json", metadata);
+        part(body, boundary, "audioFile", "load-test.mp3", "audio/mpeg", upload);
+        body.write(("--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+        return HttpRequest.newBuilder(baseUrl.resolve("/api/tracks"))
+                .timeout(options.timeout())
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()))
+                .build();
+    }
+
+    private static void part(ByteArrayOutputStream body, String boundary, String name, String fileName,
+                             String contentType, byte[] content) throws IOException {
+        String header = "--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"" + name + "\""
+                + (fileName != null ? "; filename=\"" + fileName + "\"" : "") + "\r\n"
+                + "Content-Type: " + contentType + "\r\n\r\n";
+        body.write(header.getBytes(StandardCharsets.US_ASCII));
+        body.write(content);
+        body.write("\r\n".getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private void rememberLength(HttpResponse<?> response) {
+        response.headers().firstValue("Content-Range").ifPresent(range -> {
+            int slash = range.lastIndexOf('/');
+            String audioId = response.uri().getPath().substring(response.uri().getPath().lastIndexOf('/') + 1);
+            if (slash > 0) {
+                audioLengths.put(audioId, Long.parseLong(range.substring(slash + 1)));
+            }
+        });
+    }
+
+    private HttpRequest.Builder get(URI server, String path) {
+        return HttpRequest.newBuilder(server.resolve(path)).timeout(options.timeout()).GET();
+    }
+}
@@ -0,0 +1,45 @@
+package com.kyojin.mosiqa.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Lets a handler returning a {@code StreamingResponseBody} opt out of {@code spring.mvc.async.request-timeout},
+ * which otherwise applies to every streamed response regardless of how much it has left to send.
+ */
+@Configuration
+public class AsyncConfig implements WebMvcConfigurer {
+
+    private static final String NO_TIMEOUT = AsyncConfig.class.getName() + ".NO_TIMEOUT";
+    // Servlet containers treat a non-positive async timeout as none at all
+    private static final long UNBOUNDED = -1;
+
+    /**
+     * Streams the response to this request without an async timeout; call it from the handler method.
+     */
+    public static void disableTimeout(HttpServletRequest request) {
+        request.setAttribute(NO_TIMEOUT, Boolean.TRUE);
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.registerCallableInterceptors(new CallableProcessingInterceptor() {
+            @Override
+            public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+                // Runs before the async context starts, so the timeout set here is the one it gets
+                if (request instanceof AsyncWebRequest async
+                        && request.getAttribute(NO_TIMEOUT, RequestAttributes.SCOPE_REQUEST) != null) {
+                    async.setTimeout(UNBOUNDED);
+                }
+            }
+        });
+    }
+}
@@ -1,7 +1,9 @@
 package com.kyojin.mosiqa.config;
 
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 import org.springframework.web.filter.CorsFilter;
@@ -13,7 +15,7 @@ import java.util.List;
 public class CorsConfig {
 
     @Bean
-    public CorsFilter corsFilter() {
+    public FilterRegistrationBean<CorsFilter> corsFilter() {
         CorsConfiguration config = new CorsConfiguration();
         
         config.setAllowedOrigins(Arrays.asList(
@@ -32,7 +34,9 @@ public class CorsConfig {
         config.setExposedHeaders(Arrays.asList(
             "Content-Disposition",
             "Content-Length",
-            "Content-Type"
+            "Content-Type",
+            "Retry-After",
+            "Server-Timing"
         ));
         
         config.setMaxAge(3600L);
@@ -40,6 +44,9 @@ public class CorsConfig {
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
         source.registerCorsConfiguration("/api/**", config);
         
-        return new CorsFilter(source);
+        // Ahead of the request limiting filters, so their rejections still carry CORS headers
+        FilterRegistrationBean<CorsFilter> registration = new FilterRegistrationBean<>(new CorsFilter(source));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
     }
 }
@@ -0,0 +1,50 @@
+package com.kyojin.mosiqa.config;
+
+import com.kyojin.mosiqa.filter.UploadBudget;
+import com.kyojin.mosiqa.metrics.PhaseTimingPostProcessor;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Meters read from existing state at scrape time, so nothing is recorded on the request path, and the
+ * per-request phase timing behind the {@code Server-Timing} header.
+ */
+@Configuration
+public class MetricsConfig {
+
+    // Static so it is created before the repositories and mappers it wraps
+    @Bean
+    @ConditionalOnProperty(name = "mosiqa.server-timing.enabled", havingValue = "true")
+    public static PhaseTimingPostProcessor phaseTimingPostProcessor() {
+        return new PhaseTimingPostProcessor();
+    }
+
+    @Bean
+    public MeterBinder uploadBudgetMetrics(UploadBudget uploadBudget) {
+        return registry -> {
+            Gauge.builder("mosiqa.upload.budget.reserved", uploadBudget, budget -> budget.snapshot().getReservedBytes())
+                    .description("Bytes reserved by uploads in progress")
+                    .baseUnit("bytes")
+                    .register(registry);
+            Gauge.builder("mosiqa.upload.budget.capacity", uploadBudget, budget -> budget.snapshot().getCapacityBytes())
+                    .baseUnit("bytes")
+                    .register(registry);
+            Gauge.builder("mosiqa.upload.budget.active", uploadBudget, budget -> budget.snapshot().getActiveUploads())
+                    .description("Uploads admitted and in progress")
+                    .register(registry);
+            Gauge.builder("mosiqa.upload.budget.queued", uploadBudget, budget -> budget.snapshot().getQueuedUploads())
+                    .description("Uploads waiting for budget")
+                    .register(registry);
+            FunctionCounter.builder("mosiqa.upload.budget.decisions", uploadBudget, budget -> budget.snapshot().getAdmitted())
+                    .tag("result", "admitted")
+                    .register(registry);
+            FunctionCounter.builder("mosiqa.upload.budget.decisions", uploadBudget, budget -> budget.snapshot().getRejected())
+                    .tag("result", "rejected")
+                    .register(registry);
+        };
+    }
+}
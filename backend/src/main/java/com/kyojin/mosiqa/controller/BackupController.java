@@ -0,0 +1,55 @@
+package com.kyojin.mosiqa.controller;
+
+import com.kyojin.mosiqa.dto.RestoreResultDTO;
+import com.kyojin.mosiqa.service.BackupService;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.WebAsyncTask;
+
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+@RestController
+@RequestMapping("/api/admin/backup")
+@RequiredArgsConstructor
+@Slf4j
+public class BackupController {
+
+    private static final String ZIP = "application/zip";
+    // Servlet containers treat a non-positive async timeout as none at all
+    private static final long NO_TIMEOUT = -1;
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final BackupService backupService;
+
+    /**
+     * Streams the archive under its own unlimited async timeout: a multi-GB library takes as long as the
+     * network needs, while cover bundles keep the finite {@code spring.mvc.async.request-timeout}.
+     */
+    @GetMapping(produces = ZIP)
+    public WebAsyncTask<Void> downloadBackup(HttpServletResponse response) {
+        log.debug("GET /api/admin/backup - Streaming backup");
+        String fileName = "mosiqa-backup-" + LocalDateTime.now().format(FILE_TIMESTAMP) + ".zip";
+        response.setContentType(ZIP);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"");
+        return new WebAsyncTask<>(NO_TIMEOUT, () -> {
+            backupService.writeBackup(response.getOutputStream());
+            return null;
+        });
+    }
+
+    @PostMapping(value = "/restore", consumes = {ZIP, MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public ResponseEntity<RestoreResultDTO> restoreBackup(InputStream archive) {
+        log.debug("POST /api/admin/backup/restore - Restoring backup");
+        return ResponseEntity.ok(backupService.restore(archive));
+    }
+}
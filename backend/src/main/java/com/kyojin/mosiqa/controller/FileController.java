@@ -1,19 +1,35 @@
 package com.kyojin.mosiqa.controller;
 
+import com.kyojin.mosiqa.config.AsyncConfig;
+import com.kyojin.mosiqa.converter.CoverBundleCodec;
 import com.kyojin.mosiqa.entity.AudioFile;
 import com.kyojin.mosiqa.entity.CoverImage;
+import com.kyojin.mosiqa.exception.InvalidRequestException;
 import com.kyojin.mosiqa.exception.ResourceNotFoundException;
+import com.kyojin.mosiqa.metrics.BlobMetrics;
+import com.kyojin.mosiqa.metrics.BlobMetrics.Content;
+import com.kyojin.mosiqa.metrics.CountingOutputStream;
+import com.kyojin.mosiqa.service.BlobTierService;
 import com.kyojin.mosiqa.service.FileStorageService;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/files")
@@ -21,38 +37,123 @@ import org.springframework.web.bind.annotation.RestController;
 @Slf4j
 public class FileController {
 
+    public static final int MAX_BUNDLE_COVERS = 200;
+    public static final int MIN_COVER_SIZE = 16;
+    public static final int MAX_COVER_SIZE = 2048;
+
     private final FileStorageService fileStorageService;
+    private final BlobTierService blobTierService;
+    private final BlobMetrics blobMetrics;
 
+    /**
+     * Streams without an async timeout: a whole long file to a slow client can take longer than
+     * {@code spring.mvc.async.request-timeout}, and cutting it off would stop playback.
+     */
     @GetMapping("/audio/{id}")
-    public ResponseEntity<byte[]> getAudioFile(@PathVariable String id) {
-        log.debug("GET /api/files/audio/{} - Streaming audio file", id);
+    public ResponseEntity<StreamingResponseBody> getAudioFile(@PathVariable UUID id,
+                                                              @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+                                                              HttpServletRequest request) {
+        log.debug("GET /api/files/audio/{} - Streaming audio file, range {}", id, range);
         
         AudioFile audioFile = fileStorageService.getAudioFile(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Audio file", "id", id));
+        blobTierService.recordAccess(id);
+        long length = audioFile.getSize();
         
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.parseMediaType(audioFile.getMimeType()));
-        headers.setContentLength(audioFile.getSize());
         headers.set(HttpHeaders.CONTENT_DISPOSITION, 
                 "inline; filename=\"" + audioFile.getName() + "\"");
         
         headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
-        
-        return new ResponseEntity<>(audioFile.getData(), headers, HttpStatus.OK);
+
+        long start = 0;
+        long end = length;
+        HttpStatus status = HttpStatus.OK;
+        List<HttpRange> ranges = parseRanges(range);
+        // Only single ranges are honoured; anything else gets the whole file, which RFC 9110 allows
+        if (ranges.size() == 1) {
+            try {
+                start = ranges.get(0).getRangeStart(length);
+                end = ranges.get(0).getRangeEnd(length) + 1;
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                        .header(HttpHeaders.CONTENT_RANGE, "bytes */" + length)
+                        .build();
+            }
+            status = HttpStatus.PARTIAL_CONTENT;
+            headers.set(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + (end - 1) + "/" + length);
+        }
+        headers.setContentLength(end - start);
+
+        // Compressed WAV files are decoded block by block, only for the requested range
+        long from = start;
+        long to = end;
+        StreamingResponseBody body = out -> {
+            CountingOutputStream counted = new CountingOutputStream(out);
+            try {
+                fileStorageService.writeAudio(audioFile, from, to, counted);
+            } finally {
+                blobMetrics.served(Content.AUDIO, counted.count());
+            }
+        };
+        AsyncConfig.disableTimeout(request);
+        return new ResponseEntity<>(body, headers, status);
     }
 
     @GetMapping("/cover/{id}")
-    public ResponseEntity<byte[]> getCoverImage(@PathVariable String id) {
+    public ResponseEntity<byte[]> getCoverImage(@PathVariable UUID id) throws IOException {
         log.debug("GET /api/files/cover/{} - Getting cover image", id);
         
         CoverImage coverImage = fileStorageService.getCoverImage(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Cover image", "id", id));
+        blobTierService.recordAccess(id);
         
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.parseMediaType(coverImage.getMimeType()));
         headers.setContentLength(coverImage.getSize());
         headers.setCacheControl("max-age=31536000");
         
-        return new ResponseEntity<>(coverImage.getData(), headers, HttpStatus.OK);
+        byte[] data = fileStorageService.readCoverImage(coverImage);
+        blobMetrics.served(Content.COVER, data.length);
+        return new ResponseEntity<>(data, headers, HttpStatus.OK);
+    }
+
+    @GetMapping("/covers")
+    public ResponseEntity<StreamingResponseBody> getCoverImages(@RequestParam List<UUID> ids,
+                                                                @RequestParam(required = false) Integer size) {
+        log.debug("GET /api/files/covers - Getting {} cover images, size {}", ids.size(), size);
+
+        List<UUID> distinctIds = ids.stream().distinct().toList();
+        if (distinctIds.isEmpty() || distinctIds.size() > MAX_BUNDLE_COVERS) {
+            throw new InvalidRequestException("Between 1 and " + MAX_BUNDLE_COVERS + " cover ids are required");
+        }
+        if (size != null && (size < MIN_COVER_SIZE || size > MAX_COVER_SIZE)) {
+            throw new InvalidRequestException("Size must be between " + MIN_COVER_SIZE + " and " + MAX_COVER_SIZE);
+        }
+        distinctIds.forEach(blobTierService::recordAccess);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType(CoverBundleCodec.MEDIA_TYPE_VALUE));
+        // Cover ids are never reused, so a bundle for the same ids never changes
+        headers.setCacheControl("max-age=31536000");
+
+        StreamingResponseBody body = out -> {
+            CountingOutputStream counted = new CountingOutputStream(out);
+            try {
+                fileStorageService.writeCoverBundle(distinctIds, size, counted);
+            } finally {
+                blobMetrics.served(Content.COVER_BUNDLE, counted.count());
+            }
+        };
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
+    }
+
+    private static List<HttpRange> parseRanges(String range) {
+        try {
+            return HttpRange.parseRanges(range);
+        } catch (IllegalArgumentException e) {
+            return List.of();
+        }
     }
 }
@@ -0,0 +1,54 @@
+package com.kyojin.mosiqa.controller;
+
+import com.kyojin.mosiqa.dto.ImportJobDTO;
+import com.kyojin.mosiqa.dto.ImportRequest;
+import com.kyojin.mosiqa.service.ImportService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/admin/imports")
+@RequiredArgsConstructor
+@Slf4j
+public class ImportController {
+
+    private final ImportService importService;
+
+    @PostMapping
+    public ResponseEntity<ImportJobDTO> startImport(@Valid @RequestBody ImportRequest request) {
+        log.debug("POST /api/admin/imports - Importing {}", request.getSource());
+        ImportJobDTO job = importService.startImport(request);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+    }
+
+    @GetMapping
+    public ResponseEntity<List<ImportJobDTO>> getAllImports() {
+        log.debug("GET /api/admin/imports - Getting all imports");
+        return ResponseEntity.ok(importService.getAllImports());
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<ImportJobDTO> getImport(@PathVariable UUID id) {
+        log.debug("GET /api/admin/imports/{} - Getting import progress", id);
+        return ResponseEntity.ok(importService.getImport(id));
+    }
+
+    @PostMapping("/{id}/resume")
+    public ResponseEntity<ImportJobDTO> resumeImport(@PathVariable UUID id) {
+        log.debug("POST /api/admin/imports/{}/resume - Resuming import", id);
+        ImportJobDTO job = importService.resumeImport(id);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+    }
+}
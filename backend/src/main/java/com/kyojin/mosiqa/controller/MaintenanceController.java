@@ -0,0 +1,70 @@
+package com.kyojin.mosiqa.controller;
+
+import com.kyojin.mosiqa.dto.QueryStatsDTO;
+import com.kyojin.mosiqa.dto.RebalanceResultDTO;
+import com.kyojin.mosiqa.dto.SweepResultDTO;
+import com.kyojin.mosiqa.dto.TieringResultDTO;
+import com.kyojin.mosiqa.dto.UploadBudgetDTO;
+import com.kyojin.mosiqa.filter.UploadBudget;
+import com.kyojin.mosiqa.service.BlobStoreService;
+import com.kyojin.mosiqa.service.BlobSweeperService;
+import com.kyojin.mosiqa.service.BlobTierService;
+import com.kyojin.mosiqa.service.QueryStatsService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/admin/maintenance")
+@RequiredArgsConstructor
+@Slf4j
+public class MaintenanceController {
+
+    private final BlobSweeperService blobSweeperService;
+    private final BlobStoreService blobStoreService;
+    private final BlobTierService blobTierService;
+    private final UploadBudget uploadBudget;
+    private final QueryStatsService queryStatsService;
+
+    @PostMapping("/sweep")
+    public ResponseEntity<SweepResultDTO> sweepBlobs() {
+        log.debug("POST /api/admin/maintenance/sweep - Sweeping orphaned blobs");
+        return ResponseEntity.ok(blobSweeperService.sweep());
+    }
+
+    @PostMapping("/rebalance")
+    public ResponseEntity<RebalanceResultDTO> rebalanceStorage() {
+        log.debug("POST /api/admin/maintenance/rebalance - Rebalancing blob storage volumes");
+        return ResponseEntity.ok(blobStoreService.rebalance());
+    }
+
+    @PostMapping("/tiering")
+    public ResponseEntity<TieringResultDTO> runTiering() {
+        log.debug("POST /api/admin/maintenance/tiering - Moving idle blobs to cold storage");
+        return ResponseEntity.ok(blobTierService.runTiering());
+    }
+
+    @GetMapping("/upload-budget")
+    public ResponseEntity<UploadBudgetDTO> getUploadBudget() {
+        log.debug("GET /api/admin/maintenance/upload-budget - Getting upload budget usage");
+        return ResponseEntity.ok(uploadBudget.snapshot());
+    }
+
+    @GetMapping("/query-stats")
+    public ResponseEntity<QueryStatsDTO> getQueryStats(@RequestParam(defaultValue = "20") int limit) {
+        log.debug("GET /api/admin/maintenance/query-stats - Getting the {} most expensive queries", limit);
+        return ResponseEntity.ok(queryStatsService.getQueryStats(limit));
+    }
+
+    @PostMapping("/query-stats/reset")
+    public ResponseEntity<Void> resetQueryStats() {
+        log.debug("POST /api/admin/maintenance/query-stats/reset - Resetting query statistics");
+        queryStatsService.resetQueryStats();
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -1,21 +1,33 @@
 package com.kyojin.mosiqa.controller;
 
+import com.kyojin.mosiqa.converter.TrackListCodec;
+import com.kyojin.mosiqa.dto.TrackBatchDeleteRequest;
+import com.kyojin.mosiqa.dto.TrackBatchResultDTO;
+import com.kyojin.mosiqa.dto.TrackBatchUpdateRequest;
 import com.kyojin.mosiqa.dto.TrackCreateRequest;
 import com.kyojin.mosiqa.dto.TrackDTO;
+import com.kyojin.mosiqa.dto.TrackFieldSet;
+import com.kyojin.mosiqa.dto.TrackPageDTO;
+import com.kyojin.mosiqa.dto.TrackQuery;
+import com.kyojin.mosiqa.dto.TrackSortKey;
 import com.kyojin.mosiqa.dto.TrackUpdateRequest;
 import com.kyojin.mosiqa.entity.MusicCategory;
+import com.kyojin.mosiqa.exception.InvalidRequestException;
 import com.kyojin.mosiqa.service.TrackService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RequestPart;
@@ -23,6 +35,8 @@ import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/tracks")
@@ -30,17 +44,53 @@ import java.util.List;
 @Slf4j
 public class TrackController {
 
+    private static final String JSON = MediaType.APPLICATION_JSON_VALUE;
+    private static final String BINARY = TrackListCodec.MEDIA_TYPE_VALUE;
+
     private final TrackService trackService;
 
-    @GetMapping
+    // Sparse field sets are JSON only; binary with fields= falls through to the JSON mapping and gets 406
+    @GetMapping(params = "!fields", produces = {JSON, BINARY})
     public ResponseEntity<List<TrackDTO>> getAllTracks() {
         log.debug("GET /api/tracks - Getting all tracks");
         List<TrackDTO> tracks = trackService.getAllTracks();
         return ResponseEntity.ok(tracks);
     }
 
+    @GetMapping(params = "fields", produces = JSON)
+    public ResponseEntity<List<Map<String, Object>>> getAllTracks(@RequestParam String fields) {
+        log.debug("GET /api/tracks?fields={} - Getting all tracks", fields);
+        List<Map<String, Object>> tracks = trackService.getAllTracks(TrackFieldSet.parse(fields));
+        return ResponseEntity.ok(tracks);
+    }
+
+    @GetMapping("/query")
+    public ResponseEntity<TrackPageDTO> queryTracks(
+            @RequestParam(required = false) MusicCategory category,
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) Double minDuration,
+            @RequestParam(required = false) Double maxDuration,
+            @RequestParam(defaultValue = "createdAt") String sort,
+            @RequestParam(defaultValue = "desc") String direction,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+
+        log.debug("GET /api/tracks/query - category={}, q={}, sort={} {}", category, q, sort, direction);
+        TrackQuery query = TrackQuery.builder()
+                .category(category)
+                .text(q)
+                .minDuration(minDuration)
+                .maxDuration(maxDuration)
+                .sort(parseSortKey(sort))
+                .direction(parseDirection(direction))
+                .cursor(cursor)
+                .limit(limit)
+                .build();
+        return ResponseEntity.ok(trackService.queryTracks(query));
+    }
+
     @GetMapping("/{id}")
-    public ResponseEntity<TrackDTO> getTrackById(@PathVariable String id) {
+    public ResponseEntity<TrackDTO> getTrackById(@PathVariable UUID id) {
         log.debug("GET /api/tracks/{} - Getting track by id", id);
         TrackDTO track = trackService.getTrackById(id);
         return ResponseEntity.ok(track);
@@ -59,7 +109,7 @@ public class TrackController {
 
     @PutMapping(value = "/{id}", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<TrackDTO> updateTrack(
-            @PathVariable String id,
+            @PathVariable UUID id,
             @Valid @RequestPart("metadata") TrackUpdateRequest request,
             @RequestPart(value = "audioFile", required = false) MultipartFile audioFile,
             @RequestPart(value = "coverImage", required = false) MultipartFile coverImage) {
@@ -70,23 +120,82 @@ public class TrackController {
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteTrack(@PathVariable String id) {
+    public ResponseEntity<Void> deleteTrack(@PathVariable UUID id) {
         log.debug("DELETE /api/tracks/{} - Deleting track", id);
         trackService.deleteTrack(id);
         return ResponseEntity.noContent().build();
     }
 
-    @GetMapping("/search")
+    @PostMapping(value = "/batch", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<TrackBatchResultDTO> createTracks(
+            @RequestPart("metadata") List<TrackCreateRequest> requests,
+            @RequestPart("audioFiles") List<MultipartFile> audioFiles,
+            @RequestPart(value = "coverImages", required = false) List<MultipartFile> coverImages) {
+
+        log.debug("POST /api/tracks/batch - Creating {} tracks", requests.size());
+        TrackBatchResultDTO result = trackService.createTracks(requests, audioFiles, coverImages);
+        return ResponseEntity.ok(result);
+    }
+
+    @PatchMapping("/batch")
+    public ResponseEntity<TrackBatchResultDTO> updateTracks(@RequestBody List<TrackBatchUpdateRequest> requests) {
+        log.debug("PATCH /api/tracks/batch - Updating {} tracks", requests.size());
+        TrackBatchResultDTO result = trackService.updateTracks(requests);
+        return ResponseEntity.ok(result);
+    }
+
+    @PostMapping("/batch/delete")
+    public ResponseEntity<TrackBatchResultDTO> deleteTracks(@Valid @RequestBody TrackBatchDeleteRequest request) {
+        log.debug("POST /api/tracks/batch/delete - Deleting {} tracks", request.getIds().size());
+        TrackBatchResultDTO result = trackService.deleteTracks(request.getIds());
+        return ResponseEntity.ok(result);
+    }
+
+    @GetMapping(value = "/search", params = "!fields", produces = {JSON, BINARY})
     public ResponseEntity<List<TrackDTO>> searchTracks(@RequestParam(required = false) String q) {
         log.debug("GET /api/tracks/search?q={} - Searching tracks", q);
         List<TrackDTO> tracks = trackService.searchTracks(q);
         return ResponseEntity.ok(tracks);
     }
 
-    @GetMapping("/category/{category}")
+    @GetMapping(value = "/search", params = "fields", produces = JSON)
+    public ResponseEntity<List<Map<String, Object>>> searchTracks(
+            @RequestParam(required = false) String q,
+            @RequestParam String fields) {
+        log.debug("GET /api/tracks/search?q={}&fields={} - Searching tracks", q, fields);
+        List<Map<String, Object>> tracks = trackService.searchTracks(q, TrackFieldSet.parse(fields));
+        return ResponseEntity.ok(tracks);
+    }
+
+    @GetMapping(value = "/category/{category}", params = "!fields", produces = {JSON, BINARY})
     public ResponseEntity<List<TrackDTO>> getTracksByCategory(@PathVariable MusicCategory category) {
         log.debug("GET /api/tracks/category/{} - Getting tracks by category", category);
         List<TrackDTO> tracks = trackService.getTracksByCategory(category);
         return ResponseEntity.ok(tracks);
     }
+
+    @GetMapping(value = "/category/{category}", params = "fields", produces = JSON)
+    public ResponseEntity<List<Map<String, Object>>> getTracksByCategory(
+            @PathVariable MusicCategory category,
+            @RequestParam String fields) {
+        log.debug("GET /api/tracks/category/{}?fields={} - Getting tracks by category", category, fields);
+        List<Map<String, Object>> tracks = trackService.getTracksByCategory(category, TrackFieldSet.parse(fields));
+        return ResponseEntity.ok(tracks);
+    }
+
+    private TrackSortKey parseSortKey(String sort) {
+        try {
+            return TrackSortKey.fromValue(sort);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestException(e.getMessage());
+        }
+    }
+
+    private Sort.Direction parseDirection(String direction) {
+        try {
+            return Sort.Direction.fromString(direction);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestException("Unknown sort direction: " + direction);
+        }
+    }
 }
@@ -0,0 +1,51 @@
+package com.kyojin.mosiqa.converter;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Length-prefixed bundle of cover images, written one cover at a time as they are read.
+ * <p>
+ * Layout: magic {@code MCVR}, version byte, then per cover a {@code 1} byte, the id as 16 raw bytes,
+ * the MIME type as a length byte plus ASCII, the image length as a big-endian int and the image bytes.
+ * A {@code 0} byte ends the bundle. Ids that were not found are simply absent.
+ */
+public final class CoverBundleCodec {
+
+    public static final String MEDIA_TYPE_VALUE = "application/x-mosiqa-covers";
+
+    private static final byte[] MAGIC = {'M', 'C', 'V', 'R'};
+    private static final int VERSION = 1;
+
+    private static final int ENTRY = 1;
+    private static final int END = 0;
+
+    private CoverBundleCodec() {
+    }
+
+    public static void writeHeader(OutputStream out) throws IOException {
+        out.write(MAGIC);
+        out.write(VERSION);
+    }
+
+    public static void writeEntry(OutputStream out, UUID id, String mimeType, byte[] image) throws IOException {
+        byte[] type = mimeType.getBytes(StandardCharsets.US_ASCII);
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeByte(ENTRY);
+        data.writeLong(id.getMostSignificantBits());
+        data.writeLong(id.getLeastSignificantBits());
+        data.writeByte(type.length);
+        data.write(type);
+        data.writeInt(image.length);
+        data.write(image);
+        data.flush();
+    }
+
+    public static void writeEnd(OutputStream out) throws IOException {
+        out.write(END);
+        out.flush();
+    }
+}
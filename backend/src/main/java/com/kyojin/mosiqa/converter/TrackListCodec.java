@@ -0,0 +1,263 @@
+package com.kyojin.mosiqa.converter;
+
+import com.kyojin.mosiqa.dto.TrackDTO;
+import com.kyojin.mosiqa.entity.MusicCategory;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Compact columnar encoding for track listings.
+ * <p>
+ * Layout: magic {@code MTRK}, version byte, row count, category dictionary,
+ * then one column per {@link TrackDTO} field. Ids that parse as UUIDs are
+ * written as 16 raw bytes, categories as dictionary indexes and timestamps
+ * as zig-zag deltas of epoch millis (wall-clock time read as UTC).
+ */
+public final class TrackListCodec {
+
+    public static final String MEDIA_TYPE_VALUE = "application/x-mosiqa-tracks";
+
+    private static final byte[] MAGIC = {'M', 'T', 'R', 'K'};
+    private static final int VERSION = 1;
+
+    private static final int ID_NULL = 0;
+    private static final int ID_UUID = 1;
+    private static final int ID_TEXT = 2;
+
+    private static final MusicCategory[] CATEGORIES = MusicCategory.values();
+
+    private TrackListCodec() {
+    }
+
+    public static void encode(List<TrackDTO> tracks, OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.write(MAGIC);
+        data.writeByte(VERSION);
+        writeVarLong(data, tracks.size());
+
+        writeVarLong(data, CATEGORIES.length);
+        for (MusicCategory category : CATEGORIES) {
+            writeString(data, category.getValue());
+        }
+
+        for (TrackDTO track : tracks) {
+            writeId(data, track.getId());
+        }
+        for (TrackDTO track : tracks) {
+            writeString(data, track.getTitle());
+        }
+        for (TrackDTO track : tracks) {
+            writeString(data, track.getArtist());
+        }
+        for (TrackDTO track : tracks) {
+            writeString(data, track.getDescription());
+        }
+        for (TrackDTO track : tracks) {
+            MusicCategory category = track.getCategory();
+            writeVarLong(data, category == null ? 0 : category.ordinal() + 1);
+        }
+        for (TrackDTO track : tracks) {
+            Double duration = track.getDuration();
+            data.writeDouble(duration == null ? Double.NaN : duration);
+        }
+        for (TrackDTO track : tracks) {
+            writeId(data, track.getAudioFileId());
+        }
+        for (TrackDTO track : tracks) {
+            writeId(data, track.getCoverImageId());
+        }
+        writeTimestamps(data, tracks, TrackDTO::getCreatedAt);
+        writeTimestamps(data, tracks, TrackDTO::getUpdatedAt);
+        data.flush();
+    }
+
+    public static List<TrackDTO> decode(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        byte[] magic = new byte[MAGIC.length];
+        data.readFully(magic);
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (magic[i] != MAGIC[i]) {
+                throw new IOException("Not a track list payload");
+            }
+        }
+        int version = data.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported track list version: " + version);
+        }
+
+        int count = (int) readVarLong(data);
+        int dictionarySize = (int) readVarLong(data);
+        MusicCategory[] dictionary = new MusicCategory[dictionarySize];
+        for (int i = 0; i < dictionarySize; i++) {
+            dictionary[i] = MusicCategory.fromValue(readString(data));
+        }
+
+        List<TrackDTO> tracks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            tracks.add(new TrackDTO());
+        }
+
+        for (TrackDTO track : tracks) {
+            track.setId(readId(data));
+        }
+        for (TrackDTO track : tracks) {
+            track.setTitle(readString(data));
+        }
+        for (TrackDTO track : tracks) {
+            track.setArtist(readString(data));
+        }
+        for (TrackDTO track : tracks) {
+            track.setDescription(readString(data));
+        }
+        for (TrackDTO track : tracks) {
+            int index = (int) readVarLong(data);
+            track.setCategory(index == 0 ? null : dictionary[index - 1]);
+        }
+        for (TrackDTO track : tracks) {
+            double duration = data.readDouble();
+            track.setDuration(Double.isNaN(duration) ? null : duration);
+        }
+        for (TrackDTO track : tracks) {
+            track.setAudioFileId(readId(data));
+        }
+        for (TrackDTO track : tracks) {
+            track.setCoverImageId(readId(data));
+        }
+        readTimestamps(data, tracks, TrackDTO::setCreatedAt);
+        readTimestamps(data, tracks, TrackDTO::setUpdatedAt);
+        return tracks;
+    }
+
+    private static void writeTimestamps(DataOutputStream data, List<TrackDTO> tracks,
+                                        Function<TrackDTO, LocalDateTime> getter) throws IOException {
+        long previous = 0;
+        for (TrackDTO track : tracks) {
+            LocalDateTime value = getter.apply(track);
+            if (value == null) {
+                writeVarLong(data, 0);
+                continue;
+            }
+            long millis = value.toInstant(ZoneOffset.UTC).toEpochMilli();
+            writeVarLong(data, zigZag(millis - previous) + 1);
+            previous = millis;
+        }
+    }
+
+    private static void readTimestamps(DataInputStream data, List<TrackDTO> tracks,
+                                       BiConsumer<TrackDTO, LocalDateTime> setter) throws IOException {
+        long previous = 0;
+        for (TrackDTO track : tracks) {
+            long encoded = readVarLong(data);
+            if (encoded == 0) {
+                setter.accept(track, null);
+                continue;
+            }
+            previous += unZigZag(encoded - 1);
+            setter.accept(track, LocalDateTime.ofInstant(Instant.ofEpochMilli(previous), ZoneOffset.UTC));
+        }
+    }
+
+    private static void writeId(DataOutputStream data, String id) throws IOException {
+        if (id == null) {
+            data.writeByte(ID_NULL);
+            return;
+        }
+        UUID uuid = parseUuid(id);
+        if (uuid == null) {
+            data.writeByte(ID_TEXT);
+            writeString(data, id);
+            return;
+        }
+        data.writeByte(ID_UUID);
+        data.writeLong(uuid.getMostSignificantBits());
+        data.writeLong(uuid.getLeastSignificantBits());
+    }
+
+    private static String readId(DataInputStream data) throws IOException {
+        int tag = data.readUnsignedByte();
+        return switch (tag) {
+            case ID_NULL -> null;
+            case ID_UUID -> new UUID(data.readLong(), data.readLong()).toString();
+            case ID_TEXT -> readString(data);
+            default -> throw new IOException("Unknown id tag: " + tag);
+        };
+    }
+
+    private static UUID parseUuid(String id) {
+        if (id.length() != 36) {
+            return null;
+        }
+        try {
+            UUID uuid = UUID.fromString(id);
+            // Only take the binary path when it round-trips to the exact same text
+            return uuid.toString().equals(id) ? uuid : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static void writeString(DataOutputStream data, String value) throws IOException {
+        if (value == null) {
+            writeVarLong(data, 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(data, bytes.length + 1L);
+        data.write(bytes);
+    }
+
+    private static String readString(DataInputStream data) throws IOException {
+        long length = readVarLong(data);
+        if (length == 0) {
+            return null;
+        }
+        byte[] bytes = new byte[(int) (length - 1)];
+        data.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeVarLong(DataOutputStream data, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            data.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        data.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInputStream data) throws IOException {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = data.read();
+            if (b < 0) {
+                throw new EOFException("Truncated varint");
+            }
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,69 @@
+package com.kyojin.mosiqa.converter;
+
+import com.kyojin.mosiqa.dto.TrackDTO;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes {@code List<TrackDTO>} bodies using {@link TrackListCodec}.
+ * <p>
+ * Only used when the client explicitly asks for the binary media type;
+ * wildcard {@code Accept} headers keep getting JSON.
+ */
+@Component
+public class TrackListHttpMessageConverter extends AbstractHttpMessageConverter<List<?>> {
+
+    public static final MediaType MEDIA_TYPE = MediaType.parseMediaType(TrackListCodec.MEDIA_TYPE_VALUE);
+
+    public TrackListHttpMessageConverter() {
+        super(MEDIA_TYPE);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return List.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected boolean canWrite(MediaType mediaType) {
+        return mediaType != null && MEDIA_TYPE.isCompatibleWith(mediaType) && !mediaType.isWildcardType();
+    }
+
+    @Override
+    protected List<?> readInternal(Class<? extends List<?>> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Binary track lists are response-only", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(List<?> body, HttpOutputMessage outputMessage) throws IOException {
+        List<TrackDTO> tracks = new ArrayList<>(body.size());
+        for (Object item : body) {
+            if (!(item instanceof TrackDTO track)) {
+                throw new HttpMessageNotWritableException(
+                        "Cannot encode " + (item == null ? "null" : item.getClass().getSimpleName())
+                                + " as " + TrackListCodec.MEDIA_TYPE_VALUE);
+            }
+            tracks.add(track);
+        }
+
+        OutputStream out = new BufferedOutputStream(outputMessage.getBody(), 8192);
+        TrackListCodec.encode(tracks, out);
+        out.flush();
+    }
+}
@@ -0,0 +1,30 @@
+package com.kyojin.mosiqa.dto;
+
+import com.kyojin.mosiqa.entity.ImportJobStatus;
+import com.kyojin.mosiqa.entity.MusicCategory;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ImportJobDTO {
+
+    private String id;
+    private String source;
+    private MusicCategory category;
+    private ImportJobStatus status;
+    private int totalEntries;
+    private int importedEntries;
+    private int failedEntries;
+    private String lastError;
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private Double tracksPerSecond;
+}
@@ -0,0 +1,23 @@
+package com.kyojin.mosiqa.dto;
+
+import com.kyojin.mosiqa.entity.MusicCategory;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ImportRequest {
+
+    // Directory or .zip archive, relative to the configured import root
+    @NotBlank(message = "Source is required")
+    private String source;
+
+    @NotNull(message = "Category is required")
+    private MusicCategory category;
+}
@@ -0,0 +1,19 @@
+package com.kyojin.mosiqa.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class QueryStatDTO {
+
+    private String query;
+    private long executions;
+    private long totalMillis;
+    private long maxMillis;
+    private long rows;
+}
@@ -0,0 +1,28 @@
+package com.kyojin.mosiqa.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class QueryStatsDTO {
+
+    // False when hibernate.generate_statistics is off; every count is then zero
+    private boolean enabled;
+    private Instant since;
+    private long statementsPrepared;
+    private long queriesExecuted;
+    private long queryTimeMillis;
+    // Entities loaded one by one outside a query, the usual trace of an N+1
+    private long entitiesFetched;
+    private String slowestQuery;
+    private long slowestQueryMillis;
+    private List<QueryStatDTO> queries;
+}
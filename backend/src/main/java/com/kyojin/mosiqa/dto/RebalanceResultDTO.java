@@ -0,0 +1,20 @@
+package com.kyojin.mosiqa.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RebalanceResultDTO {
+
+    private int volumes;
+    private long filesScanned;
+    private long filesMoved;
+    private long blobsMigrated;
+    private long bytesMoved;
+    private long durationMillis;
+}
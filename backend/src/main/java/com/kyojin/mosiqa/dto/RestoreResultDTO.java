@@ -0,0 +1,18 @@
+package com.kyojin.mosiqa.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RestoreResultDTO {
+
+    private long tracks;
+    private long audioFiles;
+    private long coverImages;
+    private long durationMillis;
+}
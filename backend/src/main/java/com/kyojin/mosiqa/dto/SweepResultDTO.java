@@ -0,0 +1,20 @@
+package com.kyojin.mosiqa.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SweepResultDTO {
+
+    private int audioFilesDeleted;
+    private int coverImagesDeleted;
+    private long bytesFreed;
+    private int batches;
+    private boolean checkpointed;
+    private long durationMillis;
+}
@@ -0,0 +1,21 @@
+package com.kyojin.mosiqa.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TieringResultDTO {
+
+    private int audioFilesDemoted;
+    private int coverImagesDemoted;
+    private long bytesDemoted;
+    private long coldBytesWritten;
+    private int packsCompacted;
+    private int staleEntriesRemoved;
+    private long durationMillis;
+}
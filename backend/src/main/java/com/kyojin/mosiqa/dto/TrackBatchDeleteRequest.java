@@ -0,0 +1,20 @@
+package com.kyojin.mosiqa.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TrackBatchDeleteRequest {
+
+    @NotEmpty(message = "At least one id is required")
+    private List<UUID> ids;
+}
@@ -0,0 +1,29 @@
+package com.kyojin.mosiqa.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Arrays;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TrackBatchResultDTO {
+
+    private int succeeded;
+    private int failed;
+    private List<TrackBatchItemResult> results;
+
+    public static TrackBatchResultDTO of(TrackBatchItemResult[] results) {
+        int succeeded = (int) Arrays.stream(results).filter(result -> result.getStatus().isSuccess()).count();
+        return TrackBatchResultDTO.builder()
+                .succeeded(succeeded)
+                .failed(results.length - succeeded)
+                .results(List.of(results))
+                .build();
+    }
+}
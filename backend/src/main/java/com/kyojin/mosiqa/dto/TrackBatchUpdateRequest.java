@@ -0,0 +1,24 @@
+package com.kyojin.mosiqa.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TrackBatchUpdateRequest {
+
+    @NotNull(message = "Id is required")
+    private UUID id;
+
+    @NotNull(message = "Metadata is required")
+    @Valid
+    private TrackUpdateRequest metadata;
+}
@@ -0,0 +1,91 @@
+package com.kyojin.mosiqa.dto;
+
+import com.kyojin.mosiqa.exception.InvalidRequestException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Parsed {@code fields=} parameter of the track list endpoints.
+ */
+public final class TrackFieldSet {
+
+    private static final List<String> ALL_FIELDS = List.of(
+            "id", "title", "artist", "description", "category", "duration",
+            "audioFileId", "coverImageId", "createdAt", "updatedAt"
+    );
+
+    private static final Set<String> SUMMARY_FIELDS = Set.of(
+            "id", "title", "artist", "category", "duration",
+            "audioFileId", "coverImageId", "createdAt"
+    );
+
+    private final List<String> fields;
+
+    private TrackFieldSet(List<String> fields) {
+        this.fields = fields;
+    }
+
+    public static TrackFieldSet parse(String fields) {
+        Set<String> selected = new LinkedHashSet<>();
+        if (fields != null) {
+            for (String field : fields.split(",")) {
+                String name = field.trim();
+                if (name.isEmpty()) {
+                    continue;
+                }
+                if (!ALL_FIELDS.contains(name)) {
+                    throw new InvalidRequestException("Unknown track field: " + name + ". Allowed fields: " + ALL_FIELDS);
+                }
+                selected.add(name);
+            }
+        }
+        if (selected.isEmpty()) {
+            throw new InvalidRequestException("At least one field must be requested");
+        }
+        return new TrackFieldSet(List.copyOf(selected));
+    }
+
+    public List<String> getFields() {
+        return fields;
+    }
+
+    /**
+     * Whether every requested field is available from {@link com.kyojin.mosiqa.repository.TrackSummary}.
+     */
+    public boolean isCoveredBySummary() {
+        return SUMMARY_FIELDS.containsAll(fields);
+    }
+
+    public Map<String, Object> select(TrackDTO track) {
+        Map<String, Object> row = new LinkedHashMap<>(fields.size() * 2);
+        for (String field : fields) {
+            row.put(field, switch (field) {
+                case "id" -> track.getId();
+                case "title" -> track.getTitle();
+                case "artist" -> track.getArtist();
+                case "description" -> track.getDescription();
+                case "category" -> track.getCategory();
+                case "duration" -> track.getDuration();
+                case "audioFileId" -> track.getAudioFileId();
+                case "coverImageId" -> track.getCoverImageId();
+                case "createdAt" -> track.getCreatedAt();
+                case "updatedAt" -> track.getUpdatedAt();
+                default -> throw new IllegalStateException("Unhandled track field: " + field);
+            });
+        }
+        return row;
+    }
+
+    public List<Map<String, Object>> selectAll(List<TrackDTO> tracks) {
+        List<Map<String, Object>> rows = new ArrayList<>(tracks.size());
+        for (TrackDTO track : tracks) {
+            rows.add(select(track));
+        }
+        return rows;
+    }
+}
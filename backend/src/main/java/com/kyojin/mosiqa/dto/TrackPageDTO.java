@@ -0,0 +1,19 @@
+package com.kyojin.mosiqa.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TrackPageDTO {
+
+    private List<TrackDTO> items;
+    private String nextCursor;
+    private boolean hasNext;
+}
@@ -0,0 +1,31 @@
+package com.kyojin.mosiqa.dto;
+
+import com.kyojin.mosiqa.entity.MusicCategory;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Sort;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TrackQuery {
+
+    private MusicCategory category;
+    private String text;
+    private Double minDuration;
+    private Double maxDuration;
+
+    @Builder.Default
+    private TrackSortKey sort = TrackSortKey.CREATED_AT;
+
+    @Builder.Default
+    private Sort.Direction direction = Sort.Direction.DESC;
+
+    private String cursor;
+
+    @Builder.Default
+    private int limit = 50;
+}
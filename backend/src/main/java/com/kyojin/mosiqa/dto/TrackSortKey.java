@@ -0,0 +1,48 @@
+package com.kyojin.mosiqa.dto;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+/**
+ * Sort keys accepted by {@code GET /api/tracks/query}.
+ * Each maps to an indexed {@link com.kyojin.mosiqa.entity.Track} property; text keys sort case-insensitively
+ * and tracks without a duration sort before the shortest one.
+ * Creation order is served by the time-ordered id itself.
+ */
+public enum TrackSortKey {
+    CREATED_AT("createdAt", "id"),
+    TITLE("title", "titleKey"),
+    ARTIST("artist", "artistKey"),
+    DURATION("duration", "durationKey");
+
+    private final String value;
+    private final String property;
+
+    TrackSortKey(String value, String property) {
+        this.value = value;
+        this.property = property;
+    }
+
+    @JsonValue
+    public String getValue() {
+        return value;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    public boolean isIdOrdered() {
+        return "id".equals(property);
+    }
+
+    @JsonCreator
+    public static TrackSortKey fromValue(String value) {
+        for (TrackSortKey key : TrackSortKey.values()) {
+            if (key.value.equalsIgnoreCase(value) || key.name().equalsIgnoreCase(value)) {
+                return key;
+            }
+        }
+        throw new IllegalArgumentException("Unknown sort key: " + value);
+    }
+}
@@ -0,0 +1,20 @@
+package com.kyojin.mosiqa.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UploadBudgetDTO {
+
+    private long capacityBytes;
+    private long reservedBytes;
+    private int activeUploads;
+    private int queuedUploads;
+    private long admitted;
+    private long rejected;
+}
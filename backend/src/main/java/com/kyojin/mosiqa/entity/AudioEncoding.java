@@ -0,0 +1,11 @@
+package com.kyojin.mosiqa.entity;
+
+/**
+ * How the bytes in {@code audio_files.data} are stored.
+ */
+public enum AudioEncoding {
+    /** Exactly as uploaded. */
+    RAW,
+    /** PCM WAV compressed losslessly by {@code WavCodec}; decoded when served. */
+    LPC
+}
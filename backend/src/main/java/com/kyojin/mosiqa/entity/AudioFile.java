@@ -2,8 +2,8 @@ package com.kyojin.mosiqa.entity;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
 import jakarta.persistence.Id;
 import jakarta.persistence.Lob;
 import jakarta.persistence.PrePersist;
@@ -14,6 +14,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
+import java.util.UUID;
 
 @Entity
 @Table(name = "audio_files")
@@ -24,20 +25,26 @@ import java.time.LocalDateTime;
 public class AudioFile {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
-    private String id;
+    @TimeOrderedId
+    private UUID id;
 
     @Column(nullable = false)
     private String name;
 
+    // Size of the original upload, which is what clients download; data may be smaller when encoded
     @Column(nullable = false)
     private Long size;
 
     @Column(nullable = false)
     private String mimeType;
 
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private AudioEncoding encoding;
+
     @Lob
-    @Column(nullable = false, columnDefinition = "BLOB")
+    // Null when the bytes live on a storage volume
+    @Column(columnDefinition = "BLOB")
     private byte[] data;
 
     @Column(nullable = false, updatable = false)
@@ -46,5 +53,8 @@ public class AudioFile {
     @PrePersist
     protected void onCreate() {
         this.createdAt = LocalDateTime.now();
+        if (this.encoding == null) {
+            this.encoding = AudioEncoding.RAW;
+        }
     }
 }
@@ -2,8 +2,6 @@ package com.kyojin.mosiqa.entity;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Lob;
 import jakarta.persistence.PrePersist;
@@ -14,6 +12,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
+import java.util.UUID;
 
 @Entity
 @Table(name = "cover_images")
@@ -24,8 +23,8 @@ import java.time.LocalDateTime;
 public class CoverImage {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
-    private String id;
+    @TimeOrderedId
+    private UUID id;
 
     @Column(nullable = false)
     private String name;
@@ -37,7 +36,8 @@ public class CoverImage {
     private String mimeType;
 
     @Lob
-    @Column(nullable = false, columnDefinition = "BLOB")
+    // Null when the bytes live on a storage volume
+    @Column(columnDefinition = "BLOB")
     private byte[] data;
 
     @Column(nullable = false, updatable = false)
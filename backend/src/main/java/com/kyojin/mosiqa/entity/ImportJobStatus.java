@@ -0,0 +1,9 @@
+package com.kyojin.mosiqa.entity;
+
+public enum ImportJobStatus {
+    PENDING,
+    RUNNING,
+    COMPLETED,
+    FAILED,
+    INTERRUPTED
+}
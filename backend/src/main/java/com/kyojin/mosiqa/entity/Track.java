@@ -4,8 +4,6 @@ import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.PreUpdate;
@@ -14,11 +12,15 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.SQLRestriction;
 
 import java.time.LocalDateTime;
+import java.util.UUID;
 
 @Entity
 @Table(name = "tracks")
+// Deleted tracks stay as tombstones until TrackPurgeWorker removes them with their blobs
+@SQLRestriction("deleted_at IS NULL")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -26,8 +28,8 @@ import java.time.LocalDateTime;
 public class Track {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
-    private String id;
+    @TimeOrderedId
+    private UUID id;
 
     @Column(nullable = false)
     private String title;
@@ -38,6 +40,13 @@ public class Track {
     @Column(length = 1000)
     private String description;
 
+    // Lower-cased sort keys, generated by the database (see V2__track_query_indexes.sql)
+    @Column(insertable = false, updatable = false)
+    private String titleKey;
+
+    @Column(insertable = false, updatable = false)
+    private String artistKey;
+
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     private MusicCategory category;
@@ -45,10 +54,14 @@ public class Track {
     @Column
     private Double duration;
 
+    // Duration with unknown values sorted first, generated by the database (see V12__duration_sort_key.sql)
+    @Column(insertable = false, updatable = false)
+    private Double durationKey;
+
     @Column(nullable = false)
-    private String audioFileId;
+    private UUID audioFileId;
 
-    private String coverImageId;
+    private UUID coverImageId;
 
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -56,6 +69,8 @@ public class Track {
     @Column(nullable = false)
     private LocalDateTime updatedAt;
 
+    private LocalDateTime deletedAt;
+
     @PrePersist
     protected void onCreate() {
         LocalDateTime now = LocalDateTime.now();
@@ -0,0 +1,41 @@
+package com.kyojin.mosiqa.entity;
+
+import java.security.SecureRandom;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Time-ordered UUIDs (RFC 9562 version 7).
+ * <p>
+ * The top 48 bits hold the Unix epoch millis and the 12-bit {@code rand_a} field is used
+ * as a per-millisecond counter, so ids generated by this JVM are strictly increasing.
+ */
+public final class UuidV7 {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    // (millis << 12) | counter of the last id handed out
+    private static final AtomicLong LAST = new AtomicLong();
+
+    private UuidV7() {
+    }
+
+    public static UUID next() {
+        long now = System.currentTimeMillis() << 12;
+        long state = LAST.updateAndGet(previous -> Math.max(now, previous + 1));
+        return build(state >>> 12, state & 0xFFF);
+    }
+
+    /**
+     * Builds an id for a fixed instant, e.g. when re-keying rows by their creation time.
+     */
+    public static UUID at(long epochMillis) {
+        return build(epochMillis, RANDOM.nextInt(0x1000));
+    }
+
+    private static UUID build(long epochMillis, long counter) {
+        long msb = (epochMillis << 16) | 0x7000L | counter;
+        long lsb = (RANDOM.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(msb, lsb);
+    }
+}
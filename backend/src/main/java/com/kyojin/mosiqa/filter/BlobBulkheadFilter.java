@@ -0,0 +1,136 @@
+package com.kyojin.mosiqa.filter;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Caps how many blob transfers run at once: audio and cover downloads, multipart uploads and backups.
+ * <p>
+ * Requests run on virtual threads, so the servlet container no longer bounds concurrency; without this
+ * limit, slow listeners would pile up JDBC connections and memory until the metadata endpoints stall
+ * too. A transfer that cannot get a permit within {@code mosiqa.bulkhead.max-wait} is turned away with
+ * 503 and {@code Retry-After}. Streamed responses keep their permit until the async request completes.
+ * Uploads are admitted by {@link UploadBudgetFilter} first and only take a permit once they may proceed.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+@Slf4j
+public class BlobBulkheadFilter extends OncePerRequestFilter {
+
+    private final Semaphore permits;
+    private final Duration maxWait;
+    private final long retryAfterSeconds;
+    private final JsonMapper jsonMapper;
+
+    public BlobBulkheadFilter(@Value("${mosiqa.bulkhead.max-concurrent:64}") int maxConcurrent,
+                              @Value("${mosiqa.bulkhead.max-wait:PT0.1S}") Duration maxWait,
+                              @Value("${mosiqa.bulkhead.retry-after:PT2S}") Duration retryAfter,
+                              JsonMapper jsonMapper) {
+        this.permits = new Semaphore(Math.max(1, maxConcurrent));
+        this.maxWait = maxWait;
+        this.retryAfterSeconds = Math.max(1, retryAfter.toSeconds());
+        this.jsonMapper = jsonMapper;
+    }
+
+    static boolean isBlobTransfer(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        String contentType = request.getContentType();
+        return path.startsWith("/api/files/")
+                || path.startsWith("/api/admin/backup")
+                || (contentType != null && contentType.regionMatches(true, 0, "multipart/", 0, 10));
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !isBlobTransfer(request);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (!acquire()) {
+            reject(request, response);
+            return;
+        }
+        boolean handedOff = false;
+        try {
+            filterChain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                // StreamingResponseBody: the transfer continues after this thread returns
+                request.getAsyncContext().addListener(new PermitRelease());
+                handedOff = true;
+            }
+        } finally {
+            if (!handedOff) {
+                permits.release();
+            }
+        }
+    }
+
+    private boolean acquire() {
+        try {
+            return permits.tryAcquire(maxWait.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        log.debug("Rejecting {} {}: blob transfer limit reached", request.getMethod(), request.getRequestURI());
+        Rejections.write(jsonMapper, request, response, HttpStatus.SERVICE_UNAVAILABLE, retryAfterSeconds,
+                "Too many file transfers in progress, retry later");
+    }
+
+    /**
+     * Returns the permit once, whichever way the async request ends.
+     */
+    private final class PermitRelease implements AsyncListener {
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.kyojin.mosiqa.filter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-client token buckets on the endpoints one client can hammer at everyone else's expense:
+ * track search and audio downloads, each with its own {@code mosiqa.rate-limit.<class>} limits.
+ * <p>
+ * Clients are keyed by remote address, or by the value of {@code mosiqa.rate-limit.client-header} when
+ * that is configured and present. A request without a token gets 429 with the time until the next one
+ * as {@code Retry-After}. Runs right after CORS and before the bulkhead, so a throttled client is turned
+ * away before it takes a transfer permit. Buckets that have sat full for {@code idle-timeout} are
+ * dropped; past {@code max-clients} new clients share one overflow bucket per class.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@Slf4j
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final String OVERFLOW_CLIENT = "overflow";
+
+    private final EndpointClass search;
+    private final EndpointClass stream;
+    private final String clientHeader;
+    private final long idleNanos;
+    private final int maxClients;
+    private final JsonMapper jsonMapper;
+
+    public RateLimitFilter(@Value("${mosiqa.rate-limit.search.capacity:30}") long searchCapacity,
+                           @Value("${mosiqa.rate-limit.search.refill-per-second:5}") double searchRefill,
+                           @Value("${mosiqa.rate-limit.stream.capacity:60}") long streamCapacity,
+                           @Value("${mosiqa.rate-limit.stream.refill-per-second:2}") double streamRefill,
+                           @Value("${mosiqa.rate-limit.client-header:}") String clientHeader,
+                           @Value("${mosiqa.rate-limit.idle-timeout:PT10M}") Duration idleTimeout,
+                           @Value("${mosiqa.rate-limit.max-clients:100000}") int maxClients,
+                           JsonMapper jsonMapper) {
+        this.search = new EndpointClass("search", searchCapacity, searchRefill);
+        this.stream = new EndpointClass("stream", streamCapacity, streamRefill);
+        this.clientHeader = StringUtils.hasText(clientHeader) ? clientHeader.trim() : null;
+        this.idleNanos = idleTimeout.toNanos();
+        this.maxClients = Math.max(1, maxClients);
+        this.jsonMapper = jsonMapper;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        EndpointClass endpoint = classify(request);
+        return endpoint == null || !endpoint.enabled();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        EndpointClass endpoint = classify(request);
+        String client = clientKey(request);
+        long now = System.nanoTime();
+        long wait = endpoint.bucket(client, now).tryTake(now);
+        if (wait > 0) {
+            log.debug("Rejecting {} {}: {} rate limit reached for {}",
+                    request.getMethod(), request.getRequestURI(), endpoint.name(), client);
+            long retryAfterSeconds = Math.max(1, (wait + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+            Rejections.write(jsonMapper, request, response, HttpStatus.TOO_MANY_REQUESTS, retryAfterSeconds,
+                    "Too many requests, retry later");
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    /**
+     * Drops buckets that have been full for the idle timeout; a returning client simply starts full again.
+     */
+    @Scheduled(fixedDelayString = "${mosiqa.rate-limit.evict-interval:PT1M}")
+    public void evictIdleBuckets() {
+        long now = System.nanoTime();
+        for (EndpointClass endpoint : List.of(search, stream)) {
+            endpoint.evictIdle(now);
+        }
+    }
+
+    int trackedClients() {
+        return search.buckets.size() + stream.buckets.size();
+    }
+
+    private EndpointClass classify(HttpServletRequest request) {
+        if (!HttpMethod.GET.matches(request.getMethod())) {
+            return null;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (path.startsWith("/api/tracks/search") || path.startsWith("/api/tracks/query")) {
+            return search;
+        }
+        if (path.startsWith("/api/files/audio/")) {
+            return stream;
+        }
+        return null;
+    }
+
+    private String clientKey(HttpServletRequest request) {
+        if (clientHeader != null) {
+            String key = request.getHeader(clientHeader);
+            if (StringUtils.hasText(key)) {
+                return "key:" + key;
+            }
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    private final class EndpointClass {
+
+        private final String name;
+        private final long capacity;
+        private final double refillPerSecond;
+        private final ConcurrentMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+        EndpointClass(String name, long capacity, double refillPerSecond) {
+            this.name = name;
+            this.capacity = capacity;
+            this.refillPerSecond = refillPerSecond;
+        }
+
+        String name() {
+            return name;
+        }
+
+        boolean enabled() {
+            return capacity > 0 && refillPerSecond > 0;
+        }
+
+        TokenBucket bucket(String client, long now) {
+            TokenBucket bucket = buckets.get(client);
+            if (bucket != null) {
+                return bucket;
+            }
+            if (buckets.size() >= maxClients) {
+                evictIdle(now);
+                if (buckets.size() >= maxClients) {
+                    client = OVERFLOW_CLIENT;
+                }
+            }
+            return buckets.computeIfAbsent(client, ignored -> new TokenBucket(capacity, refillPerSecond, now));
+        }
+
+        void evictIdle(long now) {
+            buckets.values().removeIf(bucket -> bucket.idleSince(now, idleNanos));
+        }
+    }
+}
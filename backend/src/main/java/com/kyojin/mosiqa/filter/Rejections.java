@@ -0,0 +1,36 @@
+package com.kyojin.mosiqa.filter;
+
+import com.kyojin.mosiqa.exception.ErrorResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+/**
+ * Writes the same error body as {@code GlobalExceptionHandler} for requests turned away before reaching MVC.
+ */
+final class Rejections {
+
+    private Rejections() {
+    }
+
+    static void write(JsonMapper jsonMapper, HttpServletRequest request, HttpServletResponse response,
+                      HttpStatus status, long retryAfterSeconds, String message) throws IOException {
+        ErrorResponse error = ErrorResponse.builder()
+                .timestamp(LocalDateTime.now())
+                .status(status.value())
+                .error(status.getReasonPhrase())
+                .message(message)
+                .path(request.getRequestURI())
+                .build();
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getOutputStream().write(jsonMapper.writeValueAsBytes(error));
+    }
+}
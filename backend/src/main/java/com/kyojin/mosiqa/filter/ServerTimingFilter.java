@@ -0,0 +1,178 @@
+package com.kyojin.mosiqa.filter;
+
+import com.kyojin.mosiqa.metrics.RequestTiming;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reports where a request spent its time in a {@code Server-Timing} header ({@code db}, {@code blob},
+ * {@code map}, {@code serialize} and {@code total}), and logs requests slower than
+ * {@code mosiqa.server-timing.slow-threshold} with the same breakdown.
+ * <p>
+ * The header has to go out before the response is committed, so it is added just before the body outgrows
+ * the response buffer; for larger bodies it then covers serialization only up to that point, while the
+ * slow-request log always has the full figures. Streamed file bodies are written after the request thread
+ * returns, so their header covers the lookup only. Registered only when {@code mosiqa.server-timing.enabled}
+ * is true; otherwise nothing is timed at all.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+@ConditionalOnProperty(name = "mosiqa.server-timing.enabled", havingValue = "true")
+@Slf4j
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+    static final String HEADER = "Server-Timing";
+
+    private final long slowThresholdNanos;
+
+    public ServerTimingFilter(@Value("${mosiqa.server-timing.slow-threshold:PT1S}") Duration slowThreshold) {
+        this.slowThresholdNanos = slowThreshold.isZero() ? Long.MAX_VALUE : slowThreshold.toNanos();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        RequestTiming timing = RequestTiming.begin();
+        TimedResponse timed = new TimedResponse(response, timing);
+        try {
+            filterChain.doFilter(request, timed);
+        } finally {
+            RequestTiming.end();
+            long now = System.nanoTime();
+            timed.addHeader(now);
+            if (timing.totalNanos(now) >= slowThresholdNanos) {
+                log.warn("Slow request {} {} -> {} in {} ms: {}", request.getMethod(), request.getRequestURI(),
+                        timed.getStatus(), TimeUnit.NANOSECONDS.toMillis(timing.totalNanos(now)), timing.toHeader(now));
+            }
+        }
+    }
+
+    /**
+     * Adds the header at the last moment it can still be sent: before the write or flush that commits.
+     */
+    private static final class TimedResponse extends HttpServletResponseWrapper {
+
+        private final RequestTiming timing;
+        private boolean headerAdded;
+        private ServletOutputStream outputStream;
+
+        TimedResponse(HttpServletResponse response, RequestTiming timing) {
+            super(response);
+            this.timing = timing;
+        }
+
+        void addHeader(long now) {
+            if (!headerAdded && !isCommitted()) {
+                setHeader(HEADER, timing.toHeader(now));
+            }
+            headerAdded = true;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (outputStream == null) {
+                outputStream = new TimedOutputStream(super.getOutputStream());
+            }
+            return outputStream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            // Rare for this API (error pages); no byte count, so report what is known now
+            addHeader(System.nanoTime());
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            addHeader(System.nanoTime());
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            addHeader(System.nanoTime());
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            addHeader(System.nanoTime());
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            addHeader(System.nanoTime());
+            super.sendRedirect(location);
+        }
+
+        private final class TimedOutputStream extends ServletOutputStream {
+
+            private final ServletOutputStream delegate;
+            private long written;
+
+            TimedOutputStream(ServletOutputStream delegate) {
+                this.delegate = delegate;
+            }
+
+            @Override
+            public void write(int b) throws IOException {
+                beforeWrite(1);
+                delegate.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                beforeWrite(len);
+                delegate.write(b, off, len);
+            }
+
+            @Override
+            public void flush() throws IOException {
+                addHeader(System.nanoTime());
+                delegate.flush();
+            }
+
+            @Override
+            public void close() throws IOException {
+                addHeader(System.nanoTime());
+                delegate.close();
+            }
+
+            @Override
+            public boolean isReady() {
+                return delegate.isReady();
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+                delegate.setWriteListener(writeListener);
+            }
+
+            private void beforeWrite(int len) {
+                written += len;
+                if (!headerAdded && written >= getBufferSize()) {
+                    addHeader(System.nanoTime());
+                }
+            }
+        }
+    }
+}
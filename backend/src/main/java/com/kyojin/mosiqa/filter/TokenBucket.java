@@ -0,0 +1,50 @@
+package com.kyojin.mosiqa.filter;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A token bucket kept as a single timestamp, so taking a token is one compare-and-set and never blocks.
+ * <p>
+ * The state is the instant at which the bucket would be empty again if no more tokens were taken
+ * (the generic cell rate algorithm). Taking a token pushes it one refill interval into the future;
+ * a token is available while it stays within {@code capacity} intervals of now. A bucket whose
+ * timestamp lies in the past is full.
+ */
+final class TokenBucket {
+
+    private final long refillNanos;
+    private final long burstNanos;
+    private final AtomicLong emptyAt;
+
+    TokenBucket(long capacity, double refillPerSecond, long now) {
+        this.refillNanos = Math.max(1, (long) (1_000_000_000L / refillPerSecond));
+        this.burstNanos = Math.max(1, capacity) * refillNanos;
+        this.emptyAt = new AtomicLong(now);
+    }
+
+    /**
+     * Takes a token.
+     *
+     * @return 0 when a token was taken, otherwise the nanoseconds until one is available
+     */
+    long tryTake(long now) {
+        while (true) {
+            long current = emptyAt.get();
+            long next = Math.max(current, now) + refillNanos;
+            long ahead = next - now;
+            if (ahead > burstNanos) {
+                return ahead - burstNanos;
+            }
+            if (emptyAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Whether the bucket has been full for at least {@code idleNanos}, so dropping it changes nothing.
+     */
+    boolean idleSince(long now, long idleNanos) {
+        return now - emptyAt.get() >= idleNanos;
+    }
+}
@@ -0,0 +1,117 @@
+package com.kyojin.mosiqa.filter;
+
+import com.kyojin.mosiqa.dto.UploadBudgetDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A global byte budget that uploads reserve before their body is read.
+ * <p>
+ * Waiters are served first come, first served, so a large upload is not starved by a stream of small
+ * ones; at most {@code max-queue} uploads wait at a time, each for at most {@code max-wait}.
+ */
+@Component
+public class UploadBudget {
+
+    private final long capacity;
+    private final int maxQueue;
+    private final Duration maxWait;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final Deque<Object> waiters = new ArrayDeque<>();
+    private final AtomicLong admitted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private long reserved;
+    private int active;
+
+    public UploadBudget(@Value("${mosiqa.upload-budget.max-bytes:160MB}") DataSize capacity,
+                        @Value("${mosiqa.upload-budget.max-queue:32}") int maxQueue,
+                        @Value("${mosiqa.upload-budget.max-wait:PT10S}") Duration maxWait) {
+        this.capacity = Math.max(1, capacity.toBytes());
+        this.maxQueue = Math.max(0, maxQueue);
+        this.maxWait = maxWait;
+    }
+
+    long capacity() {
+        return capacity;
+    }
+
+    /**
+     * Reserves {@code bytes}, capped at the whole budget, waiting in line if they do not fit yet.
+     * Returns the number of bytes to {@link #release(long)} afterwards, or {@code -1} when turned away.
+     */
+    long reserve(long bytes) throws InterruptedException {
+        long amount = Math.min(Math.max(bytes, 0), capacity);
+        lock.lock();
+        try {
+            if (waiters.isEmpty() && reserved + amount <= capacity) {
+                return admit(amount);
+            }
+            if (waiters.size() >= maxQueue) {
+                rejected.incrementAndGet();
+                return -1;
+            }
+            Object ticket = new Object();
+            waiters.addLast(ticket);
+            try {
+                long remaining = maxWait.toNanos();
+                while (waiters.peekFirst() != ticket || reserved + amount > capacity) {
+                    if (remaining <= 0) {
+                        rejected.incrementAndGet();
+                        return -1;
+                    }
+                    remaining = changed.awaitNanos(remaining);
+                }
+                return admit(amount);
+            } finally {
+                waiters.remove(ticket);
+                // The next in line may fit now
+                changed.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void release(long bytes) {
+        lock.lock();
+        try {
+            reserved -= bytes;
+            active--;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public UploadBudgetDTO snapshot() {
+        lock.lock();
+        try {
+            return UploadBudgetDTO.builder()
+                    .capacityBytes(capacity)
+                    .reservedBytes(reserved)
+                    .activeUploads(active)
+                    .queuedUploads(waiters.size())
+                    .admitted(admitted.get())
+                    .rejected(rejected.get())
+                    .build();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long admit(long amount) {
+        reserved += amount;
+        active++;
+        admitted.incrementAndGet();
+        return amount;
+    }
+}
@@ -0,0 +1,85 @@
+package com.kyojin.mosiqa.filter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.filter.OncePerRequestFilter;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Admits track uploads against the {@link UploadBudget} by their declared {@code Content-Length}.
+ * <p>
+ * An upload ends up on the heap while it is stored, so ten concurrent 50 MB uploads are enough to exhaust
+ * a small heap. Reserving before the body is read turns bursts into waiting, and into 429 with
+ * {@code Retry-After} once the queue is full or the wait times out. Chunked uploads without a length
+ * reserve the maximum request size.
+ * <p>
+ * Runs before {@link BlobBulkheadFilter}, so an upload waiting for budget does not hold one of the
+ * transfer permits that downloads need meanwhile.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+@Slf4j
+public class UploadBudgetFilter extends OncePerRequestFilter {
+
+    private final UploadBudget budget;
+    private final long unknownLengthReservation;
+    private final long retryAfterSeconds;
+    private final JsonMapper jsonMapper;
+
+    public UploadBudgetFilter(UploadBudget budget,
+                              @Value("${spring.servlet.multipart.max-request-size:50MB}") DataSize maxRequestSize,
+                              @Value("${mosiqa.upload-budget.retry-after:PT5S}") Duration retryAfter,
+                              JsonMapper jsonMapper) {
+        this.budget = budget;
+        this.unknownLengthReservation = maxRequestSize.toBytes();
+        this.retryAfterSeconds = Math.max(1, retryAfter.toSeconds());
+        this.jsonMapper = jsonMapper;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String method = request.getMethod();
+        String contentType = request.getContentType();
+        return !(HttpMethod.POST.matches(method) || HttpMethod.PUT.matches(method))
+                || contentType == null
+                || !contentType.regionMatches(true, 0, "multipart/", 0, 10)
+                || !request.getRequestURI().substring(request.getContextPath().length()).startsWith("/api/tracks");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long declared = request.getContentLengthLong();
+        long reservation;
+        try {
+            reservation = budget.reserve(declared >= 0 ? declared : unknownLengthReservation);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            reservation = -1;
+        }
+        if (reservation < 0) {
+            log.debug("Rejecting {} {}: upload budget exhausted", request.getMethod(), request.getRequestURI());
+            Rejections.write(jsonMapper, request, response, HttpStatus.TOO_MANY_REQUESTS, retryAfterSeconds,
+                    "Too many uploads in progress, retry later");
+            return;
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            budget.release(reservation);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.kyojin.mosiqa.mapper;
+
+import com.kyojin.mosiqa.dto.ImportJobDTO;
+import com.kyojin.mosiqa.entity.ImportJob;
+import org.mapstruct.AfterMapping;
+import org.mapstruct.Mapper;
+import org.mapstruct.MappingTarget;
+import org.mapstruct.ReportingPolicy;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Mapper(componentModel = "spring", unmappedTargetPolicy = ReportingPolicy.IGNORE)
+public interface ImportJobMapper {
+
+    ImportJobDTO toDTO(ImportJob job);
+
+    List<ImportJobDTO> toDTOList(List<ImportJob> jobs);
+
+    @AfterMapping
+    default void computeThroughput(ImportJob job, @MappingTarget ImportJobDTO dto) {
+        if (job.getStartedAt() == null) {
+            return;
+        }
+        LocalDateTime end = job.getFinishedAt() != null ? job.getFinishedAt() : LocalDateTime.now();
+        long millis = Duration.between(job.getStartedAt(), end).toMillis();
+        if (millis > 0) {
+            dto.setTracksPerSecond(job.getImportedEntries() * 1000.0 / millis);
+        }
+    }
+}
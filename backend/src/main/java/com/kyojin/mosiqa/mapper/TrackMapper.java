@@ -4,6 +4,7 @@ import com.kyojin.mosiqa.dto.TrackCreateRequest;
 import com.kyojin.mosiqa.dto.TrackDTO;
 import com.kyojin.mosiqa.dto.TrackUpdateRequest;
 import com.kyojin.mosiqa.entity.Track;
+import com.kyojin.mosiqa.repository.TrackSummary;
 import org.mapstruct.BeanMapping;
 import org.mapstruct.Mapper;
 import org.mapstruct.MappingTarget;
@@ -19,6 +20,10 @@ public interface TrackMapper {
 
     List<TrackDTO> toDTOList(List<Track> tracks);
 
+    TrackDTO summaryToDTO(TrackSummary summary);
+
+    List<TrackDTO> summariesToDTOList(List<TrackSummary> summaries);
+
     Track toEntity(TrackCreateRequest request);
 
     @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
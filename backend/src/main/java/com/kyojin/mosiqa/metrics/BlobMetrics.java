@@ -0,0 +1,118 @@
+package com.kyojin.mosiqa.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Meters for the blob hot paths, all registered up front so recording is a field read and an add.
+ * <ul>
+ *   <li>{@code mosiqa.blob.read}: whole-blob reads by where the bytes came from: the row, a storage
+ *   volume or the cold tier. Their counts per source give the hot/cold hit ratio.</li>
+ *   <li>{@code mosiqa.blob.write}: writes to a storage volume. Bytes kept in the database are written at
+ *   commit and show up in the request timings instead.</li>
+ *   <li>{@code mosiqa.upload.size}: size of every uploaded audio file and cover image.</li>
+ *   <li>{@code mosiqa.bytes.served}: response bytes actually written by the file endpoints, including
+ *   streams the client cut short.</li>
+ *   <li>{@code mosiqa.reads.coalesced}: concurrent loads of the same blob that ran once and were shared.</li>
+ * </ul>
+ */
+@Component
+public class BlobMetrics {
+
+    public enum Content {
+        AUDIO, COVER, COVER_BUNDLE
+    }
+
+    public enum Source {
+        ROW, VOLUME, COLD
+    }
+
+    private final MeterRegistry registry;
+    private final Map<Content, Map<Source, Timer>> reads = new EnumMap<>(Content.class);
+    private final Map<Content, Timer> writes = new EnumMap<>(Content.class);
+    private final Map<Content, DistributionSummary> uploads = new EnumMap<>(Content.class);
+    private final Map<Content, Counter> served = new EnumMap<>(Content.class);
+
+    public BlobMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        for (Content content : List.of(Content.AUDIO, Content.COVER)) {
+            String kind = tag(content);
+            Map<Source, Timer> bySource = new EnumMap<>(Source.class);
+            for (Source source : Source.values()) {
+                bySource.put(source, Timer.builder("mosiqa.blob.read")
+                        .description("Blob reads by where the bytes were found")
+                        .tag("kind", kind)
+                        .tag("source", tag(source))
+                        .publishPercentileHistogram()
+                        .register(registry));
+            }
+            reads.put(content, bySource);
+            writes.put(content, Timer.builder("mosiqa.blob.write")
+                    .description("Blob writes to a storage volume")
+                    .tag("kind", kind)
+                    .publishPercentileHistogram()
+                    .register(registry));
+            uploads.put(content, DistributionSummary.builder("mosiqa.upload.size")
+                    .description("Size of uploaded files")
+                    .baseUnit("bytes")
+                    .tag("kind", kind)
+                    .publishPercentileHistogram()
+                    .register(registry));
+        }
+        for (Content content : Content.values()) {
+            served.put(content, Counter.builder("mosiqa.bytes.served")
+                    .description("Response bytes written by the file endpoints")
+                    .baseUnit("bytes")
+                    .tag("kind", tag(content))
+                    .register(registry));
+        }
+    }
+
+    public Timer read(Content content, Source source) {
+        return reads.get(content).get(source);
+    }
+
+    public Timer write(Content content) {
+        return writes.get(content);
+    }
+
+    public void uploaded(Content content, long bytes) {
+        uploads.get(content).record(bytes);
+    }
+
+    public void served(Content content, long bytes) {
+        if (bytes > 0) {
+            served.get(content).increment(bytes);
+        }
+    }
+
+    /**
+     * Publishes how many loads of {@code name} ran and how many callers shared one already in flight.
+     */
+    public void coalescing(String name, LongSupplier loaded, LongSupplier shared) {
+        FunctionCounter.builder("mosiqa.reads.coalesced", loaded, LongSupplier::getAsLong)
+                .description("Blob loads by whether they ran or joined one in flight")
+                .tag("load", name)
+                .tag("result", "loaded")
+                .register(registry);
+        FunctionCounter.builder("mosiqa.reads.coalesced", shared, LongSupplier::getAsLong)
+                .description("Blob loads by whether they ran or joined one in flight")
+                .tag("load", name)
+                .tag("result", "shared")
+                .register(registry);
+    }
+
+    private static String tag(Enum<?> value) {
+        return value.name().toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+}
@@ -0,0 +1,73 @@
+package com.kyojin.mosiqa.metrics;
+
+import com.kyojin.mosiqa.mapper.TrackMapper;
+import com.kyojin.mosiqa.metrics.RequestTiming.Phase;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.repository.Repository;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Counts calls into Spring Data repositories as {@link Phase#DB} and into the MapStruct mappers as
+ * {@link Phase#MAP} for the current request's {@link RequestTiming}.
+ * <p>
+ * Repositories are already proxies, so the interceptor is added to the front of their advice chain;
+ * mappers get a proxy of their own. Only registered when server timing is enabled.
+ */
+public class PhaseTimingPostProcessor implements BeanPostProcessor {
+
+    private static final String MAPPER_PACKAGE = TrackMapper.class.getPackageName();
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        Phase phase = phaseOf(bean);
+        if (phase == null) {
+            return bean;
+        }
+        PhaseInterceptor interceptor = new PhaseInterceptor(phase);
+        if (bean instanceof Advised advised && !advised.isFrozen()) {
+            advised.addAdvice(0, interceptor);
+            return bean;
+        }
+        ProxyFactory proxyFactory = new ProxyFactory(bean);
+        proxyFactory.addAdvice(interceptor);
+        return proxyFactory.getProxy(ClassUtils.getDefaultClassLoader());
+    }
+
+    private static Phase phaseOf(Object bean) {
+        if (bean instanceof Repository<?, ?>) {
+            return Phase.DB;
+        }
+        if (ClassUtils.getUserClass(bean).getPackageName().equals(MAPPER_PACKAGE)) {
+            return Phase.MAP;
+        }
+        return null;
+    }
+
+    private record PhaseInterceptor(Phase phase) implements MethodInterceptor {
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            RequestTiming timing = RequestTiming.current();
+            if (timing == null) {
+                return invocation.proceed();
+            }
+            if (!timing.enter()) {
+                try {
+                    return invocation.proceed();
+                } finally {
+                    timing.leave();
+                }
+            }
+            long start = System.nanoTime();
+            try {
+                return invocation.proceed();
+            } finally {
+                timing.exit(phase, System.nanoTime() - start);
+            }
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.kyojin.mosiqa.metrics;
+
+import java.util.Locale;
+
+/**
+ * Time spent in each phase of the current request, reported in the {@code Server-Timing} header.
+ * <p>
+ * One instance per request, bound to the request thread by {@code ServerTimingFilter}, so recording is
+ * a thread-local read and an add. Without a bound instance (timing disabled, background jobs, streamed
+ * bodies written after the request thread returned) every call is a no-op. Nested timed calls count
+ * towards the outermost phase only.
+ */
+public final class RequestTiming {
+
+    public enum Phase {
+        DB, BLOB, MAP, SERIALIZE;
+
+        final String metric = name().toLowerCase(Locale.ROOT);
+    }
+
+    private static final ThreadLocal<RequestTiming> CURRENT = new ThreadLocal<>();
+
+    private final long startedAt;
+    private final long[] nanos = new long[Phase.values().length];
+    private int depth;
+    private long serializingSince;
+
+    private RequestTiming(long startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public static RequestTiming begin() {
+        RequestTiming timing = new RequestTiming(System.nanoTime());
+        CURRENT.set(timing);
+        return timing;
+    }
+
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    public static RequestTiming current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Adds time measured by the caller, e.g. a blob read that is already timed for its own meter.
+     */
+    public static void record(Phase phase, long elapsedNanos) {
+        RequestTiming timing = CURRENT.get();
+        if (timing != null && timing.depth == 0) {
+            timing.nanos[phase.ordinal()] += elapsedNanos;
+        }
+    }
+
+    /**
+     * Starts a timed call, which ends with {@link #exit} if this returns true and {@link #leave} otherwise.
+     *
+     * @return false when an enclosing call is already being timed
+     */
+    boolean enter() {
+        return depth++ == 0;
+    }
+
+    void leave() {
+        depth--;
+    }
+
+    void exit(Phase phase, long elapsedNanos) {
+        depth--;
+        nanos[phase.ordinal()] += elapsedNanos;
+    }
+
+    /**
+     * Marks the start of response body serialization, which then runs until the response is complete.
+     */
+    public void serializing() {
+        if (serializingSince == 0) {
+            serializingSince = System.nanoTime();
+        }
+    }
+
+    public long totalNanos(long now) {
+        return now - startedAt;
+    }
+
+    /**
+     * Renders the phases so far as a {@code Server-Timing} header value in milliseconds, e.g.
+     * {@code db;dur=3.2, map;dur=0.4, serialize;dur=1.1, total;dur=5.0}. Phases with no time are left out.
+     */
+    public String toHeader(long now) {
+        StringBuilder header = new StringBuilder(96);
+        for (Phase phase : Phase.values()) {
+            long elapsed = phaseNanos(phase, now);
+            if (elapsed > 0) {
+                appendMetric(header, phase.metric, elapsed);
+            }
+        }
+        appendMetric(header, "total", totalNanos(now));
+        return header.toString();
+    }
+
+    long phaseNanos(Phase phase, long now) {
+        if (phase == Phase.SERIALIZE && serializingSince != 0) {
+            return nanos[phase.ordinal()] + now - serializingSince;
+        }
+        return nanos[phase.ordinal()];
+    }
+
+    private static void appendMetric(StringBuilder header, String name, long elapsedNanos) {
+        if (!header.isEmpty()) {
+            header.append(", ");
+        }
+        // Tenths of a millisecond are plenty and keep the header short
+        long tenths = (elapsedNanos + 50_000) / 100_000;
+        header.append(name).append(";dur=").append(tenths / 10).append('.').append(tenths % 10);
+    }
+}
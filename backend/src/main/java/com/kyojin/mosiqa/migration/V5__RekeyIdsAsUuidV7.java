@@ -0,0 +1,81 @@
+package com.kyojin.mosiqa.migration;
+
+import com.kyojin.mosiqa.entity.UuidV7;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Replaces the random v4 ids of existing rows with UUIDv7 ids derived from {@code created_at},
+ * so that id order matches creation order for old and new rows alike.
+ */
+@Component
+public class V5__RekeyIdsAsUuidV7 extends BaseJavaMigration {
+
+    private static final int BATCH_SIZE = 500;
+
+    @Override
+    public void migrate(Context context) throws SQLException {
+        Connection connection = context.getConnection();
+        rekey(connection, "audio_files", "audio_file_id");
+        rekey(connection, "cover_images", "cover_image_id");
+        rekey(connection, "tracks", null);
+    }
+
+    private void rekey(Connection connection, String table, String trackReference) throws SQLException {
+        List<UUID[]> mappings = new ArrayList<>();
+        try (Statement select = connection.createStatement();
+             ResultSet rows = select.executeQuery("SELECT id, created_at FROM " + table)) {
+            while (rows.next()) {
+                UUID oldId = rows.getObject(1, UUID.class);
+                Timestamp createdAt = rows.getTimestamp(2);
+                if (oldId.version() != 7) {
+                    mappings.add(new UUID[]{oldId, UuidV7.at(createdAt.getTime())});
+                }
+            }
+        }
+
+        try (PreparedStatement updateId = connection.prepareStatement(
+                "UPDATE " + table + " SET id = ? WHERE id = ?");
+             PreparedStatement updateReference = trackReference == null ? null : connection.prepareStatement(
+                     "UPDATE tracks SET " + trackReference + " = ? WHERE " + trackReference + " = ?")) {
+            int pending = 0;
+            for (UUID[] mapping : mappings) {
+                bind(updateId, mapping);
+                if (updateReference != null) {
+                    bind(updateReference, mapping);
+                }
+                if (++pending == BATCH_SIZE) {
+                    flush(updateId, updateReference);
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                flush(updateId, updateReference);
+            }
+        }
+    }
+
+    private void bind(PreparedStatement statement, UUID[] mapping) throws SQLException {
+        statement.setObject(1, mapping[1]);
+        statement.setObject(2, mapping[0]);
+        statement.addBatch();
+    }
+
+    private void flush(PreparedStatement updateId, PreparedStatement updateReference) throws SQLException {
+        updateId.executeBatch();
+        if (updateReference != null) {
+            updateReference.executeBatch();
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package com.kyojin.mosiqa.reactive;
+
+import com.kyojin.mosiqa.controller.FileController;
+import com.kyojin.mosiqa.converter.CoverBundleCodec;
+import com.kyojin.mosiqa.entity.AudioFile;
+import com.kyojin.mosiqa.exception.ErrorResponse;
+import com.kyojin.mosiqa.metrics.BlobMetrics;
+import com.kyojin.mosiqa.metrics.BlobMetrics.Content;
+import com.kyojin.mosiqa.service.BlobTierService;
+import com.kyojin.mosiqa.service.FileStorageService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The {@link FileController} endpoints as handler functions for the {@link ReactiveFileServer}.
+ * <p>
+ * Audio stored as a plain file on a storage volume is read from an {@link AsynchronousFileChannel} in
+ * {@code chunk-size} buffers, one read per buffer the socket asks for, so a slow listener holds a file
+ * handle and a single buffer rather than a thread. Everything that needs JDBC or decoding (metadata,
+ * blobs in the database or the cold tier, compressed WAV files) runs on virtual threads and is handed to
+ * the event loop through a bounded output stream, which blocks the writer until the client catches up.
+ */
+@Component
+@Profile(ReactiveFileServer.PROFILE)
+@Slf4j
+class ReactiveFileHandler {
+
+    private static final DataBufferFactory BUFFERS = DefaultDataBufferFactory.sharedInstance;
+    private static final CacheControl IMMUTABLE = CacheControl.maxAge(Duration.ofDays(365));
+
+    private final FileStorageService fileStorageService;
+    private final BlobTierService blobTierService;
+    private final BlobMetrics blobMetrics;
+    private final int chunkSize;
+    private final ExecutorService blockingExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Scheduler blocking = Schedulers.fromExecutorService(blockingExecutor, "reactive-files-blocking");
+
+    ReactiveFileHandler(FileStorageService fileStorageService,
+                        BlobTierService blobTierService,
+                        BlobMetrics blobMetrics,
+                        @Value("${mosiqa.reactive-files.chunk-size:64KB}") DataSize chunkSize) {
+        this.fileStorageService = fileStorageService;
+        this.blobTierService = blobTierService;
+        this.blobMetrics = blobMetrics;
+        this.chunkSize = (int) Math.max(4096, Math.min(chunkSize.toBytes(), 1 << 20));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        blocking.dispose();
+    }
+
+    private record StoredAudio(AudioFile audioFile, Path file) {
+    }
+
+    Mono<ServerResponse> getAudioFile(ServerRequest request) {
+        UUID id = parseId(request);
+        String range = request.headers().firstHeader(HttpHeaders.RANGE);
+        log.debug("GET /api/files/audio/{} - Streaming audio file, range {}", id, range);
+        if (id == null) {
+            return error(request, HttpStatus.BAD_REQUEST, "Invalid audio file id");
+        }
+
+        return blocking(() -> fileStorageService.getAudioFile(id)
+                .map(audioFile -> new StoredAudio(audioFile, fileStorageService.findStoredAudioFile(audioFile).orElse(null))))
+                .flatMap(found -> found
+                        .map(stored -> streamAudio(stored, range))
+                        .orElseGet(() -> error(request, HttpStatus.NOT_FOUND, "Audio file not found with id: '" + id + "'")));
+    }
+
+    Mono<ServerResponse> getCoverImage(ServerRequest request) {
+        UUID id = parseId(request);
+        log.debug("GET /api/files/cover/{} - Getting cover image", id);
+        if (id == null) {
+            return error(request, HttpStatus.BAD_REQUEST, "Invalid cover image id");
+        }
+
+        return blocking(() -> fileStorageService.getCoverImage(id))
+                .flatMap(found -> found
+                        .map(coverImage -> {
+                            blobTierService.recordAccess(id);
+                            return blocking(() -> fileStorageService.readCoverImage(coverImage))
+                                    .doOnNext(data -> blobMetrics.served(Content.COVER, data.length))
+                                    .flatMap(data -> ServerResponse.ok()
+                                            .contentType(MediaType.parseMediaType(coverImage.getMimeType()))
+                                            .contentLength(data.length)
+                                            .cacheControl(IMMUTABLE)
+                                            .bodyValue(data));
+                        })
+                        .orElseGet(() -> error(request, HttpStatus.NOT_FOUND, "Cover image not found with id: '" + id + "'")));
+    }
+
+    Mono<ServerResponse> getCoverImages(ServerRequest request) {
+        List<UUID> ids;
+        Integer size;
+        try {
+            ids = request.queryParams().getOrDefault("ids", List.of()).stream()
+                    .flatMap(value -> Arrays.stream(value.split(",")))
+                    .map(String::trim)
+                    .filter(value -> !value.isEmpty())
+                    .map(UUID::fromString)
+                    .distinct()
+                    .toList();
+            size = request.queryParam("size").map(Integer::valueOf).orElse(null);
+        } catch (IllegalArgumentException e) {
+            return error(request, HttpStatus.BAD_REQUEST, "Invalid cover ids or size");
+        }
+        log.debug("GET /api/files/covers - Getting {} cover images, size {}", ids.size(), size);
+
+        if (ids.isEmpty() || ids.size() > FileController.MAX_BUNDLE_COVERS) {
+            return error(request, HttpStatus.BAD_REQUEST,
+                    "Between 1 and " + FileController.MAX_BUNDLE_COVERS + " cover ids are required");
+        }
+        if (size != null && (size < FileController.MIN_COVER_SIZE || size > FileController.MAX_COVER_SIZE)) {
+            return error(request, HttpStatus.BAD_REQUEST,
+                    "Size must be between " + FileController.MIN_COVER_SIZE + " and " + FileController.MAX_COVER_SIZE);
+        }
+        ids.forEach(blobTierService::recordAccess);
+
+        Flux<DataBuffer> body = DataBufferUtils.outputStreamPublisher(out -> {
+            try {
+                fileStorageService.writeCoverBundle(ids, size, out);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, BUFFERS, blockingExecutor, chunkSize)
+                .doOnNext(buffer -> blobMetrics.served(Content.COVER_BUNDLE, buffer.readableByteCount()));
+        return ServerResponse.ok()
+                .contentType(MediaType.parseMediaType(CoverBundleCodec.MEDIA_TYPE_VALUE))
+                .cacheControl(IMMUTABLE)
+                .body(BodyInserters.fromDataBuffers(body));
+    }
+
+    private Mono<ServerResponse> streamAudio(StoredAudio stored, String range) {
+        AudioFile audioFile = stored.audioFile();
+        blobTierService.recordAccess(audioFile.getId());
+        long length = audioFile.getSize();
+
+        long start = 0;
+        long end = length;
+        HttpStatus status = HttpStatus.OK;
+        List<HttpRange> ranges = parseRanges(range);
+        // Same rules as the servlet controller: a single range is honoured, anything else gets the whole file
+        if (ranges.size() == 1) {
+            try {
+                start = ranges.get(0).getRangeStart(length);
+                end = ranges.get(0).getRangeEnd(length) + 1;
+            } catch (IllegalArgumentException e) {
+                return ServerResponse.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                        .header(HttpHeaders.CONTENT_RANGE, "bytes */" + length)
+                        .build();
+            }
+            status = HttpStatus.PARTIAL_CONTENT;
+        }
+
+        long from = start;
+        long to = end;
+        Flux<DataBuffer> body = stored.file() != null
+                ? readFile(stored.file(), from, to)
+                // Moved to another volume or demoted to the cold tier since it was located
+                .onErrorResume(NoSuchFileException.class, e -> writeBlocking(audioFile, from, to))
+                : writeBlocking(audioFile, from, to);
+
+        ServerResponse.BodyBuilder response = ServerResponse.status(status)
+                .contentType(MediaType.parseMediaType(audioFile.getMimeType()))
+                .contentLength(to - from)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + audioFile.getName() + "\"")
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (status == HttpStatus.PARTIAL_CONTENT) {
+            response.header(HttpHeaders.CONTENT_RANGE, "bytes " + from + "-" + (to - 1) + "/" + length);
+        }
+        return response.body(BodyInserters.fromDataBuffers(
+                body.doOnNext(buffer -> blobMetrics.served(Content.AUDIO, buffer.readableByteCount()))));
+    }
+
+    /**
+     * Reads {@code [start, end)} straight from the file; the channel is opened on subscription, so a missing
+     * file fails before any bytes are sent.
+     */
+    private Flux<DataBuffer> readFile(Path file, long start, long end) {
+        Flux<DataBuffer> chunks = DataBufferUtils.readAsynchronousFileChannel(
+                () -> AsynchronousFileChannel.open(file, StandardOpenOption.READ), start, BUFFERS, chunkSize);
+        return DataBufferUtils.takeUntilByteCount(chunks, end - start);
+    }
+
+    private Flux<DataBuffer> writeBlocking(AudioFile audioFile, long start, long end) {
+        return DataBufferUtils.outputStreamPublisher(out -> {
+            try {
+                fileStorageService.writeAudio(audioFile, start, end, out);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, BUFFERS, blockingExecutor, chunkSize);
+    }
+
+    private <T> Mono<T> blocking(Callable<T> call) {
+        return Mono.fromCallable(call).subscribeOn(blocking);
+    }
+
+    private static Mono<ServerResponse> error(ServerRequest request, HttpStatus status, String message) {
+        ErrorResponse error = ErrorResponse.builder()
+                .timestamp(LocalDateTime.now())
+                .status(status.value())
+                .error(status.getReasonPhrase())
+                .message(message)
+                .path(request.path())
+                .build();
+        return ServerResponse.status(status).contentType(MediaType.APPLICATION_JSON).bodyValue(error);
+    }
+
+    private static UUID parseId(ServerRequest request) {
+        try {
+            return UUID.fromString(request.pathVariable("id"));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static List<HttpRange> parseRanges(String range) {
+        try {
+            return HttpRange.parseRanges(range);
+        } catch (IllegalArgumentException e) {
+            return List.of();
+        }
+    }
+}
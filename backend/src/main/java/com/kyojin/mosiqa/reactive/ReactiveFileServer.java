@@ -0,0 +1,94 @@
+package com.kyojin.mosiqa.reactive;
+
+import lombok.extern.slf4j.Slf4j;
+import com.kyojin.mosiqa.controller.FileController;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.server.reactive.ReactorHttpHandlerAdapter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.time.Duration;
+
+/**
+ * A Reactor Netty listener serving the file endpoints next to the servlet stack, enabled with the
+ * {@value #PROFILE} profile.
+ * <p>
+ * Only {@code /api/files/**} is served here, on {@code mosiqa.reactive-files.port}; a proxy in front
+ * routes those paths to it and everything else to the servlet port. Streams wait on socket demand
+ * instead of holding a thread, so many concurrent listeners cost a few event-loop threads. The servlet
+ * filters (rate limiting, bulkhead) do not apply to this listener.
+ */
+@Component
+@Profile(ReactiveFileServer.PROFILE)
+@Slf4j
+public class ReactiveFileServer implements SmartLifecycle {
+
+    public static final String PROFILE = "reactive-files";
+
+    /**
+     * Longest request line accepted. Reactor Netty defaults to 4096 bytes, which cuts a cover bundle
+     * request off at about 110 ids; this fits {@link FileController#MAX_BUNDLE_COVERS} ids of 36
+     * characters each with a percent-encoded separator, plus the path and size parameter.
+     */
+    static final int MAX_INITIAL_LINE_LENGTH = 1024 + FileController.MAX_BUNDLE_COVERS * (36 + 3);
+
+    private final ReactiveFileHandler handler;
+    private final String host;
+    private final int port;
+    private final Duration shutdownTimeout;
+    private volatile DisposableServer server;
+
+    ReactiveFileServer(ReactiveFileHandler handler,
+                       @Value("${mosiqa.reactive-files.host:0.0.0.0}") String host,
+                       @Value("${mosiqa.reactive-files.port:8081}") int port,
+                       @Value("${mosiqa.reactive-files.shutdown-timeout:PT10S}") Duration shutdownTimeout) {
+        this.handler = handler;
+        this.host = host;
+        this.port = port;
+        this.shutdownTimeout = shutdownTimeout;
+    }
+
+    RouterFunction<ServerResponse> routes() {
+        return RouterFunctions.route()
+                .GET("/api/files/audio/{id}", handler::getAudioFile)
+                .GET("/api/files/cover/{id}", handler::getCoverImage)
+                .GET("/api/files/covers", handler::getCoverImages)
+                .build();
+    }
+
+    @Override
+    public void start() {
+        ReactorHttpHandlerAdapter adapter = new ReactorHttpHandlerAdapter(RouterFunctions.toHttpHandler(routes()));
+        server = HttpServer.create()
+                .host(host)
+                .port(port)
+                .httpRequestDecoder(spec -> spec.maxInitialLineLength(MAX_INITIAL_LINE_LENGTH))
+                .handle(adapter)
+                .bindNow();
+        log.info("Reactive file server listening on {}:{}", host, server.port());
+    }
+
+    @Override
+    public void stop() {
+        DisposableServer running = server;
+        if (running != null) {
+            running.disposeNow(shutdownTimeout);
+            server = null;
+        }
+    }
+
+    int port() {
+        return server.port();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return server != null;
+    }
+}
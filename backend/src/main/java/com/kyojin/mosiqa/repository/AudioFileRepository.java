@@ -4,6 +4,8 @@ import com.kyojin.mosiqa.entity.AudioFile;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.UUID;
+
 @Repository
-public interface AudioFileRepository extends JpaRepository<AudioFile, String> {
+public interface AudioFileRepository extends JpaRepository<AudioFile, UUID> {
 }
@@ -0,0 +1,16 @@
+package com.kyojin.mosiqa.repository;
+
+import java.util.UUID;
+
+/**
+ * Closed projection of {@link com.kyojin.mosiqa.entity.CoverImage} for serving image bytes.
+ * Rows come back as plain values rather than managed entities, so no persistence context holds on to them.
+ */
+public interface CoverImageContent {
+
+    UUID getId();
+
+    String getMimeType();
+
+    byte[] getData();
+}
@@ -0,0 +1,14 @@
+package com.kyojin.mosiqa.repository;
+
+import java.util.UUID;
+
+/**
+ * Closed projection of {@link com.kyojin.mosiqa.entity.CoverImage} without its bytes, for checking which
+ * covers exist before reading any of them.
+ */
+public interface CoverImageRef {
+
+    UUID getId();
+
+    String getMimeType();
+}
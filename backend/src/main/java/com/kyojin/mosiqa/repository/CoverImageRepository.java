@@ -4,6 +4,14 @@ import com.kyojin.mosiqa.entity.CoverImage;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
 @Repository
-public interface CoverImageRepository extends JpaRepository<CoverImage, String> {
+public interface CoverImageRepository extends JpaRepository<CoverImage, UUID> {
+
+    List<CoverImageRef> findRefsByIdIn(Collection<UUID> ids);
+
+    List<CoverImageContent> findContentsByIdIn(Collection<UUID> ids);
 }
@@ -0,0 +1,14 @@
+package com.kyojin.mosiqa.repository;
+
+import com.kyojin.mosiqa.entity.ImportJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface ImportJobRepository extends JpaRepository<ImportJob, UUID> {
+
+    List<ImportJob> findAllByOrderByCreatedAtDesc();
+}
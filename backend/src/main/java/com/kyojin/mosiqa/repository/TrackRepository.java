@@ -2,26 +2,57 @@ package com.kyojin.mosiqa.repository;
 
 import com.kyojin.mosiqa.entity.MusicCategory;
 import com.kyojin.mosiqa.entity.Track;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.UUID;
 
 @Repository
-public interface TrackRepository extends JpaRepository<Track, String> {
+public interface TrackRepository extends JpaRepository<Track, UUID>, JpaSpecificationExecutor<Track> {
 
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
     List<Track> findByCategory(MusicCategory category);
 
     List<Track> findByArtistContainingIgnoreCase(String artist);
 
     List<Track> findByTitleContainingIgnoreCase(String title);
 
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
     @Query("SELECT t FROM Track t WHERE " +
            "LOWER(t.title) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
            "LOWER(t.artist) LIKE LOWER(CONCAT('%', :query, '%'))")
     List<Track> searchByTitleOrArtist(@Param("query") String query);
 
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
     List<Track> findAllByOrderByCreatedAtDesc();
+
+    List<TrackSummary> findSummariesByOrderByCreatedAtDesc();
+
+    List<TrackSummary> findSummariesByCategory(MusicCategory category);
+
+    List<TrackSummary> findSummariesByIdIn(Collection<UUID> ids);
+
+    @Query("SELECT t.id AS id, t.title AS title, t.artist AS artist, t.category AS category, " +
+           "t.duration AS duration, t.audioFileId AS audioFileId, t.coverImageId AS coverImageId, " +
+           "t.createdAt AS createdAt FROM Track t WHERE " +
+           "LOWER(t.title) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
+           "LOWER(t.artist) LIKE LOWER(CONCAT('%', :query, '%'))")
+    List<TrackSummary> searchSummariesByTitleOrArtist(@Param("query") String query);
+
+    /**
+     * Tombstones the given tracks; returns how many were live. The blobs are purged in the background.
+     */
+    @Modifying
+    @Query(value = "UPDATE tracks SET deleted_at = :deletedAt WHERE id IN (:ids) AND deleted_at IS NULL", nativeQuery = true)
+    int markDeleted(@Param("ids") Collection<UUID> ids, @Param("deletedAt") LocalDateTime deletedAt);
 }
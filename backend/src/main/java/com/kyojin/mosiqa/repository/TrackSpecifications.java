@@ -0,0 +1,61 @@
+package com.kyojin.mosiqa.repository;
+
+import com.kyojin.mosiqa.dto.TrackQuery;
+import com.kyojin.mosiqa.entity.Track;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+public final class TrackSpecifications {
+
+    private static final char LIKE_ESCAPE = '\\';
+
+    private TrackSpecifications() {
+    }
+
+    /**
+     * Combines every filter set on the query. Text matching runs against the lower-cased key
+     * columns so it shares the case-insensitive semantics of the title/artist sort indexes.
+     */
+    public static Specification<Track> matching(TrackQuery query) {
+        return (root, criteriaQuery, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+
+            if (query.getCategory() != null) {
+                predicates.add(cb.equal(root.get("category"), query.getCategory()));
+            }
+
+            String text = query.getText();
+            if (text != null && !text.isBlank()) {
+                String pattern = "%" + escapeLike(text.trim().toLowerCase(Locale.ROOT)) + "%";
+                predicates.add(cb.or(
+                        cb.like(root.<String>get("titleKey"), pattern, LIKE_ESCAPE),
+                        cb.like(root.<String>get("artistKey"), pattern, LIKE_ESCAPE)
+                ));
+            }
+
+            if (query.getMinDuration() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.<Double>get("duration"), query.getMinDuration()));
+            }
+            if (query.getMaxDuration() != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.<Double>get("duration"), query.getMaxDuration()));
+            }
+
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    private static String escapeLike(String value) {
+        StringBuilder escaped = new StringBuilder(value.length());
+        for (char c : value.toCharArray()) {
+            if (c == '%' || c == '_' || c == LIKE_ESCAPE) {
+                escaped.append(LIKE_ESCAPE);
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+}
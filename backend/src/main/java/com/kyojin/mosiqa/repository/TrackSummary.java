@@ -0,0 +1,29 @@
+package com.kyojin.mosiqa.repository;
+
+import com.kyojin.mosiqa.entity.MusicCategory;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Closed projection of {@link com.kyojin.mosiqa.entity.Track} used by grid views.
+ * Leaves out the description and update timestamp so list queries only read the narrow columns.
+ */
+public interface TrackSummary {
+
+    UUID getId();
+
+    String getTitle();
+
+    String getArtist();
+
+    MusicCategory getCategory();
+
+    Double getDuration();
+
+    UUID getAudioFileId();
+
+    UUID getCoverImageId();
+
+    LocalDateTime getCreatedAt();
+}
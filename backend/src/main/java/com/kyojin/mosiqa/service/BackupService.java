@@ -0,0 +1,20 @@
+package com.kyojin.mosiqa.service;
+
+import com.kyojin.mosiqa.dto.RestoreResultDTO;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+public interface BackupService {
+
+    /**
+     * Writes a zip archive of the whole library, metadata and blobs, from one consistent snapshot.
+     */
+    void writeBackup(OutputStream out) throws IOException;
+
+    /**
+     * Reads an archive produced by {@link #writeBackup(OutputStream)}; existing rows with the same ids are overwritten.
+     */
+    RestoreResultDTO restore(InputStream in);
+}
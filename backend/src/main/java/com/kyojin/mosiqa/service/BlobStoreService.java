@@ -0,0 +1,14 @@
+package com.kyojin.mosiqa.service;
+
+import com.kyojin.mosiqa.dto.RebalanceResultDTO;
+
+public interface BlobStoreService {
+
+    boolean isEnabled();
+
+    /**
+     * Moves blob files to the volume that owns them under the current volume list, and migrates
+     * blobs still held in the database onto the volumes.
+     */
+    RebalanceResultDTO rebalance();
+}
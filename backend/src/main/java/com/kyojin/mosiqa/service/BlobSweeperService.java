@@ -0,0 +1,11 @@
+package com.kyojin.mosiqa.service;
+
+import com.kyojin.mosiqa.dto.SweepResultDTO;
+
+public interface BlobSweeperService {
+
+    /**
+     * Deletes audio files and cover images that no track references, within the configured rate limit.
+     */
+    SweepResultDTO sweep();
+}
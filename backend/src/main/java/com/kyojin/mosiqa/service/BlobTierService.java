@@ -0,0 +1,18 @@
+package com.kyojin.mosiqa.service;
+
+import com.kyojin.mosiqa.dto.TieringResultDTO;
+
+import java.util.UUID;
+
+public interface BlobTierService {
+
+    /**
+     * Notes that an audio file or cover image was served. Buffered in memory, so it is cheap on every request.
+     */
+    void recordAccess(UUID blobId);
+
+    /**
+     * Moves blobs not accessed within the configured period to the cold archive and compacts its packs.
+     */
+    TieringResultDTO runTiering();
+}
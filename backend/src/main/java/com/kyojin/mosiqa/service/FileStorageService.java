@@ -4,21 +4,55 @@ import com.kyojin.mosiqa.entity.AudioFile;
 import com.kyojin.mosiqa.entity.CoverImage;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
 public interface FileStorageService {
 
     AudioFile saveAudioFile(MultipartFile file);
 
-    Optional<AudioFile> getAudioFile(String id);
+    Optional<AudioFile> getAudioFile(UUID id);
 
-    void deleteAudioFile(String id);
+    void deleteAudioFile(UUID id);
+
+    /**
+     * Writes bytes {@code [start, end)} of the file as originally uploaded, decoding only the part needed.
+     */
+    void writeAudio(AudioFile audioFile, long start, long end, OutputStream out) throws IOException;
+
+    /**
+     * The file holding the audio byte for byte as uploaded, when it is stored that way on a storage volume.
+     */
+    Optional<Path> findStoredAudioFile(AudioFile audioFile);
+
+    List<AudioFile> saveAudioFiles(List<MultipartFile> files);
+
+    void deleteAudioFiles(Collection<UUID> ids);
 
     CoverImage saveCoverImage(MultipartFile file);
 
-    Optional<CoverImage> getCoverImage(String id);
+    Optional<CoverImage> getCoverImage(UUID id);
+
+    /**
+     * Returns the image bytes, wherever they are stored.
+     */
+    byte[] readCoverImage(CoverImage coverImage) throws IOException;
+
+    /**
+     * Writes the found cover images as a {@code CoverBundleCodec} bundle, scaled to fit {@code size} pixels when given.
+     */
+    void writeCoverBundle(Collection<UUID> ids, Integer size, OutputStream out) throws IOException;
+
+    void deleteCoverImage(UUID id);
+
+    List<CoverImage> saveCoverImages(List<MultipartFile> files);
 
-    void deleteCoverImage(String id);
+    void deleteCoverImages(Collection<UUID> ids);
 
     void validateAudioFile(MultipartFile file);
 
@@ -0,0 +1,18 @@
+package com.kyojin.mosiqa.service;
+
+import com.kyojin.mosiqa.dto.ImportJobDTO;
+import com.kyojin.mosiqa.dto.ImportRequest;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface ImportService {
+
+    ImportJobDTO startImport(ImportRequest request);
+
+    ImportJobDTO resumeImport(UUID id);
+
+    ImportJobDTO getImport(UUID id);
+
+    List<ImportJobDTO> getAllImports();
+}
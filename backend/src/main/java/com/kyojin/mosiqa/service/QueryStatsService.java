@@ -0,0 +1,14 @@
+package com.kyojin.mosiqa.service;
+
+import com.kyojin.mosiqa.dto.QueryStatsDTO;
+
+public interface QueryStatsService {
+
+    /**
+     * Hibernate's statement and query counters since startup or the last reset, with the {@code limit}
+     * queries that took the most time in total.
+     */
+    QueryStatsDTO getQueryStats(int limit);
+
+    void resetQueryStats();
+}
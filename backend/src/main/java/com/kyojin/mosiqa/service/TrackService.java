@@ -1,26 +1,47 @@
 package com.kyojin.mosiqa.service;
 
+import com.kyojin.mosiqa.dto.TrackBatchResultDTO;
+import com.kyojin.mosiqa.dto.TrackBatchUpdateRequest;
 import com.kyojin.mosiqa.dto.TrackCreateRequest;
 import com.kyojin.mosiqa.dto.TrackDTO;
+import com.kyojin.mosiqa.dto.TrackFieldSet;
+import com.kyojin.mosiqa.dto.TrackPageDTO;
+import com.kyojin.mosiqa.dto.TrackQuery;
 import com.kyojin.mosiqa.dto.TrackUpdateRequest;
 import com.kyojin.mosiqa.entity.MusicCategory;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
 public interface TrackService {
 
     List<TrackDTO> getAllTracks();
 
-    TrackDTO getTrackById(String id);
+    List<Map<String, Object>> getAllTracks(TrackFieldSet fields);
+
+    TrackDTO getTrackById(UUID id);
 
     TrackDTO createTrack(TrackCreateRequest request, MultipartFile audioFile, MultipartFile coverImage);
 
-    TrackDTO updateTrack(String id, TrackUpdateRequest request, MultipartFile audioFile, MultipartFile coverImage);
+    TrackDTO updateTrack(UUID id, TrackUpdateRequest request, MultipartFile audioFile, MultipartFile coverImage);
+
+    void deleteTrack(UUID id);
+
+    TrackBatchResultDTO createTracks(List<TrackCreateRequest> requests, List<MultipartFile> audioFiles, List<MultipartFile> coverImages);
+
+    TrackBatchResultDTO updateTracks(List<TrackBatchUpdateRequest> requests);
 
-    void deleteTrack(String id);
+    TrackBatchResultDTO deleteTracks(List<UUID> ids);
 
     List<TrackDTO> searchTracks(String query);
 
+    List<Map<String, Object>> searchTracks(String query, TrackFieldSet fields);
+
     List<TrackDTO> getTracksByCategory(MusicCategory category);
+
+    List<Map<String, Object>> getTracksByCategory(MusicCategory category, TrackFieldSet fields);
+
+    TrackPageDTO queryTracks(TrackQuery query);
 }
@@ -0,0 +1,406 @@
+package com.kyojin.mosiqa.service.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Reads title, artist and duration from the headers of MP3, WAV and Ogg Vorbis files, and embedded cover
+ * art from MP3 ID3 tags.
+ * <p>
+ * Only the tag and the first frame (plus the header packets and the last page for Ogg) are read, never the
+ * whole file. Anything that cannot be determined is left {@code null}.
+ */
+final class AudioProbe {
+
+    record Result(String title, String artist, Double duration, byte[] cover, String coverMimeType) {
+    }
+
+    // Bigger ID3 tags are almost always oversized artwork; skip them rather than buffering
+    private static final int MAX_TAG_SIZE = 16 * 1024 * 1024;
+    private static final int SCAN_BYTES = 64 * 1024;
+    private static final int OGG_PAGE = 0x5367674F; // "OggS", little-endian
+
+    private static final int[] MPEG1_L3_KBPS = {0, 32, 40, 48, 56, 64, 80, 96, 112, 128, 160, 192, 224, 256, 320, 0};
+    private static final int[] MPEG2_L3_KBPS = {0, 8, 16, 24, 32, 40, 48, 56, 64, 80, 96, 112, 128, 144, 160, 0};
+    private static final int[][] SAMPLE_RATES = {
+            {11025, 12000, 8000, 0}, // MPEG 2.5
+            {0, 0, 0, 0},            // reserved
+            {22050, 24000, 16000, 0}, // MPEG 2
+            {44100, 48000, 32000, 0}  // MPEG 1
+    };
+
+    private AudioProbe() {
+    }
+
+    static Result probe(Path file, String mimeType) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return switch (mimeType) {
+                case "audio/mpeg" -> probeMp3(channel);
+                case "audio/wav" -> probeWav(channel);
+                case "audio/ogg" -> probeOgg(channel);
+                default -> new Result(null, null, null, null, null);
+            };
+        }
+    }
+
+    // --- MP3 -----------------------------------------------------------------------------------
+
+    private static Result probeMp3(FileChannel channel) throws IOException {
+        long size = channel.size();
+        ByteBuffer header = read(channel, 0, 10);
+        String title = null;
+        String artist = null;
+        byte[] cover = null;
+        String coverMimeType = null;
+        long audioStart = 0;
+
+        if (header.remaining() == 10 && header.get(0) == 'I' && header.get(1) == 'D' && header.get(2) == '3') {
+            int version = header.get(3);
+            int tagSize = syncSafe(header, 6);
+            boolean hasFooter = (header.get(5) & 0x10) != 0;
+            audioStart = 10L + tagSize + (hasFooter ? 10 : 0);
+
+            if ((version == 3 || version == 4) && tagSize <= MAX_TAG_SIZE) {
+                ByteBuffer tag = read(channel, 10, tagSize);
+                while (tag.remaining() >= 10) {
+                    int frameStart = tag.position();
+                    byte first = tag.get(frameStart);
+                    if (first == 0) {
+                        break; // padding
+                    }
+                    String id = new String(new byte[]{first, tag.get(frameStart + 1), tag.get(frameStart + 2), tag.get(frameStart + 3)},
+                            StandardCharsets.ISO_8859_1);
+                    int frameSize = version == 4 ? syncSafe(tag, frameStart + 4) : tag.getInt(frameStart + 4);
+                    int bodyStart = frameStart + 10;
+                    if (frameSize <= 0 || bodyStart + frameSize > tag.limit()) {
+                        break;
+                    }
+                    switch (id) {
+                        case "TIT2" -> title = textFrame(tag, bodyStart, frameSize);
+                        case "TPE1" -> artist = textFrame(tag, bodyStart, frameSize);
+                        case "APIC" -> {
+                            if (cover == null) {
+                                ApicFrame apic = apicFrame(tag, bodyStart, frameSize);
+                                if (apic != null) {
+                                    cover = apic.data();
+                                    coverMimeType = apic.mimeType();
+                                }
+                            }
+                        }
+                        default -> {
+                        }
+                    }
+                    tag.position(bodyStart + frameSize);
+                }
+            }
+        }
+
+        return new Result(title, artist, mp3Duration(channel, audioStart, size), cover, coverMimeType);
+    }
+
+    private static Double mp3Duration(FileChannel channel, long audioStart, long size) throws IOException {
+        ByteBuffer scan = read(channel, audioStart, SCAN_BYTES);
+        for (int i = 0; i + 4 <= scan.limit(); i++) {
+            int h = scan.getInt(i);
+            if ((h & 0xFFE00000) != 0xFFE00000) {
+                continue;
+            }
+            int versionBits = (h >>> 19) & 0x3;
+            int layerBits = (h >>> 17) & 0x3;
+            int bitrateIndex = (h >>> 12) & 0xF;
+            int sampleRateIndex = (h >>> 10) & 0x3;
+            int channelMode = (h >>> 6) & 0x3;
+            // Layer III only, skipping reserved values that make false syncs likely
+            if (versionBits == 1 || layerBits != 1 || bitrateIndex == 0 || bitrateIndex == 15 || sampleRateIndex == 3) {
+                continue;
+            }
+            boolean mpeg1 = versionBits == 3;
+            int sampleRate = SAMPLE_RATES[versionBits][sampleRateIndex];
+            int samplesPerFrame = mpeg1 ? 1152 : 576;
+            int bitrate = (mpeg1 ? MPEG1_L3_KBPS : MPEG2_L3_KBPS)[bitrateIndex] * 1000;
+
+            // Xing/Info header (LAME) sits after the side info of the first frame
+            int sideInfo = mpeg1 ? (channelMode == 3 ? 17 : 32) : (channelMode == 3 ? 9 : 17);
+            int xing = i + 4 + sideInfo;
+            if (xing + 12 <= scan.limit()) {
+                int marker = scan.getInt(xing);
+                if ((marker == 0x58696E67 || marker == 0x496E666F) && (scan.getInt(xing + 4) & 0x1) != 0) {
+                    long frames = scan.getInt(xing + 8) & 0xFFFFFFFFL;
+                    return frames * samplesPerFrame / (double) sampleRate;
+                }
+            }
+            // Fraunhofer VBRI header at a fixed offset
+            int vbri = i + 4 + 32;
+            if (vbri + 18 <= scan.limit() && scan.getInt(vbri) == 0x56425249) {
+                long frames = scan.getInt(vbri + 14) & 0xFFFFFFFFL;
+                return frames * samplesPerFrame / (double) sampleRate;
+            }
+            // Constant bitrate: the audio payload divided by the bitrate
+            long audioBytes = size - audioStart - i;
+            return audioBytes * 8.0 / bitrate;
+        }
+        return null;
+    }
+
+    private static String textFrame(ByteBuffer tag, int offset, int length) {
+        if (length < 2) {
+            return null;
+        }
+        Charset charset = id3Charset(tag.get(offset));
+        String value = decode(tag, offset + 1, length - 1, charset);
+        int end = value.indexOf('\0');
+        value = (end >= 0 ? value.substring(0, end) : value).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private record ApicFrame(String mimeType, byte[] data) {
+    }
+
+    private static ApicFrame apicFrame(ByteBuffer tag, int offset, int length) {
+        int end = offset + length;
+        int encoding = tag.get(offset);
+        int pos = offset + 1;
+
+        int mimeEnd = indexOfTerminator(tag, pos, end, false);
+        if (mimeEnd < 0) {
+            return null;
+        }
+        String mime = decode(tag, pos, mimeEnd - pos, StandardCharsets.ISO_8859_1).toLowerCase();
+        pos = mimeEnd + 1 + 1; // terminator, picture type
+
+        boolean wide = encoding == 1 || encoding == 2;
+        int descriptionEnd = indexOfTerminator(tag, pos, end, wide);
+        if (descriptionEnd < 0) {
+            return null;
+        }
+        pos = descriptionEnd + (wide ? 2 : 1);
+
+        String mimeType = switch (mime) {
+            case "image/jpeg", "image/jpg", "jpg" -> "image/jpeg";
+            case "image/png", "png" -> "image/png";
+            default -> null;
+        };
+        if (mimeType == null || pos >= end) {
+            return null;
+        }
+        byte[] data = new byte[end - pos];
+        tag.get(pos, data);
+        return new ApicFrame(mimeType, data);
+    }
+
+    private static int indexOfTerminator(ByteBuffer buffer, int from, int to, boolean wide) {
+        int step = wide ? 2 : 1;
+        for (int i = from; i + step <= to; i += step) {
+            if (buffer.get(i) == 0 && (!wide || buffer.get(i + 1) == 0)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static Charset id3Charset(byte encoding) {
+        return switch (encoding) {
+            case 1 -> StandardCharsets.UTF_16;
+            case 2 -> StandardCharsets.UTF_16BE;
+            case 3 -> StandardCharsets.UTF_8;
+            default -> StandardCharsets.ISO_8859_1;
+        };
+    }
+
+    private static int syncSafe(ByteBuffer buffer, int offset) {
+        return (buffer.get(offset) & 0x7F) << 21
+                | (buffer.get(offset + 1) & 0x7F) << 14
+                | (buffer.get(offset + 2) & 0x7F) << 7
+                | (buffer.get(offset + 3) & 0x7F);
+    }
+
+    // --- WAV -----------------------------------------------------------------------------------
+
+    private static Result probeWav(FileChannel channel) throws IOException {
+        ByteBuffer riff = read(channel, 0, 12).order(ByteOrder.LITTLE_ENDIAN);
+        if (riff.remaining() < 12 || riff.getInt(0) != 0x46464952 || riff.getInt(8) != 0x45564157) { // "RIFF", "WAVE"
+            return new Result(null, null, null, null, null);
+        }
+
+        long byteRate = 0;
+        long dataSize = -1;
+        String title = null;
+        String artist = null;
+        long pos = 12;
+        long size = channel.size();
+        while (pos + 8 <= size) {
+            ByteBuffer chunk = read(channel, pos, 8).order(ByteOrder.LITTLE_ENDIAN);
+            int id = chunk.getInt(0);
+            long chunkSize = chunk.getInt(4) & 0xFFFFFFFFL;
+            long body = pos + 8;
+            if (id == 0x20746D66) { // "fmt "
+                ByteBuffer fmt = read(channel, body, 16).order(ByteOrder.LITTLE_ENDIAN);
+                if (fmt.remaining() >= 12) {
+                    byteRate = fmt.getInt(8) & 0xFFFFFFFFL;
+                }
+            } else if (id == 0x61746164) { // "data"
+                // Streams written without a final size report 0 or 0xFFFFFFFF; fall back to the file length
+                dataSize = chunkSize == 0 || chunkSize == 0xFFFFFFFFL ? size - body : Math.min(chunkSize, size - body);
+            } else if (id == 0x5453494C && chunkSize <= SCAN_BYTES) { // "LIST"
+                ByteBuffer list = read(channel, body, (int) chunkSize).order(ByteOrder.LITTLE_ENDIAN);
+                if (list.remaining() >= 4 && list.getInt(0) == 0x4F464E49) { // "INFO"
+                    int p = 4;
+                    while (p + 8 <= list.limit()) {
+                        int infoId = list.getInt(p);
+                        int infoSize = list.getInt(p + 4);
+                        if (infoSize < 0 || p + 8 + infoSize > list.limit()) {
+                            break;
+                        }
+                        String value = decode(list, p + 8, infoSize, StandardCharsets.UTF_8).replace("\0", "").trim();
+                        if (!value.isEmpty()) {
+                            if (infoId == 0x4D414E49) { // "INAM"
+                                title = value;
+                            } else if (infoId == 0x54524149) { // "IART"
+                                artist = value;
+                            }
+                        }
+                        p += 8 + infoSize + (infoSize & 1);
+                    }
+                }
+            }
+            pos = body + chunkSize + (chunkSize & 1);
+        }
+
+        Double duration = byteRate > 0 && dataSize >= 0 ? dataSize / (double) byteRate : null;
+        return new Result(title, artist, duration, null, null);
+    }
+
+    // --- Ogg Vorbis ----------------------------------------------------------------------------
+
+    private static Result probeOgg(FileChannel channel) throws IOException {
+        ByteBuffer head = read(channel, 0, SCAN_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        // Identification packet, then the comment packet; the setup packet after them is not needed
+        List<ByteBuffer> packets = oggPackets(head, 2);
+        int sampleRate = 0;
+        if (!packets.isEmpty() && isVorbisHeader(packets.get(0), 1) && packets.get(0).limit() >= 16) {
+            sampleRate = packets.get(0).getInt(12);
+        }
+        if (sampleRate <= 0) {
+            return new Result(null, null, null, null, null);
+        }
+
+        String title = null;
+        String artist = null;
+        if (packets.size() > 1 && isVorbisHeader(packets.get(1), 3)) {
+            ByteBuffer comments = packets.get(1);
+            int p = 7;
+            if (p + 4 <= comments.limit()) {
+                p += 4 + comments.getInt(p); // vendor string
+            }
+            long count = p >= 0 && p + 4 <= comments.limit() ? comments.getInt(p) & 0xFFFFFFFFL : 0;
+            p += 4;
+            // Stops at a comment cut off by the scan window, typically embedded artwork at the end
+            for (long i = 0; i < count && p >= 0 && p + 4 <= comments.limit(); i++) {
+                int length = comments.getInt(p);
+                p += 4;
+                if (length < 0 || p + length > comments.limit()) {
+                    break;
+                }
+                String comment = decode(comments, p, length, StandardCharsets.UTF_8);
+                p += length;
+                int separator = comment.indexOf('=');
+                String value = separator > 0 ? comment.substring(separator + 1).trim() : "";
+                if (value.isEmpty()) {
+                    continue;
+                }
+                String key = comment.substring(0, separator).toUpperCase(Locale.ROOT);
+                if (key.equals("TITLE") && title == null) {
+                    title = value;
+                } else if (key.equals("ARTIST") && artist == null) {
+                    artist = value;
+                }
+            }
+        }
+
+        // The granule position of the last page is the total sample count
+        long size = channel.size();
+        long tailStart = Math.max(0, size - SCAN_BYTES);
+        ByteBuffer tail = read(channel, tailStart, (int) (size - tailStart)).order(ByteOrder.LITTLE_ENDIAN);
+        Double duration = null;
+        for (int i = tail.limit() - 27; i >= 0; i--) {
+            if (tail.getInt(i) == OGG_PAGE) {
+                long granule = tail.getLong(i + 6);
+                duration = granule > 0 ? granule / (double) sampleRate : null;
+                break;
+            }
+        }
+        return new Result(title, artist, duration, null, null);
+    }
+
+    /**
+     * Reassembles the first {@code count} packets from the pages at the start of {@code buffer}. A packet
+     * that runs past the end of the buffer is returned cut short.
+     */
+    private static List<ByteBuffer> oggPackets(ByteBuffer buffer, int count) {
+        List<ByteBuffer> packets = new ArrayList<>(count);
+        ByteArrayOutputStream packet = new ByteArrayOutputStream();
+        int page = 0;
+        while (packets.size() < count && page + 27 <= buffer.limit() && buffer.getInt(page) == OGG_PAGE) {
+            int segments = buffer.get(page + 26) & 0xFF;
+            int data = page + 27 + segments;
+            if (data > buffer.limit()) {
+                break;
+            }
+            for (int segment = 0; segment < segments && packets.size() < count; segment++) {
+                if (data >= buffer.limit()) {
+                    // The scan window ends inside this page; the packet in progress is returned cut short
+                    break;
+                }
+                int lacing = buffer.get(page + 27 + segment) & 0xFF;
+                byte[] bytes = new byte[Math.min(lacing, buffer.limit() - data)];
+                buffer.get(data, bytes);
+                packet.writeBytes(bytes);
+                data += lacing;
+                // A lacing value below 255 ends the packet; 255 continues it, possibly on the next page
+                if (lacing < 255) {
+                    packets.add(ByteBuffer.wrap(packet.toByteArray()).order(ByteOrder.LITTLE_ENDIAN));
+                    packet.reset();
+                }
+            }
+            page = data;
+        }
+        if (packets.size() < count && packet.size() > 0) {
+            packets.add(ByteBuffer.wrap(packet.toByteArray()).order(ByteOrder.LITTLE_ENDIAN));
+        }
+        return packets;
+    }
+
+    private static boolean isVorbisHeader(ByteBuffer packet, int type) {
+        return packet.limit() >= 7 && packet.get(0) == type
+                && decode(packet, 1, 6, StandardCharsets.ISO_8859_1).equals("vorbis");
+    }
+
+    // --- helpers -------------------------------------------------------------------------------
+
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        long available = Math.max(0, channel.size() - position);
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(length, available));
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                break;
+            }
+        }
+        return buffer.flip();
+    }
+
+    private static String decode(ByteBuffer buffer, int offset, int length, Charset charset) {
+        byte[] bytes = new byte[length];
+        buffer.get(offset, bytes);
+        return new String(bytes, charset);
+    }
+}
@@ -0,0 +1,509 @@
+package com.kyojin.mosiqa.service.impl;
+
+import com.kyojin.mosiqa.dto.RestoreResultDTO;
+import com.kyojin.mosiqa.entity.AudioEncoding;
+import com.kyojin.mosiqa.exception.InvalidRequestException;
+import com.kyojin.mosiqa.service.BackupService;
+import com.kyojin.mosiqa.service.impl.BlobStoreServiceImpl.Kind;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Streams the library to and from a zip archive through plain JDBC, one row at a time.
+ * <p>
+ * Archive layout, in this order so that a restore can consume it front to back:
+ * {@code manifest.json}, {@code audio_files.ndjson}, {@code cover_images.ndjson}, one {@code audio/<id>}
+ * and {@code covers/<id>} entry per blob, then {@code tracks.ndjson}. Blobs are copied as stored, so a
+ * losslessly compressed WAV file stays compressed and its row carries the encoding; the zip itself
+ * does not deflate them since audio and images are already compressed. Blobs held on storage volumes are
+ * read from there and restored to there. A restore spools the metadata entries to temp files and reads
+ * them in step with the blob entries, so its memory does not grow with the number of blobs.
+ */
+@Service
+@Slf4j
+public class BackupServiceImpl implements BackupService {
+
+    static final int FORMAT_VERSION = 2;
+    // Version 1 archives predate audio_files.encoding; their audio is restored as RAW
+    private static final int OLDEST_FORMAT_VERSION = 1;
+
+    private static final String MANIFEST = "manifest.json";
+    private static final String AUDIO_FILES = "audio_files.ndjson";
+    private static final String COVER_IMAGES = "cover_images.ndjson";
+    private static final String TRACKS = "tracks.ndjson";
+    private static final String AUDIO_PREFIX = "audio/";
+    private static final String COVER_PREFIX = "covers/";
+
+    private static final int FETCH_SIZE = 100;
+    private static final int TRACK_BATCH_SIZE = 500;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    record Manifest(int format, LocalDateTime createdAt, long tracks, long audioFiles, long coverImages) {
+    }
+
+    record BlobRow(UUID id, String name, long size, String mimeType, String encoding, LocalDateTime createdAt) {
+    }
+
+    record TrackRow(UUID id, String title, String artist, String description, String category, Double duration,
+                    UUID audioFileId, UUID coverImageId, LocalDateTime createdAt, LocalDateTime updatedAt) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BlobStoreServiceImpl blobStore;
+    private final BlobTierServiceImpl blobTiers;
+    private final TransactionTemplate snapshotTemplate;
+    private final JsonMapper jsonMapper;
+    private final int restoreThreads;
+
+    public BackupServiceImpl(JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             JsonMapper jsonMapper,
+                             BlobStoreServiceImpl blobStore,
+                             BlobTierServiceImpl blobTiers,
+                             @Value("${mosiqa.backup.restore-threads:4}") int restoreThreads) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.blobStore = blobStore;
+        this.blobTiers = blobTiers;
+        this.jsonMapper = jsonMapper;
+        this.restoreThreads = Math.max(1, restoreThreads);
+
+        // H2 serves every read of a serializable transaction from the snapshot taken at its start,
+        // so uploads and deletes during a long backup do not tear the archive
+        this.snapshotTemplate = new TransactionTemplate(transactionManager);
+        this.snapshotTemplate.setReadOnly(true);
+        this.snapshotTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_SERIALIZABLE);
+    }
+
+    // --- backup --------------------------------------------------------------------------------
+
+    @Override
+    public void writeBackup(OutputStream out) throws IOException {
+        long start = System.currentTimeMillis();
+        ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(out, BUFFER_SIZE));
+        try {
+            Manifest manifest = snapshotTemplate.execute(status -> {
+                try {
+                    return writeSnapshot(zip);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            zip.finish();
+            zip.flush();
+            log.info("Backup written: {} tracks, {} audio files, {} cover images in {} ms",
+                    manifest.tracks(), manifest.audioFiles(), manifest.coverImages(), System.currentTimeMillis() - start);
+        } catch (UncheckedIOException e) {
+            // Usually the client went away; nothing useful can be sent on a half-written body
+            log.warn("Backup aborted: {}", e.getCause().getMessage());
+            throw e.getCause();
+        }
+    }
+
+    private Manifest writeSnapshot(ZipOutputStream zip) throws IOException {
+        Manifest manifest = new Manifest(FORMAT_VERSION, LocalDateTime.now(),
+                count("tracks WHERE deleted_at IS NULL"), count("audio_files"), count("cover_images"));
+
+        zip.setLevel(Deflater.BEST_SPEED);
+        zip.putNextEntry(new ZipEntry(MANIFEST));
+        zip.write(jsonMapper.writeValueAsBytes(manifest));
+        zip.closeEntry();
+
+        writeBlobRows(zip, AUDIO_FILES, "audio_files", "encoding");
+        writeBlobRows(zip, COVER_IMAGES, "cover_images", "NULL");
+
+        zip.setLevel(Deflater.NO_COMPRESSION);
+        writeBlobs(zip, AUDIO_PREFIX, "audio_files", Kind.AUDIO);
+        writeBlobs(zip, COVER_PREFIX, "cover_images", Kind.COVER);
+
+        zip.setLevel(Deflater.BEST_SPEED);
+        zip.putNextEntry(new ZipEntry(TRACKS));
+        stream("SELECT id, title, artist, description, category, duration, audio_file_id, cover_image_id, "
+                + "created_at, updated_at FROM tracks WHERE deleted_at IS NULL ORDER BY id", rs -> writeLine(zip, new TrackRow(
+                rs.getObject(1, UUID.class), rs.getString(2), rs.getString(3), rs.getString(4), rs.getString(5),
+                rs.getObject(6, Double.class), rs.getObject(7, UUID.class), rs.getObject(8, UUID.class),
+                rs.getObject(9, LocalDateTime.class), rs.getObject(10, LocalDateTime.class))));
+        zip.closeEntry();
+
+        return manifest;
+    }
+
+    private void writeBlobRows(ZipOutputStream zip, String entryName, String table, String encoding) throws IOException {
+        zip.putNextEntry(new ZipEntry(entryName));
+        stream("SELECT id, name, size, mime_type, " + encoding + ", created_at FROM " + table + " ORDER BY id", rs -> writeLine(zip, new BlobRow(
+                rs.getObject(1, UUID.class), rs.getString(2), rs.getLong(3), rs.getString(4), rs.getString(5),
+                rs.getObject(6, LocalDateTime.class))));
+        zip.closeEntry();
+    }
+
+    private void writeBlobs(ZipOutputStream zip, String prefix, String table, Kind kind) {
+        stream("SELECT id, data FROM " + table + " ORDER BY id", rs -> {
+            UUID id = rs.getObject(1, UUID.class);
+            InputStream stored = rs.getBinaryStream(2);
+            try (InputStream data = stored != null ? stored : openStored(kind, id)) {
+                zip.putNextEntry(new ZipEntry(prefix + id));
+                data.transferTo(zip);
+                zip.closeEntry();
+            } catch (NoSuchFileException e) {
+                // Deleted after the snapshot was taken; the restore skips rows without an entry
+                log.warn("Backup skipped {} {}: its file is gone", table, id);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private InputStream openStored(Kind kind, UUID id) throws IOException {
+        try {
+            return blobStore.open(kind, id);
+        } catch (NoSuchFileException e) {
+            // Archived in the cold tier; backups do not count as plays, so it stays there
+            return new ByteArrayInputStream(blobTiers.readCold(id));
+        }
+    }
+
+    private void writeLine(OutputStream out, Object row) {
+        try {
+            out.write(jsonMapper.writeValueAsBytes(row));
+            out.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private long count(String from) {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + from, Long.class);
+        return count != null ? count : 0;
+    }
+
+    private void stream(String sql, RowCallbackHandler handler) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            statement.setFetchSize(FETCH_SIZE);
+            return statement;
+        }, handler);
+    }
+
+    // --- restore -------------------------------------------------------------------------------
+
+    @Override
+    public RestoreResultDTO restore(InputStream in) {
+        long start = System.currentTimeMillis();
+        ZipInputStream zip = new ZipInputStream(new BufferedInputStream(in, BUFFER_SIZE));
+        BlobRowCursor audioRows = null;
+        BlobRowCursor coverRows = null;
+        AtomicLong audioFiles = new AtomicLong();
+        AtomicLong coverImages = new AtomicLong();
+        long tracks = 0;
+        boolean sawManifest = false;
+        boolean sawTracks = false;
+
+        ExecutorService inserters = Executors.newFixedThreadPool(restoreThreads);
+        // Caps the number of spooled blobs waiting on disk for an inserter
+        Semaphore spooled = new Semaphore(restoreThreads * 2);
+        List<Future<?>> pending = new ArrayList<>();
+        try {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                String name = entry.getName();
+                if (!sawManifest) {
+                    if (!name.equals(MANIFEST)) {
+                        throw new InvalidRequestException("Not a backup archive: missing " + MANIFEST);
+                    }
+                    Manifest manifest = jsonMapper.readValue(zip.readAllBytes(), Manifest.class);
+                    if (manifest.format() < OLDEST_FORMAT_VERSION || manifest.format() > FORMAT_VERSION) {
+                        throw new InvalidRequestException("Unsupported backup format: " + manifest.format());
+                    }
+                    sawManifest = true;
+                } else if (name.equals(AUDIO_FILES) && audioRows == null) {
+                    audioRows = new BlobRowCursor(zip);
+                } else if (name.equals(COVER_IMAGES) && coverRows == null) {
+                    coverRows = new BlobRowCursor(zip);
+                } else if (name.startsWith(AUDIO_PREFIX)) {
+                    pending.add(spool(zip, inserters, spooled, "audio_files", lookup(audioRows, name, AUDIO_PREFIX), audioFiles));
+                } else if (name.startsWith(COVER_PREFIX)) {
+                    pending.add(spool(zip, inserters, spooled, "cover_images", lookup(coverRows, name, COVER_PREFIX), coverImages));
+                } else if (name.equals(TRACKS)) {
+                    awaitAll(pending);
+                    tracks = restoreTracks(zip);
+                    sawTracks = true;
+                } else {
+                    throw new InvalidRequestException("Unexpected backup entry: " + name);
+                }
+                reapCompleted(pending);
+            }
+            awaitAll(pending);
+        } catch (IOException | UncheckedIOException | JacksonException e) {
+            throw new InvalidRequestException("Could not read backup archive: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Restore interrupted", e);
+        } finally {
+            pending.forEach(future -> future.cancel(true));
+            inserters.shutdownNow();
+            closeQuietly(audioRows);
+            closeQuietly(coverRows);
+        }
+
+        if (!sawTracks) {
+            throw new InvalidRequestException("Backup archive is truncated: missing " + TRACKS);
+        }
+        RestoreResultDTO result = RestoreResultDTO.builder()
+                .tracks(tracks)
+                .audioFiles(audioFiles.get())
+                .coverImages(coverImages.get())
+                .durationMillis(System.currentTimeMillis() - start)
+                .build();
+        log.info("Restored {} tracks, {} audio files, {} cover images in {} ms",
+                result.getTracks(), result.getAudioFiles(), result.getCoverImages(), result.getDurationMillis());
+        return result;
+    }
+
+    private BlobRow lookup(BlobRowCursor rows, String name, String prefix) throws IOException {
+        BlobRow row;
+        try {
+            row = rows != null ? rows.next(UUID.fromString(name.substring(prefix.length()))) : null;
+        } catch (IllegalArgumentException e) {
+            row = null;
+        }
+        if (row == null) {
+            throw new InvalidRequestException("Backup entry without metadata: " + name);
+        }
+        return row;
+    }
+
+    /**
+     * Copies the current entry to a temp file so the archive can keep streaming while the insert runs.
+     */
+    private Future<?> spool(ZipInputStream zip, ExecutorService inserters, Semaphore spooled,
+                            String table, BlobRow row, AtomicLong counter) throws IOException, InterruptedException {
+        spooled.acquire();
+        Path file;
+        try {
+            file = Files.createTempFile("mosiqa-restore-", ".blob");
+            Files.copy(zip, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            spooled.release();
+            throw e;
+        }
+        return inserters.submit(() -> {
+            try {
+                insertBlob(table, row, file);
+                counter.incrementAndGet();
+                return null;
+            } finally {
+                spooled.release();
+                deleteQuietly(file);
+            }
+        });
+    }
+
+    private void insertBlob(String table, BlobRow row, Path file) throws IOException {
+        long stored = Files.size(file);
+        boolean audio = table.equals("audio_files");
+        Kind kind = audio ? Kind.AUDIO : Kind.COVER;
+        boolean onVolume = blobStore.isEnabled();
+        if (onVolume) {
+            blobStore.copyFrom(kind, row.id(), file);
+        }
+        String encoding = row.encoding() != null ? row.encoding() : AudioEncoding.RAW.name();
+        // size is the original length, which only differs from the stored bytes for encoded audio
+        long size = audio && !encoding.equals(AudioEncoding.RAW.name()) ? row.size() : stored;
+        String sql = audio
+                ? "MERGE INTO audio_files (id, name, size, mime_type, data, created_at, encoding) KEY (id) VALUES (?, ?, ?, ?, ?, ?, ?)"
+                : "MERGE INTO " + table + " (id, name, size, mime_type, data, created_at) KEY (id) VALUES (?, ?, ?, ?, ?, ?)";
+        try (InputStream data = onVolume ? InputStream.nullInputStream() : Files.newInputStream(file)) {
+            jdbcTemplate.update(sql, statement -> {
+                statement.setObject(1, row.id());
+                statement.setString(2, row.name());
+                statement.setLong(3, size);
+                statement.setString(4, row.mimeType());
+                if (onVolume) {
+                    statement.setNull(5, Types.BLOB);
+                } else {
+                    statement.setBinaryStream(5, data, stored);
+                }
+                statement.setTimestamp(6, Timestamp.valueOf(row.createdAt()));
+                if (audio) {
+                    statement.setString(7, encoding);
+                }
+            });
+        }
+        // The restored bytes are the hot copy now
+        blobTiers.discardCold(row.id());
+    }
+
+    /**
+     * One metadata entry spooled to a temp file and read forward as its blob entries arrive. The backup
+     * writes both in id order, so each blob's row is further down the file; rows passed over lost their
+     * file while the backup ran and have no entry, so they are not restored.
+     */
+    private final class BlobRowCursor implements Closeable {
+
+        private final Path file;
+        private final BufferedReader reader;
+
+        BlobRowCursor(InputStream entry) throws IOException {
+            file = Files.createTempFile("mosiqa-restore-", ".ndjson");
+            try {
+                Files.copy(entry, file, StandardCopyOption.REPLACE_EXISTING);
+                reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                deleteQuietly(file);
+                throw e;
+            }
+        }
+
+        BlobRow next(UUID id) throws IOException {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    BlobRow row = jsonMapper.readValue(line, BlobRow.class);
+                    if (row.id().equals(id)) {
+                        return row;
+                    }
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                reader.close();
+            } finally {
+                deleteQuietly(file);
+            }
+        }
+    }
+
+    private long restoreTracks(ZipInputStream zip) throws IOException {
+        List<Object[]> batch = new ArrayList<>(TRACK_BATCH_SIZE);
+        long[] total = {0};
+        readLines(zip, TrackRow.class, row -> {
+            batch.add(new Object[]{row.id(), row.title(), row.artist(), row.description(), row.category(), row.duration(),
+                    row.audioFileId(), row.coverImageId(), Timestamp.valueOf(row.createdAt()), Timestamp.valueOf(row.updatedAt())});
+            if (batch.size() == TRACK_BATCH_SIZE) {
+                total[0] += mergeTracks(batch);
+            }
+        });
+        total[0] += mergeTracks(batch);
+        return total[0];
+    }
+
+    private int mergeTracks(List<Object[]> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        // Clearing deleted_at revives a track that was deleted after the backup but not purged yet
+        jdbcTemplate.batchUpdate("MERGE INTO tracks (id, title, artist, description, category, duration, audio_file_id, "
+                + "cover_image_id, created_at, updated_at, deleted_at) KEY (id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, NULL)", batch);
+        int size = batch.size();
+        batch.clear();
+        return size;
+    }
+
+    private <T> void readLines(InputStream entry, Class<T> type, Consumer<T> consumer) throws IOException {
+        // Not closed: closing the reader would close the whole archive stream
+        BufferedReader reader = new BufferedReader(new InputStreamReader(entry, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (!line.isBlank()) {
+                consumer.accept(jsonMapper.readValue(line, type));
+            }
+        }
+    }
+
+    private void awaitAll(List<Future<?>> futures) throws IOException, InterruptedException {
+        for (Future<?> future : futures) {
+            await(future);
+        }
+        futures.clear();
+    }
+
+    /**
+     * Drops finished inserts, surfacing the first failure instead of waiting for the end of the archive.
+     */
+    private void reapCompleted(List<Future<?>> futures) throws IOException, InterruptedException {
+        Iterator<Future<?>> iterator = futures.iterator();
+        while (iterator.hasNext()) {
+            Future<?> future = iterator.next();
+            if (future.isDone()) {
+                await(future);
+                iterator.remove();
+            }
+        }
+    }
+
+    private void await(Future<?> future) throws IOException, InterruptedException {
+        try {
+            future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            throw cause instanceof RuntimeException runtime ? runtime : new IllegalStateException(cause);
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException ignored) {
+                // Only a temp file reader; nothing left to flush
+            }
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ignored) {
+            // Temp files are best effort; the OS cleans the temp directory eventually
+        }
+    }
+}
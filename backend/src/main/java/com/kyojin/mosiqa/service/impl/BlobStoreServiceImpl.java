@@ -0,0 +1,499 @@
+package com.kyojin.mosiqa.service.impl;
+
+import com.kyojin.mosiqa.dto.RebalanceResultDTO;
+import com.kyojin.mosiqa.exception.InvalidRequestException;
+import com.kyojin.mosiqa.service.BlobStoreService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Keeps audio and cover bytes as files spread over the volumes listed in {@code mosiqa.storage.volumes}.
+ * <p>
+ * Placement uses a consistent-hash ring with {@value #POINTS_PER_WEIGHT} points per unit of volume
+ * weight, so adding a volume only moves the share of blobs it takes over. Reads try the owning volume
+ * first and then the others, which keeps every blob readable while {@link #rebalance()} is still moving
+ * files. Without volumes the store is disabled and blobs stay in the {@code data} columns.
+ */
+@Service
+@Slf4j
+public class BlobStoreServiceImpl implements BlobStoreService {
+
+    enum Kind {
+        AUDIO("audio", "audio_files"),
+        COVER("covers", "cover_images");
+
+        private final String directory;
+        private final String table;
+
+        Kind(String directory, String table) {
+            this.directory = directory;
+            this.table = table;
+        }
+
+        String table() {
+            return table;
+        }
+    }
+
+    private record Volume(String name, Path root, int weight) {
+    }
+
+    @FunctionalInterface
+    private interface FileWriter {
+        void write(Path target) throws IOException;
+    }
+
+    private static final int POINTS_PER_WEIGHT = 128;
+    private static final int MIGRATION_BATCH = 20;
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final Duration STALE_TEMP_AGE = Duration.ofHours(1);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final List<Volume> volumes;
+    private final NavigableMap<Long, Volume> ring = new TreeMap<>();
+    private final ReentrantLock rebalancing = new ReentrantLock();
+    private final ExecutorService background = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "blob-rebalance");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public BlobStoreServiceImpl(JdbcTemplate jdbcTemplate,
+                                @Value("${mosiqa.storage.volumes:}") List<String> volumes) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.volumes = volumes.stream()
+                .filter(volume -> !volume.isBlank())
+                .map(BlobStoreServiceImpl::parseVolume)
+                .toList();
+
+        for (Volume volume : this.volumes) {
+            try {
+                for (Kind kind : Kind.values()) {
+                    Files.createDirectories(volume.root().resolve(kind.directory));
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Storage volume " + volume.root() + " is not writable", e);
+            }
+            long seed = fnv1a(volume.name());
+            for (int point = 0; point < volume.weight() * POINTS_PER_WEIGHT; point++) {
+                ring.put(mix(seed + point * 0x9E3779B97F4A7C15L), volume);
+            }
+        }
+        if (!this.volumes.isEmpty()) {
+            log.info("Blob storage on {} volume(s): {}", this.volumes.size(), this.volumes);
+        }
+    }
+
+    /**
+     * Parses {@code path} or {@code path=weight}.
+     */
+    private static Volume parseVolume(String spec) {
+        String path = spec.trim();
+        int weight = 1;
+        int separator = path.lastIndexOf('=');
+        if (separator > 0) {
+            try {
+                weight = Integer.parseInt(path.substring(separator + 1).trim());
+            } catch (NumberFormatException e) {
+                weight = 0;
+            }
+            path = path.substring(0, separator).trim();
+        }
+        if (weight < 1) {
+            throw new IllegalArgumentException("Invalid storage volume weight in '" + spec + "'");
+        }
+        Path root = Paths.get(path).toAbsolutePath().normalize();
+        return new Volume(root.toString(), root, weight);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebalanceOnStartup() {
+        if (!isEnabled()) {
+            return;
+        }
+        // The volume list may have changed since the last run; catch up in the background
+        background.execute(() -> {
+            if (!rebalancing.tryLock()) {
+                return;
+            }
+            try {
+                RebalanceResultDTO result = doRebalance();
+                if (result.getFilesMoved() > 0 || result.getBlobsMigrated() > 0) {
+                    log.info("Rebalanced blob storage: {} files moved, {} blobs migrated from the database ({} bytes) in {} ms",
+                            result.getFilesMoved(), result.getBlobsMigrated(), result.getBytesMoved(), result.getDurationMillis());
+                }
+            } catch (RuntimeException e) {
+                log.error("Blob storage rebalance failed: {}", e.getMessage(), e);
+            } finally {
+                rebalancing.unlock();
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        background.shutdownNow();
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return !volumes.isEmpty();
+    }
+
+    @Override
+    public RebalanceResultDTO rebalance() {
+        if (!isEnabled()) {
+            throw new InvalidRequestException("No storage volumes are configured");
+        }
+        if (!rebalancing.tryLock()) {
+            throw new InvalidRequestException("A storage rebalance is already running");
+        }
+        try {
+            return doRebalance();
+        } finally {
+            rebalancing.unlock();
+        }
+    }
+
+    // --- blob access ---------------------------------------------------------------------------
+
+    void write(Kind kind, UUID id, byte[] data) throws IOException {
+        install(pathOn(ownerOf(id), kind, id), target -> Files.write(target, data));
+    }
+
+    void copyFrom(Kind kind, UUID id, Path source) throws IOException {
+        install(pathOn(ownerOf(id), kind, id), target -> Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING));
+    }
+
+    byte[] read(Kind kind, UUID id) throws IOException {
+        return Files.readAllBytes(locate(kind, id));
+    }
+
+    InputStream open(Kind kind, UUID id) throws IOException {
+        return Files.newInputStream(locate(kind, id));
+    }
+
+    /**
+     * The file currently holding a blob, for callers that read it themselves.
+     */
+    Optional<Path> find(Kind kind, UUID id) {
+        try {
+            return Optional.of(locate(kind, id));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Writes bytes {@code [start, end)} of a stored file without copying them through the heap.
+     */
+    void writeRange(Kind kind, UUID id, long start, long end, OutputStream out) throws IOException {
+        try (FileChannel channel = FileChannel.open(locate(kind, id), StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(out);
+            long position = start;
+            while (position < end) {
+                long sent = channel.transferTo(position, end - position, target);
+                if (sent <= 0) {
+                    throw new IOException("Stored " + kind.directory + " file " + id + " is shorter than expected");
+                }
+                position += sent;
+            }
+        }
+    }
+
+    void delete(Kind kind, Collection<UUID> ids) {
+        for (UUID id : ids) {
+            for (Volume volume : volumes) {
+                try {
+                    Files.deleteIfExists(pathOn(volume, kind, id));
+                } catch (IOException e) {
+                    log.warn("Could not delete {} file {} on {}: {}", kind.directory, id, volume.root(), e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Deletes the files once the surrounding transaction has committed, so a rollback keeps them.
+     */
+    void deleteAfterCommit(Kind kind, Collection<UUID> ids) {
+        if (!isEnabled() || ids.isEmpty()) {
+            return;
+        }
+        List<UUID> pending = List.copyOf(ids);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    delete(kind, pending);
+                }
+            });
+        } else {
+            delete(kind, pending);
+        }
+    }
+
+    /**
+     * Deletes a file written during the surrounding transaction if that transaction does not commit.
+     */
+    void deleteOnRollback(Kind kind, UUID id) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        delete(kind, List.of(id));
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Deletes the files of those ids whose rows are gone, after a delete that may have kept some rows.
+     */
+    void deleteOrphanedFiles(Kind kind, Collection<UUID> ids) {
+        if (!isEnabled() || ids.isEmpty()) {
+            return;
+        }
+        Set<UUID> orphaned = new HashSet<>(ids);
+        orphaned.removeAll(jdbcTemplate.queryForList(
+                "SELECT id FROM " + kind.table + " WHERE id IN (" + String.join(", ", Collections.nCopies(ids.size(), "?")) + ")",
+                UUID.class, ids.toArray()));
+        delete(kind, orphaned);
+    }
+
+    private Path locate(Kind kind, UUID id) throws NoSuchFileException {
+        if (!isEnabled()) {
+            // Without volumes a row with no data has been demoted; callers fall back to the cold tier
+            throw new NoSuchFileException("No storage volumes for " + kind.directory + " file " + id);
+        }
+        Volume owner = ownerOf(id);
+        Path path = pathOn(owner, kind, id);
+        if (Files.exists(path)) {
+            return path;
+        }
+        // Not moved yet after a volume was added, or mid-move
+        for (Volume volume : volumes) {
+            if (volume != owner) {
+                Path candidate = pathOn(volume, kind, id);
+                if (Files.exists(candidate)) {
+                    return candidate;
+                }
+            }
+        }
+        throw new NoSuchFileException("No stored " + kind.directory + " file for " + id);
+    }
+
+    private Volume ownerOf(UUID id) {
+        if (!isEnabled()) {
+            throw new IllegalStateException("No storage volumes are configured");
+        }
+        long hash = mix(id.getMostSignificantBits() ^ mix(id.getLeastSignificantBits()));
+        Map.Entry<Long, Volume> entry = ring.ceilingEntry(hash);
+        return (entry != null ? entry : ring.firstEntry()).getValue();
+    }
+
+    private static Path pathOn(Volume volume, Kind kind, UUID id) {
+        String name = id.toString();
+        // Fan out on the random tail of the UUIDv7, the timestamp prefix would pile up in one directory
+        return volume.root().resolve(kind.directory).resolve(name.substring(name.length() - 2)).resolve(name);
+    }
+
+    /**
+     * Writes to a temp file next to the target and renames it into place, so readers never see a partial file.
+     */
+    private static void install(Path target, FileWriter writer) throws IOException {
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), TEMP_SUFFIX);
+        try {
+            writer.write(temp);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    // --- rebalancing ---------------------------------------------------------------------------
+
+    private RebalanceResultDTO doRebalance() {
+        long start = System.currentTimeMillis();
+        RebalanceResultDTO result = RebalanceResultDTO.builder().volumes(volumes.size()).build();
+        try {
+            for (Volume volume : volumes) {
+                for (Kind kind : Kind.values()) {
+                    moveMisplaced(volume, kind, result);
+                }
+            }
+            for (Kind kind : Kind.values()) {
+                migrateFromDatabase(kind, result);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        result.setDurationMillis(System.currentTimeMillis() - start);
+        return result;
+    }
+
+    private void moveMisplaced(Volume volume, Kind kind, RebalanceResultDTO result) throws IOException {
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(volume.root().resolve(kind.directory), 2)) {
+            files = walk.filter(Files::isRegularFile).toList();
+        }
+        for (Path file : files) {
+            UUID id = parseId(file.getFileName().toString());
+            if (id == null) {
+                deleteIfStaleTemp(file);
+                continue;
+            }
+            result.setFilesScanned(result.getFilesScanned() + 1);
+            Volume owner = ownerOf(id);
+            if (owner == volume) {
+                continue;
+            }
+
+            // Copy, then delete: the blob exists on at least one volume at every moment
+            long size = Files.size(file);
+            Path target = pathOn(owner, kind, id);
+            if (!Files.exists(target)) {
+                install(target, temp -> Files.copy(file, temp, StandardCopyOption.REPLACE_EXISTING));
+            }
+            Files.deleteIfExists(file);
+            if (!existsInDatabase(kind, id)) {
+                // Deleted while it was being copied
+                Files.deleteIfExists(target);
+                continue;
+            }
+            result.setFilesMoved(result.getFilesMoved() + 1);
+            result.setBytesMoved(result.getBytesMoved() + size);
+        }
+    }
+
+    /**
+     * Moves blobs that still live in the database onto their volumes, a few rows at a time.
+     */
+    private void migrateFromDatabase(Kind kind, RebalanceResultDTO result) throws IOException {
+        while (true) {
+            List<UUID> ids = jdbcTemplate.queryForList(
+                    "SELECT id FROM " + kind.table + " WHERE data IS NOT NULL ORDER BY id LIMIT ?", UUID.class, MIGRATION_BATCH);
+            if (ids.isEmpty()) {
+                return;
+            }
+            for (UUID id : ids) {
+                Path target = pathOn(ownerOf(id), kind, id);
+                long[] size = {0};
+                boolean copied = Boolean.TRUE.equals(jdbcTemplate.query(
+                        "SELECT data FROM " + kind.table + " WHERE id = ? AND data IS NOT NULL", rs -> {
+                            if (!rs.next()) {
+                                return false;
+                            }
+                            try (InputStream data = rs.getBinaryStream(1)) {
+                                install(target, temp -> size[0] = Files.copy(data, temp, StandardCopyOption.REPLACE_EXISTING));
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                            return true;
+                        }, id));
+                if (!copied) {
+                    continue;
+                }
+                if (jdbcTemplate.update("UPDATE " + kind.table + " SET data = NULL WHERE id = ? AND data IS NOT NULL", id) == 0) {
+                    // The row was deleted in the meantime
+                    Files.deleteIfExists(target);
+                    continue;
+                }
+                result.setBlobsMigrated(result.getBlobsMigrated() + 1);
+                result.setBytesMoved(result.getBytesMoved() + size[0]);
+            }
+        }
+    }
+
+    private boolean existsInDatabase(Kind kind, UUID id) {
+        Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + kind.table + " WHERE id = ?", Integer.class, id);
+        return count != null && count > 0;
+    }
+
+    private static UUID parseId(String fileName) {
+        if (fileName.length() != 36) {
+            return null;
+        }
+        try {
+            return UUID.fromString(fileName);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Cleans up temp files left behind by a crash mid-write.
+     */
+    private static void deleteIfStaleTemp(Path file) throws IOException {
+        if (file.getFileName().toString().endsWith(TEMP_SUFFIX)) {
+            FileTime modified = Files.getLastModifiedTime(file);
+            if (modified.toInstant().isBefore(Instant.now().minus(STALE_TEMP_AGE))) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    private static long fnv1a(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xFF;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * The SplitMix64 finalizer: spreads nearby inputs over the whole ring.
+     */
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
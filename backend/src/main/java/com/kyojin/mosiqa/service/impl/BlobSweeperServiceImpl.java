@@ -0,0 +1,201 @@
+package com.kyojin.mosiqa.service.impl;
+
+import com.kyojin.mosiqa.dto.SweepResultDTO;
+import com.kyojin.mosiqa.exception.InvalidRequestException;
+import com.kyojin.mosiqa.service.BlobSweeperService;
+import com.kyojin.mosiqa.service.impl.BlobStoreServiceImpl.Kind;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Incrementally removes blobs that no track references.
+ * <p>
+ * Orphans are found in id order from a cursor kept between runs, so each run picks up where the
+ * previous one stopped instead of rescanning from the start. Deletes go out in small batches, each
+ * in its own short statement that re-checks for references, with a pause between batches to cap
+ * the delete rate. Blobs younger than the grace period are left alone because a track may be about
+ * to reference them.
+ */
+@Service
+@Slf4j
+public class BlobSweeperServiceImpl implements BlobSweeperService {
+
+    private record BlobTable(String table, String referenceColumn, Kind kind) {
+    }
+
+    private static final BlobTable AUDIO_FILES = new BlobTable("audio_files", "audio_file_id", Kind.AUDIO);
+    private static final BlobTable COVER_IMAGES = new BlobTable("cover_images", "cover_image_id", Kind.COVER);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BlobStoreServiceImpl blobStore;
+    private final Duration gracePeriod;
+    private final int batchSize;
+    private final int maxDeletesPerSecond;
+    private final int maxBatchesPerRun;
+    private final ReentrantLock running = new ReentrantLock();
+    private final Map<String, UUID> cursors = new ConcurrentHashMap<>();
+
+    public BlobSweeperServiceImpl(JdbcTemplate jdbcTemplate,
+                                  BlobStoreServiceImpl blobStore,
+                                  @Value("${mosiqa.sweeper.grace-period:PT1H}") Duration gracePeriod,
+                                  @Value("${mosiqa.sweeper.batch-size:50}") int batchSize,
+                                  @Value("${mosiqa.sweeper.max-deletes-per-second:100}") int maxDeletesPerSecond,
+                                  @Value("${mosiqa.sweeper.max-batches-per-run:200}") int maxBatchesPerRun) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.blobStore = blobStore;
+        this.gracePeriod = gracePeriod;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxDeletesPerSecond = Math.max(1, maxDeletesPerSecond);
+        this.maxBatchesPerRun = Math.max(1, maxBatchesPerRun);
+    }
+
+    @Scheduled(fixedDelayString = "${mosiqa.sweeper.interval:PT15M}", initialDelayString = "${mosiqa.sweeper.initial-delay:PT5M}")
+    public void scheduledSweep() {
+        if (!running.tryLock()) {
+            return;
+        }
+        try {
+            SweepResultDTO result = doSweep();
+            if (result.getAudioFilesDeleted() + result.getCoverImagesDeleted() > 0) {
+                log.info("Blob sweep removed {} audio files and {} cover images ({} bytes) in {} ms",
+                        result.getAudioFilesDeleted(), result.getCoverImagesDeleted(),
+                        result.getBytesFreed(), result.getDurationMillis());
+            }
+        } catch (RuntimeException e) {
+            log.error("Blob sweep failed: {}", e.getMessage(), e);
+        } finally {
+            running.unlock();
+        }
+    }
+
+    @Override
+    public SweepResultDTO sweep() {
+        if (!running.tryLock()) {
+            throw new InvalidRequestException("A blob sweep is already running");
+        }
+        try {
+            return doSweep();
+        } finally {
+            running.unlock();
+        }
+    }
+
+    private SweepResultDTO doSweep() {
+        long start = System.currentTimeMillis();
+        Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minus(gracePeriod));
+        SweepResultDTO result = new SweepResultDTO();
+
+        int[] budget = {maxBatchesPerRun};
+        result.setAudioFilesDeleted(sweepTable(AUDIO_FILES, cutoff, budget, result));
+        result.setCoverImagesDeleted(sweepTable(COVER_IMAGES, cutoff, budget, result));
+        result.setBatches(maxBatchesPerRun - budget[0]);
+
+        if (result.getBytesFreed() > 0) {
+            // Commits the deletes to the MVStore so the freed pages are reused and
+            // sparse chunks get rewritten by its background compaction
+            jdbcTemplate.execute("CHECKPOINT");
+            result.setCheckpointed(true);
+        }
+        result.setDurationMillis(System.currentTimeMillis() - start);
+        return result;
+    }
+
+    private int sweepTable(BlobTable blobs, Timestamp cutoff, int[] budget, SweepResultDTO result) {
+        int deleted = 0;
+        while (budget[0] > 0) {
+            UUID cursor = cursors.get(blobs.table());
+            Map<UUID, Long> orphans = findOrphans(blobs, cursor, cutoff);
+            if (orphans.isEmpty()) {
+                // Reached the end of the table; the next run starts over from the beginning
+                cursors.remove(blobs.table());
+                break;
+            }
+            List<UUID> ids = new ArrayList<>(orphans.keySet());
+            cursors.put(blobs.table(), ids.get(ids.size() - 1));
+
+            int removed = deleteOrphans(blobs, ids);
+            blobStore.deleteOrphanedFiles(blobs.kind(), ids);
+            deleted += removed;
+            result.setBytesFreed(result.getBytesFreed() + freedBytes(blobs, orphans, removed));
+            budget[0]--;
+
+            if (!pace(removed)) {
+                break;
+            }
+        }
+        return deleted;
+    }
+
+    private Map<UUID, Long> findOrphans(BlobTable blobs, UUID cursor, Timestamp cutoff) {
+        Map<UUID, Long> orphans = new LinkedHashMap<>();
+        String sql = "SELECT b.id, b.size FROM " + blobs.table() + " b WHERE b.created_at < ?"
+                + (cursor != null ? " AND b.id > ?" : "")
+                + " AND NOT EXISTS (SELECT 1 FROM tracks t WHERE t." + blobs.referenceColumn() + " = b.id)"
+                + " ORDER BY b.id LIMIT ?";
+        Object[] args = cursor != null
+                ? new Object[]{cutoff, cursor, batchSize}
+                : new Object[]{cutoff, batchSize};
+        jdbcTemplate.query(sql, rs -> {
+            orphans.put(rs.getObject(1, UUID.class), rs.getLong(2));
+        }, args);
+        return orphans;
+    }
+
+    private int deleteOrphans(BlobTable blobs, List<UUID> ids) {
+        // The reference check is repeated so a blob claimed since the SELECT survives
+        String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        return jdbcTemplate.update("DELETE FROM " + blobs.table() + " b WHERE b.id IN (" + placeholders + ")"
+                + " AND NOT EXISTS (SELECT 1 FROM tracks t WHERE t." + blobs.referenceColumn() + " = b.id)", ids.toArray());
+    }
+
+    private long freedBytes(BlobTable blobs, Map<UUID, Long> orphans, int removed) {
+        if (removed == orphans.size()) {
+            return orphans.values().stream().mapToLong(Long::longValue).sum();
+        }
+        String placeholders = String.join(", ", Collections.nCopies(orphans.size(), "?"));
+        Set<UUID> survivors = new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT id FROM " + blobs.table() + " WHERE id IN (" + placeholders + ")",
+                UUID.class, orphans.keySet().toArray()));
+        long bytes = 0;
+        for (Map.Entry<UUID, Long> orphan : orphans.entrySet()) {
+            if (!survivors.contains(orphan.getKey())) {
+                bytes += orphan.getValue();
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Sleeps long enough to stay under the delete rate; returns {@code false} when interrupted.
+     */
+    private boolean pace(int deleted) {
+        long pauseMillis = deleted * 1000L / maxDeletesPerSecond;
+        if (pauseMillis <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(pauseMillis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
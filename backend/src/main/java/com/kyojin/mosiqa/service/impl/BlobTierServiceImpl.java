@@ -0,0 +1,397 @@
+package com.kyojin.mosiqa.service.impl;
+
+import com.kyojin.mosiqa.dto.TieringResultDTO;
+import com.kyojin.mosiqa.exception.InvalidRequestException;
+import com.kyojin.mosiqa.service.BlobTierService;
+import com.kyojin.mosiqa.service.impl.BlobStoreServiceImpl.Kind;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Moves blobs between the hot tier (the data column, or a storage volume when configured) and the
+ * cold tier, the {@link ColdArchive} packs indexed by {@code cold_blobs}.
+ * <p>
+ * Reads are counted in memory and flushed to {@code blob_access} in one batch. A periodic run demotes
+ * blobs not read within {@code mosiqa.tiering.cold-after} and compacts packs that are mostly dead space.
+ * Serving a cold blob queues its promotion back to the hot tier, so the hot tier holds what is
+ * actually being played. A blob is only removed from the hot tier after its cold copy is on disk and
+ * indexed, and readers that miss the hot tier fall back to the index, so every blob is readable
+ * throughout a move.
+ */
+@Service
+@Slf4j
+public class BlobTierServiceImpl implements BlobTierService {
+
+    private static final class Access {
+        private final LongAdder count = new LongAdder();
+        private volatile long lastMillis;
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BlobStoreServiceImpl blobStore;
+    private final ColdArchive archive;
+    private final Duration coldAfter;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    // Serializes everything that writes the archive or the index: demotion batches, compaction, promotions
+    private final ReentrantLock archiveLock = new ReentrantLock();
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final Map<UUID, Access> accesses = new ConcurrentHashMap<>();
+    private final Set<UUID> promoting = ConcurrentHashMap.newKeySet();
+    private final ExecutorService promoter = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "blob-promote");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public BlobTierServiceImpl(JdbcTemplate jdbcTemplate,
+                               TransactionTemplate transactionTemplate,
+                               BlobStoreServiceImpl blobStore,
+                               @Value("${mosiqa.tiering.directory:./data/cold}") String directory,
+                               @Value("${mosiqa.tiering.pack-size:1GB}") DataSize packSize,
+                               @Value("${mosiqa.tiering.cold-after:P30D}") Duration coldAfter,
+                               @Value("${mosiqa.tiering.batch-size:20}") int batchSize,
+                               @Value("${mosiqa.tiering.max-batches-per-run:100}") int maxBatchesPerRun) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.blobStore = blobStore;
+        this.archive = new ColdArchive(Paths.get(directory).toAbsolutePath().normalize(), packSize.toBytes());
+        this.coldAfter = coldAfter;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxBatchesPerRun = Math.max(1, maxBatchesPerRun);
+    }
+
+    @Override
+    public void recordAccess(UUID blobId) {
+        Access access = accesses.computeIfAbsent(blobId, id -> new Access());
+        access.count.increment();
+        access.lastMillis = System.currentTimeMillis();
+    }
+
+    @Scheduled(fixedDelayString = "${mosiqa.tiering.access-flush-interval:PT30S}")
+    public void flushAccesses() {
+        if (accesses.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>(accesses.size());
+        for (UUID id : accesses.keySet()) {
+            // A hit landing between the read and the remove is lost, which is fine for an idle timer
+            Access access = accesses.remove(id);
+            if (access != null) {
+                rows.add(new Object[]{id, new Timestamp(access.lastMillis), access.count.sum()});
+            }
+        }
+        jdbcTemplate.batchUpdate("MERGE INTO blob_access a USING (SELECT CAST(? AS UUID) AS id, "
+                + "CAST(? AS TIMESTAMP(6)) AS accessed_at, CAST(? AS BIGINT) AS hits) s ON a.id = s.id "
+                + "WHEN MATCHED THEN UPDATE SET last_accessed_at = GREATEST(a.last_accessed_at, s.accessed_at), "
+                + "access_count = a.access_count + s.hits "
+                + "WHEN NOT MATCHED THEN INSERT (id, last_accessed_at, access_count) VALUES (s.id, s.accessed_at, s.hits)", rows);
+    }
+
+    @Scheduled(fixedDelayString = "${mosiqa.tiering.interval:PT1H}", initialDelayString = "${mosiqa.tiering.initial-delay:PT10M}")
+    public void scheduledRun() {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            TieringResultDTO result = doRun();
+            if (result.getAudioFilesDemoted() + result.getCoverImagesDemoted() + result.getPacksCompacted() > 0) {
+                log.info("Tiering moved {} audio files and {} cover images ({} bytes, {} stored) to cold storage "
+                                + "and compacted {} packs in {} ms",
+                        result.getAudioFilesDemoted(), result.getCoverImagesDemoted(), result.getBytesDemoted(),
+                        result.getColdBytesWritten(), result.getPacksCompacted(), result.getDurationMillis());
+            }
+        } catch (RuntimeException e) {
+            log.error("Tiering run failed, it will be retried: {}", e.getMessage(), e);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    @Override
+    public TieringResultDTO runTiering() {
+        if (!running.compareAndSet(false, true)) {
+            throw new InvalidRequestException("A tiering run is already in progress");
+        }
+        try {
+            return doRun();
+        } finally {
+            running.set(false);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        promoter.shutdownNow();
+        try {
+            flushAccesses();
+            archive.close();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not flush blob access statistics on shutdown: {}", e.getMessage());
+        }
+    }
+
+    // --- cold reads ----------------------------------------------------------------------------
+
+    /**
+     * Reads a blob from the cold tier; throws {@link NoSuchFileException} when it is not there.
+     */
+    byte[] readCold(UUID id) throws IOException {
+        ColdArchive.Entry entry = findEntry(id);
+        if (entry == null) {
+            throw new NoSuchFileException("No cold copy of " + id);
+        }
+        try {
+            return archive.read(entry);
+        } catch (NoSuchFileException e) {
+            // Its pack was compacted after the lookup; the index already points at the new copy
+            ColdArchive.Entry moved = findEntry(id);
+            if (moved == null || moved.equals(entry)) {
+                throw e;
+            }
+            return archive.read(moved);
+        }
+    }
+
+    /**
+     * Queues a cold blob that was just served to move back to the hot tier.
+     */
+    void promoteLater(Kind kind, UUID id) {
+        if (!promoting.add(id)) {
+            return;
+        }
+        try {
+            promoter.execute(() -> {
+                try {
+                    promote(kind, id);
+                } catch (IOException | RuntimeException e) {
+                    log.warn("Could not promote {} back to hot storage: {}", id, e.getMessage());
+                } finally {
+                    promoting.remove(id);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            promoting.remove(id);
+        }
+    }
+
+    /**
+     * Drops the cold copy of a blob whose hot copy was just replaced, e.g. by a restore.
+     */
+    void discardCold(UUID id) {
+        jdbcTemplate.update("DELETE FROM cold_blobs WHERE id = ?", id);
+    }
+
+    private void promote(Kind kind, UUID id) throws IOException {
+        archiveLock.lock();
+        try {
+            ColdArchive.Entry entry = findEntry(id);
+            if (entry == null) {
+                return;
+            }
+            byte[] data = archive.read(entry);
+            if (blobStore.isEnabled()) {
+                blobStore.write(kind, id, data);
+                discardCold(id);
+                // Deleted while it was being promoted
+                blobStore.deleteOrphanedFiles(kind, List.of(id));
+            } else {
+                transactionTemplate.executeWithoutResult(status -> {
+                    jdbcTemplate.update("UPDATE " + kind.table() + " SET data = ? WHERE id = ?",
+                            statement -> {
+                                statement.setBytes(1, data);
+                                statement.setObject(2, id);
+                            });
+                    discardCold(id);
+                });
+            }
+            log.debug("Promoted {} back to hot storage", id);
+        } finally {
+            archiveLock.unlock();
+        }
+    }
+
+    private ColdArchive.Entry findEntry(UUID id) {
+        List<ColdArchive.Entry> entries = jdbcTemplate.query(
+                "SELECT pack, pack_offset, stored_length, original_length, compressed FROM cold_blobs WHERE id = ?",
+                (rs, rowNum) -> new ColdArchive.Entry(rs.getInt(1), rs.getLong(2), rs.getLong(3), rs.getLong(4), rs.getBoolean(5)),
+                id);
+        return entries.isEmpty() ? null : entries.get(0);
+    }
+
+    // --- tiering run ---------------------------------------------------------------------------
+
+    private TieringResultDTO doRun() {
+        long start = System.currentTimeMillis();
+        TieringResultDTO result = TieringResultDTO.builder().build();
+        flushAccesses();
+        try {
+            result.setStaleEntriesRemoved(removeStaleEntries());
+            if (!coldAfter.isZero() && !coldAfter.isNegative()) {
+                Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minus(coldAfter));
+                int[] budget = {maxBatchesPerRun};
+                result.setAudioFilesDemoted(demote(Kind.AUDIO, cutoff, budget, result));
+                result.setCoverImagesDemoted(demote(Kind.COVER, cutoff, budget, result));
+            }
+            result.setPacksCompacted(compact());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (!blobStore.isEnabled() && result.getAudioFilesDemoted() + result.getCoverImagesDemoted() > 0) {
+            // Let H2 reuse the pages the demoted blobs occupied
+            jdbcTemplate.execute("CHECKPOINT");
+        }
+        result.setDurationMillis(System.currentTimeMillis() - start);
+        return result;
+    }
+
+    /**
+     * Forgets index entries and access statistics of blobs that have since been deleted.
+     */
+    private int removeStaleEntries() {
+        String orphaned = " t WHERE NOT EXISTS (SELECT 1 FROM audio_files a WHERE a.id = t.id)"
+                + " AND NOT EXISTS (SELECT 1 FROM cover_images c WHERE c.id = t.id)";
+        archiveLock.lock();
+        try {
+            jdbcTemplate.update("DELETE FROM blob_access" + orphaned);
+            return jdbcTemplate.update("DELETE FROM cold_blobs" + orphaned);
+        } finally {
+            archiveLock.unlock();
+        }
+    }
+
+    private int demote(Kind kind, Timestamp cutoff, int[] budget, TieringResultDTO result) throws IOException {
+        int demoted = 0;
+        UUID cursor = null;
+        while (budget[0] > 0) {
+            String sql = "SELECT b.id FROM " + kind.table() + " b LEFT JOIN blob_access a ON a.id = b.id"
+                    + " WHERE COALESCE(a.last_accessed_at, b.created_at) < ?"
+                    + (cursor != null ? " AND b.id > ?" : "")
+                    + " AND NOT EXISTS (SELECT 1 FROM cold_blobs c WHERE c.id = b.id)"
+                    + " ORDER BY b.id LIMIT ?";
+            Object[] args = cursor != null
+                    ? new Object[]{cutoff, cursor, batchSize}
+                    : new Object[]{cutoff, batchSize};
+            List<UUID> ids = jdbcTemplate.queryForList(sql, UUID.class, args);
+            if (ids.isEmpty()) {
+                break;
+            }
+            cursor = ids.get(ids.size() - 1);
+            budget[0]--;
+            demoted += demoteBatch(kind, ids, result);
+        }
+        return demoted;
+    }
+
+    private int demoteBatch(Kind kind, List<UUID> ids, TieringResultDTO result) throws IOException {
+        List<Object[]> entries = new ArrayList<>(ids.size());
+        List<Object[]> cleared = new ArrayList<>(ids.size());
+        List<UUID> onVolume = new ArrayList<>();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        archiveLock.lock();
+        try {
+            for (UUID id : ids) {
+                List<byte[]> rows = jdbcTemplate.query("SELECT data FROM " + kind.table() + " WHERE id = ?",
+                        (rs, rowNum) -> rs.getBytes(1), id);
+                if (rows.isEmpty()) {
+                    continue;
+                }
+                byte[] data = rows.get(0);
+                if (data == null) {
+                    try {
+                        data = blobStore.read(kind, id);
+                    } catch (NoSuchFileException e) {
+                        log.warn("Skipping demotion of {}: no hot copy found", id);
+                        continue;
+                    }
+                    onVolume.add(id);
+                }
+                ColdArchive.Entry entry = archive.append(data);
+                entries.add(new Object[]{id, entry.pack(), entry.offset(), entry.storedLength(), entry.originalLength(),
+                        entry.compressed(), now});
+                cleared.add(new Object[]{id});
+                result.setBytesDemoted(result.getBytesDemoted() + entry.originalLength());
+                result.setColdBytesWritten(result.getColdBytesWritten() + entry.storedLength());
+            }
+            if (entries.isEmpty()) {
+                return 0;
+            }
+
+            // Durable in the pack before the index points at it and before the hot copy goes
+            archive.sync();
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.batchUpdate("INSERT INTO cold_blobs (id, pack, pack_offset, stored_length, original_length, "
+                        + "compressed, created_at) VALUES (?, ?, ?, ?, ?, ?, ?)", entries);
+                jdbcTemplate.batchUpdate("UPDATE " + kind.table() + " SET data = NULL WHERE id = ?", cleared);
+            });
+            blobStore.delete(kind, onVolume);
+            return entries.size();
+        } finally {
+            archiveLock.unlock();
+        }
+    }
+
+    /**
+     * Rewrites the live entries of sealed packs that are at least half dead space, then drops those packs.
+     */
+    private int compact() throws IOException {
+        int compacted = 0;
+        for (int pack : archive.sealedPacks()) {
+            archiveLock.lock();
+            try {
+                List<Object[]> live = jdbcTemplate.query(
+                        "SELECT id, pack_offset, stored_length, original_length, compressed FROM cold_blobs WHERE pack = ?",
+                        (rs, rowNum) -> new Object[]{rs.getObject(1, UUID.class), new ColdArchive.Entry(pack,
+                                rs.getLong(2), rs.getLong(3), rs.getLong(4), rs.getBoolean(5))},
+                        pack);
+                long liveBytes = live.stream().mapToLong(row -> ((ColdArchive.Entry) row[1]).storedLength()).sum();
+                if (liveBytes * 2 > archive.packSize(pack)) {
+                    continue;
+                }
+
+                List<Object[]> moves = new ArrayList<>(live.size());
+                for (Object[] row : live) {
+                    ColdArchive.Entry moved = archive.copy((ColdArchive.Entry) row[1]);
+                    moves.add(new Object[]{moved.pack(), moved.offset(), row[0], pack});
+                }
+                archive.sync();
+                if (!moves.isEmpty()) {
+                    jdbcTemplate.batchUpdate("UPDATE cold_blobs SET pack = ?, pack_offset = ? WHERE id = ? AND pack = ?", moves);
+                }
+                archive.deletePack(pack);
+                compacted++;
+            } finally {
+                archiveLock.unlock();
+            }
+        }
+        return compacted;
+    }
+}
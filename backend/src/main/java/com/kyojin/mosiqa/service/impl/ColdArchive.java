@@ -0,0 +1,211 @@
+package com.kyojin.mosiqa.service.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Append-only pack files holding cold blobs back to back, each deflated when that pays off.
+ * <p>
+ * Entries carry no header: where each blob lives is recorded in the {@code cold_blobs} table, which
+ * {@link BlobTierServiceImpl} only writes after {@link #sync()}. Bytes appended by a run that dies before
+ * then are dead space, reclaimed when the pack is compacted. A pack is sealed once it reaches its
+ * maximum size and from then on only read, or dropped by compaction.
+ */
+final class ColdArchive implements AutoCloseable {
+
+    record Entry(int pack, long offset, long storedLength, long originalLength, boolean compressed) {
+    }
+
+    private static final Pattern PACK_NAME = Pattern.compile("pack-(\\d{6})\\.mpk");
+    // Already-compressed audio barely shrinks; keeping it stored spares the inflate on every read
+    private static final double MIN_SAVING = 0.05;
+
+    private final Path directory;
+    private final long maxPackSize;
+    private int currentPack;
+    private FileChannel current;
+
+    ColdArchive(Path directory, long maxPackSize) {
+        this.directory = directory;
+        this.maxPackSize = maxPackSize;
+    }
+
+    synchronized Entry append(byte[] data) throws IOException {
+        byte[] deflated = deflate(data);
+        boolean compressed = deflated.length < data.length * (1 - MIN_SAVING);
+        return write(compressed ? deflated : data, data.length, compressed);
+    }
+
+    /**
+     * Copies an entry's stored bytes as they are, for compaction.
+     */
+    synchronized Entry copy(Entry source) throws IOException {
+        return write(readStored(source), source.originalLength(), source.compressed());
+    }
+
+    /**
+     * Flushes appended entries to disk; call before recording them anywhere.
+     */
+    synchronized void sync() throws IOException {
+        if (current != null) {
+            current.force(false);
+        }
+    }
+
+    byte[] read(Entry entry) throws IOException {
+        byte[] stored = readStored(entry);
+        return entry.compressed() ? inflate(stored, entry.originalLength()) : stored;
+    }
+
+    /**
+     * Packs that no longer receive appends, oldest first.
+     */
+    synchronized List<Integer> sealedPacks() throws IOException {
+        List<Integer> packs = new ArrayList<>(packNumbers());
+        packs.removeIf(pack -> pack >= currentPack());
+        return packs;
+    }
+
+    long packSize(int pack) throws IOException {
+        return Files.size(packPath(pack));
+    }
+
+    void deletePack(int pack) throws IOException {
+        Files.deleteIfExists(packPath(pack));
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (current != null) {
+            current.close();
+            current = null;
+        }
+    }
+
+    private Entry write(byte[] bytes, long originalLength, boolean compressed) throws IOException {
+        FileChannel channel = currentChannel();
+        if (channel.size() > 0 && channel.size() + bytes.length > maxPackSize) {
+            // Seal the full pack; its entries are already forced or about to be by sync()
+            channel.force(false);
+            channel.close();
+            current = null;
+            currentPack++;
+            channel = currentChannel();
+        }
+        long offset = channel.size();
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        long position = offset;
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+        return new Entry(currentPack, offset, bytes.length, originalLength, compressed);
+    }
+
+    private byte[] readStored(Entry entry) throws IOException {
+        if (entry.storedLength() > Integer.MAX_VALUE) {
+            throw new IOException("Cold entry too large: " + entry.storedLength() + " bytes");
+        }
+        Path pack = packPath(entry.pack());
+        try (FileChannel channel = FileChannel.open(pack, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) entry.storedLength());
+            long position = entry.offset();
+            while (buffer.hasRemaining()) {
+                int read = channel.read(buffer, position);
+                if (read < 0) {
+                    throw new IOException("Truncated cold entry in " + pack.getFileName());
+                }
+                position += read;
+            }
+            return buffer.array();
+        }
+    }
+
+    private FileChannel currentChannel() throws IOException {
+        if (current == null) {
+            int pack = currentPack();
+            current = FileChannel.open(packPath(pack), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        }
+        return current;
+    }
+
+    /**
+     * The newest pack on disk; packs are numbered from 1 and only ever appended to at the end.
+     */
+    private int currentPack() throws IOException {
+        if (currentPack == 0) {
+            Files.createDirectories(directory);
+            currentPack = packNumbers().stream().mapToInt(Integer::intValue).max().orElse(1);
+        }
+        return currentPack;
+    }
+
+    private List<Integer> packNumbers() throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> PACK_NAME.matcher(file.getFileName().toString()))
+                    .filter(Matcher::matches)
+                    .map(matcher -> Integer.parseInt(matcher.group(1)))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private Path packPath(int pack) {
+        return directory.resolve(String.format("pack-%06d.mpk", pack));
+    }
+
+    private static byte[] deflate(byte[] data) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 2 + 64);
+            byte[] chunk = new byte[64 * 1024];
+            while (!deflater.finished()) {
+                out.write(chunk, 0, deflater.deflate(chunk));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] stored, long originalLength) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(stored);
+            byte[] data = new byte[(int) originalLength];
+            int filled = 0;
+            while (filled < data.length) {
+                int inflated = inflater.inflate(data, filled, data.length - filled);
+                if (inflated == 0 && (inflater.finished() || inflater.needsInput())) {
+                    break;
+                }
+                filled += inflated;
+            }
+            if (filled != data.length) {
+                throw new IOException("Corrupt cold entry: inflated " + filled + " of " + data.length + " bytes");
+            }
+            return data;
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt cold entry: " + e.getMessage(), e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.kyojin.mosiqa.service.impl;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Scales cover images down for the library grid, which shows them far smaller than they are uploaded.
+ */
+final class CoverThumbnails {
+
+    record Image(byte[] data, String mimeType) {
+    }
+
+    /**
+     * Recently scaled covers, so a grid reloading the same page does not decode and scale them again.
+     * Cover ids are never reused and their bytes never change, so entries need no invalidation; the least
+     * recently used go once the cache holds more than {@code maxBytes}.
+     */
+    static final class Cache {
+
+        private record Key(UUID id, int size) {
+        }
+
+        private final long maxBytes;
+        private final LinkedHashMap<Key, Image> entries = new LinkedHashMap<>(64, 0.75f, true);
+        private long bytes;
+
+        Cache(long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        synchronized Image get(UUID id, int size) {
+            return entries.get(new Key(id, size));
+        }
+
+        synchronized void put(UUID id, int size, Image image) {
+            if (image.data().length > maxBytes) {
+                return;
+            }
+            Image previous = entries.put(new Key(id, size), image);
+            bytes += image.data().length - (previous != null ? previous.data().length : 0);
+            Iterator<Map.Entry<Key, Image>> eldest = entries.entrySet().iterator();
+            while (bytes > maxBytes) {
+                bytes -= eldest.next().getValue().data().length;
+                eldest.remove();
+            }
+        }
+
+        synchronized long bytes() {
+            return bytes;
+        }
+    }
+
+    private CoverThumbnails() {
+    }
+
+    /**
+     * Fits the image within {@code size} x {@code size}; returns it unchanged when it already fits, cannot be
+     * decoded, or would not get any smaller.
+     */
+    static Image fit(byte[] data, String mimeType, int size) {
+        Image original = new Image(data, mimeType);
+        try {
+            BufferedImage source = ImageIO.read(new ByteArrayInputStream(data));
+            if (source == null || (source.getWidth() <= size && source.getHeight() <= size)) {
+                return original;
+            }
+            double scale = Math.min((double) size / source.getWidth(), (double) size / source.getHeight());
+            int width = Math.max(1, (int) Math.round(source.getWidth() * scale));
+            int height = Math.max(1, (int) Math.round(source.getHeight() * scale));
+            boolean png = "image/png".equalsIgnoreCase(mimeType);
+
+            // Halving first keeps bilinear scaling from dropping most of the source pixels
+            BufferedImage scaled = source;
+            while (scaled.getWidth() / 2 >= width && scaled.getHeight() / 2 >= height) {
+                scaled = draw(scaled, scaled.getWidth() / 2, scaled.getHeight() / 2, png);
+            }
+            scaled = draw(scaled, width, height, png);
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            if (!ImageIO.write(scaled, png ? "png" : "jpg", out) || out.size() >= data.length) {
+                return original;
+            }
+            return new Image(out.toByteArray(), png ? "image/png" : "image/jpeg");
+        } catch (IOException | RuntimeException e) {
+            return original;
+        }
+    }
+
+    private static BufferedImage draw(BufferedImage source, int width, int height, boolean alpha) {
+        BufferedImage target = new BufferedImage(width, height, alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+}
@@ -1,21 +1,42 @@
 package com.kyojin.mosiqa.service.impl;
 
+import com.kyojin.mosiqa.converter.CoverBundleCodec;
+import com.kyojin.mosiqa.entity.AudioEncoding;
 import com.kyojin.mosiqa.entity.AudioFile;
 import com.kyojin.mosiqa.entity.CoverImage;
 import com.kyojin.mosiqa.exception.InvalidFileException;
+import com.kyojin.mosiqa.metrics.BlobMetrics;
+import com.kyojin.mosiqa.metrics.BlobMetrics.Content;
+import com.kyojin.mosiqa.metrics.BlobMetrics.Source;
+import com.kyojin.mosiqa.metrics.RequestTiming;
+import com.kyojin.mosiqa.metrics.RequestTiming.Phase;
 import com.kyojin.mosiqa.repository.AudioFileRepository;
+import com.kyojin.mosiqa.repository.CoverImageContent;
+import com.kyojin.mosiqa.repository.CoverImageRef;
 import com.kyojin.mosiqa.repository.CoverImageRepository;
 import com.kyojin.mosiqa.service.FileStorageService;
+import com.kyojin.mosiqa.service.impl.BlobStoreServiceImpl.Kind;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 @Service
 @RequiredArgsConstructor
@@ -23,49 +44,120 @@ import java.util.Optional;
 @Transactional
 public class FileStorageServiceImpl implements FileStorageService {
 
-    private static final long MAX_FILE_SIZE = 50 * 1024 * 1024; // 50MB
+    static final long MAX_FILE_SIZE = 50 * 1024 * 1024; // 50MB
     private static final List<String> ALLOWED_AUDIO_TYPES = Arrays.asList(
             "audio/mpeg", "audio/wav", "audio/ogg", "audio/mp3", "audio/x-wav"
     );
+    private static final List<String> WAV_TYPES = Arrays.asList("audio/wav", "audio/x-wav");
     private static final List<String> ALLOWED_IMAGE_TYPES = Arrays.asList(
             "image/png", "image/jpeg", "image/jpg"
     );
+    // Originals read per round trip while a bundle is built; bounds the heap, not the query count
+    private static final int BUNDLE_LOAD_BATCH = 16;
+    private static final long THUMBNAIL_CACHE_BYTES = 32 * 1024 * 1024; // 32MB
 
     private final AudioFileRepository audioFileRepository;
     private final CoverImageRepository coverImageRepository;
+    private final BlobStoreServiceImpl blobStore;
+    private final BlobTierServiceImpl blobTiers;
+    private final BlobMetrics blobMetrics;
+
+    // A new release brings many clients asking for the same files at once; they share one read per id
+    private final SingleFlight<UUID, Optional<AudioFile>> audioFileLoads = new SingleFlight<>();
+    private final SingleFlight<UUID, Optional<CoverImage>> coverImageLoads = new SingleFlight<>();
+    private final SingleFlight<UUID, byte[]> storedReads = new SingleFlight<>();
+    private final CoverThumbnails.Cache thumbnails = new CoverThumbnails.Cache(THUMBNAIL_CACHE_BYTES);
+
+    @PostConstruct
+    void registerMetrics() {
+        blobMetrics.coalescing("audio-file", audioFileLoads::loaded, audioFileLoads::shared);
+        blobMetrics.coalescing("cover-image", coverImageLoads::loaded, coverImageLoads::shared);
+        blobMetrics.coalescing("stored-blob", storedReads::loaded, storedReads::shared);
+    }
 
     @Override
     public AudioFile saveAudioFile(MultipartFile file) {
         validateAudioFile(file);
-        
-        try {
-            AudioFile audioFile = AudioFile.builder()
-                    .name(file.getOriginalFilename())
-                    .size(file.getSize())
-                    .mimeType(file.getContentType())
-                    .data(file.getBytes())
-                    .build();
-            
-            AudioFile saved = audioFileRepository.save(audioFile);
-            log.info("Saved audio file: {} with id: {}", saved.getName(), saved.getId());
-            return saved;
-        } catch (IOException e) {
-            log.error("Failed to save audio file: {}", e.getMessage());
-            throw new InvalidFileException("Failed to save audio file: " + e.getMessage());
+
+        AudioFile audioFile = toAudioFile(file);
+        byte[] data = detach(audioFile);
+        AudioFile saved = audioFileRepository.save(audioFile);
+        store(Kind.AUDIO, saved.getId(), data);
+        log.info("Saved audio file: {} with id: {}", saved.getName(), saved.getId());
+        return saved;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Optional<AudioFile> getAudioFile(UUID id) {
+        // Outside a transaction, so callers waiting on a shared load do not each hold a connection
+        return audioFileLoads.load(id, () -> findRow(Content.AUDIO, () -> audioFileRepository.findById(id),
+                AudioFile::getData));
+    }
+
+    @Override
+    public void deleteAudioFile(UUID id) {
+        // One DELETE instead of existsById and deleteById, which take two SELECTs (one loading the blob) first
+        audioFileRepository.deleteAllByIdInBatch(List.of(id));
+        blobStore.deleteAfterCommit(Kind.AUDIO, List.of(id));
+        log.info("Deleted audio file with id: {}", id);
+    }
+
+    @Override
+    public List<AudioFile> saveAudioFiles(List<MultipartFile> files) {
+        List<AudioFile> audioFiles = new ArrayList<>(files.size());
+        for (MultipartFile file : files) {
+            validateAudioFile(file);
+            audioFiles.add(toAudioFile(file));
+        }
+
+        List<byte[]> data = audioFiles.stream().map(this::detach).toList();
+        // Ids are assigned before insert, so Hibernate can send these as one JDBC batch
+        List<AudioFile> saved = audioFileRepository.saveAll(audioFiles);
+        for (int i = 0; i < saved.size(); i++) {
+            store(Kind.AUDIO, saved.get(i).getId(), data.get(i));
         }
+        log.info("Saved {} audio files", saved.size());
+        return saved;
     }
 
     @Override
-    @Transactional(readOnly = true)
-    public Optional<AudioFile> getAudioFile(String id) {
-        return audioFileRepository.findById(id);
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void writeAudio(AudioFile audioFile, long start, long end, OutputStream out) throws IOException {
+        byte[] data = audioFile.getData();
+        if (audioFile.getEncoding() == AudioEncoding.LPC) {
+            // The decoder needs random access to the block index, so stored files are read whole
+            new WavCodec.Decoder(data != null ? data : readStored(Kind.AUDIO, audioFile.getId())).write(start, end, out);
+        } else if (data == null) {
+            try {
+                long started = System.nanoTime();
+                blobStore.writeRange(Kind.AUDIO, audioFile.getId(), start, end, out);
+                long elapsed = System.nanoTime() - started;
+                blobMetrics.read(Content.AUDIO, Source.VOLUME).record(elapsed, TimeUnit.NANOSECONDS);
+                RequestTiming.record(Phase.BLOB, elapsed);
+            } catch (NoSuchFileException e) {
+                byte[] cold = storedReads.load(audioFile.getId(), () -> readCold(Kind.AUDIO, audioFile.getId()));
+                out.write(cold, (int) start, (int) (end - start));
+            }
+        } else {
+            out.write(data, (int) start, (int) (end - start));
+        }
+    }
+
+    @Override
+    public Optional<Path> findStoredAudioFile(AudioFile audioFile) {
+        if (audioFile.getData() != null || audioFile.getEncoding() == AudioEncoding.LPC || !blobStore.isEnabled()) {
+            return Optional.empty();
+        }
+        return blobStore.find(Kind.AUDIO, audioFile.getId());
     }
 
     @Override
-    public void deleteAudioFile(String id) {
-        if (audioFileRepository.existsById(id)) {
-            audioFileRepository.deleteById(id);
-            log.info("Deleted audio file with id: {}", id);
+    public void deleteAudioFiles(Collection<UUID> ids) {
+        if (!ids.isEmpty()) {
+            audioFileRepository.deleteAllByIdInBatch(ids);
+            blobStore.deleteAfterCommit(Kind.AUDIO, ids);
+            log.info("Deleted {} audio files", ids.size());
         }
     }
 
@@ -73,6 +165,7 @@ public class FileStorageServiceImpl implements FileStorageService {
     public CoverImage saveCoverImage(MultipartFile file) {
         validateImageFile(file);
         
+        blobMetrics.uploaded(Content.COVER, file.getSize());
         try {
             CoverImage coverImage = CoverImage.builder()
                     .name(file.getOriginalFilename())
@@ -81,7 +174,9 @@ public class FileStorageServiceImpl implements FileStorageService {
                     .data(file.getBytes())
                     .build();
             
+            byte[] data = detach(coverImage);
             CoverImage saved = coverImageRepository.save(coverImage);
+            store(Kind.COVER, saved.getId(), data);
             log.info("Saved cover image: {} with id: {}", saved.getName(), saved.getId());
             return saved;
         } catch (IOException e) {
@@ -91,16 +186,92 @@ public class FileStorageServiceImpl implements FileStorageService {
     }
 
     @Override
-    @Transactional(readOnly = true)
-    public Optional<CoverImage> getCoverImage(String id) {
-        return coverImageRepository.findById(id);
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Optional<CoverImage> getCoverImage(UUID id) {
+        return coverImageLoads.load(id, () -> findRow(Content.COVER, () -> coverImageRepository.findById(id),
+                CoverImage::getData));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public byte[] readCoverImage(CoverImage coverImage) throws IOException {
+        return coverImage.getData() != null ? coverImage.getData() : readStored(Kind.COVER, coverImage.getId());
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void writeCoverBundle(Collection<UUID> ids, Integer size, OutputStream out) throws IOException {
+        // Each lookup is its own short read, so no connection is held while covers are scaled and written
+        CoverBundleCodec.writeHeader(out);
+        List<UUID> uncached = new ArrayList<>();
+        for (CoverImageRef ref : coverImageRepository.findRefsByIdIn(ids)) {
+            CoverThumbnails.Image cached = size != null ? thumbnails.get(ref.getId(), size) : null;
+            if (cached != null) {
+                CoverBundleCodec.writeEntry(out, ref.getId(), cached.mimeType(), cached.data());
+            } else {
+                uncached.add(ref.getId());
+            }
+        }
+        for (int from = 0; from < uncached.size(); from += BUNDLE_LOAD_BATCH) {
+            List<UUID> batch = uncached.subList(from, Math.min(from + BUNDLE_LOAD_BATCH, uncached.size()));
+            for (CoverImageContent cover : coverImageRepository.findContentsByIdIn(batch)) {
+                byte[] data = cover.getData();
+                try {
+                    data = data != null ? data : readStored(Kind.COVER, cover.getId());
+                } catch (NoSuchFileException e) {
+                    log.warn("Cover image {} has no stored file, leaving it out of the bundle", cover.getId());
+                    continue;
+                }
+                CoverThumbnails.Image image;
+                if (size != null) {
+                    image = CoverThumbnails.fit(data, cover.getMimeType(), size);
+                    thumbnails.put(cover.getId(), size, image);
+                } else {
+                    image = new CoverThumbnails.Image(data, cover.getMimeType());
+                }
+                CoverBundleCodec.writeEntry(out, cover.getId(), image.mimeType(), image.data());
+            }
+        }
+        CoverBundleCodec.writeEnd(out);
+    }
+
+    @Override
+    public void deleteCoverImage(UUID id) {
+        // One DELETE instead of existsById and deleteById, which take two SELECTs (one loading the blob) first
+        coverImageRepository.deleteAllByIdInBatch(List.of(id));
+        blobStore.deleteAfterCommit(Kind.COVER, List.of(id));
+        log.info("Deleted cover image with id: {}", id);
+    }
+
+    @Override
+    public List<CoverImage> saveCoverImages(List<MultipartFile> files) {
+        List<CoverImage> coverImages = new ArrayList<>(files.size());
+        for (MultipartFile file : files) {
+            validateImageFile(file);
+            blobMetrics.uploaded(Content.COVER, file.getSize());
+            coverImages.add(CoverImage.builder()
+                    .name(file.getOriginalFilename())
+                    .size(file.getSize())
+                    .mimeType(file.getContentType())
+                    .data(readBytes(file))
+                    .build());
+        }
+
+        List<byte[]> data = coverImages.stream().map(this::detach).toList();
+        List<CoverImage> saved = coverImageRepository.saveAll(coverImages);
+        for (int i = 0; i < saved.size(); i++) {
+            store(Kind.COVER, saved.get(i).getId(), data.get(i));
+        }
+        log.info("Saved {} cover images", saved.size());
+        return saved;
     }
 
     @Override
-    public void deleteCoverImage(String id) {
-        if (coverImageRepository.existsById(id)) {
-            coverImageRepository.deleteById(id);
-            log.info("Deleted cover image with id: {}", id);
+    public void deleteCoverImages(Collection<UUID> ids) {
+        if (!ids.isEmpty()) {
+            coverImageRepository.deleteAllByIdInBatch(ids);
+            blobStore.deleteAfterCommit(Kind.COVER, ids);
+            log.info("Deleted {} cover images", ids.size());
         }
     }
 
@@ -135,4 +306,119 @@ public class FileStorageServiceImpl implements FileStorageService {
             throw new InvalidFileException("Invalid image format. Allowed formats: PNG, JPEG");
         }
     }
+
+    private AudioFile toAudioFile(MultipartFile file) {
+        blobMetrics.uploaded(Content.AUDIO, file.getSize());
+        byte[] data = readBytes(file);
+        AudioEncoding encoding = AudioEncoding.RAW;
+        if (WAV_TYPES.contains(file.getContentType().toLowerCase())) {
+            byte[] compressed = WavCodec.compress(data);
+            if (compressed != null) {
+                log.debug("Compressed {} from {} to {} bytes", file.getOriginalFilename(), data.length, compressed.length);
+                data = compressed;
+                encoding = AudioEncoding.LPC;
+            }
+        }
+        return AudioFile.builder()
+                .name(file.getOriginalFilename())
+                .size(file.getSize())
+                .mimeType(file.getContentType())
+                .encoding(encoding)
+                .data(data)
+                .build();
+    }
+
+    /**
+     * Takes the bytes off an entity about to be saved when they go to a storage volume instead of the row.
+     */
+    private byte[] detach(AudioFile audioFile) {
+        byte[] data = audioFile.getData();
+        if (blobStore.isEnabled()) {
+            audioFile.setData(null);
+        }
+        return data;
+    }
+
+    private byte[] detach(CoverImage coverImage) {
+        byte[] data = coverImage.getData();
+        if (blobStore.isEnabled()) {
+            coverImage.setData(null);
+        }
+        return data;
+    }
+
+    /**
+     * Writes detached bytes once the row has its id; the file goes away again if the transaction rolls back.
+     */
+    private void store(Kind kind, UUID id, byte[] data) {
+        if (!blobStore.isEnabled()) {
+            return;
+        }
+        try {
+            long start = System.nanoTime();
+            blobStore.write(kind, id, data);
+            long elapsed = System.nanoTime() - start;
+            blobMetrics.write(content(kind)).record(elapsed, TimeUnit.NANOSECONDS);
+            RequestTiming.record(Phase.BLOB, elapsed);
+            blobStore.deleteOnRollback(kind, id);
+        } catch (IOException e) {
+            log.error("Failed to write {} to storage volume: {}", id, e.getMessage());
+            throw new InvalidFileException("Failed to store file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reads bytes that are not in the row: from a storage volume, or else from the cold tier.
+     */
+    /**
+     * Looks up a row, timing it as a row read only when the bytes came with it; rows whose bytes live on a
+     * volume are timed when those are read.
+     */
+    private <T> Optional<T> findRow(Content content, Supplier<Optional<T>> find, Function<T, byte[]> data) {
+        long start = System.nanoTime();
+        Optional<T> row = find.get();
+        if (row.map(data).isPresent()) {
+            blobMetrics.read(content, Source.ROW).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        return row;
+    }
+
+    private byte[] readStored(Kind kind, UUID id) throws IOException {
+        return storedReads.load(id, () -> {
+            long start = System.nanoTime();
+            byte[] data;
+            try {
+                data = blobStore.read(kind, id);
+            } catch (NoSuchFileException e) {
+                return readCold(kind, id);
+            }
+            long elapsed = System.nanoTime() - start;
+            blobMetrics.read(content(kind), Source.VOLUME).record(elapsed, TimeUnit.NANOSECONDS);
+            RequestTiming.record(Phase.BLOB, elapsed);
+            return data;
+        });
+    }
+
+    private byte[] readCold(Kind kind, UUID id) throws IOException {
+        long start = System.nanoTime();
+        byte[] data = blobTiers.readCold(id);
+        long elapsed = System.nanoTime() - start;
+        blobMetrics.read(content(kind), Source.COLD).record(elapsed, TimeUnit.NANOSECONDS);
+        RequestTiming.record(Phase.BLOB, elapsed);
+        blobTiers.promoteLater(kind, id);
+        return data;
+    }
+
+    private static Content content(Kind kind) {
+        return kind == Kind.AUDIO ? Content.AUDIO : Content.COVER;
+    }
+
+    private byte[] readBytes(MultipartFile file) {
+        try {
+            return file.getBytes();
+        } catch (IOException e) {
+            log.error("Failed to read uploaded file {}: {}", file.getOriginalFilename(), e.getMessage());
+            throw new InvalidFileException("Failed to read file: " + e.getMessage());
+        }
+    }
 }
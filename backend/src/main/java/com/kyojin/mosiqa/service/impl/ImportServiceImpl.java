@@ -0,0 +1,338 @@
+package com.kyojin.mosiqa.service.impl;
+
+import com.kyojin.mosiqa.dto.ImportJobDTO;
+import com.kyojin.mosiqa.dto.ImportRequest;
+import com.kyojin.mosiqa.entity.ImportJob;
+import com.kyojin.mosiqa.entity.ImportJobStatus;
+import com.kyojin.mosiqa.exception.InvalidRequestException;
+import com.kyojin.mosiqa.exception.ResourceNotFoundException;
+import com.kyojin.mosiqa.mapper.ImportJobMapper;
+import com.kyojin.mosiqa.repository.ImportJobRepository;
+import com.kyojin.mosiqa.service.ImportService;
+import com.kyojin.mosiqa.service.impl.TrackImportWriter.PreparedTrack;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs bulk imports in the background.
+ * <p>
+ * Jobs run one at a time on a coordinator thread. Entries are materialized and probed on a bounded
+ * pool, at most a few per probe thread in flight, and written in batches by {@link TrackImportWriter}.
+ * Entries a job already imported are skipped and the ones that failed are tried again, which is what
+ * makes a job resumable.
+ */
+@Service
+@Slf4j
+public class ImportServiceImpl implements ImportService {
+
+    private static final Map<String, String> AUDIO_TYPES = Map.of(
+            "mp3", "audio/mpeg",
+            "wav", "audio/wav",
+            "ogg", "audio/ogg"
+    );
+    private static final String UNKNOWN_ARTIST = "Unknown Artist";
+    private static final int IN_FLIGHT_PER_THREAD = 4;
+
+    private final ImportJobRepository importJobRepository;
+    private final ImportJobMapper importJobMapper;
+    private final TrackImportWriter importWriter;
+    private final Path importRoot;
+    private final int batchSize;
+    private final int probeThreads;
+    private final ExecutorService coordinator;
+    private final ExecutorService probeExecutor;
+    private final Set<UUID> activeJobs = ConcurrentHashMap.newKeySet();
+
+    public ImportServiceImpl(ImportJobRepository importJobRepository,
+                             ImportJobMapper importJobMapper,
+                             TrackImportWriter importWriter,
+                             @Value("${mosiqa.import.root:./imports}") String importRoot,
+                             @Value("${mosiqa.import.batch-size:200}") int batchSize,
+                             @Value("${mosiqa.import.probe-threads:0}") int probeThreads) {
+        this.importJobRepository = importJobRepository;
+        this.importJobMapper = importJobMapper;
+        this.importWriter = importWriter;
+        this.importRoot = Paths.get(importRoot).toAbsolutePath().normalize();
+        this.batchSize = Math.max(1, batchSize);
+        this.probeThreads = probeThreads > 0 ? probeThreads : Runtime.getRuntime().availableProcessors();
+        this.coordinator = Executors.newSingleThreadExecutor(namedThreads("import-job-"));
+        this.probeExecutor = Executors.newFixedThreadPool(this.probeThreads, namedThreads("import-probe-"));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void flagInterruptedJobs() {
+        int interrupted = importWriter.markInterrupted();
+        if (interrupted > 0) {
+            log.warn("{} import job(s) were cut off by the last shutdown and can be resumed", interrupted);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        coordinator.shutdownNow();
+        probeExecutor.shutdownNow();
+    }
+
+    @Override
+    public ImportJobDTO startImport(ImportRequest request) {
+        Path source = resolveSource(request.getSource());
+
+        ImportJob job = importJobRepository.save(ImportJob.builder()
+                .source(importRoot.relativize(source).toString())
+                .category(request.getCategory())
+                .status(ImportJobStatus.PENDING)
+                .build());
+        log.info("Queued import job {} for {}", job.getId(), job.getSource());
+
+        submit(job);
+        return importJobMapper.toDTO(job);
+    }
+
+    @Override
+    public ImportJobDTO resumeImport(UUID id) {
+        ImportJob job = findJob(id);
+        boolean retryable = job.getStatus() == ImportJobStatus.FAILED || job.getStatus() == ImportJobStatus.INTERRUPTED
+                || (job.getStatus() == ImportJobStatus.COMPLETED && job.getFailedEntries() > 0);
+        if (!retryable) {
+            throw new InvalidRequestException("Only failed or interrupted imports, or completed ones with failed entries, "
+                    + "can be resumed; this one is " + job.getStatus());
+        }
+        resolveSource(job.getSource());
+        log.info("Resuming import job {} ({} of {} entries done)",
+                id, job.getImportedEntries() + job.getFailedEntries(), job.getTotalEntries());
+
+        submit(job);
+        return importJobMapper.toDTO(job);
+    }
+
+    @Override
+    public ImportJobDTO getImport(UUID id) {
+        return importJobMapper.toDTO(findJob(id));
+    }
+
+    @Override
+    public List<ImportJobDTO> getAllImports() {
+        return importJobMapper.toDTOList(importJobRepository.findAllByOrderByCreatedAtDesc());
+    }
+
+    private ImportJob findJob(UUID id) {
+        return importJobRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Import", "id", id));
+    }
+
+    private Path resolveSource(String source) {
+        Path resolved = importRoot.resolve(source).normalize();
+        if (!resolved.startsWith(importRoot)) {
+            throw new InvalidRequestException("Import source must be inside the import root");
+        }
+        if (!Files.exists(resolved)) {
+            throw new InvalidRequestException("Import source not found: " + source);
+        }
+        // The lexical check alone would let a symbolic link inside the root lead anywhere on the host
+        try {
+            if (!resolved.toRealPath().startsWith(importRoot.toRealPath())) {
+                throw new InvalidRequestException("Import source must be inside the import root");
+            }
+        } catch (IOException e) {
+            throw new InvalidRequestException("Import source not found: " + source);
+        }
+        return resolved;
+    }
+
+    private void submit(ImportJob job) {
+        if (!activeJobs.add(job.getId())) {
+            throw new InvalidRequestException("Import " + job.getId() + " is already queued");
+        }
+        coordinator.execute(() -> {
+            try {
+                run(job);
+            } finally {
+                activeJobs.remove(job.getId());
+            }
+        });
+    }
+
+    private void run(ImportJob job) {
+        UUID jobId = job.getId();
+        // Checked again, as a link may have been swapped since the job was queued
+        try (ImportSource source = ImportSource.open(resolveSource(job.getSource()))) {
+            int retried = importWriter.clearFailedEntries(jobId);
+            Set<String> completed = importWriter.importedEntries(jobId);
+            List<ImportSource.Entry> pending = new ArrayList<>();
+            int total = 0;
+            for (ImportSource.Entry entry : source.entries()) {
+                if (mimeTypeOf(entry.name()) == null) {
+                    continue;
+                }
+                total++;
+                if (!completed.contains(entry.name())) {
+                    pending.add(entry);
+                }
+            }
+            importWriter.markRunning(jobId, total);
+            log.info("Import job {} started: {} entries, {} left ({} retried)", jobId, total, pending.size(), retried);
+
+            ingest(job, pending);
+
+            importWriter.markFinished(jobId, ImportJobStatus.COMPLETED, null);
+            log.info("Import job {} completed", jobId);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            importWriter.markFinished(jobId, ImportJobStatus.INTERRUPTED, "Interrupted");
+            log.warn("Import job {} interrupted", jobId);
+        } catch (Exception e) {
+            importWriter.markFinished(jobId, ImportJobStatus.FAILED, e.getMessage());
+            log.error("Import job {} failed: {}", jobId, e.getMessage(), e);
+        }
+    }
+
+    private record InFlight(ImportSource.Entry entry, Future<PreparedTrack> result) {
+    }
+
+    private void ingest(ImportJob job, List<ImportSource.Entry> entries) throws InterruptedException, ExecutionException {
+        int maxInFlight = probeThreads * IN_FLIGHT_PER_THREAD;
+        Deque<InFlight> inFlight = new ArrayDeque<>(maxInFlight);
+        List<ImportSource.Entry> batchEntries = new ArrayList<>(batchSize);
+        List<PreparedTrack> batch = new ArrayList<>(batchSize);
+
+        try {
+            for (ImportSource.Entry entry : entries) {
+                // Completing in submission order keeps the id order equal to the source order
+                if (inFlight.size() == maxInFlight) {
+                    collect(inFlight.removeFirst(), batchEntries, batch);
+                    flushIfFull(job, batchEntries, batch, false);
+                }
+                inFlight.addLast(new InFlight(entry, probeExecutor.submit(() -> prepare(entry))));
+            }
+            while (!inFlight.isEmpty()) {
+                collect(inFlight.removeFirst(), batchEntries, batch);
+                flushIfFull(job, batchEntries, batch, false);
+            }
+            flushIfFull(job, batchEntries, batch, true);
+        } finally {
+            for (InFlight remaining : inFlight) {
+                if (!remaining.result().cancel(true) && remaining.result().state() == Future.State.SUCCESS) {
+                    remaining.result().resultNow().discard();
+                }
+                remaining.entry().release();
+            }
+            batch.forEach(PreparedTrack::discard);
+            batchEntries.forEach(ImportSource.Entry::release);
+        }
+    }
+
+    private void collect(InFlight inFlight, List<ImportSource.Entry> batchEntries, List<PreparedTrack> batch)
+            throws InterruptedException, ExecutionException {
+        batchEntries.add(inFlight.entry());
+        batch.add(inFlight.result().get());
+    }
+
+    private void flushIfFull(ImportJob job, List<ImportSource.Entry> batchEntries, List<PreparedTrack> batch, boolean force) {
+        if (batch.isEmpty() || (!force && batch.size() < batchSize)) {
+            return;
+        }
+        try {
+            importWriter.write(job.getId(), job.getCategory(), batch);
+            log.debug("Import job {} wrote {} entries", job.getId(), batch.size());
+        } finally {
+            batch.forEach(PreparedTrack::discard);
+            batchEntries.forEach(ImportSource.Entry::release);
+            batchEntries.clear();
+            batch.clear();
+        }
+    }
+
+    private PreparedTrack prepare(ImportSource.Entry entry) {
+        String fileName = entry.name().substring(entry.name().lastIndexOf('/') + 1);
+        String mimeType = mimeTypeOf(fileName);
+        try {
+            Path file = entry.materialize(FileStorageServiceImpl.MAX_FILE_SIZE);
+            long size = Files.size(file);
+            if (size == 0) {
+                throw new IOException("File is empty");
+            }
+
+            AudioProbe.Result probe = AudioProbe.probe(file, mimeType);
+            Path encoded = "audio/wav".equals(mimeType) ? compressWav(file) : null;
+
+            // Fall back to the "Artist - Title.ext" naming convention when the file has no tags
+            String baseName = fileName.substring(0, fileName.lastIndexOf('.'));
+            int separator = baseName.indexOf(" - ");
+            String nameArtist = separator > 0 ? baseName.substring(0, separator).trim() : null;
+            String nameTitle = separator > 0 ? baseName.substring(separator + 3).trim() : baseName.trim();
+
+            return new PreparedTrack(entry.name(), file, encoded, fileName, mimeType, size,
+                    firstNonBlank(probe.title(), nameTitle, fileName),
+                    firstNonBlank(probe.artist(), nameArtist, UNKNOWN_ARTIST),
+                    probe.duration() != null && probe.duration() > 0 ? probe.duration() : 0.0,
+                    probe.cover(), probe.coverMimeType(), null);
+        } catch (IOException | RuntimeException e) {
+            log.debug("Skipping import entry {}: {}", entry.name(), e.getMessage());
+            return new PreparedTrack(entry.name(), null, null, fileName, mimeType, 0, null, null, null, null, null,
+                    e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+        }
+    }
+
+    /**
+     * Compresses a WAV entry next to the probe work, on the probe pool; {@code null} keeps the file as is.
+     */
+    private static Path compressWav(Path file) throws IOException {
+        Path encoded = Files.createTempFile("mosiqa-import-", ".lpc");
+        try {
+            if (WavCodec.compress(file, encoded)) {
+                return encoded;
+            }
+        } catch (IOException | RuntimeException e) {
+            log.debug("Storing {} uncompressed: {}", file.getFileName(), e.getMessage());
+        }
+        Files.deleteIfExists(encoded);
+        return null;
+    }
+
+    private static String mimeTypeOf(String name) {
+        int dot = name.lastIndexOf('.');
+        return dot < 0 ? null : AUDIO_TYPES.get(name.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }
+
+    private static String firstNonBlank(String... values) {
+        for (String value : values) {
+            if (value != null && !value.isBlank()) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,178 @@
+package com.kyojin.mosiqa.service.impl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * The files of a bulk import: either a directory tree or a zip archive.
+ * <p>
+ * Entries are listed in a stable order so that entry names can be used as resume keys.
+ */
+abstract class ImportSource implements Closeable {
+
+    interface Entry {
+
+        /**
+         * Stable name of the entry, relative to the source root, with {@code /} separators.
+         */
+        String name();
+
+        /**
+         * A local file holding the entry's bytes; zip entries are extracted to a temp file.
+         */
+        Path materialize(long maxSize) throws IOException;
+
+        /**
+         * Releases whatever {@link #materialize(long)} created.
+         */
+        void release();
+    }
+
+    static ImportSource open(Path path) throws IOException {
+        if (Files.isDirectory(path)) {
+            return new DirectorySource(path);
+        }
+        if (Files.isRegularFile(path) && path.getFileName().toString().toLowerCase().endsWith(".zip")) {
+            return new ZipSource(new ZipFile(path.toFile()));
+        }
+        throw new IOException("Import source must be a directory or a .zip archive: " + path.getFileName());
+    }
+
+    abstract List<Entry> entries() throws IOException;
+
+    @Override
+    public void close() throws IOException {
+    }
+
+    private static final class DirectorySource extends ImportSource {
+
+        private final Path root;
+
+        DirectorySource(Path root) {
+            this.root = root;
+        }
+
+        @Override
+        List<Entry> entries() throws IOException {
+            List<Entry> entries = new ArrayList<>();
+            try (Stream<Path> files = Files.walk(root)) {
+                // Neither linked directories nor linked files are followed out of the tree
+                files.filter(file -> Files.isRegularFile(file, LinkOption.NOFOLLOW_LINKS)).sorted().forEach(file -> {
+                    String name = root.relativize(file).toString().replace(file.getFileSystem().getSeparator(), "/");
+                    entries.add(new FileEntry(name, file));
+                });
+            }
+            return entries;
+        }
+    }
+
+    private record FileEntry(String name, Path file) implements Entry {
+
+        @Override
+        public Path materialize(long maxSize) throws IOException {
+            if (Files.size(file) > maxSize) {
+                throw new IOException("File exceeds maximum allowed size");
+            }
+            return file;
+        }
+
+        @Override
+        public void release() {
+        }
+    }
+
+    private static final class ZipSource extends ImportSource {
+
+        private final ZipFile zip;
+
+        ZipSource(ZipFile zip) {
+            this.zip = zip;
+        }
+
+        @Override
+        List<Entry> entries() {
+            List<Entry> entries = new ArrayList<>();
+            Enumeration<? extends ZipEntry> zipEntries = zip.entries();
+            while (zipEntries.hasMoreElements()) {
+                ZipEntry entry = zipEntries.nextElement();
+                if (!entry.isDirectory()) {
+                    entries.add(new ZipFileEntry(zip, entry));
+                }
+            }
+            entries.sort((a, b) -> a.name().compareTo(b.name()));
+            return entries;
+        }
+
+        @Override
+        public void close() throws IOException {
+            zip.close();
+        }
+    }
+
+    private static final class ZipFileEntry implements Entry {
+
+        private final ZipFile zip;
+        private final ZipEntry entry;
+        private Path extracted;
+
+        ZipFileEntry(ZipFile zip, ZipEntry entry) {
+            this.zip = zip;
+            this.entry = entry;
+        }
+
+        @Override
+        public String name() {
+            return entry.getName();
+        }
+
+        @Override
+        public Path materialize(long maxSize) throws IOException {
+            if (entry.getSize() > maxSize) {
+                throw new IOException("File exceeds maximum allowed size");
+            }
+            // Entry names are never used as paths, so a hostile archive cannot write outside the temp file
+            extracted = Files.createTempFile("mosiqa-import-", ".part");
+            try (InputStream in = zip.getInputStream(entry);
+                 OutputStream out = Files.newOutputStream(extracted)) {
+                byte[] buffer = new byte[64 * 1024];
+                long copied = 0;
+                int read;
+                while ((read = in.read(buffer)) > 0) {
+                    copied += read;
+                    // The declared size can lie; enforce the limit on the inflated bytes
+                    if (copied > maxSize) {
+                        throw new IOException("File exceeds maximum allowed size");
+                    }
+                    out.write(buffer, 0, read);
+                }
+            } catch (IOException e) {
+                release();
+                throw e;
+            }
+            return extracted;
+        }
+
+        @Override
+        public void release() {
+            if (extracted != null) {
+                try {
+                    Files.deleteIfExists(extracted);
+                } catch (IOException ignored) {
+                    // Temp files are best effort; the OS cleans the temp directory eventually
+                }
+                extracted = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.kyojin.mosiqa.service.impl;
+
+import com.kyojin.mosiqa.dto.QueryStatDTO;
+import com.kyojin.mosiqa.dto.QueryStatsDTO;
+import com.kyojin.mosiqa.exception.InvalidRequestException;
+import com.kyojin.mosiqa.service.QueryStatsService;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.QueryStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+@Service
+@Slf4j
+public class QueryStatsServiceImpl implements QueryStatsService {
+
+    private static final int MAX_LIMIT = 200;
+
+    private final Statistics statistics;
+
+    public QueryStatsServiceImpl(EntityManagerFactory entityManagerFactory) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Override
+    public QueryStatsDTO getQueryStats(int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new InvalidRequestException("Limit must be between 1 and " + MAX_LIMIT);
+        }
+
+        // Per-query figures are kept by query string, so every entry is a distinct statement shape
+        List<QueryStatDTO> queries = Arrays.stream(statistics.getQueries())
+                .map(query -> toDTO(query, statistics.getQueryStatistics(query)))
+                .sorted(Comparator.comparingLong(QueryStatDTO::getTotalMillis).reversed()
+                        .thenComparing(Comparator.comparingLong(QueryStatDTO::getExecutions).reversed()))
+                .toList();
+
+        return QueryStatsDTO.builder()
+                .enabled(statistics.isStatisticsEnabled())
+                .since(statistics.getStart())
+                .statementsPrepared(statistics.getPrepareStatementCount())
+                .queriesExecuted(statistics.getQueryExecutionCount())
+                .queryTimeMillis(queries.stream().mapToLong(QueryStatDTO::getTotalMillis).sum())
+                .entitiesFetched(statistics.getEntityFetchCount())
+                .slowestQuery(statistics.getQueryExecutionMaxTimeQueryString())
+                .slowestQueryMillis(statistics.getQueryExecutionMaxTime())
+                .queries(queries.subList(0, Math.min(limit, queries.size())))
+                .build();
+    }
+
+    @Override
+    public void resetQueryStats() {
+        statistics.clear();
+        log.info("Query statistics reset");
+    }
+
+    private static QueryStatDTO toDTO(String query, QueryStatistics stats) {
+        return QueryStatDTO.builder()
+                .query(query)
+                .executions(stats.getExecutionCount())
+                .totalMillis(stats.getExecutionTotalTime())
+                .maxMillis(stats.getExecutionMaxTime())
+                .rows(stats.getExecutionRowCount())
+                .build();
+    }
+}
@@ -0,0 +1,82 @@
+package com.kyojin.mosiqa.service.impl;
+
+import com.kyojin.mosiqa.dto.TrackSortKey;
+import com.kyojin.mosiqa.exception.InvalidRequestException;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Opaque keyset cursors for {@code GET /api/tracks/query}.
+ * A cursor carries the sort it was issued for, the last row's sort value and its id.
+ */
+final class TrackCursorCodec {
+
+    private static final int VERSION = 2;
+
+    private TrackCursorCodec() {
+    }
+
+    static String encode(TrackSortKey sort, Sort.Direction direction, Map<String, ?> keys) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeUTF(sort.name());
+            out.writeUTF(direction.name());
+
+            if (!sort.isIdOrdered()) {
+                Object value = keys.get(sort.getProperty());
+                out.writeBoolean(value != null);
+                if (value != null) {
+                    switch (sort) {
+                        case TITLE, ARTIST -> out.writeUTF((String) value);
+                        case DURATION -> out.writeDouble(((Number) value).doubleValue());
+                        default -> throw new IllegalStateException("Unexpected sort key: " + sort);
+                    }
+                }
+            }
+            out.writeUTF(String.valueOf(keys.get("id")));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+    }
+
+    static KeysetScrollPosition decode(String cursor, TrackSortKey sort, Sort.Direction direction) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Base64.getUrlDecoder().decode(cursor)))) {
+            if (in.readUnsignedByte() != VERSION
+                    || !sort.name().equals(in.readUTF())
+                    || !direction.name().equals(in.readUTF())) {
+                throw new InvalidRequestException("Cursor does not belong to this sort order");
+            }
+
+            Map<String, Object> keys = new LinkedHashMap<>();
+            if (!sort.isIdOrdered()) {
+                Object value = null;
+                if (in.readBoolean()) {
+                    value = switch (sort) {
+                        case TITLE, ARTIST -> in.readUTF();
+                        case DURATION -> in.readDouble();
+                        default -> throw new InvalidRequestException("Invalid cursor");
+                    };
+                }
+                keys.put(sort.getProperty(), value);
+            }
+            keys.put("id", UUID.fromString(in.readUTF()));
+            return ScrollPosition.forward(keys);
+        } catch (IOException | IllegalArgumentException e) {
+            throw new InvalidRequestException("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package com.kyojin.mosiqa.service.impl;
+
+import com.kyojin.mosiqa.entity.AudioEncoding;
+import com.kyojin.mosiqa.entity.ImportJobStatus;
+import com.kyojin.mosiqa.entity.MusicCategory;
+import com.kyojin.mosiqa.entity.UuidV7;
+import com.kyojin.mosiqa.service.impl.BlobStoreServiceImpl.Kind;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * JDBC side of the bulk import: batched inserts of prepared tracks and the job bookkeeping.
+ * <p>
+ * Each batch goes in as one JDBC batch per table inside a single transaction, together with its
+ * {@code import_job_items} rows and the job counters, so a crash never leaves half a batch behind.
+ * With storage volumes configured the files are copied there first and removed again if the batch fails.
+ */
+@Component
+@RequiredArgsConstructor
+class TrackImportWriter {
+
+    static final String ITEM_IMPORTED = "IMPORTED";
+    static final String ITEM_FAILED = "FAILED";
+
+    private static final int MAX_TEXT = 255;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BlobStoreServiceImpl blobStore;
+
+    /**
+     * A probed entry ready to be written; {@code file} is {@code null} for failed entries, and
+     * {@code encodedFile} holds the compressed copy of a WAV file when that is what gets stored.
+     */
+    record PreparedTrack(String entry, Path file, Path encodedFile, String fileName, String mimeType, long size,
+                         String title, String artist, Double duration,
+                         byte[] cover, String coverMimeType, String error) {
+
+        boolean failed() {
+            return error != null;
+        }
+
+        /**
+         * Deletes the compressed temp copy, if any; the source file belongs to its import entry.
+         */
+        void discard() {
+            if (encodedFile != null) {
+                try {
+                    Files.deleteIfExists(encodedFile);
+                } catch (IOException ignored) {
+                    // Left to the temp directory cleanup
+                }
+            }
+        }
+    }
+
+    Set<String> importedEntries(UUID jobId) {
+        return new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT entry FROM import_job_items WHERE job_id = ? AND status = ?", String.class, jobId, ITEM_IMPORTED));
+    }
+
+    /**
+     * Forgets the entries that failed on an earlier run, so that resuming the job tries them again.
+     */
+    int clearFailedEntries(UUID jobId) {
+        Integer cleared = transactionTemplate.execute(status -> {
+            int deleted = jdbcTemplate.update("DELETE FROM import_job_items WHERE job_id = ? AND status = ?", jobId, ITEM_FAILED);
+            jdbcTemplate.update("UPDATE import_jobs SET failed_entries = failed_entries - ? WHERE id = ?", deleted, jobId);
+            return deleted;
+        });
+        return cleared != null ? cleared : 0;
+    }
+
+    void markRunning(UUID jobId, int totalEntries) {
+        jdbcTemplate.update(
+                "UPDATE import_jobs SET status = ?, total_entries = ?, last_error = NULL, started_at = ?, finished_at = NULL WHERE id = ?",
+                ImportJobStatus.RUNNING.name(), totalEntries, Timestamp.valueOf(LocalDateTime.now()), jobId);
+    }
+
+    void markFinished(UUID jobId, ImportJobStatus status, String error) {
+        jdbcTemplate.update(
+                "UPDATE import_jobs SET status = ?, last_error = ?, finished_at = ? WHERE id = ?",
+                status.name(), truncate(error, 1000), Timestamp.valueOf(LocalDateTime.now()), jobId);
+    }
+
+    /**
+     * Jobs cut off by a shutdown stay {@code RUNNING} in the table; flag them so they can be resumed.
+     */
+    int markInterrupted() {
+        return jdbcTemplate.update(
+                "UPDATE import_jobs SET status = ?, finished_at = ? WHERE status IN (?, ?)",
+                ImportJobStatus.INTERRUPTED.name(), Timestamp.valueOf(LocalDateTime.now()),
+                ImportJobStatus.PENDING.name(), ImportJobStatus.RUNNING.name());
+    }
+
+    void write(UUID jobId, MusicCategory category, List<PreparedTrack> batch) {
+        List<Object[]> audioRows = new ArrayList<>();
+        List<Object[]> coverRows = new ArrayList<>();
+        List<Object[]> trackRows = new ArrayList<>();
+        List<Object[]> itemRows = new ArrayList<>(batch.size());
+        List<InputStream> streams = new ArrayList<>();
+        List<UUID> audioFiles = new ArrayList<>();
+        List<UUID> coverImages = new ArrayList<>();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        boolean onVolume = blobStore.isEnabled();
+        boolean committed = false;
+        int imported = 0;
+
+        try {
+            for (PreparedTrack track : batch) {
+                if (track.failed()) {
+                    itemRows.add(new Object[]{jobId, track.entry(), ITEM_FAILED, null, truncate(track.error(), 1000)});
+                    continue;
+                }
+                UUID audioId = UuidV7.next();
+                UUID coverId = track.cover() != null ? UuidV7.next() : null;
+                UUID trackId = UuidV7.next();
+
+                Path stored = track.encodedFile() != null ? track.encodedFile() : track.file();
+                AudioEncoding encoding = track.encodedFile() != null ? AudioEncoding.LPC : AudioEncoding.RAW;
+                InputStream audio = null;
+                if (onVolume) {
+                    audioFiles.add(audioId);
+                    blobStore.copyFrom(Kind.AUDIO, audioId, stored);
+                } else {
+                    // Bound as a stream so the audio bytes never have to sit on the heap as a whole
+                    audio = Files.newInputStream(stored);
+                    streams.add(audio);
+                }
+                audioRows.add(new Object[]{audioId, truncate(track.fileName(), MAX_TEXT), track.size(), track.mimeType(),
+                        audio, Files.size(stored), encoding.name(), now});
+                if (coverId != null) {
+                    byte[] cover = track.cover();
+                    if (onVolume) {
+                        coverImages.add(coverId);
+                        blobStore.write(Kind.COVER, coverId, cover);
+                        cover = null;
+                    }
+                    coverRows.add(new Object[]{coverId, "cover", (long) track.cover().length, track.coverMimeType(), cover, now});
+                }
+                trackRows.add(new Object[]{trackId, truncate(track.title(), MAX_TEXT), truncate(track.artist(), MAX_TEXT),
+                        category.name(), track.duration(), audioId, coverId, now, now});
+                itemRows.add(new Object[]{jobId, track.entry(), ITEM_IMPORTED, trackId, null});
+                imported++;
+            }
+
+            int importedCount = imported;
+            int failedCount = batch.size() - imported;
+            transactionTemplate.executeWithoutResult(status -> {
+                insertAudioFiles(audioRows);
+                insertCoverImages(coverRows);
+                if (!trackRows.isEmpty()) {
+                    jdbcTemplate.batchUpdate(
+                            "INSERT INTO tracks (id, title, artist, category, duration, audio_file_id, cover_image_id, created_at, updated_at) "
+                                    + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)", trackRows);
+                }
+                jdbcTemplate.batchUpdate(
+                        "INSERT INTO import_job_items (job_id, entry, status, track_id, message) VALUES (?, ?, ?, ?, ?)", itemRows);
+                jdbcTemplate.update(
+                        "UPDATE import_jobs SET imported_entries = imported_entries + ?, failed_entries = failed_entries + ? WHERE id = ?",
+                        importedCount, failedCount, jobId);
+            });
+            committed = true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            if (!committed) {
+                blobStore.delete(Kind.AUDIO, audioFiles);
+                blobStore.delete(Kind.COVER, coverImages);
+            }
+            for (InputStream stream : streams) {
+                try {
+                    stream.close();
+                } catch (IOException ignored) {
+                    // Read-only file handles; nothing to recover
+                }
+            }
+        }
+    }
+
+    private void insertAudioFiles(List<Object[]> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO audio_files (id, name, size, mime_type, data, encoding, created_at) VALUES (?, ?, ?, ?, ?, ?, ?)",
+                rows, rows.size(), (ps, row) -> {
+                    ps.setObject(1, row[0]);
+                    ps.setString(2, (String) row[1]);
+                    ps.setLong(3, (Long) row[2]);
+                    ps.setString(4, (String) row[3]);
+                    if (row[4] != null) {
+                        ps.setBinaryStream(5, (InputStream) row[4], (Long) row[5]);
+                    } else {
+                        ps.setNull(5, Types.BLOB);
+                    }
+                    ps.setString(6, (String) row[6]);
+                    ps.setTimestamp(7, (Timestamp) row[7]);
+                });
+    }
+
+    private void insertCoverImages(List<Object[]> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO cover_images (id, name, size, mime_type, data, created_at) VALUES (?, ?, ?, ?, ?, ?)",
+                rows, rows.size(), (ps, row) -> {
+                    ps.setObject(1, row[0]);
+                    ps.setString(2, (String) row[1]);
+                    ps.setLong(3, (Long) row[2]);
+                    ps.setString(4, (String) row[3]);
+                    if (row[4] != null) {
+                        ps.setBytes(5, (byte[]) row[4]);
+                    } else {
+                        ps.setNull(5, Types.BLOB);
+                    }
+                    ps.setTimestamp(6, (Timestamp) row[5]);
+                });
+    }
+
+    private static String truncate(String value, int max) {
+        return value == null || value.length() <= max ? value : value.substring(0, max);
+    }
+}
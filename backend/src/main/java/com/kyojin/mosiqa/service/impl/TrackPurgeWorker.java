@@ -0,0 +1,112 @@
+package com.kyojin.mosiqa.service.impl;
+
+import com.kyojin.mosiqa.service.impl.BlobStoreServiceImpl.Kind;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Removes tombstoned tracks together with their audio files and cover images.
+ * <p>
+ * Tracks are deleted by setting {@code deleted_at}, which keeps the request fast whatever the size of
+ * the files. This worker picks up the oldest tombstones in batches and deletes the blobs and the track
+ * rows in one transaction per batch. A tombstone only disappears once its blobs are gone, so a batch
+ * that fails or is cut off by a shutdown is simply retried on the next run.
+ */
+@Component
+@Slf4j
+class TrackPurgeWorker {
+
+    private record Tombstone(UUID id, UUID audioFileId, UUID coverImageId) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BlobStoreServiceImpl blobStore;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+
+    TrackPurgeWorker(JdbcTemplate jdbcTemplate,
+                     TransactionTemplate transactionTemplate,
+                     BlobStoreServiceImpl blobStore,
+                     @Value("${mosiqa.purge.batch-size:100}") int batchSize,
+                     @Value("${mosiqa.purge.max-batches-per-run:50}") int maxBatchesPerRun) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.blobStore = blobStore;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxBatchesPerRun = Math.max(1, maxBatchesPerRun);
+    }
+
+    @Scheduled(fixedDelayString = "${mosiqa.purge.interval:PT10S}", initialDelayString = "${mosiqa.purge.initial-delay:PT30S}")
+    public void purgeTombstones() {
+        int purged = 0;
+        try {
+            for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+                List<Tombstone> tombstones = jdbcTemplate.query(
+                        "SELECT id, audio_file_id, cover_image_id FROM tracks WHERE deleted_at IS NOT NULL "
+                                + "ORDER BY deleted_at, id LIMIT ?",
+                        (rs, rowNum) -> new Tombstone(rs.getObject(1, UUID.class),
+                                rs.getObject(2, UUID.class), rs.getObject(3, UUID.class)),
+                        batchSize);
+                if (tombstones.isEmpty()) {
+                    break;
+                }
+                purge(tombstones);
+                purged += tombstones.size();
+                if (tombstones.size() < batchSize) {
+                    break;
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("Track purge failed, remaining tombstones will be retried: {}", e.getMessage(), e);
+        }
+        if (purged > 0) {
+            log.info("Purged {} deleted tracks and their files", purged);
+        }
+    }
+
+    private void purge(List<Tombstone> tombstones) {
+        List<UUID> trackIds = new ArrayList<>(tombstones.size());
+        List<UUID> audioFileIds = new ArrayList<>(tombstones.size());
+        List<UUID> coverImageIds = new ArrayList<>();
+        for (Tombstone tombstone : tombstones) {
+            trackIds.add(tombstone.id());
+            audioFileIds.add(tombstone.audioFileId());
+            if (tombstone.coverImageId() != null) {
+                coverImageIds.add(tombstone.coverImageId());
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            deleteBlobs("audio_files", "audio_file_id", audioFileIds);
+            deleteBlobs("cover_images", "cover_image_id", coverImageIds);
+            jdbcTemplate.update("DELETE FROM tracks WHERE deleted_at IS NOT NULL AND id IN (" + placeholders(trackIds) + ")",
+                    trackIds.toArray());
+        });
+        // Volume files go only after the rows are committed away
+        blobStore.deleteOrphanedFiles(Kind.AUDIO, audioFileIds);
+        blobStore.deleteOrphanedFiles(Kind.COVER, coverImageIds);
+    }
+
+    private void deleteBlobs(String table, String referenceColumn, List<UUID> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        // A blob still referenced by a live track (e.g. restored from a backup) is kept
+        jdbcTemplate.update("DELETE FROM " + table + " b WHERE b.id IN (" + placeholders(ids) + ") AND NOT EXISTS "
+                + "(SELECT 1 FROM tracks t WHERE t." + referenceColumn + " = b.id AND t.deleted_at IS NULL)", ids.toArray());
+    }
+
+    private static String placeholders(List<UUID> ids) {
+        return String.join(", ", Collections.nCopies(ids.size(), "?"));
+    }
+}
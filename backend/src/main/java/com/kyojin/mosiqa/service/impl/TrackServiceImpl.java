@@ -1,24 +1,48 @@
 package com.kyojin.mosiqa.service.impl;
 
+import com.kyojin.mosiqa.dto.TrackBatchItemResult;
+import com.kyojin.mosiqa.dto.TrackBatchResultDTO;
+import com.kyojin.mosiqa.dto.TrackBatchUpdateRequest;
 import com.kyojin.mosiqa.dto.TrackCreateRequest;
 import com.kyojin.mosiqa.dto.TrackDTO;
+import com.kyojin.mosiqa.dto.TrackFieldSet;
+import com.kyojin.mosiqa.dto.TrackPageDTO;
+import com.kyojin.mosiqa.dto.TrackQuery;
 import com.kyojin.mosiqa.dto.TrackUpdateRequest;
 import com.kyojin.mosiqa.entity.AudioFile;
 import com.kyojin.mosiqa.entity.CoverImage;
 import com.kyojin.mosiqa.entity.MusicCategory;
 import com.kyojin.mosiqa.entity.Track;
+import com.kyojin.mosiqa.exception.InvalidFileException;
+import com.kyojin.mosiqa.exception.InvalidRequestException;
 import com.kyojin.mosiqa.exception.ResourceNotFoundException;
 import com.kyojin.mosiqa.mapper.TrackMapper;
 import com.kyojin.mosiqa.repository.TrackRepository;
+import com.kyojin.mosiqa.repository.TrackSpecifications;
+import com.kyojin.mosiqa.repository.TrackSummary;
 import com.kyojin.mosiqa.service.FileStorageService;
 import com.kyojin.mosiqa.service.TrackService;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -26,9 +50,15 @@ import java.util.List;
 @Transactional
 public class TrackServiceImpl implements TrackService {
 
+    private static final int MAX_QUERY_LIMIT = 200;
+    private static final int MAX_BATCH_SIZE = 500;
+    // Every audio and cover part of a multipart batch is read into memory before the batch is saved
+    private static final int MAX_UPLOAD_BATCH_SIZE = 50;
+
     private final TrackRepository trackRepository;
     private final TrackMapper trackMapper;
     private final FileStorageService fileStorageService;
+    private final Validator validator;
 
     @Override
     @Transactional(readOnly = true)
@@ -39,7 +69,16 @@ public class TrackServiceImpl implements TrackService {
 
     @Override
     @Transactional(readOnly = true)
-    public TrackDTO getTrackById(String id) {
+    public List<Map<String, Object>> getAllTracks(TrackFieldSet fields) {
+        if (fields.isCoveredBySummary()) {
+            return fields.selectAll(trackMapper.summariesToDTOList(trackRepository.findSummariesByOrderByCreatedAtDesc()));
+        }
+        return fields.selectAll(getAllTracks());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public TrackDTO getTrackById(UUID id) {
         Track track = trackRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Track", "id", id));
         return trackMapper.toDTO(track);
@@ -50,7 +89,7 @@ public class TrackServiceImpl implements TrackService {
         fileStorageService.validateAudioFile(audioFile);
         AudioFile savedAudio = fileStorageService.saveAudioFile(audioFile);
         
-        String coverImageId = null;
+        UUID coverImageId = null;
         if (coverImage != null && !coverImage.isEmpty()) {
             fileStorageService.validateImageFile(coverImage);
             CoverImage savedCover = fileStorageService.saveCoverImage(coverImage);
@@ -73,7 +112,7 @@ public class TrackServiceImpl implements TrackService {
     }
 
     @Override
-    public TrackDTO updateTrack(String id, TrackUpdateRequest request, MultipartFile audioFile, MultipartFile coverImage) {
+    public TrackDTO updateTrack(UUID id, TrackUpdateRequest request, MultipartFile audioFile, MultipartFile coverImage) {
         Track existingTrack = trackRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Track", "id", id));
         
@@ -108,21 +147,149 @@ public class TrackServiceImpl implements TrackService {
     }
 
     @Override
-    public void deleteTrack(String id) {
-        Track track = trackRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Track", "id", id));
-        
-        if (track.getAudioFileId() != null) {
-            fileStorageService.deleteAudioFile(track.getAudioFileId());
+    public void deleteTrack(UUID id) {
+        // A single-row UPDATE; the audio and cover blobs are deleted later by TrackPurgeWorker
+        if (trackRepository.markDeleted(List.of(id), LocalDateTime.now()) == 0) {
+            throw new ResourceNotFoundException("Track", "id", id);
         }
-        if (track.getCoverImageId() != null) {
-            fileStorageService.deleteCoverImage(track.getCoverImageId());
-        }
-        
-        trackRepository.delete(track);
         log.info("Deleted track with id: {}", id);
     }
 
+    @Override
+    public TrackBatchResultDTO createTracks(List<TrackCreateRequest> requests, List<MultipartFile> audioFiles,
+                                            List<MultipartFile> coverImages) {
+        checkBatchSize(requests, MAX_UPLOAD_BATCH_SIZE);
+        if (audioFiles == null || audioFiles.size() != requests.size()) {
+            throw new InvalidRequestException("Expected one audio file per track");
+        }
+        boolean withCovers = coverImages != null && !coverImages.isEmpty();
+        if (withCovers && coverImages.size() != requests.size()) {
+            throw new InvalidRequestException("Cover images must be omitted or sent once per track (empty parts for none)");
+        }
+
+        TrackBatchItemResult[] results = new TrackBatchItemResult[requests.size()];
+        List<Integer> accepted = new ArrayList<>();
+        List<MultipartFile> acceptedAudio = new ArrayList<>();
+        List<MultipartFile> acceptedCovers = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            String violations = violations(requests.get(i));
+            if (violations != null) {
+                results[i] = invalid(i, null, violations);
+                continue;
+            }
+            MultipartFile cover = withCovers && !coverImages.get(i).isEmpty() ? coverImages.get(i) : null;
+            try {
+                fileStorageService.validateAudioFile(audioFiles.get(i));
+                fileStorageService.validateImageFile(cover);
+            } catch (InvalidFileException e) {
+                results[i] = invalid(i, null, e.getMessage());
+                continue;
+            }
+            accepted.add(i);
+            acceptedAudio.add(audioFiles.get(i));
+            if (cover != null) {
+                acceptedCovers.add(cover);
+            }
+        }
+
+        // One saveAll per table; with hibernate.jdbc.batch_size set these go out as JDBC batches
+        List<AudioFile> savedAudio = fileStorageService.saveAudioFiles(acceptedAudio);
+        List<CoverImage> savedCovers = fileStorageService.saveCoverImages(acceptedCovers);
+
+        List<Track> tracks = new ArrayList<>(accepted.size());
+        int coverIndex = 0;
+        for (int n = 0; n < accepted.size(); n++) {
+            int i = accepted.get(n);
+            Track track = trackMapper.toEntity(requests.get(i));
+            track.setAudioFileId(savedAudio.get(n).getId());
+            if (withCovers && !coverImages.get(i).isEmpty()) {
+                track.setCoverImageId(savedCovers.get(coverIndex++).getId());
+            }
+            if (track.getDuration() == null || track.getDuration() <= 0) {
+                track.setDuration(0.0);
+            }
+            tracks.add(track);
+        }
+
+        List<Track> savedTracks = trackRepository.saveAll(tracks);
+        for (int n = 0; n < savedTracks.size(); n++) {
+            Track track = savedTracks.get(n);
+            results[accepted.get(n)] = result(accepted.get(n), track.getId(), TrackBatchItemResult.Status.CREATED,
+                    trackMapper.toDTO(track));
+        }
+        log.info("Batch created {} of {} tracks", savedTracks.size(), requests.size());
+
+        return TrackBatchResultDTO.of(results);
+    }
+
+    @Override
+    public TrackBatchResultDTO updateTracks(List<TrackBatchUpdateRequest> requests) {
+        checkBatchSize(requests);
+
+        // Null items are answered as INVALID below
+        List<UUID> ids = requests.stream()
+                .filter(Objects::nonNull)
+                .map(TrackBatchUpdateRequest::getId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        Map<UUID, Track> tracks = trackRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Track::getId, Function.identity()));
+
+        TrackBatchItemResult[] results = new TrackBatchItemResult[requests.size()];
+        List<Integer> updated = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            TrackBatchUpdateRequest request = requests.get(i);
+            String violations = violations(request);
+            if (violations != null) {
+                results[i] = invalid(i, request != null ? request.getId() : null, violations);
+                continue;
+            }
+            Track track = tracks.get(request.getId());
+            if (track == null) {
+                results[i] = result(i, request.getId(), TrackBatchItemResult.Status.NOT_FOUND, null);
+                continue;
+            }
+            trackMapper.updateEntityFromRequest(request.getMetadata(), track);
+            updated.add(i);
+        }
+
+        // Dirty checking turns the changes into one batched UPDATE statement per flush
+        trackRepository.flush();
+        for (int i : updated) {
+            UUID id = requests.get(i).getId();
+            results[i] = result(i, id, TrackBatchItemResult.Status.UPDATED, trackMapper.toDTO(tracks.get(id)));
+        }
+        log.info("Batch updated {} of {} tracks", updated.size(), requests.size());
+
+        return TrackBatchResultDTO.of(results);
+    }
+
+    @Override
+    public TrackBatchResultDTO deleteTracks(List<UUID> ids) {
+        checkBatchSize(ids);
+
+        Set<UUID> found = trackRepository.findSummariesByIdIn(ids).stream()
+                .map(TrackSummary::getId)
+                .collect(Collectors.toSet());
+
+        // One bulk UPDATE ... WHERE id IN (...); the blobs are purged in the background
+        if (!found.isEmpty()) {
+            trackRepository.markDeleted(found, LocalDateTime.now());
+        }
+
+        TrackBatchItemResult[] results = new TrackBatchItemResult[ids.size()];
+        for (int i = 0; i < ids.size(); i++) {
+            UUID id = ids.get(i);
+            results[i] = result(i, id, found.contains(id)
+                    ? TrackBatchItemResult.Status.DELETED
+                    : TrackBatchItemResult.Status.NOT_FOUND, null);
+        }
+        log.info("Batch deleted {} of {} tracks", found.size(), ids.size());
+
+        return TrackBatchResultDTO.of(results);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<TrackDTO> searchTracks(String query) {
@@ -133,10 +300,112 @@ public class TrackServiceImpl implements TrackService {
         return trackMapper.toDTOList(tracks);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> searchTracks(String query, TrackFieldSet fields) {
+        if (query == null || query.trim().isEmpty()) {
+            return getAllTracks(fields);
+        }
+        if (fields.isCoveredBySummary()) {
+            return fields.selectAll(trackMapper.summariesToDTOList(trackRepository.searchSummariesByTitleOrArtist(query.trim())));
+        }
+        return fields.selectAll(searchTracks(query));
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<TrackDTO> getTracksByCategory(MusicCategory category) {
         List<Track> tracks = trackRepository.findByCategory(category);
         return trackMapper.toDTOList(tracks);
     }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getTracksByCategory(MusicCategory category, TrackFieldSet fields) {
+        if (fields.isCoveredBySummary()) {
+            return fields.selectAll(trackMapper.summariesToDTOList(trackRepository.findSummariesByCategory(category)));
+        }
+        return fields.selectAll(getTracksByCategory(category));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public TrackPageDTO queryTracks(TrackQuery query) {
+        if (query.getLimit() < 1 || query.getLimit() > MAX_QUERY_LIMIT) {
+            throw new InvalidRequestException("Limit must be between 1 and " + MAX_QUERY_LIMIT);
+        }
+        if (query.getMinDuration() != null && query.getMaxDuration() != null
+                && query.getMinDuration() > query.getMaxDuration()) {
+            throw new InvalidRequestException("minDuration must not exceed maxDuration");
+        }
+
+        // The id tie-breaker keeps the keyset unique; every sort key has a matching (key, id) index
+        Sort sort = Sort.by(query.getDirection(), "id");
+        if (!query.getSort().isIdOrdered()) {
+            sort = Sort.by(query.getDirection(), query.getSort().getProperty()).and(sort);
+        }
+        ScrollPosition position = query.getCursor() == null
+                ? ScrollPosition.keyset()
+                : TrackCursorCodec.decode(query.getCursor(), query.getSort(), query.getDirection());
+
+        Window<Track> window = trackRepository.findBy(TrackSpecifications.matching(query),
+                q -> q.sortBy(sort).limit(query.getLimit()).scroll(position));
+
+        String nextCursor = null;
+        if (window.hasNext() && !window.isEmpty()) {
+            KeysetScrollPosition last = (KeysetScrollPosition) window.positionAt(window.size() - 1);
+            nextCursor = TrackCursorCodec.encode(query.getSort(), query.getDirection(), last.getKeys());
+        }
+
+        return TrackPageDTO.builder()
+                .items(trackMapper.toDTOList(window.getContent()))
+                .nextCursor(nextCursor)
+                .hasNext(nextCursor != null)
+                .build();
+    }
+
+    private void checkBatchSize(List<?> items) {
+        checkBatchSize(items, MAX_BATCH_SIZE);
+    }
+
+    private void checkBatchSize(List<?> items, int maxSize) {
+        if (items == null || items.isEmpty()) {
+            throw new InvalidRequestException("Batch must contain at least one item");
+        }
+        if (items.size() > maxSize) {
+            throw new InvalidRequestException("Batch must not contain more than " + maxSize + " items");
+        }
+    }
+
+    private String violations(Object request) {
+        if (request == null) {
+            return "Item is required";
+        }
+        Set<ConstraintViolation<Object>> violations = validator.validate(request);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+
+    private TrackBatchItemResult invalid(int index, UUID id, String message) {
+        return TrackBatchItemResult.builder()
+                .index(index)
+                .id(id != null ? id.toString() : null)
+                .status(TrackBatchItemResult.Status.INVALID)
+                .message(message)
+                .build();
+    }
+
+    private TrackBatchItemResult result(int index, UUID id, TrackBatchItemResult.Status status, TrackDTO track) {
+        return TrackBatchItemResult.builder()
+                .index(index)
+                .id(id != null ? id.toString() : null)
+                .status(status)
+                .track(track)
+                .build();
+    }
 }
@@ -0,0 +1,979 @@
+package com.kyojin.mosiqa.service.impl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Lossless compression for PCM WAV files, in the spirit of FLAC.
+ * <p>
+ * The PCM data is cut into blocks of {@value #BLOCK_FRAMES} frames. Within a block, stereo input is
+ * decorrelated (left/side, right/side or mid/side when that is cheaper), and every channel is stored as
+ * a constant, verbatim samples, or the residual of a fixed polynomial or quantized LPC predictor,
+ * Rice-coded in partitions of {@value #PARTITION_SIZE} samples. Everything before and after the PCM
+ * samples (RIFF header, fmt and LIST chunks, a trailing partial frame) is kept byte for byte, so
+ * decoding reproduces the original file exactly.
+ * <p>
+ * Layout: {@code "MQLW"}, version, channels, bits per sample, block frames, the original header, the
+ * blocks, then a trailer holding the PCM length, the bytes that followed the samples and one offset per
+ * block. The last eight bytes point at the trailer. The block index lets {@link Decoder} serve any
+ * byte range by decoding only the blocks it overlaps.
+ */
+final class WavCodec {
+
+    static final int BLOCK_FRAMES = 4096;
+    static final int PARTITION_SIZE = 256;
+
+    private static final byte[] MAGIC = "MQLW".getBytes(StandardCharsets.US_ASCII);
+    private static final int VERSION = 1;
+    private static final int MAX_HEADER = 64 * 1024;
+    private static final int MAX_LPC_ORDER = 12;
+    private static final int[] LPC_ORDERS = {4, 8, MAX_LPC_ORDER};
+    private static final int LPC_PRECISION = 15;
+    private static final int RICE_ESCAPE = 32;
+    private static final int MAX_RICE_PARAMETER = 30;
+
+    private static final int SUBFRAME_CONSTANT = 0;
+    private static final int SUBFRAME_VERBATIM = 1;
+    private static final int SUBFRAME_FIXED = 2;
+    private static final int SUBFRAME_LPC = 3;
+
+    private static final int STEREO_INDEPENDENT = 0;
+    private static final int STEREO_LEFT_SIDE = 1;
+    private static final int STEREO_RIGHT_SIDE = 2;
+    private static final int STEREO_MID_SIDE = 3;
+
+    private WavCodec() {
+    }
+
+    /**
+     * Compresses a WAV file held in memory; returns {@code null} when it is not 8, 16 or 24-bit integer
+     * PCM or would not get at least 10% smaller.
+     */
+    static byte[] compress(byte[] wav) {
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(wav.length / 2);
+            if (!encode(new ByteArrayInputStream(wav), out) || out.size() > wav.length - wav.length / 10) {
+                return null;
+            }
+            return out.toByteArray();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * File-to-file variant of {@link #compress(byte[])}; returns {@code false}, leaving {@code target}
+     * with undefined content, when the file is not worth compressing.
+     */
+    static boolean compress(Path wav, Path target) throws IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(wav));
+             OutputStream out = new BufferedOutputStream(Files.newOutputStream(target))) {
+            if (!encode(in, out)) {
+                return false;
+            }
+        }
+        long size = Files.size(wav);
+        return Files.size(target) <= size - size / 10;
+    }
+
+    /**
+     * Streams a WAV file into the compressed format. Returns {@code false}, after consuming part of
+     * {@code in} but before writing anything, when the input is not a supported PCM WAV file.
+     */
+    static boolean encode(InputStream in, OutputStream out) throws IOException {
+        DataInputStream input = new DataInputStream(in);
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        Format format = readHeader(input, header);
+        if (format == null) {
+            return false;
+        }
+
+        CountingOutput counting = new CountingOutput(out);
+        DataOutputStream output = new DataOutputStream(counting);
+        output.write(MAGIC);
+        output.writeByte(VERSION);
+        output.writeByte(format.channels);
+        output.writeByte(format.bitsPerSample);
+        output.writeInt(BLOCK_FRAMES);
+        output.writeInt(header.size());
+        header.writeTo(output);
+        output.flush();
+
+        long blocksStart = counting.count;
+        int blockBytes = BLOCK_FRAMES * format.blockAlign;
+        byte[] pcm = new byte[blockBytes];
+        Encoder encoder = new Encoder(format);
+        int[] offsets = new int[16];
+        int blocks = 0;
+        long pcmLength = 0;
+        byte[] partialFrame = new byte[0];
+
+        long remaining = format.dataSize;
+        while (remaining > 0) {
+            int read = input.readNBytes(pcm, 0, (int) Math.min(blockBytes, remaining));
+            remaining -= read;
+            int frames = read / format.blockAlign;
+            if (frames > 0) {
+                if (blocks == offsets.length) {
+                    offsets = Arrays.copyOf(offsets, blocks * 2);
+                }
+                offsets[blocks++] = (int) (counting.count - blocksStart);
+                encoder.encodeBlock(pcm, frames, output);
+                output.flush();
+                pcmLength += (long) frames * format.blockAlign;
+            }
+            if (read < blockBytes) {
+                // End of the stream, or a data chunk that does not end on a frame boundary
+                partialFrame = Arrays.copyOfRange(pcm, frames * format.blockAlign, read);
+                break;
+            }
+        }
+
+        long trailerOffset = counting.count;
+        byte[] trailing = input.readAllBytes();
+        output.writeLong(pcmLength);
+        output.writeInt(partialFrame.length + trailing.length);
+        output.write(partialFrame);
+        output.write(trailing);
+        output.writeInt(blocks);
+        for (int i = 0; i < blocks; i++) {
+            output.writeInt(offsets[i]);
+        }
+        output.writeLong(trailerOffset);
+        output.flush();
+        return true;
+    }
+
+    private record Format(int channels, int bitsPerSample, int blockAlign, long dataSize) {
+    }
+
+    /**
+     * Copies everything up to the first PCM sample into {@code header} and returns the sample format,
+     * or {@code null} when the stream is not integer PCM that this codec handles.
+     */
+    private static Format readHeader(DataInputStream in, ByteArrayOutputStream header) throws IOException {
+        byte[] riff = in.readNBytes(12);
+        header.write(riff);
+        if (riff.length < 12 || !tag(riff, 0, "RIFF") || !tag(riff, 8, "WAVE")) {
+            return null;
+        }
+        int channels = 0;
+        int bitsPerSample = 0;
+        int blockAlign = 0;
+        while (header.size() < MAX_HEADER) {
+            byte[] chunk = in.readNBytes(8);
+            header.write(chunk);
+            if (chunk.length < 8) {
+                return null;
+            }
+            long size = ByteBuffer.wrap(chunk, 4, 4).order(ByteOrder.LITTLE_ENDIAN).getInt() & 0xFFFFFFFFL;
+            if (tag(chunk, 0, "data")) {
+                if (blockAlign == 0 || size == 0) {
+                    return null;
+                }
+                return new Format(channels, bitsPerSample, blockAlign, size);
+            }
+            if (size > MAX_HEADER) {
+                return null;
+            }
+            byte[] body = in.readNBytes((int) (size + (size & 1)));
+            header.write(body);
+            if (body.length < size) {
+                return null;
+            }
+            if (tag(chunk, 0, "fmt ") && size >= 16) {
+                ByteBuffer fmt = ByteBuffer.wrap(body).order(ByteOrder.LITTLE_ENDIAN);
+                int formatTag = fmt.getShort(0) & 0xFFFF;
+                if (formatTag == 0xFFFE && size >= 26) {
+                    // WAVE_FORMAT_EXTENSIBLE: the sub-format GUID starts with the real format tag
+                    formatTag = fmt.getShort(24) & 0xFFFF;
+                }
+                channels = fmt.getShort(2) & 0xFFFF;
+                blockAlign = fmt.getShort(12) & 0xFFFF;
+                bitsPerSample = fmt.getShort(14) & 0xFFFF;
+                boolean supported = formatTag == 1
+                        && channels >= 1 && channels <= 8
+                        && (bitsPerSample == 8 || bitsPerSample == 16 || bitsPerSample == 24)
+                        && blockAlign == channels * bitsPerSample / 8;
+                if (!supported) {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static boolean tag(byte[] bytes, int offset, String tag) {
+        for (int i = 0; i < 4; i++) {
+            if (bytes[offset + i] != tag.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // --- encoding ------------------------------------------------------------------------------
+
+    private static final class Encoder {
+
+        private final Format format;
+        private final int[][] samples;
+        private final int[] mid = new int[BLOCK_FRAMES];
+        private final int[] side = new int[BLOCK_FRAMES];
+        private final int[] residual = new int[BLOCK_FRAMES];
+        private final int[] bestResidual = new int[BLOCK_FRAMES];
+        private final int[] quantized = new int[MAX_LPC_ORDER];
+        private final int[] bestCoefficients = new int[MAX_LPC_ORDER];
+        private final double[] windowed = new double[BLOCK_FRAMES];
+        private final BitWriter bits = new BitWriter(BLOCK_FRAMES * 8);
+
+        Encoder(Format format) {
+            this.format = format;
+            this.samples = new int[format.channels][BLOCK_FRAMES];
+        }
+
+        void encodeBlock(byte[] pcm, int frames, OutputStream out) throws IOException {
+            deinterleave(pcm, frames, format, samples);
+            bits.reset();
+            int sampleBits = format.bitsPerSample;
+
+            if (format.channels == 2) {
+                int[] left = samples[0];
+                int[] right = samples[1];
+                for (int i = 0; i < frames; i++) {
+                    side[i] = left[i] - right[i];
+                    mid[i] = (left[i] + right[i]) >> 1;
+                }
+                long leftCost = fixedCost(left, frames);
+                long rightCost = fixedCost(right, frames);
+                long midCost = fixedCost(mid, frames);
+                long sideCost = fixedCost(side, frames);
+
+                long[] costs = {leftCost + rightCost, leftCost + sideCost, sideCost + rightCost, midCost + sideCost};
+                int mode = STEREO_INDEPENDENT;
+                for (int candidate = 1; candidate < costs.length; candidate++) {
+                    if (costs[candidate] < costs[mode]) {
+                        mode = candidate;
+                    }
+                }
+                bits.write(mode, 2);
+                switch (mode) {
+                    case STEREO_LEFT_SIDE -> {
+                        encodeChannel(left, frames, sampleBits);
+                        encodeChannel(side, frames, sampleBits + 1);
+                    }
+                    case STEREO_RIGHT_SIDE -> {
+                        encodeChannel(side, frames, sampleBits + 1);
+                        encodeChannel(right, frames, sampleBits);
+                    }
+                    case STEREO_MID_SIDE -> {
+                        encodeChannel(mid, frames, sampleBits);
+                        encodeChannel(side, frames, sampleBits + 1);
+                    }
+                    default -> {
+                        encodeChannel(left, frames, sampleBits);
+                        encodeChannel(right, frames, sampleBits);
+                    }
+                }
+            } else {
+                for (int channel = 0; channel < format.channels; channel++) {
+                    encodeChannel(samples[channel], frames, sampleBits);
+                }
+            }
+            bits.alignToByte();
+            bits.writeTo(out);
+        }
+
+        /**
+         * Residual magnitude of the order-2 fixed predictor, a cheap proxy for how well a signal compresses.
+         */
+        private static long fixedCost(int[] x, int n) {
+            long sum = 0;
+            for (int i = 2; i < n; i++) {
+                sum += Math.abs((long) x[i] - 2L * x[i - 1] + x[i - 2]);
+            }
+            return sum;
+        }
+
+        private void encodeChannel(int[] x, int n, int sampleBits) {
+            boolean constant = true;
+            for (int i = 1; i < n && constant; i++) {
+                constant = x[i] == x[0];
+            }
+            if (constant) {
+                bits.write(SUBFRAME_CONSTANT, 2);
+                bits.write(x[0], sampleBits);
+                return;
+            }
+
+            long verbatimBits = (long) n * sampleBits;
+            long bestBits = verbatimBits;
+            int bestType = SUBFRAME_VERBATIM;
+            int bestOrder = 0;
+            int bestShift = 0;
+
+            for (int order = 0; order <= 4 && order < n; order++) {
+                fixedResidual(x, n, order, residual);
+                long cost = order * (long) sampleBits + 3 + riceBits(residual, n - order);
+                if (cost < bestBits) {
+                    bestBits = cost;
+                    bestType = SUBFRAME_FIXED;
+                    bestOrder = order;
+                    System.arraycopy(residual, 0, bestResidual, 0, n - order);
+                }
+            }
+
+            double[][] lpc = levinsonDurbin(x, n);
+            if (lpc != null) {
+                for (int order : LPC_ORDERS) {
+                    if (order >= n || order >= lpc.length || lpc[order] == null) {
+                        continue;
+                    }
+                    int shift = quantize(lpc[order], order, quantized);
+                    if (shift < 0 || !lpcResidual(x, n, quantized, order, shift, residual)) {
+                        continue;
+                    }
+                    long cost = 14 + order * (long) (sampleBits + LPC_PRECISION) + riceBits(residual, n - order);
+                    if (cost < bestBits) {
+                        bestBits = cost;
+                        bestType = SUBFRAME_LPC;
+                        bestOrder = order;
+                        bestShift = shift;
+                        System.arraycopy(quantized, 0, bestCoefficients, 0, order);
+                        System.arraycopy(residual, 0, bestResidual, 0, n - order);
+                    }
+                }
+            }
+
+            bits.write(bestType, 2);
+            switch (bestType) {
+                case SUBFRAME_FIXED -> {
+                    bits.write(bestOrder, 3);
+                    writeWarmup(x, bestOrder, sampleBits);
+                    writeResidual(bestResidual, n - bestOrder);
+                }
+                case SUBFRAME_LPC -> {
+                    bits.write(bestOrder, 5);
+                    bits.write(LPC_PRECISION - 1, 4);
+                    bits.write(bestShift, 5);
+                    for (int j = 0; j < bestOrder; j++) {
+                        bits.write(bestCoefficients[j], LPC_PRECISION);
+                    }
+                    writeWarmup(x, bestOrder, sampleBits);
+                    writeResidual(bestResidual, n - bestOrder);
+                }
+                default -> writeWarmup(x, n, sampleBits);
+            }
+        }
+
+        private void writeWarmup(int[] x, int count, int sampleBits) {
+            for (int i = 0; i < count; i++) {
+                bits.write(x[i], sampleBits);
+            }
+        }
+
+        private static void fixedResidual(int[] x, int n, int order, int[] out) {
+            for (int i = order; i < n; i++) {
+                long r = switch (order) {
+                    case 0 -> x[i];
+                    case 1 -> (long) x[i] - x[i - 1];
+                    case 2 -> (long) x[i] - 2L * x[i - 1] + x[i - 2];
+                    case 3 -> (long) x[i] - 3L * x[i - 1] + 3L * x[i - 2] - x[i - 3];
+                    default -> (long) x[i] - 4L * x[i - 1] + 6L * x[i - 2] - 4L * x[i - 3] + x[i - 4];
+                };
+                out[i - order] = (int) r;
+            }
+        }
+
+        /**
+         * Prediction coefficients for every order up to {@link #MAX_LPC_ORDER}, from the autocorrelation of
+         * the Welch-windowed block; {@code null} for silence.
+         */
+        private double[][] levinsonDurbin(int[] x, int n) {
+            int maxOrder = Math.min(MAX_LPC_ORDER, n - 1);
+            if (maxOrder < 1) {
+                return null;
+            }
+            double half = (n - 1) / 2.0;
+            for (int i = 0; i < n; i++) {
+                double t = half == 0 ? 0 : (i - half) / half;
+                windowed[i] = x[i] * (1.0 - t * t);
+            }
+            double[] autocorrelation = new double[maxOrder + 1];
+            for (int lag = 0; lag <= maxOrder; lag++) {
+                double sum = 0;
+                for (int i = lag; i < n; i++) {
+                    sum += windowed[i] * windowed[i - lag];
+                }
+                autocorrelation[lag] = sum;
+            }
+            if (autocorrelation[0] == 0) {
+                return null;
+            }
+
+            double[][] coefficients = new double[maxOrder + 1][];
+            double[] a = new double[maxOrder + 1];
+            double error = autocorrelation[0];
+            for (int m = 1; m <= maxOrder; m++) {
+                double acc = autocorrelation[m];
+                for (int j = 1; j < m; j++) {
+                    acc -= a[j] * autocorrelation[m - j];
+                }
+                double k = acc / error;
+                double[] next = a.clone();
+                next[m] = k;
+                for (int j = 1; j < m; j++) {
+                    next[j] = a[j] - k * a[m - j];
+                }
+                a = next;
+                error *= 1.0 - k * k;
+                coefficients[m] = Arrays.copyOfRange(a, 1, m + 1);
+                if (error <= 0) {
+                    break;
+                }
+            }
+            return coefficients;
+        }
+
+        /**
+         * Rounds the coefficients to {@link #LPC_PRECISION}-bit integers; returns the shift, or -1 when the
+         * coefficients are too large to represent.
+         */
+        private static int quantize(double[] lpc, int order, int[] out) {
+            double max = 0;
+            for (int j = 0; j < order; j++) {
+                max = Math.max(max, Math.abs(lpc[j]));
+            }
+            if (max == 0 || !Double.isFinite(max)) {
+                return -1;
+            }
+            int exponent = Math.getExponent(max) + 1;
+            int shift = Math.min(LPC_PRECISION - 1 - exponent, 15);
+            if (shift < 0) {
+                return -1;
+            }
+            int limit = (1 << (LPC_PRECISION - 1)) - 1;
+            double error = 0;
+            for (int j = 0; j < order; j++) {
+                error += lpc[j] * (1 << shift);
+                long q = Math.round(error);
+                q = Math.max(-limit - 1, Math.min(limit, q));
+                out[j] = (int) q;
+                error -= q;
+            }
+            return shift;
+        }
+
+        private static boolean lpcResidual(int[] x, int n, int[] coefficients, int order, int shift, int[] out) {
+            for (int i = order; i < n; i++) {
+                long prediction = 0;
+                for (int j = 0; j < order; j++) {
+                    prediction += (long) coefficients[j] * x[i - 1 - j];
+                }
+                long r = x[i] - (prediction >> shift);
+                if (r > (1 << 30) || r < -(1 << 30)) {
+                    return false;
+                }
+                out[i - order] = (int) r;
+            }
+            return true;
+        }
+
+        private static long riceBits(int[] residual, int count) {
+            long total = 0;
+            for (int start = 0; start < count; start += PARTITION_SIZE) {
+                int end = Math.min(count, start + PARTITION_SIZE);
+                int k = riceParameter(residual, start, end);
+                total += 5;
+                for (int i = start; i < end; i++) {
+                    long q = zigzag(residual[i]) >>> k;
+                    total += q < RICE_ESCAPE ? q + 1 + k : RICE_ESCAPE + 32;
+                }
+            }
+            return total;
+        }
+
+        private void writeResidual(int[] residual, int count) {
+            for (int start = 0; start < count; start += PARTITION_SIZE) {
+                int end = Math.min(count, start + PARTITION_SIZE);
+                int k = riceParameter(residual, start, end);
+                bits.write(k, 5);
+                for (int i = start; i < end; i++) {
+                    long u = zigzag(residual[i]);
+                    long q = u >>> k;
+                    if (q < RICE_ESCAPE) {
+                        bits.writeZeros((int) q);
+                        bits.write(1, 1);
+                        if (k > 0) {
+                            bits.write(u, k);
+                        }
+                    } else {
+                        bits.writeZeros(RICE_ESCAPE);
+                        bits.write(u, 32);
+                    }
+                }
+            }
+        }
+
+        private static int riceParameter(int[] residual, int start, int end) {
+            long sum = 0;
+            for (int i = start; i < end; i++) {
+                sum += zigzag(residual[i]);
+            }
+            long n = end - start;
+            int k = 0;
+            while (k < MAX_RICE_PARAMETER && (n << (k + 1)) <= sum) {
+                k++;
+            }
+            return k;
+        }
+
+        private static long zigzag(int value) {
+            return ((long) value << 1 ^ (value >> 31)) & 0xFFFFFFFFL;
+        }
+    }
+
+    private static void deinterleave(byte[] pcm, int frames, Format format, int[][] samples) {
+        int channels = format.channels;
+        int position = 0;
+        switch (format.bitsPerSample) {
+            case 8 -> {
+                for (int i = 0; i < frames; i++) {
+                    for (int c = 0; c < channels; c++) {
+                        samples[c][i] = (pcm[position++] & 0xFF) - 128;
+                    }
+                }
+            }
+            case 16 -> {
+                for (int i = 0; i < frames; i++) {
+                    for (int c = 0; c < channels; c++) {
+                        samples[c][i] = (pcm[position] & 0xFF) | pcm[position + 1] << 8;
+                        position += 2;
+                    }
+                }
+            }
+            default -> {
+                for (int i = 0; i < frames; i++) {
+                    for (int c = 0; c < channels; c++) {
+                        samples[c][i] = (pcm[position] & 0xFF) | (pcm[position + 1] & 0xFF) << 8 | pcm[position + 2] << 16;
+                        position += 3;
+                    }
+                }
+            }
+        }
+    }
+
+    // --- decoding ------------------------------------------------------------------------------
+
+    /**
+     * Random-access reader over one compressed file. Not thread-safe: it keeps one decoded block around,
+     * so use one instance per response.
+     */
+    static final class Decoder {
+
+        private final byte[] data;
+        private final int channels;
+        private final int bitsPerSample;
+        private final int blockAlign;
+        private final int blockFrames;
+        private final int headerOffset;
+        private final int headerLength;
+        private final long pcmLength;
+        private final int trailingOffset;
+        private final int trailingLength;
+        private final int blocksStart;
+        private final int[] blockOffsets;
+        private final int[][] samples;
+        private final byte[] block;
+        private int decodedBlock = -1;
+
+        Decoder(byte[] data) throws IOException {
+            this.data = data;
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+            byte[] magic = in.readNBytes(MAGIC.length);
+            if (!Arrays.equals(magic, MAGIC) || in.readUnsignedByte() != VERSION) {
+                throw new IOException("Not a compressed WAV stream");
+            }
+            channels = in.readUnsignedByte();
+            bitsPerSample = in.readUnsignedByte();
+            blockFrames = in.readInt();
+            headerLength = in.readInt();
+            headerOffset = MAGIC.length + 3 + 4 + 4;
+            blocksStart = headerOffset + headerLength;
+            blockAlign = channels * bitsPerSample / 8;
+
+            ByteBuffer footer = ByteBuffer.wrap(data);
+            int trailer = (int) footer.getLong(data.length - 8);
+            pcmLength = footer.getLong(trailer);
+            trailingLength = footer.getInt(trailer + 8);
+            trailingOffset = trailer + 12;
+            int blockCount = footer.getInt(trailingOffset + trailingLength);
+            blockOffsets = new int[blockCount + 1];
+            for (int i = 0; i < blockCount; i++) {
+                blockOffsets[i] = blocksStart + footer.getInt(trailingOffset + trailingLength + 4 + i * 4);
+            }
+            blockOffsets[blockCount] = trailer;
+            if (blockAlign == 0 || pcmLength != totalFrames() * blockAlign) {
+                throw new EOFException("Corrupt compressed WAV stream");
+            }
+
+            samples = new int[channels][blockFrames];
+            block = new byte[blockFrames * blockAlign];
+        }
+
+        /**
+         * Size of the original WAV file.
+         */
+        long length() {
+            return headerLength + pcmLength + trailingLength;
+        }
+
+        /**
+         * Writes bytes {@code [start, end)} of the original file.
+         */
+        void write(long start, long end, OutputStream out) throws IOException {
+            long position = start;
+            if (position < headerLength && position < end) {
+                int to = (int) Math.min(end, headerLength);
+                out.write(data, headerOffset + (int) position, to - (int) position);
+                position = to;
+            }
+            long pcmEnd = headerLength + pcmLength;
+            int blockBytes = blockFrames * blockAlign;
+            while (position < pcmEnd && position < end) {
+                long offset = position - headerLength;
+                int index = (int) (offset / blockBytes);
+                int length = decodeBlock(index);
+                int from = (int) (offset - (long) index * blockBytes);
+                int to = (int) Math.min(length, end - headerLength - (long) index * blockBytes);
+                out.write(block, from, to - from);
+                position += to - from;
+            }
+            if (position < end) {
+                int from = (int) (position - pcmEnd);
+                int to = (int) Math.min(trailingLength, end - pcmEnd);
+                out.write(data, trailingOffset + from, to - from);
+            }
+        }
+
+        private long totalFrames() {
+            int blocks = blockOffsets.length - 1;
+            if (blocks == 0) {
+                return 0;
+            }
+            long lastFrames = pcmLength / blockAlign - (long) (blocks - 1) * blockFrames;
+            return lastFrames > 0 && lastFrames <= blockFrames ? pcmLength / blockAlign : -1;
+        }
+
+        /**
+         * Decodes block {@code index} into {@link #block}; returns its length in bytes.
+         */
+        private int decodeBlock(int index) throws IOException {
+            long frames64 = Math.min(blockFrames, pcmLength / blockAlign - (long) index * blockFrames);
+            int frames = (int) frames64;
+            if (index == decodedBlock) {
+                return frames * blockAlign;
+            }
+            BitReader in = new BitReader(data, blockOffsets[index], blockOffsets[index + 1]);
+            if (channels == 2) {
+                int mode = in.read(2);
+                int[] first = samples[0];
+                int[] second = samples[1];
+                decodeChannel(in, first, frames, mode == STEREO_RIGHT_SIDE ? bitsPerSample + 1 : bitsPerSample);
+                decodeChannel(in, second, frames, mode == STEREO_LEFT_SIDE || mode == STEREO_MID_SIDE ? bitsPerSample + 1 : bitsPerSample);
+                switch (mode) {
+                    case STEREO_LEFT_SIDE -> {
+                        for (int i = 0; i < frames; i++) {
+                            second[i] = first[i] - second[i];
+                        }
+                    }
+                    case STEREO_RIGHT_SIDE -> {
+                        for (int i = 0; i < frames; i++) {
+                            first[i] += second[i];
+                        }
+                    }
+                    case STEREO_MID_SIDE -> {
+                        for (int i = 0; i < frames; i++) {
+                            int side = second[i];
+                            // The low bit that mid = (l + r) >> 1 dropped is the low bit of side
+                            int left = (((first[i] << 1) | (side & 1)) + side) >> 1;
+                            first[i] = left;
+                            second[i] = left - side;
+                        }
+                    }
+                    default -> {
+                    }
+                }
+            } else {
+                for (int channel = 0; channel < channels; channel++) {
+                    decodeChannel(in, samples[channel], frames, bitsPerSample);
+                }
+            }
+            interleave(frames);
+            decodedBlock = index;
+            return frames * blockAlign;
+        }
+
+        private void decodeChannel(BitReader in, int[] x, int n, int sampleBits) throws IOException {
+            int type = in.read(2);
+            switch (type) {
+                case SUBFRAME_CONSTANT -> Arrays.fill(x, 0, n, in.readSigned(sampleBits));
+                case SUBFRAME_VERBATIM -> {
+                    for (int i = 0; i < n; i++) {
+                        x[i] = in.readSigned(sampleBits);
+                    }
+                }
+                case SUBFRAME_FIXED -> {
+                    int order = in.read(3);
+                    if (order > 4 || order > n) {
+                        throw new IOException("Corrupt compressed WAV block");
+                    }
+                    for (int i = 0; i < order; i++) {
+                        x[i] = in.readSigned(sampleBits);
+                    }
+                    readResidual(in, x, order, n);
+                    for (int i = order; i < n; i++) {
+                        x[i] += switch (order) {
+                            case 0 -> 0;
+                            case 1 -> x[i - 1];
+                            case 2 -> 2 * x[i - 1] - x[i - 2];
+                            case 3 -> 3 * x[i - 1] - 3 * x[i - 2] + x[i - 3];
+                            default -> 4 * x[i - 1] - 6 * x[i - 2] + 4 * x[i - 3] - x[i - 4];
+                        };
+                    }
+                }
+                default -> {
+                    int order = in.read(5);
+                    int precision = in.read(4) + 1;
+                    int shift = in.read(5);
+                    if (order == 0 || order > n) {
+                        throw new IOException("Corrupt compressed WAV block");
+                    }
+                    int[] coefficients = new int[order];
+                    for (int j = 0; j < order; j++) {
+                        coefficients[j] = in.readSigned(precision);
+                    }
+                    for (int i = 0; i < order; i++) {
+                        x[i] = in.readSigned(sampleBits);
+                    }
+                    readResidual(in, x, order, n);
+                    for (int i = order; i < n; i++) {
+                        long prediction = 0;
+                        for (int j = 0; j < order; j++) {
+                            prediction += (long) coefficients[j] * x[i - 1 - j];
+                        }
+                        x[i] += (int) (prediction >> shift);
+                    }
+                }
+            }
+        }
+
+        private static void readResidual(BitReader in, int[] x, int from, int n) throws IOException {
+            for (int start = from; start < n; start += PARTITION_SIZE) {
+                int end = Math.min(n, start + PARTITION_SIZE);
+                int k = in.read(5);
+                for (int i = start; i < end; i++) {
+                    int q = in.readUnary(RICE_ESCAPE);
+                    long u = q < RICE_ESCAPE
+                            ? ((long) q << k) | (k > 0 ? in.read(k) & 0xFFFFFFFFL : 0)
+                            : in.read(32) & 0xFFFFFFFFL;
+                    x[i] = (int) (u >>> 1) ^ -(int) (u & 1);
+                }
+            }
+        }
+
+        private void interleave(int frames) {
+            int position = 0;
+            switch (bitsPerSample) {
+                case 8 -> {
+                    for (int i = 0; i < frames; i++) {
+                        for (int c = 0; c < channels; c++) {
+                            block[position++] = (byte) (samples[c][i] + 128);
+                        }
+                    }
+                }
+                case 16 -> {
+                    for (int i = 0; i < frames; i++) {
+                        for (int c = 0; c < channels; c++) {
+                            int sample = samples[c][i];
+                            block[position++] = (byte) sample;
+                            block[position++] = (byte) (sample >> 8);
+                        }
+                    }
+                }
+                default -> {
+                    for (int i = 0; i < frames; i++) {
+                        for (int c = 0; c < channels; c++) {
+                            int sample = samples[c][i];
+                            block[position++] = (byte) sample;
+                            block[position++] = (byte) (sample >> 8);
+                            block[position++] = (byte) (sample >> 16);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    // --- bit I/O -------------------------------------------------------------------------------
+
+    private static final class BitWriter {
+
+        private byte[] buffer;
+        private int length;
+        private long accumulator;
+        private int pending;
+
+        BitWriter(int capacity) {
+            this.buffer = new byte[capacity];
+        }
+
+        void reset() {
+            length = 0;
+            accumulator = 0;
+            pending = 0;
+        }
+
+        /**
+         * Appends the low {@code count} bits of {@code value}, {@code count <= 32}.
+         */
+        void write(long value, int count) {
+            accumulator = accumulator << count | (value & ((1L << count) - 1));
+            pending += count;
+            while (pending >= 8) {
+                pending -= 8;
+                if (length == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, length * 2);
+                }
+                buffer[length++] = (byte) (accumulator >>> pending);
+            }
+        }
+
+        void writeZeros(int count) {
+            while (count > 0) {
+                int chunk = Math.min(count, 32);
+                write(0, chunk);
+                count -= chunk;
+            }
+        }
+
+        void alignToByte() {
+            if (pending > 0) {
+                write(0, 8 - pending);
+            }
+        }
+
+        void writeTo(OutputStream out) throws IOException {
+            out.write(buffer, 0, length);
+        }
+    }
+
+    private static final class BitReader {
+
+        private final byte[] buffer;
+        private final int end;
+        private int position;
+        private long cache;
+        private int available;
+
+        BitReader(byte[] buffer, int start, int end) {
+            this.buffer = buffer;
+            this.position = start;
+            this.end = end;
+        }
+
+        private void refill() {
+            while (available <= 56 && position < end) {
+                cache = cache << 8 | (buffer[position++] & 0xFF);
+                available += 8;
+            }
+        }
+
+        /**
+         * Reads {@code count <= 32} bits as an unsigned value in the low bits of an int.
+         */
+        int read(int count) throws IOException {
+            if (available < count) {
+                refill();
+                if (available < count) {
+                    throw new EOFException("Truncated compressed WAV block");
+                }
+            }
+            available -= count;
+            return (int) (cache >>> available & ((1L << count) - 1));
+        }
+
+        int readSigned(int count) throws IOException {
+            int shift = 32 - count;
+            return read(count) << shift >> shift;
+        }
+
+        /**
+         * Counts zero bits up to the next one bit, which is consumed; stops after {@code limit} zeros.
+         */
+        int readUnary(int limit) throws IOException {
+            int zeros = 0;
+            while (true) {
+                if (available == 0) {
+                    refill();
+                    if (available == 0) {
+                        throw new EOFException("Truncated compressed WAV block");
+                    }
+                }
+                long aligned = cache << (64 - available);
+                int leading = aligned == 0 ? available : Long.numberOfLeadingZeros(aligned);
+                if (zeros + leading >= limit) {
+                    available -= limit - zeros;
+                    return limit;
+                }
+                if (leading < available) {
+                    available -= leading + 1;
+                    return zeros + leading;
+                }
+                zeros += available;
+                available = 0;
+            }
+        }
+    }
+
+    private static final class CountingOutput extends OutputStream {
+
+        private final OutputStream out;
+        private long count;
+
+        CountingOutput(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+    }
+}
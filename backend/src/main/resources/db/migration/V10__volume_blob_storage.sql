@@ -0,0 +1,6 @@
+-- With mosiqa.storage.volumes configured, blob bytes are kept as files on the volumes and data is NULL.
+-- BlobStoreServiceImpl moves existing rows' bytes out in the background.
+
+ALTER TABLE audio_files ALTER COLUMN data SET NULL;
+
+ALTER TABLE cover_images ALTER COLUMN data SET NULL;
@@ -0,0 +1,23 @@
+-- Blobs not read for mosiqa.tiering.cold-after move from the hot tier (data column or storage volume) into
+-- append-only pack files; cold_blobs is the offset index into those packs. Ids are unique across
+-- audio_files and cover_images, so neither table needs a kind column.
+
+CREATE TABLE blob_access (
+    id               UUID         NOT NULL,
+    last_accessed_at TIMESTAMP(6) NOT NULL,
+    access_count     BIGINT       NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE cold_blobs (
+    id              UUID         NOT NULL,
+    pack            INTEGER      NOT NULL,
+    pack_offset     BIGINT       NOT NULL,
+    stored_length   BIGINT       NOT NULL,
+    original_length BIGINT       NOT NULL,
+    compressed      BOOLEAN      NOT NULL,
+    created_at      TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_cold_blobs_pack ON cold_blobs (pack);
@@ -0,0 +1,7 @@
+-- Keyset paging cannot step past NULL sort values (NULL > x is never true), so sorting by duration
+-- uses a generated key in which unknown durations come before every real one.
+
+ALTER TABLE tracks ADD COLUMN IF NOT EXISTS duration_key DOUBLE PRECISION GENERATED ALWAYS AS (COALESCE(duration, -1.0E308));
+
+DROP INDEX IF EXISTS idx_tracks_duration;
+CREATE INDEX IF NOT EXISTS idx_tracks_duration_key ON tracks (duration_key, id);
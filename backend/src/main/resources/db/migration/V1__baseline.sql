@@ -0,0 +1,36 @@
+-- Baseline matching the schema previously generated by hibernate.ddl-auto.
+-- IF NOT EXISTS lets databases created by Hibernate adopt the migration history unchanged.
+
+CREATE TABLE IF NOT EXISTS audio_files (
+    id         VARCHAR(255) NOT NULL,
+    name       VARCHAR(255) NOT NULL,
+    size       BIGINT       NOT NULL,
+    mime_type  VARCHAR(255) NOT NULL,
+    data       BLOB         NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS cover_images (
+    id         VARCHAR(255) NOT NULL,
+    name       VARCHAR(255) NOT NULL,
+    size       BIGINT       NOT NULL,
+    mime_type  VARCHAR(255) NOT NULL,
+    data       BLOB         NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS tracks (
+    id             VARCHAR(255)  NOT NULL,
+    title          VARCHAR(255)  NOT NULL,
+    artist         VARCHAR(255)  NOT NULL,
+    description    VARCHAR(1000),
+    category       ENUM ('POP', 'ROCK', 'RAP', 'JAZZ', 'CLASSICAL', 'ELECTRONIC', 'RNB', 'COUNTRY', 'METAL', 'INDIE', 'OTHER') NOT NULL,
+    duration       DOUBLE PRECISION,
+    audio_file_id  VARCHAR(255)  NOT NULL,
+    cover_image_id VARCHAR(255),
+    created_at     TIMESTAMP(6)  NOT NULL,
+    updated_at     TIMESTAMP(6)  NOT NULL,
+    PRIMARY KEY (id)
+);
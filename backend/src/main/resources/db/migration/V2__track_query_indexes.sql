@@ -0,0 +1,12 @@
+-- Indexes backing GET /api/tracks/query.
+-- Every sort key is paired with id so keyset pagination can walk the index without a sort step.
+-- H2 has no expression indexes, so case-insensitive sort keys are generated columns.
+
+ALTER TABLE tracks ADD COLUMN IF NOT EXISTS title_key VARCHAR(255) GENERATED ALWAYS AS (LOWER(title));
+ALTER TABLE tracks ADD COLUMN IF NOT EXISTS artist_key VARCHAR(255) GENERATED ALWAYS AS (LOWER(artist));
+
+CREATE INDEX IF NOT EXISTS idx_tracks_created_at ON tracks (created_at, id);
+CREATE INDEX IF NOT EXISTS idx_tracks_category_created_at ON tracks (category, created_at, id);
+CREATE INDEX IF NOT EXISTS idx_tracks_title_key ON tracks (title_key, id);
+CREATE INDEX IF NOT EXISTS idx_tracks_artist_key ON tracks (artist_key, id);
+CREATE INDEX IF NOT EXISTS idx_tracks_duration ON tracks (duration, id);
@@ -0,0 +1,6 @@
+-- Lookups from a blob back to its track (orphan checks, deletes) and the join columns
+-- used when serving files. Category and recency lookups are served by the
+-- (category, created_at, id) and (created_at, id) indexes from V2.
+
+CREATE INDEX IF NOT EXISTS idx_tracks_audio_file_id ON tracks (audio_file_id);
+CREATE INDEX IF NOT EXISTS idx_tracks_cover_image_id ON tracks (cover_image_id);
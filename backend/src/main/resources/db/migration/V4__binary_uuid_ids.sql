@@ -0,0 +1,8 @@
+-- Store identifiers in H2's native 16-byte UUID type instead of 36-character text.
+-- Existing values are valid UUID strings and convert in place; V5 re-keys them as time-ordered ids.
+
+ALTER TABLE audio_files ALTER COLUMN id SET DATA TYPE UUID;
+ALTER TABLE cover_images ALTER COLUMN id SET DATA TYPE UUID;
+ALTER TABLE tracks ALTER COLUMN id SET DATA TYPE UUID;
+ALTER TABLE tracks ALTER COLUMN audio_file_id SET DATA TYPE UUID;
+ALTER TABLE tracks ALTER COLUMN cover_image_id SET DATA TYPE UUID;
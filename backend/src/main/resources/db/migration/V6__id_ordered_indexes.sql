@@ -0,0 +1,3 @@
+-- With time-ordered ids, creation order is id order. Category listings page on (category, id).
+
+CREATE INDEX IF NOT EXISTS idx_tracks_category_id ON tracks (category, id);
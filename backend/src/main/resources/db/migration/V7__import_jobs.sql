@@ -0,0 +1,26 @@
+-- Bulk import bookkeeping. Every processed entry is recorded in import_job_items in the same
+-- transaction as its rows, so an interrupted job can be resumed without duplicating tracks.
+
+CREATE TABLE import_jobs (
+    id               UUID          NOT NULL,
+    source           VARCHAR(1024) NOT NULL,
+    category         ENUM ('POP', 'ROCK', 'RAP', 'JAZZ', 'CLASSICAL', 'ELECTRONIC', 'RNB', 'COUNTRY', 'METAL', 'INDIE', 'OTHER') NOT NULL,
+    status           ENUM ('PENDING', 'RUNNING', 'COMPLETED', 'FAILED', 'INTERRUPTED') NOT NULL,
+    total_entries    INTEGER       NOT NULL,
+    imported_entries INTEGER       NOT NULL,
+    failed_entries   INTEGER       NOT NULL,
+    last_error       VARCHAR(1000),
+    created_at       TIMESTAMP(6)  NOT NULL,
+    started_at       TIMESTAMP(6),
+    finished_at      TIMESTAMP(6),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE import_job_items (
+    job_id   UUID          NOT NULL,
+    entry    VARCHAR(1024) NOT NULL,
+    status   VARCHAR(16)   NOT NULL,
+    track_id UUID,
+    message  VARCHAR(1000),
+    PRIMARY KEY (job_id, entry)
+);
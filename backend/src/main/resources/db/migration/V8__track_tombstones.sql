@@ -0,0 +1,6 @@
+-- Deleting a track only sets deleted_at; TrackPurgeWorker removes the row and its blobs later.
+-- Live-track queries filter on deleted_at IS NULL (see @SQLRestriction on Track).
+
+ALTER TABLE tracks ADD COLUMN deleted_at TIMESTAMP(6);
+
+CREATE INDEX IF NOT EXISTS idx_tracks_deleted_at ON tracks (deleted_at);
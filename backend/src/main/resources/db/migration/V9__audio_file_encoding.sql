@@ -0,0 +1,4 @@
+-- PCM WAV uploads are stored losslessly compressed (encoding = 'LPC') and decoded when served.
+-- size keeps the length of the original file.
+
+ALTER TABLE audio_files ADD COLUMN encoding ENUM ('RAW', 'LPC') DEFAULT 'RAW' NOT NULL;
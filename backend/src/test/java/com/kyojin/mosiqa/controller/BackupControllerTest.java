@@ -0,0 +1,93 @@
+package com.kyojin.mosiqa.controller;
+
+import com.kyojin.mosiqa.entity.UuidV7;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.io.ByteArrayInputStream;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.zip.ZipInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.startsWith;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("BackupController Tests")
+class BackupControllerTest {
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+    }
+
+    @Test
+    @DisplayName("should stream the backup without an async timeout")
+    void shouldStreamBackupWithoutTimeout() throws Exception {
+        MvcResult started = mockMvc.perform(get("/api/admin/backup"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        assertThat(started.getRequest().getAsyncContext().getTimeout()).isEqualTo(-1);
+
+        byte[] archive = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/zip"))
+                .andExpect(header().string("Content-Disposition", startsWith("attachment; filename=\"mosiqa-backup-")))
+                .andReturn().getResponse().getContentAsByteArray();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(archive))) {
+            assertThat(zip.getNextEntry().getName()).isEqualTo("manifest.json");
+        }
+    }
+
+    @Test
+    @DisplayName("should stream audio files without an async timeout")
+    void shouldStreamAudioWithoutTimeout() throws Exception {
+        UUID id = UuidV7.next();
+        jdbcTemplate.update("INSERT INTO audio_files (id, name, size, mime_type, encoding, data, created_at) "
+                + "VALUES (?, 'track.mp3', 5, 'audio/mpeg', 'RAW', ?, CURRENT_TIMESTAMP)", id, new byte[] {1, 2, 3, 4, 5});
+
+        MvcResult started = mockMvc.perform(get("/api/files/audio/" + id))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        assertThat(started.getRequest().getAsyncContext().getTimeout()).isEqualTo(-1);
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(new byte[] {1, 2, 3, 4, 5}));
+    }
+
+    @Test
+    @DisplayName("should keep the finite default timeout for cover bundles")
+    void shouldKeepDefaultTimeoutElsewhere() throws Exception {
+        MvcResult started = mockMvc.perform(get("/api/files/covers?ids=01900000-0000-7000-8000-0000000000ff"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        assertThat(started.getRequest().getAsyncContext().getTimeout()).isEqualTo(Duration.ofMinutes(5).toMillis());
+    }
+}
@@ -0,0 +1,123 @@
+package com.kyojin.mosiqa.controller;
+
+import com.kyojin.mosiqa.entity.CoverImage;
+import com.kyojin.mosiqa.repository.CoverImageRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("FileController cover bundle Tests")
+class FileControllerCoversTest {
+
+    private static final UUID MISSING_ID = UUID.fromString("01900000-0000-7000-8000-0000000000ff");
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private CoverImageRepository coverImageRepository;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+    }
+
+    @Test
+    @DisplayName("should bundle the found covers scaled to the requested size and leave out missing ids")
+    void shouldBundleScaledCovers() throws Exception {
+        UUID first = saveCover(256, 128);
+        UUID second = saveCover(40, 40);
+        String ids = first + "," + MISSING_ID + "," + second;
+
+        // The second request is served from the thumbnail cache and must not differ
+        for (int attempt = 0; attempt < 2; attempt++) {
+            Map<UUID, BufferedImage> bundle = readBundle(fetch("/api/files/covers?size=64&ids=" + ids));
+
+            assertThat(bundle).containsOnlyKeys(first, second);
+            assertThat(bundle.get(first).getWidth()).isEqualTo(64);
+            assertThat(bundle.get(first).getHeight()).isEqualTo(32);
+            assertThat(bundle.get(second).getWidth()).isEqualTo(40);
+        }
+
+        Map<UUID, BufferedImage> originals = readBundle(fetch("/api/files/covers?ids=" + first));
+        assertThat(originals.get(first).getWidth()).isEqualTo(256);
+    }
+
+    @Test
+    @DisplayName("should reject bundles without ids or with an out-of-range size")
+    void shouldRejectInvalidRequests() throws Exception {
+        mockMvc.perform(get("/api/files/covers").param("ids", "")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/files/covers").param("ids", MISSING_ID.toString()).param("size", "4"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private byte[] fetch(String url) throws Exception {
+        MvcResult result = mockMvc.perform(get(url)).andExpect(request().asyncStarted()).andReturn();
+        return mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-mosiqa-covers"))
+                .andReturn().getResponse().getContentAsByteArray();
+    }
+
+    private UUID saveCover(int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setPaint(new GradientPaint(0, 0, Color.MAGENTA, width, height, Color.CYAN));
+        graphics.fillRect(0, 0, width, height);
+        graphics.dispose();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return coverImageRepository.save(CoverImage.builder()
+                .name("cover.png")
+                .size((long) out.size())
+                .mimeType("image/png")
+                .data(out.toByteArray())
+                .build()).getId();
+    }
+
+    private static Map<UUID, BufferedImage> readBundle(byte[] bundle) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bundle));
+        assertThat(new String(in.readNBytes(4), StandardCharsets.US_ASCII)).isEqualTo("MCVR");
+        assertThat(in.readByte()).isEqualTo((byte) 1);
+        Map<UUID, BufferedImage> covers = new LinkedHashMap<>();
+        while (in.readByte() == 1) {
+            UUID id = new UUID(in.readLong(), in.readLong());
+            in.readNBytes(in.readUnsignedByte());
+            covers.put(id, ImageIO.read(new ByteArrayInputStream(in.readNBytes(in.readInt()))));
+        }
+        assertThat(in.read()).isEqualTo(-1);
+        return covers;
+    }
+}
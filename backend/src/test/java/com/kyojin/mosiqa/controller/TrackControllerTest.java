@@ -1,8 +1,15 @@
 package com.kyojin.mosiqa.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kyojin.mosiqa.converter.TrackListCodec;
+import com.kyojin.mosiqa.dto.TrackBatchItemResult;
+import com.kyojin.mosiqa.dto.TrackBatchResultDTO;
 import com.kyojin.mosiqa.dto.TrackCreateRequest;
 import com.kyojin.mosiqa.dto.TrackDTO;
+import com.kyojin.mosiqa.dto.TrackFieldSet;
+import com.kyojin.mosiqa.dto.TrackPageDTO;
+import com.kyojin.mosiqa.dto.TrackQuery;
+import com.kyojin.mosiqa.dto.TrackSortKey;
 import com.kyojin.mosiqa.dto.TrackUpdateRequest;
 import com.kyojin.mosiqa.entity.MusicCategory;
 import com.kyojin.mosiqa.exception.GlobalExceptionHandler;
@@ -13,9 +20,11 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.web.servlet.MockMvc;
@@ -24,7 +33,10 @@ import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
@@ -36,6 +48,9 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 @DisplayName("TrackController Tests")
 class TrackControllerTest {
 
+    private static final UUID TRACK_ID = UUID.fromString("01900000-0000-7000-8000-000000000001");
+    private static final UUID MISSING_ID = UUID.fromString("01900000-0000-7000-8000-0000000000ff");
+
     @Mock
     private TrackService trackService;
 
@@ -55,14 +70,14 @@ class TrackControllerTest {
         objectMapper.findAndRegisterModules();
 
         sampleTrackDTO = TrackDTO.builder()
-                .id("track-1")
+                .id(TRACK_ID.toString())
                 .title("Test Song")
                 .artist("Test Artist")
                 .description("Test Description")
                 .category(MusicCategory.POP)
                 .duration(180.0)
-                .audioFileId("audio-1")
-                .coverImageId("cover-1")
+                .audioFileId("01900000-0000-7000-8000-0000000000a1")
+                .coverImageId("01900000-0000-7000-8000-0000000000c1")
                 .createdAt(LocalDateTime.now())
                 .updatedAt(LocalDateTime.now())
                 .build();
@@ -83,10 +98,42 @@ class TrackControllerTest {
             mockMvc.perform(get("/api/tracks"))
                     .andExpect(status().isOk())
                     .andExpect(jsonPath("$", hasSize(2)))
-                    .andExpect(jsonPath("$[0].id").value("track-1"))
+                    .andExpect(jsonPath("$[0].id").value(TRACK_ID.toString()))
                     .andExpect(jsonPath("$[0].title").value("Test Song"));
         }
 
+        @Test
+        @DisplayName("should return only requested fields")
+        void shouldReturnSparseFields() throws Exception {
+            when(trackService.getAllTracks(any(TrackFieldSet.class)))
+                    .thenReturn(List.of(Map.of("title", "Test Song")));
+
+            mockMvc.perform(get("/api/tracks").param("fields", "title"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[0].title").value("Test Song"))
+                    .andExpect(jsonPath("$[0].artist").doesNotExist());
+        }
+
+        @Test
+        @DisplayName("should answer 406 instead of ignoring fields when the binary encoding is requested")
+        void shouldRejectBinaryWithFields() throws Exception {
+            mockMvc.perform(get("/api/tracks").param("fields", "title").accept(TrackListCodec.MEDIA_TYPE_VALUE))
+                    .andExpect(status().isNotAcceptable());
+            mockMvc.perform(get("/api/tracks/search").param("q", "x").param("fields", "title")
+                            .accept(TrackListCodec.MEDIA_TYPE_VALUE))
+                    .andExpect(status().isNotAcceptable());
+
+            verifyNoInteractions(trackService);
+        }
+
+        @Test
+        @DisplayName("should reject unknown fields")
+        void shouldRejectUnknownFields() throws Exception {
+            mockMvc.perform(get("/api/tracks").param("fields", "title,password"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.message").value(containsString("Unknown track field")));
+        }
+
         @Test
         @DisplayName("should return empty list when no tracks")
         void shouldReturnEmptyList() throws Exception {
@@ -105,22 +152,31 @@ class TrackControllerTest {
         @Test
         @DisplayName("should return track when found")
         void shouldReturnTrackWhenFound() throws Exception {
-            when(trackService.getTrackById("track-1")).thenReturn(sampleTrackDTO);
+            when(trackService.getTrackById(TRACK_ID)).thenReturn(sampleTrackDTO);
 
-            mockMvc.perform(get("/api/tracks/track-1"))
+            mockMvc.perform(get("/api/tracks/" + TRACK_ID))
                     .andExpect(status().isOk())
-                    .andExpect(jsonPath("$.id").value("track-1"))
+                    .andExpect(jsonPath("$.id").value(TRACK_ID.toString()))
                     .andExpect(jsonPath("$.title").value("Test Song"))
                     .andExpect(jsonPath("$.artist").value("Test Artist"));
         }
 
+        @Test
+        @DisplayName("should return 400 for a malformed id")
+        void shouldReturn400ForMalformedId() throws Exception {
+            mockMvc.perform(get("/api/tracks/not-a-uuid"))
+                    .andExpect(status().isBadRequest());
+
+            verifyNoInteractions(trackService);
+        }
+
         @Test
         @DisplayName("should return 404 when track not found")
         void shouldReturn404WhenNotFound() throws Exception {
-            when(trackService.getTrackById("non-existent"))
-                    .thenThrow(new ResourceNotFoundException("Track", "id", "non-existent"));
+            when(trackService.getTrackById(MISSING_ID))
+                    .thenThrow(new ResourceNotFoundException("Track", "id", MISSING_ID));
 
-            mockMvc.perform(get("/api/tracks/non-existent"))
+            mockMvc.perform(get("/api/tracks/" + MISSING_ID))
                     .andExpect(status().isNotFound())
                     .andExpect(jsonPath("$.message").value(containsString("Track not found")));
         }
@@ -160,7 +216,7 @@ class TrackControllerTest {
                             .file(metadataFile)
                             .file(audioFile))
                     .andExpect(status().isCreated())
-                    .andExpect(jsonPath("$.id").value("track-1"));
+                    .andExpect(jsonPath("$.id").value(TRACK_ID.toString()));
         }
     }
 
@@ -171,25 +227,61 @@ class TrackControllerTest {
         @Test
         @DisplayName("should delete track successfully")
         void shouldDeleteTrack() throws Exception {
-            doNothing().when(trackService).deleteTrack("track-1");
+            doNothing().when(trackService).deleteTrack(TRACK_ID);
 
-            mockMvc.perform(delete("/api/tracks/track-1"))
+            mockMvc.perform(delete("/api/tracks/" + TRACK_ID))
                     .andExpect(status().isNoContent());
 
-            verify(trackService).deleteTrack("track-1");
+            verify(trackService).deleteTrack(TRACK_ID);
         }
 
         @Test
         @DisplayName("should return 404 when track not found")
         void shouldReturn404WhenNotFound() throws Exception {
-            doThrow(new ResourceNotFoundException("Track", "id", "non-existent"))
-                    .when(trackService).deleteTrack("non-existent");
+            doThrow(new ResourceNotFoundException("Track", "id", MISSING_ID))
+                    .when(trackService).deleteTrack(MISSING_ID);
 
-            mockMvc.perform(delete("/api/tracks/non-existent"))
+            mockMvc.perform(delete("/api/tracks/" + MISSING_ID))
                     .andExpect(status().isNotFound());
         }
     }
 
+    @Nested
+    @DisplayName("POST /api/tracks/batch/delete")
+    class DeleteTracks {
+
+        @Test
+        @DisplayName("should return per-item results")
+        void shouldReturnPerItemResults() throws Exception {
+            TrackBatchResultDTO result = TrackBatchResultDTO.of(new TrackBatchItemResult[]{
+                    TrackBatchItemResult.builder().index(0).id(TRACK_ID.toString())
+                            .status(TrackBatchItemResult.Status.DELETED).build(),
+                    TrackBatchItemResult.builder().index(1).id(MISSING_ID.toString())
+                            .status(TrackBatchItemResult.Status.NOT_FOUND).build()
+            });
+            when(trackService.deleteTracks(List.of(TRACK_ID, MISSING_ID))).thenReturn(result);
+
+            mockMvc.perform(post("/api/tracks/batch/delete")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"ids\":[\"" + TRACK_ID + "\",\"" + MISSING_ID + "\"]}"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.succeeded").value(1))
+                    .andExpect(jsonPath("$.failed").value(1))
+                    .andExpect(jsonPath("$.results[1].status").value("NOT_FOUND"));
+        }
+
+        @Test
+        @DisplayName("should return 400 for an empty id list")
+        void shouldRejectEmptyIds() throws Exception {
+            mockMvc.perform(post("/api/tracks/batch/delete")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"ids\":[]}"))
+                    .andExpect(status().isBadRequest());
+
+            verifyNoInteractions(trackService);
+        }
+    }
+
     @Nested
     @DisplayName("GET /api/tracks/search")
     class SearchTracks {
@@ -223,4 +315,48 @@ class TrackControllerTest {
                     .andExpect(jsonPath("$[0].category").value("POP"));
         }
     }
+
+    @Nested
+    @DisplayName("GET /api/tracks/query")
+    class QueryTracks {
+
+        @Test
+        @DisplayName("should combine filters, sort and cursor into one query")
+        void shouldBindQueryParameters() throws Exception {
+            TrackPageDTO page = TrackPageDTO.builder()
+                    .items(List.of(sampleTrackDTO))
+                    .nextCursor("next")
+                    .hasNext(true)
+                    .build();
+            when(trackService.queryTracks(any(TrackQuery.class))).thenReturn(page);
+
+            mockMvc.perform(get("/api/tracks/query")
+                            .param("category", "POP")
+                            .param("q", "test")
+                            .param("minDuration", "60")
+                            .param("sort", "title")
+                            .param("direction", "asc")
+                            .param("limit", "20"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.items", hasSize(1)))
+                    .andExpect(jsonPath("$.nextCursor").value("next"));
+
+            ArgumentCaptor<TrackQuery> captor = ArgumentCaptor.forClass(TrackQuery.class);
+            verify(trackService).queryTracks(captor.capture());
+            TrackQuery query = captor.getValue();
+            assertThat(query.getCategory()).isEqualTo(MusicCategory.POP);
+            assertThat(query.getText()).isEqualTo("test");
+            assertThat(query.getMinDuration()).isEqualTo(60.0);
+            assertThat(query.getSort()).isEqualTo(TrackSortKey.TITLE);
+            assertThat(query.getDirection()).isEqualTo(Sort.Direction.ASC);
+            assertThat(query.getLimit()).isEqualTo(20);
+        }
+
+        @Test
+        @DisplayName("should reject unknown sort keys")
+        void shouldRejectUnknownSortKey() throws Exception {
+            mockMvc.perform(get("/api/tracks/query").param("sort", "plays"))
+                    .andExpect(status().isBadRequest());
+        }
+    }
 }
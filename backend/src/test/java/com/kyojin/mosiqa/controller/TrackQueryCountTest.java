@@ -0,0 +1,185 @@
+package com.kyojin.mosiqa.controller;
+
+import com.kyojin.mosiqa.entity.AudioEncoding;
+import com.kyojin.mosiqa.entity.AudioFile;
+import com.kyojin.mosiqa.entity.MusicCategory;
+import com.kyojin.mosiqa.entity.Track;
+import com.kyojin.mosiqa.repository.AudioFileRepository;
+import com.kyojin.mosiqa.repository.TrackRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultMatcher;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Exact JDBC statement counts for every {@link TrackController} endpoint, taken from Hibernate's
+ * statistics. A JDBC batch counts as one statement. An endpoint that starts loading rows one by one or
+ * gains an extra existence check fails here, whatever the size of the catalog.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:mosiqa-query-count;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@ActiveProfiles("test")
+@DisplayName("TrackController query counts")
+class TrackQueryCountTest {
+
+    private static final UUID MISSING_ID = UUID.fromString("01900000-0000-7000-8000-0000000000ff");
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private TrackRepository trackRepository;
+
+    @Autowired
+    private AudioFileRepository audioFileRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private MockMvc mockMvc;
+    private Statistics statistics;
+    private List<UUID> trackIds;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        // Enough rows that a per-row query would show up as more than one statement
+        trackIds = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            AudioFile audioFile = audioFileRepository.save(AudioFile.builder()
+                    .name("seed-" + i + ".mp3")
+                    .size(4L)
+                    .mimeType("audio/mpeg")
+                    .encoding(AudioEncoding.RAW)
+                    .data(new byte[]{1, 2, 3, 4})
+                    .build());
+            Track track = trackRepository.save(Track.builder()
+                    .title("Seed " + i)
+                    .artist("Counter")
+                    .category(MusicCategory.ROCK)
+                    .duration(120.0)
+                    .audioFileId(audioFile.getId())
+                    .build());
+            trackIds.add(track.getId());
+        }
+    }
+
+    @Test
+    @DisplayName("should read track lists with a single statement")
+    void shouldListWithOneStatement() throws Exception {
+        assertThat(statements(get("/api/tracks"))).isEqualTo(1);
+        assertThat(statements(get("/api/tracks").param("fields", "id,title"))).isEqualTo(1);
+        assertThat(statements(get("/api/tracks").param("fields", "id,description"))).isEqualTo(1);
+        assertThat(statements(get("/api/tracks/search").param("q", "seed"))).isEqualTo(1);
+        assertThat(statements(get("/api/tracks/search").param("q", "seed").param("fields", "id,title"))).isEqualTo(1);
+        assertThat(statements(get("/api/tracks/category/ROCK"))).isEqualTo(1);
+        assertThat(statements(get("/api/tracks/category/ROCK").param("fields", "id,title"))).isEqualTo(1);
+        assertThat(statements(get("/api/tracks/query").param("category", "ROCK").param("limit", "3"))).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("should read a single track with a single statement")
+    void shouldGetWithOneStatement() throws Exception {
+        assertThat(statements(get("/api/tracks/{id}", trackIds.get(0)))).isEqualTo(1);
+        assertThat(statements(get("/api/tracks/{id}", MISSING_ID), status().isNotFound())).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("should create a track with one insert per table")
+    void shouldCreateWithOneInsertPerTable() throws Exception {
+        // audio_files, cover_images and tracks
+        assertThat(statements(multipart("/api/tracks")
+                .file(metadata("metadata", "{\"title\":\"New\",\"artist\":\"Counter\",\"category\":\"rock\"}"))
+                .file(audio("audioFile"))
+                .file(new MockMultipartFile("coverImage", "cover.png", MediaType.IMAGE_PNG_VALUE, new byte[]{1})),
+                status().isCreated())).isEqualTo(3);
+
+        // One batch each for audio_files and tracks, however many tracks the batch holds
+        assertThat(statements(multipart("/api/tracks/batch")
+                .file(metadata("metadata", "[{\"title\":\"A\",\"artist\":\"Counter\",\"category\":\"rock\"},"
+                        + "{\"title\":\"B\",\"artist\":\"Counter\",\"category\":\"rock\"},"
+                        + "{\"title\":\"C\",\"artist\":\"Counter\",\"category\":\"rock\"}]"))
+                .file(audio("audioFiles"))
+                .file(audio("audioFiles"))
+                .file(audio("audioFiles")))).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("should update tracks without re-reading or checking rows one by one")
+    void shouldUpdateWithoutExtraRoundTrips() throws Exception {
+        // SELECT track, UPDATE track
+        assertThat(statements(multipart(HttpMethod.PUT, "/api/tracks/{id}", trackIds.get(0))
+                .file(metadata("metadata", "{\"title\":\"Renamed\"}")))).isEqualTo(2);
+
+        // SELECT track, DELETE old audio, INSERT new audio, UPDATE track
+        assertThat(statements(multipart(HttpMethod.PUT, "/api/tracks/{id}", trackIds.get(1))
+                .file(metadata("metadata", "{\"title\":\"Replaced\"}"))
+                .file(audio("audioFile")))).isEqualTo(4);
+
+        // One SELECT ... IN for all ids, one batched UPDATE
+        assertThat(statements(patch("/api/tracks/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"id\":\"" + trackIds.get(2) + "\",\"metadata\":{\"title\":\"X\"}},"
+                        + "{\"id\":\"" + trackIds.get(3) + "\",\"metadata\":{\"title\":\"Y\"}},"
+                        + "{\"id\":\"" + MISSING_ID + "\",\"metadata\":{\"title\":\"Z\"}}]"))).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("should delete tracks with one UPDATE and at most one lookup")
+    void shouldDeleteWithoutExtraRoundTrips() throws Exception {
+        assertThat(statements(delete("/api/tracks/{id}", trackIds.get(0)), status().isNoContent())).isEqualTo(1);
+
+        assertThat(statements(post("/api/tracks/batch/delete")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"ids\":[\"" + trackIds.get(1) + "\",\"" + trackIds.get(2) + "\",\"" + MISSING_ID + "\"]}")))
+                .isEqualTo(2);
+    }
+
+    private long statements(RequestBuilder request) throws Exception {
+        return statements(request, status().is2xxSuccessful());
+    }
+
+    private long statements(RequestBuilder request, ResultMatcher expectedStatus) throws Exception {
+        statistics.clear();
+        mockMvc.perform(request).andExpect(expectedStatus);
+        return statistics.getPrepareStatementCount();
+    }
+
+    private static MockMultipartFile metadata(String name, String json) {
+        return new MockMultipartFile(name, "", MediaType.APPLICATION_JSON_VALUE, json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static MockMultipartFile audio(String name) {
+        return new MockMultipartFile(name, "track.mp3", "audio/mpeg", new byte[]{1, 2, 3, 4});
+    }
+}
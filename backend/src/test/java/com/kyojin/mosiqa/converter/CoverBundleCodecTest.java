@@ -0,0 +1,48 @@
+package com.kyojin.mosiqa.converter;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("CoverBundleCodec Tests")
+class CoverBundleCodecTest {
+
+    @Test
+    @DisplayName("should write the magic, length-prefixed entries and an end marker")
+    void shouldWriteDocumentedLayout() throws Exception {
+        UUID id = UUID.fromString("01900000-0000-7000-8000-0000000000c1");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        CoverBundleCodec.writeHeader(out);
+        CoverBundleCodec.writeEntry(out, id, "image/png", new byte[]{9, 8, 7});
+        CoverBundleCodec.writeEnd(out);
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(out.toByteArray()));
+        assertThat(in.readNBytes(4)).isEqualTo("MCVR".getBytes(StandardCharsets.US_ASCII));
+        assertThat(in.readByte()).isEqualTo((byte) 1);
+        assertThat(in.readByte()).isEqualTo((byte) 1);
+        assertThat(new UUID(in.readLong(), in.readLong())).isEqualTo(id);
+        assertThat(new String(in.readNBytes(in.readUnsignedByte()), StandardCharsets.US_ASCII)).isEqualTo("image/png");
+        assertThat(in.readNBytes(in.readInt())).containsExactly(9, 8, 7);
+        assertThat(in.readByte()).isZero();
+        assertThat(in.read()).isEqualTo(-1);
+    }
+
+    @Test
+    @DisplayName("should write an empty bundle when no covers were found")
+    void shouldWriteEmptyBundle() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        CoverBundleCodec.writeHeader(out);
+        CoverBundleCodec.writeEnd(out);
+
+        assertThat(out.toByteArray()).containsExactly('M', 'C', 'V', 'R', 1, 0);
+    }
+}
@@ -0,0 +1,87 @@
+package com.kyojin.mosiqa.converter;
+
+import com.kyojin.mosiqa.dto.TrackDTO;
+import com.kyojin.mosiqa.entity.MusicCategory;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("TrackListCodec Tests")
+class TrackListCodecTest {
+
+    @Test
+    @DisplayName("should round-trip every field")
+    void shouldRoundTripTracks() throws Exception {
+        TrackDTO full = TrackDTO.builder()
+                .id(UUID.randomUUID().toString())
+                .title("Test Song")
+                .artist("Test Artist")
+                .description("\u00dcn\u00efcode description")
+                .category(MusicCategory.JAZZ)
+                .duration(183.25)
+                .audioFileId(UUID.randomUUID().toString())
+                .coverImageId(UUID.randomUUID().toString())
+                .createdAt(LocalDateTime.of(2024, 5, 1, 12, 30, 15, 123_000_000))
+                .updatedAt(LocalDateTime.of(2024, 5, 2, 8, 0))
+                .build();
+        TrackDTO sparse = TrackDTO.builder()
+                .id("track-2")
+                .title("Song 2")
+                .createdAt(LocalDateTime.of(2023, 1, 1, 0, 0))
+                .build();
+
+        List<TrackDTO> decoded = roundTrip(List.of(full, sparse));
+
+        assertThat(decoded).containsExactly(full, sparse);
+    }
+
+    @Test
+    @DisplayName("should be smaller than the JSON equivalent for large listings")
+    void shouldBeCompactForLargeListings() throws Exception {
+        List<TrackDTO> tracks = new ArrayList<>();
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 0, 0);
+        for (int i = 0; i < 1000; i++) {
+            tracks.add(TrackDTO.builder()
+                    .id(UUID.randomUUID().toString())
+                    .title("Song " + i)
+                    .artist("Artist " + (i % 50))
+                    .category(MusicCategory.values()[i % MusicCategory.values().length])
+                    .duration(120.0 + i)
+                    .audioFileId(UUID.randomUUID().toString())
+                    .createdAt(base.minusMinutes(i))
+                    .updatedAt(base.minusMinutes(i))
+                    .build());
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TrackListCodec.encode(tracks, out);
+
+        // Each UUID alone costs 38+ bytes as JSON text; the whole row should fit in far less than that
+        assertThat(out.size()).isLessThan(tracks.size() * 100);
+        assertThat(roundTrip(tracks)).isEqualTo(tracks);
+    }
+
+    @Test
+    @DisplayName("should reject payloads with a foreign header")
+    void shouldRejectForeignPayload() {
+        byte[] garbage = "{\"not\":\"binary\"}".getBytes();
+
+        assertThatThrownBy(() -> TrackListCodec.decode(new ByteArrayInputStream(garbage)))
+                .hasMessageContaining("Not a track list payload");
+    }
+
+    private List<TrackDTO> roundTrip(List<TrackDTO> tracks) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TrackListCodec.encode(tracks, out);
+        return TrackListCodec.decode(new ByteArrayInputStream(out.toByteArray()));
+    }
+}
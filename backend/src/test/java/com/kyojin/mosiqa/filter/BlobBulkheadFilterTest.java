@@ -0,0 +1,53 @@
+package com.kyojin.mosiqa.filter;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("BlobBulkheadFilter Tests")
+class BlobBulkheadFilterTest {
+
+    private final BlobBulkheadFilter filter =
+            new BlobBulkheadFilter(1, Duration.ZERO, Duration.ofSeconds(3), JsonMapper.builder().build());
+
+    @Test
+    @DisplayName("should turn away a blob transfer with 503 and Retry-After while the limit is taken")
+    void shouldRejectWhenSaturated() throws Exception {
+        MockHttpServletRequest streaming = new MockHttpServletRequest("GET", "/api/files/audio/1");
+        streaming.setAsyncSupported(true);
+        MockHttpServletResponse streamingResponse = new MockHttpServletResponse();
+        // Holds its permit until the async request completes
+        filter.doFilter(streaming, streamingResponse, (request, response) -> request.startAsync());
+
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/files/cover/2"), rejected, new MockFilterChain());
+
+        assertThat(rejected.getStatus()).isEqualTo(503);
+        assertThat(rejected.getHeader("Retry-After")).isEqualTo("3");
+
+        streaming.getAsyncContext().complete();
+        MockHttpServletResponse admitted = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/files/cover/2"), admitted, new MockFilterChain());
+        assertThat(admitted.getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    @DisplayName("should let metadata requests through regardless of the limit")
+    void shouldNotLimitMetadataRequests() throws Exception {
+        MockHttpServletRequest streaming = new MockHttpServletRequest("GET", "/api/files/audio/1");
+        streaming.setAsyncSupported(true);
+        filter.doFilter(streaming, new MockHttpServletResponse(), (request, response) -> request.startAsync());
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/tracks"), response, new MockFilterChain());
+
+        assertThat(response.getStatus()).isEqualTo(200);
+    }
+}
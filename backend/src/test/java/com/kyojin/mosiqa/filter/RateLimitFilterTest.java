@@ -0,0 +1,65 @@
+package com.kyojin.mosiqa.filter;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("RateLimitFilter Tests")
+class RateLimitFilterTest {
+
+    // Two searches per client, then one every ten seconds
+    private final RateLimitFilter filter = new RateLimitFilter(2, 0.1, 0, 0, "X-Api-Key",
+            Duration.ZERO, 100, JsonMapper.builder().build());
+
+    @Test
+    @DisplayName("should throttle a client past its burst without affecting other clients")
+    void shouldThrottlePerClient() throws Exception {
+        assertThat(search("10.0.0.1", null).getStatus()).isEqualTo(200);
+        assertThat(search("10.0.0.1", null).getStatus()).isEqualTo(200);
+
+        MockHttpServletResponse throttled = search("10.0.0.1", null);
+        assertThat(throttled.getStatus()).isEqualTo(429);
+        assertThat(Long.parseLong(throttled.getHeader("Retry-After"))).isBetween(1L, 10L);
+
+        assertThat(search("10.0.0.2", null).getStatus()).isEqualTo(200);
+        assertThat(search("10.0.0.1", "client-a").getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    @DisplayName("should leave disabled and unclassified endpoints alone and drop idle buckets")
+    void shouldSkipUnlimitedEndpointsAndEvict() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            filter.doFilter(new MockHttpServletRequest("GET", "/api/files/audio/1"), response, new MockFilterChain());
+            assertThat(response.getStatus()).isEqualTo(200);
+        }
+
+        RateLimitFilter fastRefill = new RateLimitFilter(1, 1000, 0, 0, "", Duration.ZERO, 100, JsonMapper.builder().build());
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/tracks/search");
+        fastRefill.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        assertThat(fastRefill.trackedClients()).isEqualTo(1);
+
+        // Refilled within a millisecond, after which a zero idle timeout lets the bucket go
+        Thread.sleep(20);
+        fastRefill.evictIdleBuckets();
+        assertThat(fastRefill.trackedClients()).isZero();
+    }
+
+    private MockHttpServletResponse search(String address, String apiKey) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/tracks/search");
+        request.setRemoteAddr(address);
+        if (apiKey != null) {
+            request.addHeader("X-Api-Key", apiKey);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
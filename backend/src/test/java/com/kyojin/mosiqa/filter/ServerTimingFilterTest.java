@@ -0,0 +1,47 @@
+package com.kyojin.mosiqa.filter;
+
+import com.kyojin.mosiqa.metrics.RequestTiming;
+import com.kyojin.mosiqa.metrics.RequestTiming.Phase;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("ServerTimingFilter Tests")
+class ServerTimingFilterTest {
+
+    private final ServerTimingFilter filter = new ServerTimingFilter(Duration.ZERO);
+
+    @Test
+    @DisplayName("should report recorded phases and the serialization of the body in Server-Timing")
+    void shouldReportPhases() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/tracks"), response, (request, servletResponse) -> {
+            RequestTiming.record(Phase.DB, 3_000_000);
+            RequestTiming.record(Phase.BLOB, 1_250_000);
+            RequestTiming.current().serializing();
+            servletResponse.getOutputStream().write("[]".getBytes(StandardCharsets.UTF_8));
+        });
+
+        String header = response.getHeader(ServerTimingFilter.HEADER);
+        assertThat(header).startsWith("db;dur=3.0, blob;dur=1.3, serialize;dur=").contains("total;dur=");
+        assertThat(header).doesNotContain("map;");
+        assertThat(response.getContentAsString()).isEqualTo("[]");
+    }
+
+    @Test
+    @DisplayName("should stop timing once the request thread leaves the filter")
+    void shouldUnbindAfterRequest() throws Exception {
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/tracks"), new MockHttpServletResponse(),
+                (request, response) -> assertThat(RequestTiming.current()).isNotNull());
+
+        assertThat(RequestTiming.current()).isNull();
+        // Background work outside a request records nothing and does not fail
+        RequestTiming.record(Phase.BLOB, 1_000_000);
+    }
+}
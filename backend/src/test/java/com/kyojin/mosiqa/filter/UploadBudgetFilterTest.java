@@ -0,0 +1,102 @@
+package com.kyojin.mosiqa.filter;
+
+import jakarta.servlet.Filter;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.annotation.OrderUtils;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.unit.DataSize;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("UploadBudgetFilter Tests")
+class UploadBudgetFilterTest {
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private final UploadBudget budget = new UploadBudget(DataSize.ofKilobytes(10), 0, Duration.ZERO);
+    private final UploadBudgetFilter uploads =
+            new UploadBudgetFilter(budget, DataSize.ofMegabytes(50), Duration.ofSeconds(4), jsonMapper);
+    // One transfer permit: an upload that took it while being turned away would show up as 503
+    private final BlobBulkheadFilter bulkhead = new BlobBulkheadFilter(1, Duration.ZERO, Duration.ofSeconds(2), jsonMapper);
+
+    @Test
+    @DisplayName("should run before the bulkhead so rejected uploads never hold a transfer permit")
+    void shouldRunBeforeBulkhead() {
+        assertThat(OrderUtils.getOrder(UploadBudgetFilter.class))
+                .isLessThan(OrderUtils.getOrder(BlobBulkheadFilter.class));
+    }
+
+    @Test
+    @DisplayName("should answer 429 with Retry-After while the budget is taken, then admit the next upload")
+    void shouldRejectWithRetryAfter() throws Exception {
+        AtomicReference<MockHttpServletResponse> nested = new AtomicReference<>();
+        MockHttpServletResponse first = new MockHttpServletResponse();
+
+        // The first upload takes the whole budget; a second one arrives while it is being stored
+        chain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest request, HttpServletResponse response) throws IOException {
+                MockHttpServletResponse second = new MockHttpServletResponse();
+                try {
+                    chain(ok()).doFilter(upload(DataSize.ofKilobytes(1)), second);
+                } catch (Exception e) {
+                    throw new IOException(e);
+                }
+                nested.set(second);
+            }
+        }).doFilter(upload(DataSize.ofKilobytes(10)), first);
+
+        assertThat(first.getStatus()).isEqualTo(200);
+        assertThat(nested.get().getStatus()).isEqualTo(429);
+        assertThat(nested.get().getHeader("Retry-After")).isEqualTo("4");
+        assertThat(nested.get().getContentAsString()).contains("Too many uploads in progress");
+        assertThat(budget.snapshot().getActiveUploads()).isZero();
+
+        MockHttpServletResponse admitted = new MockHttpServletResponse();
+        chain(ok()).doFilter(upload(DataSize.ofKilobytes(1)), admitted);
+        assertThat(admitted.getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    @DisplayName("should not budget downloads or JSON requests")
+    void shouldIgnoreNonUploads() throws Exception {
+        budget.reserve(DataSize.ofKilobytes(10).toBytes());
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockHttpServletRequest json = new MockHttpServletRequest("POST", "/api/tracks/batch/delete");
+        json.setContentType("application/json");
+        uploads.doFilter(json, response, new MockFilterChain());
+
+        assertThat(response.getStatus()).isEqualTo(200);
+    }
+
+    private MockFilterChain chain(HttpServlet servlet) {
+        Filter[] filters = {uploads, bulkhead};
+        return new MockFilterChain(servlet, filters);
+    }
+
+    private static HttpServlet ok() {
+        return new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest request, HttpServletResponse response) {
+            }
+        };
+    }
+
+    private static MockHttpServletRequest upload(DataSize size) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/tracks");
+        request.setContentType("multipart/form-data; boundary=x");
+        request.setContent(new byte[(int) size.toBytes()]);
+        return request;
+    }
+}
@@ -0,0 +1,37 @@
+package com.kyojin.mosiqa.filter;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("UploadBudget Tests")
+class UploadBudgetTest {
+
+    @Test
+    @DisplayName("should turn away uploads that do not fit in time and admit them once bytes are released")
+    void shouldRejectUntilReleased() throws Exception {
+        UploadBudget budget = new UploadBudget(DataSize.ofMegabytes(100), 4, Duration.ofMillis(20));
+
+        long first = budget.reserve(DataSize.ofMegabytes(60).toBytes());
+        assertThat(first).isPositive();
+        assertThat(budget.reserve(DataSize.ofMegabytes(60).toBytes())).isEqualTo(-1);
+
+        budget.release(first);
+        assertThat(budget.reserve(DataSize.ofMegabytes(60).toBytes())).isPositive();
+        assertThat(budget.snapshot().getRejected()).isEqualTo(1);
+        assertThat(budget.snapshot().getActiveUploads()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("should cap a reservation larger than the whole budget instead of blocking forever")
+    void shouldCapOversizedReservations() throws Exception {
+        UploadBudget budget = new UploadBudget(DataSize.ofMegabytes(10), 0, Duration.ZERO);
+
+        assertThat(budget.reserve(DataSize.ofMegabytes(50).toBytes())).isEqualTo(DataSize.ofMegabytes(10).toBytes());
+        assertThat(budget.reserve(1)).isEqualTo(-1);
+    }
+}
@@ -0,0 +1,145 @@
+package com.kyojin.mosiqa.reactive;
+
+import com.kyojin.mosiqa.controller.FileController;
+import com.kyojin.mosiqa.entity.AudioEncoding;
+import com.kyojin.mosiqa.entity.AudioFile;
+import com.kyojin.mosiqa.metrics.BlobMetrics;
+import com.kyojin.mosiqa.service.BlobTierService;
+import com.kyojin.mosiqa.service.FileStorageService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.util.unit.DataSize;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ReactiveFileHandler Tests")
+class ReactiveFileHandlerTest {
+
+    @Mock
+    private FileStorageService fileStorageService;
+
+    @Mock
+    private BlobTierService blobTierService;
+
+    @TempDir
+    private Path directory;
+
+    private ReactiveFileHandler handler;
+    private WebTestClient client;
+
+    @BeforeEach
+    void setUp() {
+        handler = new ReactiveFileHandler(fileStorageService, blobTierService,
+                new BlobMetrics(new SimpleMeterRegistry()), DataSize.ofKilobytes(4));
+        ReactiveFileServer server = new ReactiveFileServer(handler, "127.0.0.1", 0, Duration.ZERO);
+        client = WebTestClient.bindToRouterFunction(server.routes()).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        handler.shutdown();
+    }
+
+    @Test
+    @DisplayName("should stream a requested range of a stored file in chunks")
+    void shouldStreamRangeFromFile() throws Exception {
+        byte[] data = new byte[20_000];
+        Arrays.fill(data, (byte) 7);
+        data[10_000] = 42;
+        Path file = Files.write(directory.resolve("audio"), data);
+        AudioFile audioFile = audioFile(data.length);
+        when(fileStorageService.getAudioFile(audioFile.getId())).thenReturn(Optional.of(audioFile));
+        when(fileStorageService.findStoredAudioFile(audioFile)).thenReturn(Optional.of(file));
+
+        byte[] body = client.get().uri("/api/files/audio/{id}", audioFile.getId())
+                .header(HttpHeaders.RANGE, "bytes=10000-18999")
+                .exchange()
+                .expectStatus().isEqualTo(206)
+                .expectHeader().valueEquals(HttpHeaders.CONTENT_RANGE, "bytes 10000-18999/20000")
+                .expectBody().returnResult().getResponseBody();
+
+        assertThat(body).hasSize(9_000);
+        assertThat(body[0]).isEqualTo((byte) 42);
+        verify(blobTierService).recordAccess(audioFile.getId());
+        verify(fileStorageService, never()).writeAudio(any(), anyLong(), anyLong(), any());
+    }
+
+    @Test
+    @DisplayName("should answer unknown ids with 404")
+    void shouldReturnNotFound() {
+        UUID id = UUID.randomUUID();
+        when(fileStorageService.getAudioFile(id)).thenReturn(Optional.empty());
+
+        client.get().uri("/api/files/audio/{id}", id)
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody().jsonPath("$.status").isEqualTo(404);
+    }
+
+    @Test
+    @DisplayName("should accept a cover bundle request with the maximum number of ids on the listener")
+    void shouldServeFullCoverBundleOverNetwork() throws Exception {
+        String ids = Stream.generate(UUID::randomUUID)
+                .limit(FileController.MAX_BUNDLE_COVERS)
+                .map(UUID::toString)
+                .collect(Collectors.joining(","));
+        doAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(2).write(new byte[] {1, 2, 3});
+            return null;
+        }).when(fileStorageService).writeCoverBundle(anyCollection(), isNull(), any());
+
+        ReactiveFileServer server = new ReactiveFileServer(handler, "127.0.0.1", 0, Duration.ZERO);
+        server.start();
+        try {
+            byte[] body = WebTestClient.bindToServer()
+                    .baseUrl("http://127.0.0.1:" + server.port())
+                    .build()
+                    .get().uri("/api/files/covers?ids={ids}", ids)
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBody().returnResult().getResponseBody();
+
+            assertThat(body).containsExactly(1, 2, 3);
+        } finally {
+            server.stop();
+        }
+    }
+
+    private static AudioFile audioFile(long size) {
+        return AudioFile.builder()
+                .id(UUID.randomUUID())
+                .name("track.mp3")
+                .size(size)
+                .mimeType("audio/mpeg")
+                .encoding(AudioEncoding.RAW)
+                .build();
+    }
+}
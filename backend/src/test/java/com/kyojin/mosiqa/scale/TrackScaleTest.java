@@ -0,0 +1,125 @@
+package com.kyojin.mosiqa.scale;
+
+import com.kyojin.mosiqa.converter.TrackListCodec;
+import com.kyojin.mosiqa.fixtures.CatalogGenerator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Latency bounds for the track endpoints at 10k, 100k and 1M tracks. Tagged {@code scale} and run with
+ * {@code ./gradlew scaleTest}, not with the regular tests.
+ * <p>
+ * The catalog grows across the sizes in one database. Each probe takes the median of a few calls after
+ * warming up. The bounds are deliberately loose: they catch a keyset page turning into a scan or a
+ * search going quadratic, not a few percent of drift.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:mosiqa-scale;DB_CLOSE_DELAY=-1")
+@ActiveProfiles("test")
+@Tag("scale")
+@DisplayName("Track endpoints at scale")
+class TrackScaleTest {
+
+    private static final int WARMUP = 2;
+    private static final int SAMPLES = 5;
+
+    private static CatalogGenerator generator;
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private MockMvc mockMvc;
+
+    /**
+     * Upper bounds on the median in milliseconds, at 10k, 100k and 1M tracks.
+     */
+    private record Probe(String name, RequestBuilder request, long at10k, long at100k, long at1m) {
+
+        long bound(int tracks) {
+            return tracks <= 10_000 ? at10k : tracks <= 100_000 ? at100k : at1m;
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+        if (generator == null) {
+            generator = new CatalogGenerator(50_000, 1.1, 16, 256 * 1024, 64, 42);
+        }
+    }
+
+    @ParameterizedTest(name = "{0} tracks")
+    @ValueSource(ints = {10_000, 100_000, 1_000_000})
+    @DisplayName("should answer within the latency bounds for the catalog size")
+    void shouldStayWithinLatencyBounds(int tracks) throws Exception {
+        long started = System.nanoTime();
+        int added = generator.fillTo(jdbcTemplate, transactionTemplate, tracks);
+        System.out.printf("Generated %d tracks in %d ms%n", added, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+
+        UUID trackId = jdbcTemplate.queryForObject("SELECT id FROM tracks ORDER BY id LIMIT 1 OFFSET ?", UUID.class, tracks / 2);
+        // A tail artist: present, but only on a handful of tracks
+        String rareArtist = jdbcTemplate.queryForObject(
+                "SELECT artist FROM tracks GROUP BY artist ORDER BY COUNT(*), artist LIMIT 1", String.class);
+
+        List<Probe> probes = List.of(
+                new Probe("first page", get("/api/tracks/query").param("limit", "50"), 50, 50, 100),
+                new Probe("category page", get("/api/tracks/query").param("category", "JAZZ").param("limit", "50"), 50, 50, 100),
+                new Probe("title sorted page", get("/api/tracks/query").param("sort", "title").param("limit", "50"), 50, 50, 100),
+                new Probe("track by id", get("/api/tracks/{id}", trackId), 20, 20, 20),
+                new Probe("search rare artist", get("/api/tracks/search").param("q", rareArtist), 100, 500, 5_000),
+                new Probe("whole library", get("/api/tracks").accept(MediaType.parseMediaType(TrackListCodec.MEDIA_TYPE_VALUE)),
+                        500, 3_000, 30_000));
+
+        List<String> exceeded = new ArrayList<>();
+        for (Probe probe : probes) {
+            long median = medianMillis(probe.request());
+            System.out.printf("%,9d tracks  %-20s %6d ms (bound %d ms)%n", tracks, probe.name(), median, probe.bound(tracks));
+            if (median > probe.bound(tracks)) {
+                exceeded.add(probe.name() + ": " + median + " ms > " + probe.bound(tracks) + " ms");
+            }
+        }
+        assertThat(exceeded).as("probes over their bound at %d tracks", tracks).isEmpty();
+    }
+
+    private long medianMillis(RequestBuilder request) throws Exception {
+        for (int i = 0; i < WARMUP; i++) {
+            mockMvc.perform(request).andExpect(status().isOk());
+        }
+        long[] samples = new long[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            long start = System.nanoTime();
+            mockMvc.perform(request).andExpect(status().isOk());
+            samples[i] = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        }
+        Arrays.sort(samples);
+        return samples[SAMPLES / 2];
+    }
+}
@@ -0,0 +1,144 @@
+package com.kyojin.mosiqa.service;
+
+import com.kyojin.mosiqa.dto.RestoreResultDTO;
+import com.kyojin.mosiqa.exception.InvalidRequestException;
+import com.kyojin.mosiqa.service.impl.BackupServiceImpl;
+import com.kyojin.mosiqa.service.impl.BlobStoreServiceImpl;
+import com.kyojin.mosiqa.service.impl.BlobTierServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.transaction.PlatformTransactionManager;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.util.UUID;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("BackupService Tests")
+class BackupServiceImplTest {
+
+    private static final String MANIFEST = "{\"format\":2,\"tracks\":0,\"audioFiles\":1,\"coverImages\":0}";
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private BlobStoreServiceImpl blobStore;
+
+    @Mock
+    private BlobTierServiceImpl blobTiers;
+
+    private BackupServiceImpl backupService;
+
+    @BeforeEach
+    void setUp() {
+        backupService = new BackupServiceImpl(jdbcTemplate, transactionManager, JsonMapper.builder().build(), blobStore, blobTiers, 2);
+    }
+
+    @Test
+    @DisplayName("should reject archives that do not start with a manifest")
+    void shouldRejectArchiveWithoutManifest() throws Exception {
+        byte[] archive = zip("tracks.ndjson", "{}");
+
+        assertThatThrownBy(() -> backupService.restore(new ByteArrayInputStream(archive)))
+                .isInstanceOf(InvalidRequestException.class)
+                .hasMessageContaining("manifest.json");
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    @DisplayName("should reject archives written by an unknown format version")
+    void shouldRejectUnknownFormat() throws Exception {
+        byte[] archive = zip("manifest.json", "{\"format\":99,\"tracks\":0,\"audioFiles\":0,\"coverImages\":0}");
+
+        assertThatThrownBy(() -> backupService.restore(new ByteArrayInputStream(archive)))
+                .isInstanceOf(InvalidRequestException.class)
+                .hasMessageContaining("Unsupported backup format");
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    @DisplayName("should reject archives cut off before the track metadata")
+    void shouldRejectTruncatedArchive() throws Exception {
+        byte[] archive = zip("manifest.json", "{\"format\":1,\"tracks\":0,\"audioFiles\":0,\"coverImages\":0}");
+
+        assertThatThrownBy(() -> backupService.restore(new ByteArrayInputStream(archive)))
+                .isInstanceOf(InvalidRequestException.class)
+                .hasMessageContaining("truncated");
+    }
+
+    @Test
+    @DisplayName("should match blob entries to their metadata in archive order and skip rows without an entry")
+    void shouldRestoreBlobsInArchiveOrder() throws Exception {
+        UUID gone = UUID.fromString("01900000-0000-7000-8000-000000000001");
+        UUID kept = UUID.fromString("01900000-0000-7000-8000-000000000002");
+        byte[] archive = zip(
+                "manifest.json", MANIFEST,
+                "audio_files.ndjson", blobRow(gone) + "\n" + blobRow(kept) + "\n",
+                "cover_images.ndjson", "",
+                "audio/" + kept, "audio",
+                "tracks.ndjson", "");
+
+        RestoreResultDTO result = backupService.restore(new ByteArrayInputStream(archive));
+
+        assertThat(result.getAudioFiles()).isEqualTo(1);
+        ArgumentCaptor<PreparedStatementSetter> insert = ArgumentCaptor.forClass(PreparedStatementSetter.class);
+        verify(jdbcTemplate).update(startsWith("MERGE INTO audio_files"), insert.capture());
+        PreparedStatement statement = mock(PreparedStatement.class);
+        insert.getValue().setValues(statement);
+        verify(statement).setObject(1, kept);
+    }
+
+    @Test
+    @DisplayName("should reject blob entries whose metadata is missing")
+    void shouldRejectBlobWithoutMetadata() throws Exception {
+        UUID id = UUID.fromString("01900000-0000-7000-8000-000000000001");
+        byte[] archive = zip(
+                "manifest.json", MANIFEST,
+                "audio_files.ndjson", "",
+                "audio/" + id, "audio");
+
+        assertThatThrownBy(() -> backupService.restore(new ByteArrayInputStream(archive)))
+                .isInstanceOf(InvalidRequestException.class)
+                .hasMessageContaining("without metadata");
+    }
+
+    private static String blobRow(UUID id) {
+        return "{\"id\":\"" + id + "\",\"name\":\"track.mp3\",\"size\":5,\"mimeType\":\"audio/mpeg\","
+                + "\"encoding\":\"RAW\",\"createdAt\":\"2026-01-01T00:00:00\"}";
+    }
+
+    private static byte[] zip(String... entries) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(out)) {
+            for (int i = 0; i < entries.length; i += 2) {
+                zip.putNextEntry(new ZipEntry(entries[i]));
+                zip.write(entries[i + 1].getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,108 @@
+package com.kyojin.mosiqa.service;
+
+import com.kyojin.mosiqa.dto.TrackDTO;
+import com.kyojin.mosiqa.dto.TrackPageDTO;
+import com.kyojin.mosiqa.dto.TrackQuery;
+import com.kyojin.mosiqa.dto.TrackSortKey;
+import com.kyojin.mosiqa.entity.MusicCategory;
+import com.kyojin.mosiqa.entity.Track;
+import com.kyojin.mosiqa.entity.UuidV7;
+import com.kyojin.mosiqa.repository.TrackRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Walks {@code nextCursor} through every page of {@code queryTracks} on H2, for every sort key in both
+ * directions, over a catalog with tied sort values and tracks without a duration.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("TrackService keyset paging")
+class TrackQueryPagingTest {
+
+    private static final int PAGE_SIZE = 4;
+
+    @Autowired
+    private TrackService trackService;
+
+    @Autowired
+    private TrackRepository trackRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private List<Track> tracks;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM tracks");
+        Double[] durations = {null, 180.0, 95.5, null, 180.0, 0.0, 240.25, null, 95.5, 12.0, 180.0, 300.0, null, 61.0};
+        String[] titles = {"Echo", "alpha", "Alpha", "beta", "Echo", "delta", "Gamma", "beta", "zeta", "Omega", "alpha", "Kappa", "mu", "Nu"};
+        List<Track> saved = new ArrayList<>();
+        for (int i = 0; i < durations.length; i++) {
+            saved.add(Track.builder()
+                    .title(titles[i])
+                    .artist("Artist " + (i % 3))
+                    .category(MusicCategory.JAZZ)
+                    .duration(durations[i])
+                    .audioFileId(UuidV7.next())
+                    .build());
+        }
+        tracks = trackRepository.saveAll(saved);
+    }
+
+    @ParameterizedTest
+    @EnumSource(TrackSortKey.class)
+    @DisplayName("should return every track exactly once, in order, when following cursors")
+    void shouldPageThroughAllTracks(TrackSortKey sort) {
+        for (Sort.Direction direction : Sort.Direction.values()) {
+            List<UUID> expected = tracks.stream()
+                    .sorted(order(sort, direction))
+                    .map(Track::getId)
+                    .toList();
+
+            List<UUID> paged = new ArrayList<>();
+            String cursor = null;
+            int pages = 0;
+            do {
+                TrackPageDTO page = trackService.queryTracks(TrackQuery.builder()
+                        .sort(sort)
+                        .direction(direction)
+                        .limit(PAGE_SIZE)
+                        .cursor(cursor)
+                        .build());
+                page.getItems().stream().map(TrackDTO::getId).map(UUID::fromString).forEach(paged::add);
+                cursor = page.getNextCursor();
+                assertThat(++pages).as("%s %s pages", sort, direction).isLessThanOrEqualTo(tracks.size());
+            } while (cursor != null);
+
+            assertThat(paged).as("%s %s", sort, direction).containsExactlyElementsOf(expected);
+        }
+    }
+
+    private static Comparator<Track> order(TrackSortKey sort, Sort.Direction direction) {
+        Comparator<Track> byKey = switch (sort) {
+            case CREATED_AT -> (first, second) -> 0;
+            case TITLE -> Comparator.comparing(track -> track.getTitle().toLowerCase(Locale.ROOT));
+            case ARTIST -> Comparator.comparing(track -> track.getArtist().toLowerCase(Locale.ROOT));
+            case DURATION -> Comparator.comparing(Track::getDuration, Comparator.nullsFirst(Comparator.naturalOrder()));
+        };
+        Comparator<Track> order = byKey.thenComparing(Track::getId);
+        return direction.isAscending() ? order : order.reversed();
+    }
+}
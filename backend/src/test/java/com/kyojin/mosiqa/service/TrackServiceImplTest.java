@@ -1,16 +1,24 @@
 package com.kyojin.mosiqa.service;
 
+import com.kyojin.mosiqa.dto.TrackBatchItemResult;
+import com.kyojin.mosiqa.dto.TrackBatchResultDTO;
+import com.kyojin.mosiqa.dto.TrackBatchUpdateRequest;
 import com.kyojin.mosiqa.dto.TrackCreateRequest;
 import com.kyojin.mosiqa.dto.TrackDTO;
+import com.kyojin.mosiqa.dto.TrackFieldSet;
+import com.kyojin.mosiqa.dto.TrackQuery;
 import com.kyojin.mosiqa.dto.TrackUpdateRequest;
 import com.kyojin.mosiqa.entity.AudioFile;
 import com.kyojin.mosiqa.entity.CoverImage;
 import com.kyojin.mosiqa.entity.MusicCategory;
 import com.kyojin.mosiqa.entity.Track;
+import com.kyojin.mosiqa.exception.InvalidRequestException;
 import com.kyojin.mosiqa.exception.ResourceNotFoundException;
 import com.kyojin.mosiqa.mapper.TrackMapper;
 import com.kyojin.mosiqa.repository.TrackRepository;
+import com.kyojin.mosiqa.repository.TrackSummary;
 import com.kyojin.mosiqa.service.impl.TrackServiceImpl;
+import jakarta.validation.Validator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -24,8 +32,12 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -37,6 +49,13 @@ import static org.mockito.Mockito.*;
 @DisplayName("TrackService Tests")
 class TrackServiceImplTest {
 
+    private static final UUID TRACK_ID = UUID.fromString("01900000-0000-7000-8000-000000000001");
+    private static final UUID TRACK_2_ID = UUID.fromString("01900000-0000-7000-8000-000000000002");
+    private static final UUID AUDIO_ID = UUID.fromString("01900000-0000-7000-8000-0000000000a1");
+    private static final UUID COVER_ID = UUID.fromString("01900000-0000-7000-8000-0000000000c1");
+    private static final UUID COVER_2_ID = UUID.fromString("01900000-0000-7000-8000-0000000000c2");
+    private static final UUID MISSING_ID = UUID.fromString("01900000-0000-7000-8000-0000000000ff");
+
     @Mock
     private TrackRepository trackRepository;
 
@@ -46,6 +65,9 @@ class TrackServiceImplTest {
     @Mock
     private FileStorageService fileStorageService;
 
+    @Mock
+    private Validator validator;
+
     @InjectMocks
     private TrackServiceImpl trackService;
 
@@ -57,33 +79,33 @@ class TrackServiceImplTest {
     @BeforeEach
     void setUp() {
         sampleTrack = Track.builder()
-                .id("track-1")
+                .id(TRACK_ID)
                 .title("Test Song")
                 .artist("Test Artist")
                 .description("Test Description")
                 .category(MusicCategory.POP)
                 .duration(180.0)
-                .audioFileId("audio-1")
-                .coverImageId("cover-1")
+                .audioFileId(AUDIO_ID)
+                .coverImageId(COVER_ID)
                 .createdAt(LocalDateTime.now())
                 .updatedAt(LocalDateTime.now())
                 .build();
 
         sampleTrackDTO = TrackDTO.builder()
-                .id("track-1")
+                .id(TRACK_ID.toString())
                 .title("Test Song")
                 .artist("Test Artist")
                 .description("Test Description")
                 .category(MusicCategory.POP)
                 .duration(180.0)
-                .audioFileId("audio-1")
-                .coverImageId("cover-1")
+                .audioFileId(AUDIO_ID.toString())
+                .coverImageId(COVER_ID.toString())
                 .createdAt(LocalDateTime.now())
                 .updatedAt(LocalDateTime.now())
                 .build();
 
         sampleAudioFile = AudioFile.builder()
-                .id("audio-1")
+                .id(AUDIO_ID)
                 .name("test.mp3")
                 .size(1024L)
                 .mimeType("audio/mpeg")
@@ -104,9 +126,9 @@ class TrackServiceImplTest {
         @Test
         @DisplayName("should return all tracks ordered by creation date")
         void shouldReturnAllTracks() {
-            Track track2 = Track.builder().id("track-2").title("Song 2").build();
+            Track track2 = Track.builder().id(TRACK_2_ID).title("Song 2").build();
             List<Track> tracks = Arrays.asList(sampleTrack, track2);
-            List<TrackDTO> trackDTOs = Arrays.asList(sampleTrackDTO, TrackDTO.builder().id("track-2").build());
+            List<TrackDTO> trackDTOs = Arrays.asList(sampleTrackDTO, TrackDTO.builder().id(TRACK_2_ID.toString()).build());
 
             when(trackRepository.findAllByOrderByCreatedAtDesc()).thenReturn(tracks);
             when(trackMapper.toDTOList(tracks)).thenReturn(trackDTOs);
@@ -129,6 +151,42 @@ class TrackServiceImplTest {
         }
     }
 
+    @Nested
+    @DisplayName("getAllTracks with fields")
+    class GetAllTracksSparse {
+
+        @Test
+        @DisplayName("should use the summary projection for grid fields")
+        void shouldUseSummaryProjection() {
+            TrackSummary summary = mock(TrackSummary.class);
+            List<TrackSummary> summaries = List.of(summary);
+
+            when(trackRepository.findSummariesByOrderByCreatedAtDesc()).thenReturn(summaries);
+            when(trackMapper.summariesToDTOList(summaries)).thenReturn(List.of(sampleTrackDTO));
+
+            List<Map<String, Object>> result = trackService.getAllTracks(TrackFieldSet.parse("title,artist,coverImageId"));
+
+            assertThat(result).hasSize(1);
+            assertThat(result.get(0)).containsOnlyKeys("title", "artist", "coverImageId");
+            assertThat(result.get(0)).containsEntry("title", "Test Song");
+            verify(trackRepository, never()).findAllByOrderByCreatedAtDesc();
+        }
+
+        @Test
+        @DisplayName("should load full tracks when description is requested")
+        void shouldLoadFullTracksForDescription() {
+            List<Track> tracks = List.of(sampleTrack);
+
+            when(trackRepository.findAllByOrderByCreatedAtDesc()).thenReturn(tracks);
+            when(trackMapper.toDTOList(tracks)).thenReturn(List.of(sampleTrackDTO));
+
+            List<Map<String, Object>> result = trackService.getAllTracks(TrackFieldSet.parse("id,description"));
+
+            assertThat(result.get(0)).containsEntry("description", "Test Description");
+            verify(trackRepository, never()).findSummariesByOrderByCreatedAtDesc();
+        }
+    }
+
     @Nested
     @DisplayName("getTrackById")
     class GetTrackById {
@@ -136,21 +194,21 @@ class TrackServiceImplTest {
         @Test
         @DisplayName("should return track when found")
         void shouldReturnTrackWhenFound() {
-            when(trackRepository.findById("track-1")).thenReturn(Optional.of(sampleTrack));
+            when(trackRepository.findById(TRACK_ID)).thenReturn(Optional.of(sampleTrack));
             when(trackMapper.toDTO(sampleTrack)).thenReturn(sampleTrackDTO);
 
-            TrackDTO result = trackService.getTrackById("track-1");
+            TrackDTO result = trackService.getTrackById(TRACK_ID);
 
-            assertThat(result.getId()).isEqualTo("track-1");
+            assertThat(result.getId()).isEqualTo(TRACK_ID.toString());
             assertThat(result.getTitle()).isEqualTo("Test Song");
         }
 
         @Test
         @DisplayName("should throw ResourceNotFoundException when track not found")
         void shouldThrowWhenNotFound() {
-            when(trackRepository.findById("non-existent")).thenReturn(Optional.empty());
+            when(trackRepository.findById(MISSING_ID)).thenReturn(Optional.empty());
 
-            assertThatThrownBy(() -> trackService.getTrackById("non-existent"))
+            assertThatThrownBy(() -> trackService.getTrackById(MISSING_ID))
                     .isInstanceOf(ResourceNotFoundException.class)
                     .hasMessageContaining("Track not found");
         }
@@ -207,7 +265,7 @@ class TrackServiceImplTest {
                     "test image content".getBytes()
             );
 
-            CoverImage savedCover = CoverImage.builder().id("cover-2").build();
+            CoverImage savedCover = CoverImage.builder().id(COVER_2_ID).build();
 
             Track newTrack = Track.builder()
                     .title("New Song")
@@ -234,27 +292,116 @@ class TrackServiceImplTest {
     class DeleteTrack {
 
         @Test
-        @DisplayName("should delete track and associated files")
-        void shouldDeleteTrackAndFiles() {
-            when(trackRepository.findById("track-1")).thenReturn(Optional.of(sampleTrack));
+        @DisplayName("should tombstone the track and leave the files to the purge worker")
+        void shouldTombstoneTrack() {
+            when(trackRepository.markDeleted(eq(List.of(TRACK_ID)), any(LocalDateTime.class))).thenReturn(1);
 
-            trackService.deleteTrack("track-1");
+            trackService.deleteTrack(TRACK_ID);
 
-            verify(fileStorageService).deleteAudioFile("audio-1");
-            verify(fileStorageService).deleteCoverImage("cover-1");
-            verify(trackRepository).delete(sampleTrack);
+            verify(trackRepository, never()).delete(any());
+            verify(fileStorageService, never()).deleteAudioFile(any());
+            verify(fileStorageService, never()).deleteCoverImage(any());
         }
 
         @Test
         @DisplayName("should throw ResourceNotFoundException when track not found")
         void shouldThrowWhenNotFound() {
-            when(trackRepository.findById("non-existent")).thenReturn(Optional.empty());
+            when(trackRepository.markDeleted(eq(List.of(MISSING_ID)), any(LocalDateTime.class))).thenReturn(0);
 
-            assertThatThrownBy(() -> trackService.deleteTrack("non-existent"))
+            assertThatThrownBy(() -> trackService.deleteTrack(MISSING_ID))
                     .isInstanceOf(ResourceNotFoundException.class);
         }
     }
 
+    @Nested
+    @DisplayName("createTracks")
+    class CreateTracks {
+
+        @Test
+        @DisplayName("should reject multipart batches above the upload limit before reading any part")
+        void shouldRejectOversizedUploadBatch() {
+            List<TrackCreateRequest> requests = Collections.nCopies(51, TrackCreateRequest.builder().build());
+            List<MultipartFile> audioFiles = Collections.nCopies(51, mockAudioFile);
+
+            assertThatThrownBy(() -> trackService.createTracks(requests, audioFiles, null))
+                    .isInstanceOf(InvalidRequestException.class)
+                    .hasMessageContaining("more than 50 items");
+            verifyNoInteractions(fileStorageService, trackRepository);
+        }
+    }
+
+    @Nested
+    @DisplayName("updateTracks")
+    class UpdateTracks {
+
+        @Test
+        @DisplayName("should load all tracks in one query and report missing ones")
+        void shouldUpdateFoundTracksAndReportMissing() {
+            TrackUpdateRequest metadata = TrackUpdateRequest.builder().title("Renamed").build();
+            List<TrackBatchUpdateRequest> requests = List.of(
+                    TrackBatchUpdateRequest.builder().id(TRACK_ID).metadata(metadata).build(),
+                    TrackBatchUpdateRequest.builder().id(MISSING_ID).metadata(metadata).build());
+
+            when(trackRepository.findAllById(List.of(TRACK_ID, MISSING_ID))).thenReturn(List.of(sampleTrack));
+            when(trackMapper.toDTO(sampleTrack)).thenReturn(sampleTrackDTO);
+
+            TrackBatchResultDTO result = trackService.updateTracks(requests);
+
+            assertThat(result.getSucceeded()).isEqualTo(1);
+            assertThat(result.getFailed()).isEqualTo(1);
+            assertThat(result.getResults()).extracting(TrackBatchItemResult::getStatus)
+                    .containsExactly(TrackBatchItemResult.Status.UPDATED, TrackBatchItemResult.Status.NOT_FOUND);
+            verify(trackMapper).updateEntityFromRequest(metadata, sampleTrack);
+            verify(trackRepository).flush();
+            verify(trackRepository, never()).findById(any());
+        }
+
+        @Test
+        @DisplayName("should answer null items as invalid and still update the others")
+        void shouldReportNullItemsAsInvalid() {
+            TrackUpdateRequest metadata = TrackUpdateRequest.builder().title("Renamed").build();
+            List<TrackBatchUpdateRequest> requests = Arrays.asList(
+                    null, TrackBatchUpdateRequest.builder().id(TRACK_ID).metadata(metadata).build());
+
+            when(trackRepository.findAllById(List.of(TRACK_ID))).thenReturn(List.of(sampleTrack));
+            when(trackMapper.toDTO(sampleTrack)).thenReturn(sampleTrackDTO);
+
+            TrackBatchResultDTO result = trackService.updateTracks(requests);
+
+            assertThat(result.getResults()).extracting(TrackBatchItemResult::getStatus)
+                    .containsExactly(TrackBatchItemResult.Status.INVALID, TrackBatchItemResult.Status.UPDATED);
+            assertThat(result.getResults().get(0).getMessage()).isEqualTo("Item is required");
+        }
+
+        @Test
+        @DisplayName("should reject empty batches")
+        void shouldRejectEmptyBatch() {
+            assertThatThrownBy(() -> trackService.updateTracks(List.of()))
+                    .isInstanceOf(InvalidRequestException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("deleteTracks")
+    class DeleteTracks {
+
+        @Test
+        @DisplayName("should tombstone found tracks with one bulk statement")
+        void shouldDeleteWithBulkStatements() {
+            TrackSummary summary = mock(TrackSummary.class);
+            when(summary.getId()).thenReturn(TRACK_ID);
+            when(trackRepository.findSummariesByIdIn(List.of(TRACK_ID, MISSING_ID))).thenReturn(List.of(summary));
+
+            TrackBatchResultDTO result = trackService.deleteTracks(List.of(TRACK_ID, MISSING_ID));
+
+            assertThat(result.getResults()).extracting(TrackBatchItemResult::getStatus)
+                    .containsExactly(TrackBatchItemResult.Status.DELETED, TrackBatchItemResult.Status.NOT_FOUND);
+            verify(trackRepository).markDeleted(eq(Set.of(TRACK_ID)), any(LocalDateTime.class));
+            verify(trackRepository, never()).findById(any());
+            verify(fileStorageService, never()).deleteAudioFiles(any());
+        }
+    }
+
     @Nested
     @DisplayName("searchTracks")
     class SearchTracks {
@@ -288,4 +435,38 @@ class TrackServiceImplTest {
             verify(trackRepository).findAllByOrderByCreatedAtDesc();
         }
     }
+
+    @Nested
+    @DisplayName("queryTracks")
+    class QueryTracks {
+
+        @Test
+        @DisplayName("should reject limits above the maximum page size")
+        void shouldRejectOversizedLimit() {
+            TrackQuery query = TrackQuery.builder().limit(10_000).build();
+
+            assertThatThrownBy(() -> trackService.queryTracks(query))
+                    .isInstanceOf(InvalidRequestException.class);
+            verifyNoInteractions(trackRepository);
+        }
+
+        @Test
+        @DisplayName("should reject an inverted duration range")
+        void shouldRejectInvertedDurationRange() {
+            TrackQuery query = TrackQuery.builder().minDuration(300.0).maxDuration(60.0).build();
+
+            assertThatThrownBy(() -> trackService.queryTracks(query))
+                    .isInstanceOf(InvalidRequestException.class)
+                    .hasMessageContaining("minDuration");
+        }
+
+        @Test
+        @DisplayName("should reject cursors issued for another sort order")
+        void shouldRejectForeignCursor() {
+            TrackQuery query = TrackQuery.builder().cursor("not-a-cursor").build();
+
+            assertThatThrownBy(() -> trackService.queryTracks(query))
+                    .isInstanceOf(InvalidRequestException.class);
+        }
+    }
 }
@@ -0,0 +1,211 @@
+package com.kyojin.mosiqa.service.impl;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+@DisplayName("AudioProbe Tests")
+class AudioProbeTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("should read duration and INFO tags from a WAV file")
+    void shouldProbeWav() throws Exception {
+        int byteRate = 44100 * 2 * 2;
+        byte[] info = infoChunk("INAM", "Wave Song", "IART", "Wave Artist");
+        ByteBuffer wav = ByteBuffer.allocate(12 + 24 + info.length + 8 + byteRate * 2).order(ByteOrder.LITTLE_ENDIAN);
+        wav.put("RIFF".getBytes(StandardCharsets.US_ASCII)).putInt(wav.capacity() - 8).put("WAVE".getBytes(StandardCharsets.US_ASCII));
+        wav.put("fmt ".getBytes(StandardCharsets.US_ASCII)).putInt(16)
+                .putShort((short) 1).putShort((short) 2).putInt(44100).putInt(byteRate).putShort((short) 4).putShort((short) 16);
+        wav.put(info);
+        wav.put("data".getBytes(StandardCharsets.US_ASCII)).putInt(byteRate * 2);
+
+        AudioProbe.Result result = AudioProbe.probe(write("song.wav", wav.array()), "audio/wav");
+
+        assertThat(result.duration()).isCloseTo(2.0, within(0.001));
+        assertThat(result.title()).isEqualTo("Wave Song");
+        assertThat(result.artist()).isEqualTo("Wave Artist");
+    }
+
+    @Test
+    @DisplayName("should read ID3v2 tags, cover art and CBR duration from an MP3 file")
+    void shouldProbeMp3() throws Exception {
+        ByteArrayOutputStream frames = new ByteArrayOutputStream();
+        frames.write(textFrame("TIT2", "Tagged Song"));
+        frames.write(textFrame("TPE1", "Tagged Artist"));
+        byte[] picture = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0, 1, 2, 3};
+        frames.write(apicFrame("image/jpeg", picture));
+        byte[] tagBody = frames.toByteArray();
+
+        // 128 kbps, 44.1 kHz, MPEG-1 Layer III: 16 000 bytes of audio per second
+        int audioBytes = 16_000 * 3;
+        ByteBuffer mp3 = ByteBuffer.allocate(10 + tagBody.length + audioBytes);
+        mp3.put("ID3".getBytes(StandardCharsets.US_ASCII)).put((byte) 3).put((byte) 0).put((byte) 0);
+        mp3.put(syncSafe(tagBody.length)).put(tagBody);
+        mp3.putInt(0xFFFB9000);
+
+        AudioProbe.Result result = AudioProbe.probe(write("song.mp3", mp3.array()), "audio/mpeg");
+
+        assertThat(result.title()).isEqualTo("Tagged Song");
+        assertThat(result.artist()).isEqualTo("Tagged Artist");
+        assertThat(result.coverMimeType()).isEqualTo("image/jpeg");
+        assertThat(result.cover()).isEqualTo(picture);
+        assertThat(result.duration()).isCloseTo(3.0, within(0.01));
+    }
+
+    @Test
+    @DisplayName("should read Vorbis comments spread over several pages and the duration from an Ogg file")
+    void shouldProbeOgg() throws Exception {
+        ByteBuffer identification = ByteBuffer.allocate(30).order(ByteOrder.LITTLE_ENDIAN);
+        identification.put((byte) 1).put("vorbis".getBytes(StandardCharsets.US_ASCII))
+                .putInt(0).put((byte) 2).putInt(44100).putInt(0).putInt(128000).putInt(0).put((byte) 0xB8).put((byte) 1);
+        // A long vendor string pushes the comments past a page boundary
+        byte[] comments = vorbisComments("x".repeat(600), "title=Night Drive", "ARTIST=Dana", "ALBUM=Roads");
+
+        ByteArrayOutputStream ogg = new ByteArrayOutputStream();
+        ogg.writeBytes(oggPage(0, identification.array(), true));
+        ogg.writeBytes(oggPage(0, Arrays.copyOfRange(comments, 0, 510), false));
+        ogg.writeBytes(oggPage(0, Arrays.copyOfRange(comments, 510, comments.length), true));
+        ogg.writeBytes(oggPage(44100L * 3, new byte[]{0}, true));
+
+        AudioProbe.Result result = AudioProbe.probe(write("song.ogg", ogg.toByteArray()), "audio/ogg");
+
+        assertThat(result.title()).isEqualTo("Night Drive");
+        assertThat(result.artist()).isEqualTo("Dana");
+        assertThat(result.duration()).isCloseTo(3.0, within(0.001));
+        assertThat(result.cover()).isNull();
+    }
+
+    @Test
+    @DisplayName("should read the leading Vorbis comments when embedded artwork runs past the scan window")
+    void shouldProbeOggWithOversizedComments() throws Exception {
+        ByteBuffer identification = ByteBuffer.allocate(30).order(ByteOrder.LITTLE_ENDIAN);
+        identification.put((byte) 1).put("vorbis".getBytes(StandardCharsets.US_ASCII))
+                .putInt(0).put((byte) 2).putInt(44100).putInt(0).putInt(128000).putInt(0).put((byte) 0xB8).put((byte) 1);
+        byte[] comments = vorbisComments("vendor", "TITLE=Cover Story", "ARTIST=Dana",
+                "METADATA_BLOCK_PICTURE=" + "A".repeat(150_000));
+        // Full pages of 255 segments; the second one starts inside the scan window and ends past it
+        int fullPage = 255 * 255;
+
+        ByteArrayOutputStream ogg = new ByteArrayOutputStream();
+        ogg.writeBytes(oggPage(0, identification.array(), true));
+        ogg.writeBytes(oggPage(0, Arrays.copyOfRange(comments, 0, 510), false));
+        ogg.writeBytes(oggPage(0, Arrays.copyOfRange(comments, 510, 510 + fullPage), false));
+        ogg.writeBytes(oggPage(0, Arrays.copyOfRange(comments, 510 + fullPage, 510 + 2 * fullPage), false));
+        ogg.writeBytes(oggPage(0, Arrays.copyOfRange(comments, 510 + 2 * fullPage, comments.length), true));
+        ogg.writeBytes(oggPage(44100L * 2, new byte[]{0}, true));
+
+        AudioProbe.Result result = AudioProbe.probe(write("art.ogg", ogg.toByteArray()), "audio/ogg");
+
+        assertThat(result.title()).isEqualTo("Cover Story");
+        assertThat(result.artist()).isEqualTo("Dana");
+        assertThat(result.duration()).isCloseTo(2.0, within(0.001));
+    }
+
+    @Test
+    @DisplayName("should leave fields empty for unrecognised content")
+    void shouldTolerateGarbage() throws Exception {
+        AudioProbe.Result result = AudioProbe.probe(write("noise.mp3", new byte[]{1, 2, 3}), "audio/mpeg");
+
+        assertThat(result.title()).isNull();
+        assertThat(result.duration()).isNull();
+    }
+
+    private Path write(String name, byte[] content) throws Exception {
+        return Files.write(tempDir.resolve(name), content);
+    }
+
+    private static byte[] textFrame(String id, String text) {
+        byte[] value = text.getBytes(StandardCharsets.ISO_8859_1);
+        return ByteBuffer.allocate(10 + 1 + value.length)
+                .put(id.getBytes(StandardCharsets.US_ASCII)).putInt(1 + value.length).putShort((short) 0)
+                .put((byte) 0).put(value)
+                .array();
+    }
+
+    private static byte[] apicFrame(String mimeType, byte[] data) {
+        byte[] mime = mimeType.getBytes(StandardCharsets.ISO_8859_1);
+        int size = 1 + mime.length + 1 + 1 + 1 + data.length;
+        return ByteBuffer.allocate(10 + size)
+                .put("APIC".getBytes(StandardCharsets.US_ASCII)).putInt(size).putShort((short) 0)
+                .put((byte) 0).put(mime).put((byte) 0).put((byte) 3).put((byte) 0).put(data)
+                .array();
+    }
+
+    private static byte[] infoChunk(String... pairs) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.writeBytes("INFO".getBytes(StandardCharsets.US_ASCII));
+        for (int i = 0; i < pairs.length; i += 2) {
+            byte[] value = (pairs[i + 1] + "\0").getBytes(StandardCharsets.UTF_8);
+            ByteBuffer header = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN)
+                    .put(pairs[i].getBytes(StandardCharsets.US_ASCII)).putInt(value.length);
+            body.writeBytes(header.array());
+            body.writeBytes(value);
+            if ((value.length & 1) != 0) {
+                body.write(0);
+            }
+        }
+        byte[] content = body.toByteArray();
+        return ByteBuffer.allocate(8 + content.length).order(ByteOrder.LITTLE_ENDIAN)
+                .put("LIST".getBytes(StandardCharsets.US_ASCII)).putInt(content.length).put(content)
+                .array();
+    }
+
+    private static byte[] vorbisComments(String vendor, String... comments) {
+        ByteArrayOutputStream packet = new ByteArrayOutputStream();
+        packet.write(3);
+        packet.writeBytes("vorbis".getBytes(StandardCharsets.US_ASCII));
+        vorbisString(packet, vendor);
+        packet.writeBytes(ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(comments.length).array());
+        for (String comment : comments) {
+            vorbisString(packet, comment);
+        }
+        packet.write(1);
+        return packet.toByteArray();
+    }
+
+    private static void vorbisString(ByteArrayOutputStream out, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeBytes(ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(bytes.length).array());
+        out.writeBytes(bytes);
+    }
+
+    /**
+     * One page carrying {@code data}; unless {@code packetEnds}, {@code data} must be a multiple of 255 bytes
+     * and the packet continues on the next page.
+     */
+    private static byte[] oggPage(long granule, byte[] data, boolean packetEnds) {
+        int full = data.length / 255;
+        int segments = full + (packetEnds ? 1 : 0);
+        ByteBuffer page = ByteBuffer.allocate(27 + segments + data.length).order(ByteOrder.LITTLE_ENDIAN);
+        page.put("OggS".getBytes(StandardCharsets.US_ASCII)).put((byte) 0).put((byte) 0)
+                .putLong(granule).putInt(1).putInt(0).putInt(0).put((byte) segments);
+        for (int i = 0; i < full; i++) {
+            page.put((byte) 255);
+        }
+        if (packetEnds) {
+            page.put((byte) (data.length % 255));
+        }
+        return page.put(data).array();
+    }
+
+    private static byte[] syncSafe(int value) {
+        return new byte[]{
+                (byte) ((value >> 21) & 0x7F), (byte) ((value >> 14) & 0x7F),
+                (byte) ((value >> 7) & 0x7F), (byte) (value & 0x7F)
+        };
+    }
+}
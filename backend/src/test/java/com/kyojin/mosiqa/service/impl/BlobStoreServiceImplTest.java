@@ -0,0 +1,229 @@
+package com.kyojin.mosiqa.service.impl;
+
+import com.kyojin.mosiqa.dto.RebalanceResultDTO;
+import com.kyojin.mosiqa.entity.UuidV7;
+import com.kyojin.mosiqa.service.impl.BlobStoreServiceImpl.Kind;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("BlobStoreService Tests")
+class BlobStoreServiceImplTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @TempDir
+    private Path temp;
+
+    private Path volumeA;
+    private Path volumeB;
+    private Path volumeC;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM cover_images");
+        volumeA = temp.resolve("a");
+        volumeB = temp.resolve("b");
+        volumeC = temp.resolve("c");
+    }
+
+    @Test
+    @DisplayName("should refuse to place blobs when no volumes are configured")
+    void shouldRejectWritesWithoutVolumes() {
+        BlobStoreServiceImpl store = new BlobStoreServiceImpl(jdbcTemplate, List.of());
+        UUID id = UuidV7.next();
+
+        assertThat(store.isEnabled()).isFalse();
+        assertThatThrownBy(() -> store.write(Kind.COVER, id, new byte[]{1})).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> store.read(Kind.COVER, id)).isInstanceOf(NoSuchFileException.class);
+        assertThat(store.find(Kind.COVER, id)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("should spread blobs over the volumes in proportion to their weights")
+    void shouldPlaceByWeight() throws IOException {
+        BlobStoreServiceImpl store = new BlobStoreServiceImpl(jdbcTemplate, List.of(volumeA + "=1", volumeB + "=3"));
+        for (int i = 0; i < 2000; i++) {
+            store.write(Kind.COVER, UuidV7.next(), new byte[]{1});
+        }
+
+        assertThat(files(volumeA) + files(volumeB)).isEqualTo(2000);
+        assertThat(files(volumeB)).isBetween(1300L, 1700L);
+    }
+
+    @Test
+    @DisplayName("should read blobs from their old volume after a volume is added and move only the new volume's share")
+    void shouldMoveOnlyTheNewShare() throws IOException {
+        BlobStoreServiceImpl before = new BlobStoreServiceImpl(jdbcTemplate, List.of(volumeA.toString(), volumeB.toString()));
+        List<UUID> ids = insertCovers(600, false);
+        for (UUID id : ids) {
+            before.write(Kind.COVER, id, id.toString().getBytes());
+        }
+
+        BlobStoreServiceImpl after = new BlobStoreServiceImpl(jdbcTemplate,
+                List.of(volumeA.toString(), volumeB.toString(), volumeC.toString()));
+        for (UUID id : ids) {
+            // Owned by the empty new volume now, still found on the old one
+            assertThat(after.read(Kind.COVER, id)).isEqualTo(id.toString().getBytes());
+        }
+
+        RebalanceResultDTO result = after.rebalance();
+
+        assertThat(result.getFilesScanned()).isEqualTo(600);
+        assertThat(result.getFilesMoved()).isBetween(120L, 280L).isEqualTo(files(volumeC));
+        assertThat(files(volumeA) + files(volumeB) + files(volumeC)).isEqualTo(600);
+        for (UUID id : ids) {
+            assertThat(after.read(Kind.COVER, id)).isEqualTo(id.toString().getBytes());
+        }
+        assertThat(after.rebalance().getFilesMoved()).isZero();
+    }
+
+    @Test
+    @DisplayName("should drop the copy of a blob whose row was deleted while it was being moved")
+    void shouldDropCopiesOfDeletedBlobs() throws IOException {
+        BlobStoreServiceImpl before = new BlobStoreServiceImpl(jdbcTemplate, List.of(volumeA.toString()));
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            UUID id = UuidV7.next();
+            before.write(Kind.COVER, id, new byte[]{1});
+            ids.add(id);
+        }
+
+        // No rows: every blob the new volume takes over looks deleted once its copy is in place
+        BlobStoreServiceImpl after = new BlobStoreServiceImpl(jdbcTemplate, List.of(volumeA.toString(), volumeB.toString()));
+        RebalanceResultDTO result = after.rebalance();
+
+        assertThat(result.getFilesMoved()).isZero();
+        assertThat(files(volumeB)).isZero();
+        assertThat(files(volumeA)).isGreaterThan(0).isLessThan(50);
+    }
+
+    @Test
+    @DisplayName("should migrate blobs still held in the database onto their volumes")
+    void shouldMigrateFromDatabase() throws IOException {
+        List<UUID> ids = insertCovers(45, true);
+        BlobStoreServiceImpl store = new BlobStoreServiceImpl(jdbcTemplate, List.of(volumeA.toString(), volumeB.toString()));
+
+        RebalanceResultDTO result = store.rebalance();
+
+        assertThat(result.getBlobsMigrated()).isEqualTo(45);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM cover_images WHERE data IS NOT NULL", Integer.class))
+                .isZero();
+        for (UUID id : ids) {
+            assertThat(store.read(Kind.COVER, id)).isEqualTo(id.toString().getBytes());
+        }
+    }
+
+    @Test
+    @DisplayName("should delete files only when the surrounding transaction commits")
+    void shouldDeleteAfterCommit() throws IOException {
+        BlobStoreServiceImpl store = new BlobStoreServiceImpl(jdbcTemplate, List.of(volumeA.toString()));
+        UUID kept = UuidV7.next();
+        UUID deleted = UuidV7.next();
+        store.write(Kind.COVER, kept, new byte[]{1});
+        store.write(Kind.COVER, deleted, new byte[]{2});
+
+        transactionTemplate.executeWithoutResult(status -> {
+            store.deleteAfterCommit(Kind.COVER, List.of(kept));
+            status.setRollbackOnly();
+        });
+        transactionTemplate.executeWithoutResult(status -> {
+            store.deleteAfterCommit(Kind.COVER, List.of(deleted));
+            assertThat(store.find(Kind.COVER, deleted)).isPresent();
+        });
+
+        assertThat(store.find(Kind.COVER, kept)).isPresent();
+        assertThat(store.find(Kind.COVER, deleted)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("should delete files written by a transaction that rolls back")
+    void shouldDeleteOnRollback() {
+        BlobStoreServiceImpl store = new BlobStoreServiceImpl(jdbcTemplate, List.of(volumeA.toString()));
+        UUID committed = UuidV7.next();
+        UUID rolledBack = UuidV7.next();
+
+        transactionTemplate.executeWithoutResult(status -> write(store, committed));
+        transactionTemplate.executeWithoutResult(status -> {
+            write(store, rolledBack);
+            status.setRollbackOnly();
+        });
+
+        assertThat(store.find(Kind.COVER, committed)).isPresent();
+        assertThat(store.find(Kind.COVER, rolledBack)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("should clean up temp files left behind by an interrupted write")
+    void shouldDeleteStaleTempFiles() throws IOException {
+        BlobStoreServiceImpl store = new BlobStoreServiceImpl(jdbcTemplate, List.of(volumeA.toString()));
+        Path directory = Files.createDirectories(volumeA.resolve("covers").resolve("ab"));
+        Path stale = Files.write(directory.resolve("crashed.tmp"), new byte[]{1});
+        Path inProgress = Files.write(directory.resolve("writing.tmp"), new byte[]{1});
+        Files.setLastModifiedTime(stale, FileTime.from(Instant.now().minus(Duration.ofHours(2))));
+
+        store.rebalance();
+
+        assertThat(stale).doesNotExist();
+        assertThat(inProgress).exists();
+    }
+
+    private static void write(BlobStoreServiceImpl store, UUID id) {
+        try {
+            store.write(Kind.COVER, id, new byte[]{1});
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        store.deleteOnRollback(Kind.COVER, id);
+    }
+
+    private List<UUID> insertCovers(int count, boolean withData) {
+        List<UUID> ids = new ArrayList<>();
+        List<Object[]> rows = new ArrayList<>();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        for (int i = 0; i < count; i++) {
+            UUID id = UuidV7.next();
+            byte[] data = id.toString().getBytes();
+            ids.add(id);
+            rows.add(new Object[]{id, "cover.png", (long) data.length, "image/png", withData ? data : null, now});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO cover_images (id, name, size, mime_type, data, created_at) "
+                + "VALUES (?, ?, ?, ?, ?, ?)", rows);
+        return ids;
+    }
+
+    private static long files(Path volume) throws IOException {
+        try (Stream<Path> walk = Files.walk(volume.resolve("covers"))) {
+            return walk.filter(Files::isRegularFile).count();
+        }
+    }
+}
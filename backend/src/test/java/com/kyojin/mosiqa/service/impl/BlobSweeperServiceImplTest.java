@@ -0,0 +1,150 @@
+package com.kyojin.mosiqa.service.impl;
+
+import com.kyojin.mosiqa.dto.SweepResultDTO;
+import com.kyojin.mosiqa.entity.UuidV7;
+import com.kyojin.mosiqa.service.impl.BlobStoreServiceImpl.Kind;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("BlobSweeperService Tests")
+class BlobSweeperServiceImplTest {
+
+    private static final Duration GRACE_PERIOD = Duration.ofHours(1);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @TempDir
+    private Path volume;
+
+    @BeforeEach
+    void setUp() {
+        for (String table : List.of("tracks", "audio_files", "cover_images")) {
+            jdbcTemplate.update("DELETE FROM " + table);
+        }
+    }
+
+    @Test
+    @DisplayName("should delete orphans older than the grace period and keep referenced and recent blobs")
+    void shouldDeleteOnlyOldOrphans() {
+        BlobSweeperServiceImpl sweeper = sweeper(new BlobStoreServiceImpl(jdbcTemplate, List.of()), 2, 100);
+        insertAudio(100, true);
+        insertAudio(50, true);
+        insertAudio(25, true);
+        insertCover(10, true);
+        UUID recentAudio = insertAudio(100, false);
+        UUID recentCover = insertCover(10, false);
+        UUID playedAudio = insertAudio(100, true);
+        UUID playedCover = insertCover(10, true);
+        UUID tombstonedAudio = insertAudio(100, true);
+        insertTrack(playedAudio, playedCover, false);
+        // Still referenced until the purge worker removes the track itself
+        insertTrack(tombstonedAudio, null, true);
+
+        SweepResultDTO result = sweeper.sweep();
+
+        assertThat(result.getAudioFilesDeleted()).isEqualTo(3);
+        assertThat(result.getCoverImagesDeleted()).isEqualTo(1);
+        assertThat(result.getBytesFreed()).isEqualTo(185);
+        assertThat(result.isCheckpointed()).isTrue();
+        assertThat(ids("audio_files")).containsExactlyInAnyOrder(recentAudio, playedAudio, tombstonedAudio);
+        assertThat(ids("cover_images")).containsExactlyInAnyOrder(recentCover, playedCover);
+
+        SweepResultDTO again = sweeper.sweep();
+        assertThat(again.getAudioFilesDeleted() + again.getCoverImagesDeleted()).isZero();
+        assertThat(again.isCheckpointed()).isFalse();
+    }
+
+    @Test
+    @DisplayName("should resume from its cursor when a run is cut short by the batch budget")
+    void shouldResumeFromCursor() {
+        BlobSweeperServiceImpl sweeper = sweeper(new BlobStoreServiceImpl(jdbcTemplate, List.of()), 1, 1);
+        List<UUID> orphans = List.of(insertAudio(10, true), insertAudio(10, true), insertAudio(10, true));
+
+        assertThat(sweeper.sweep().getAudioFilesDeleted()).isEqualTo(1);
+        // Sorts before the cursor, so this pass does not see it
+        UUID early = insertAudio(UUID.fromString("00000000-0000-7000-8000-000000000001"), 10, true);
+        for (int run = 0; run < 2; run++) {
+            SweepResultDTO result = sweeper.sweep();
+            assertThat(result.getAudioFilesDeleted()).isEqualTo(1);
+            assertThat(result.getBatches()).isEqualTo(1);
+        }
+        assertThat(ids("audio_files")).containsExactly(early).doesNotContainAnyElementsOf(orphans);
+
+        // The end of the table resets the cursor, and the next pass starts over from the beginning
+        assertThat(sweeper.sweep().getAudioFilesDeleted()).isZero();
+        assertThat(sweeper.sweep().getAudioFilesDeleted()).isEqualTo(1);
+        assertThat(ids("audio_files")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("should delete the volume files of swept blobs and keep those of referenced ones")
+    void shouldDeleteVolumeFiles() throws Exception {
+        BlobStoreServiceImpl blobStore = new BlobStoreServiceImpl(jdbcTemplate, List.of(volume.toString()));
+        BlobSweeperServiceImpl sweeper = sweeper(blobStore, 10, 10);
+        UUID orphan = insertAudio(10, true);
+        UUID played = insertAudio(10, true);
+        insertTrack(played, null, false);
+        blobStore.write(Kind.AUDIO, orphan, new byte[10]);
+        blobStore.write(Kind.AUDIO, played, new byte[10]);
+
+        sweeper.sweep();
+
+        assertThat(blobStore.find(Kind.AUDIO, orphan)).isEmpty();
+        assertThat(blobStore.find(Kind.AUDIO, played)).isPresent();
+    }
+
+    private BlobSweeperServiceImpl sweeper(BlobStoreServiceImpl blobStore, int batchSize, int maxBatchesPerRun) {
+        // A delete rate high enough that pacing never sleeps noticeably
+        return new BlobSweeperServiceImpl(jdbcTemplate, blobStore, GRACE_PERIOD, batchSize, 100_000, maxBatchesPerRun);
+    }
+
+    private UUID insertAudio(int size, boolean old) {
+        return insertAudio(UuidV7.next(), size, old);
+    }
+
+    private UUID insertAudio(UUID id, int size, boolean old) {
+        jdbcTemplate.update("INSERT INTO audio_files (id, name, size, mime_type, encoding, data, created_at) "
+                + "VALUES (?, ?, ?, ?, 'RAW', ?, ?)", id, "track.mp3", size, "audio/mpeg", new byte[size], createdAt(old));
+        return id;
+    }
+
+    private UUID insertCover(int size, boolean old) {
+        UUID id = UuidV7.next();
+        jdbcTemplate.update("INSERT INTO cover_images (id, name, size, mime_type, data, created_at) VALUES (?, ?, ?, ?, ?, ?)",
+                id, "cover.png", size, "image/png", new byte[size], createdAt(old));
+        return id;
+    }
+
+    private void insertTrack(UUID audioFileId, UUID coverImageId, boolean deleted) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update("INSERT INTO tracks (id, title, artist, category, duration, audio_file_id, cover_image_id, "
+                        + "created_at, updated_at, deleted_at) VALUES (?, ?, ?, 'POP', 180, ?, ?, ?, ?, ?)",
+                UuidV7.next(), "Title", "Artist", audioFileId, coverImageId, now, now, deleted ? now : null);
+    }
+
+    private List<UUID> ids(String table) {
+        return jdbcTemplate.queryForList("SELECT id FROM " + table, UUID.class);
+    }
+
+    private static Timestamp createdAt(boolean old) {
+        return Timestamp.valueOf(old ? LocalDateTime.now().minus(GRACE_PERIOD).minusMinutes(5) : LocalDateTime.now());
+    }
+}
@@ -0,0 +1,252 @@
+package com.kyojin.mosiqa.service.impl;
+
+import com.kyojin.mosiqa.dto.TieringResultDTO;
+import com.kyojin.mosiqa.entity.AudioEncoding;
+import com.kyojin.mosiqa.entity.AudioFile;
+import com.kyojin.mosiqa.entity.CoverImage;
+import com.kyojin.mosiqa.entity.UuidV7;
+import com.kyojin.mosiqa.metrics.BlobMetrics;
+import com.kyojin.mosiqa.repository.AudioFileRepository;
+import com.kyojin.mosiqa.repository.CoverImageRepository;
+import com.kyojin.mosiqa.service.impl.BlobStoreServiceImpl.Kind;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("BlobTierService Tests")
+class BlobTierServiceImplTest {
+
+    private static final Timestamp LONG_AGO = Timestamp.valueOf(LocalDateTime.now().minusDays(60));
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private AudioFileRepository audioFileRepository;
+
+    @Autowired
+    private CoverImageRepository coverImageRepository;
+
+    @TempDir
+    private Path temp;
+
+    private BlobTierServiceImpl tiers;
+
+    @BeforeEach
+    void setUp() {
+        for (String table : List.of("tracks", "audio_files", "cover_images", "cold_blobs", "blob_access")) {
+            jdbcTemplate.update("DELETE FROM " + table);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (tiers != null) {
+            tiers.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("should serve demoted blobs from the cold tier and promote them back into the row without volumes")
+    void shouldDemoteAndPromoteWithoutVolumes() throws Exception {
+        BlobStoreServiceImpl store = new BlobStoreServiceImpl(jdbcTemplate, List.of());
+        tiers = tiers(store, DataSize.ofMegabytes(1));
+        FileStorageServiceImpl files = files(store);
+        byte[] cover = compressible(8192);
+        byte[] audio = random(4096, 1);
+        UUID coverId = insertCover(cover, true);
+        UUID audioId = insertAudio(audio, true);
+
+        TieringResultDTO result = tiers.runTiering();
+
+        assertThat(result.getCoverImagesDemoted()).isEqualTo(1);
+        assertThat(result.getAudioFilesDemoted()).isEqualTo(1);
+        assertThat(result.getColdBytesWritten()).isLessThan(result.getBytesDemoted());
+        assertThat(rowData(Kind.COVER, coverId)).isNull();
+        assertThatThrownBy(() -> store.read(Kind.COVER, coverId)).isInstanceOf(NoSuchFileException.class);
+
+        assertThat(files.readCoverImage(CoverImage.builder().id(coverId).build())).isEqualTo(cover);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        files.writeAudio(AudioFile.builder().id(audioId).encoding(AudioEncoding.RAW).build(), 100, 200, out);
+        assertThat(out.toByteArray()).isEqualTo(Arrays.copyOfRange(audio, 100, 200));
+
+        awaitPromoted(coverId);
+        awaitPromoted(audioId);
+        assertThat(rowData(Kind.COVER, coverId)).isEqualTo(cover);
+        assertThat(rowData(Kind.AUDIO, audioId)).isEqualTo(audio);
+    }
+
+    @Test
+    @DisplayName("should move demoted blobs off their volume and write them back there when promoted")
+    void shouldDemoteAndPromoteWithVolumes() throws Exception {
+        BlobStoreServiceImpl store = new BlobStoreServiceImpl(jdbcTemplate, List.of(temp.resolve("volume").toString()));
+        tiers = tiers(store, DataSize.ofMegabytes(1));
+        FileStorageServiceImpl files = files(store);
+        byte[] cover = random(2048, 2);
+        UUID coverId = insertCover(null, true);
+        store.write(Kind.COVER, coverId, cover);
+
+        assertThat(tiers.runTiering().getCoverImagesDemoted()).isEqualTo(1);
+        assertThat(store.find(Kind.COVER, coverId)).isEmpty();
+
+        assertThat(files.readCoverImage(CoverImage.builder().id(coverId).build())).isEqualTo(cover);
+
+        awaitPromoted(coverId);
+        assertThat(store.read(Kind.COVER, coverId)).isEqualTo(cover);
+        assertThat(rowData(Kind.COVER, coverId)).isNull();
+    }
+
+    @Test
+    @DisplayName("should time row reads only for rows holding the bytes, and volume range reads as volume reads")
+    void shouldTimeReadsBySource() throws Exception {
+        BlobStoreServiceImpl store = new BlobStoreServiceImpl(jdbcTemplate, List.of(temp.resolve("volume").toString()));
+        tiers = tiers(store, DataSize.ofMegabytes(1));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        FileStorageServiceImpl files = new FileStorageServiceImpl(audioFileRepository, coverImageRepository, store,
+                tiers, new BlobMetrics(registry));
+        UUID rowCover = insertCover(random(512, 3), false);
+        UUID volumeCover = insertCover(null, false);
+        store.write(Kind.COVER, volumeCover, random(512, 4));
+        byte[] audio = random(4096, 5);
+        UUID audioId = insertAudio(audio, false);
+        jdbcTemplate.update("UPDATE audio_files SET data = NULL WHERE id = ?", audioId);
+        store.write(Kind.AUDIO, audioId, audio);
+
+        assertThat(files.getCoverImage(rowCover)).isPresent();
+        assertThat(files.getCoverImage(volumeCover)).isPresent();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        files.writeAudio(files.getAudioFile(audioId).orElseThrow(), 0, 100, out);
+
+        assertThat(out.toByteArray()).isEqualTo(Arrays.copyOf(audio, 100));
+        assertThat(readCount(registry, "cover", "row")).isEqualTo(1);
+        assertThat(readCount(registry, "audio", "row")).isZero();
+        assertThat(readCount(registry, "audio", "volume")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("should leave recently read and new blobs in the hot tier")
+    void shouldKeepHotBlobs() {
+        tiers = tiers(new BlobStoreServiceImpl(jdbcTemplate, List.of()), DataSize.ofMegabytes(1));
+        UUID fresh = insertCover(random(64, 3), false);
+        UUID played = insertCover(random(64, 4), true);
+        tiers.recordAccess(played);
+
+        assertThat(tiers.runTiering().getCoverImagesDemoted()).isZero();
+        assertThat(rowData(Kind.COVER, fresh)).isNotNull();
+        assertThat(rowData(Kind.COVER, played)).isNotNull();
+    }
+
+    @Test
+    @DisplayName("should compact a sealed pack that is mostly dead space and keep its live entries readable")
+    void shouldCompactDeadPacks() throws Exception {
+        // 80-byte incompressible blobs, two to a 200-byte pack
+        tiers = tiers(new BlobStoreServiceImpl(jdbcTemplate, List.of()), DataSize.ofBytes(200));
+        byte[] kept = random(80, 5);
+        UUID deleted = insertCover(random(80, 6), true);
+        UUID live = insertCover(kept, true);
+        insertCover(random(80, 7), true);
+        assertThat(tiers.runTiering().getCoverImagesDemoted()).isEqualTo(3);
+        assertThat(Files.exists(pack(1))).isTrue();
+
+        jdbcTemplate.update("DELETE FROM cover_images WHERE id = ?", deleted);
+        TieringResultDTO result = tiers.runTiering();
+
+        assertThat(result.getStaleEntriesRemoved()).isEqualTo(1);
+        assertThat(result.getPacksCompacted()).isEqualTo(1);
+        assertThat(Files.exists(pack(1))).isFalse();
+        assertThat(jdbcTemplate.queryForObject("SELECT pack FROM cold_blobs WHERE id = ?", Integer.class, live))
+                .isGreaterThan(1);
+        assertThat(tiers.readCold(live)).isEqualTo(kept);
+    }
+
+    private BlobTierServiceImpl tiers(BlobStoreServiceImpl store, DataSize packSize) {
+        return new BlobTierServiceImpl(jdbcTemplate, transactionTemplate, store, temp.resolve("cold").toString(),
+                packSize, Duration.ofDays(30), 20, 100);
+    }
+
+    private FileStorageServiceImpl files(BlobStoreServiceImpl store) {
+        return new FileStorageServiceImpl(audioFileRepository, coverImageRepository, store, tiers,
+                new BlobMetrics(new SimpleMeterRegistry()));
+    }
+
+    private static long readCount(SimpleMeterRegistry registry, String kind, String source) {
+        return registry.get("mosiqa.blob.read").tag("kind", kind).tag("source", source).timer().count();
+    }
+
+    private UUID insertCover(byte[] data, boolean old) {
+        UUID id = UuidV7.next();
+        jdbcTemplate.update("INSERT INTO cover_images (id, name, size, mime_type, data, created_at) VALUES (?, ?, ?, ?, ?, ?)",
+                id, "cover.png", data != null ? data.length : 0, "image/png", data,
+                old ? LONG_AGO : Timestamp.valueOf(LocalDateTime.now()));
+        return id;
+    }
+
+    private UUID insertAudio(byte[] data, boolean old) {
+        UUID id = UuidV7.next();
+        jdbcTemplate.update("INSERT INTO audio_files (id, name, size, mime_type, encoding, data, created_at) "
+                        + "VALUES (?, ?, ?, ?, 'RAW', ?, ?)",
+                id, "track.mp3", data.length, "audio/mpeg", data,
+                old ? LONG_AGO : Timestamp.valueOf(LocalDateTime.now()));
+        return id;
+    }
+
+    private byte[] rowData(Kind kind, UUID id) {
+        return jdbcTemplate.queryForObject("SELECT data FROM " + kind.table() + " WHERE id = ?",
+                (rs, rowNum) -> rs.getBytes(1), id);
+    }
+
+    private void awaitPromoted(UUID id) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (jdbcTemplate.queryForObject("SELECT COUNT(*) FROM cold_blobs WHERE id = ?", Integer.class, id) > 0) {
+            assertThat(System.nanoTime()).as("promotion of %s", id).isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+
+    private Path pack(int number) {
+        return temp.resolve("cold").resolve(String.format("pack-%06d.mpk", number));
+    }
+
+    private static byte[] compressible(int length) {
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) (i % 16);
+        }
+        return data;
+    }
+
+    private static byte[] random(int length, long seed) {
+        byte[] data = new byte[length];
+        new Random(seed).nextBytes(data);
+        return data;
+    }
+}
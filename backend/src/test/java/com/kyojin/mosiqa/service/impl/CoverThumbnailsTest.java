@@ -0,0 +1,76 @@
+package com.kyojin.mosiqa.service.impl;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("CoverThumbnails Tests")
+class CoverThumbnailsTest {
+
+    @Test
+    @DisplayName("should scale a large cover to fit the requested box, keeping its aspect ratio")
+    void shouldFitLargeCover() throws IOException {
+        byte[] png = image(400, 200, "png");
+
+        CoverThumbnails.Image thumbnail = CoverThumbnails.fit(png, "image/png", 100);
+
+        BufferedImage scaled = ImageIO.read(new ByteArrayInputStream(thumbnail.data()));
+        assertThat(thumbnail.mimeType()).isEqualTo("image/png");
+        assertThat(scaled.getWidth()).isEqualTo(100);
+        assertThat(scaled.getHeight()).isEqualTo(50);
+        assertThat(thumbnail.data().length).isLessThan(png.length);
+    }
+
+    @Test
+    @DisplayName("should return covers that already fit or cannot be decoded unchanged")
+    void shouldKeepCoversItCannotShrink() throws IOException {
+        byte[] small = image(64, 64, "jpg");
+        byte[] garbage = {1, 2, 3, 4};
+
+        assertThat(CoverThumbnails.fit(small, "image/jpeg", 128).data()).isSameAs(small);
+        assertThat(CoverThumbnails.fit(garbage, "image/png", 32).data()).isSameAs(garbage);
+    }
+
+    @Test
+    @DisplayName("should keep scaled covers per size and evict the least recently used past its byte budget")
+    void shouldEvictLeastRecentlyUsed() {
+        CoverThumbnails.Cache cache = new CoverThumbnails.Cache(100);
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        UUID third = UUID.randomUUID();
+
+        cache.put(first, 64, new CoverThumbnails.Image(new byte[40], "image/png"));
+        cache.put(second, 64, new CoverThumbnails.Image(new byte[40], "image/png"));
+        assertThat(cache.get(first, 64)).isNotNull();
+        assertThat(cache.get(first, 128)).isNull();
+        cache.put(third, 64, new CoverThumbnails.Image(new byte[40], "image/png"));
+        cache.put(UUID.randomUUID(), 64, new CoverThumbnails.Image(new byte[101], "image/png"));
+
+        assertThat(cache.get(second, 64)).isNull();
+        assertThat(cache.get(first, 64)).isNotNull();
+        assertThat(cache.get(third, 64)).isNotNull();
+        assertThat(cache.bytes()).isEqualTo(80);
+    }
+
+    private static byte[] image(int width, int height, String format) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setPaint(new GradientPaint(0, 0, Color.ORANGE, width, height, Color.BLUE));
+        graphics.fillRect(0, 0, width, height);
+        graphics.dispose();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, format, out);
+        return out.toByteArray();
+    }
+}
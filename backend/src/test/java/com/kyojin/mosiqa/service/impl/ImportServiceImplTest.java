@@ -0,0 +1,275 @@
+package com.kyojin.mosiqa.service.impl;
+
+import com.kyojin.mosiqa.dto.ImportJobDTO;
+import com.kyojin.mosiqa.dto.ImportRequest;
+import com.kyojin.mosiqa.entity.ImportJob;
+import com.kyojin.mosiqa.entity.ImportJobStatus;
+import com.kyojin.mosiqa.entity.MusicCategory;
+import com.kyojin.mosiqa.exception.InvalidRequestException;
+import com.kyojin.mosiqa.mapper.ImportJobMapper;
+import com.kyojin.mosiqa.repository.ImportJobRepository;
+import com.kyojin.mosiqa.service.impl.TrackImportWriter.PreparedTrack;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("ImportService Tests")
+class ImportServiceImplTest {
+
+    @Autowired
+    private ImportJobRepository importJobRepository;
+
+    @Autowired
+    private ImportJobMapper importJobMapper;
+
+    @Autowired
+    private TrackImportWriter importWriter;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @TempDir
+    private Path root;
+
+    private ImportServiceImpl imports;
+
+    @BeforeEach
+    void setUp() {
+        for (String table : List.of("import_job_items", "import_jobs", "tracks", "audio_files", "cover_images")) {
+            jdbcTemplate.update("DELETE FROM " + table);
+        }
+        // Batches of two, so every source here is written in several batches plus a partial one
+        imports = new ImportServiceImpl(importJobRepository, importJobMapper, importWriter, root.toString(), 2, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        imports.shutdown();
+    }
+
+    @Test
+    @DisplayName("should import the audio files of a directory in batches and record the ones that fail")
+    void shouldImportDirectory() throws Exception {
+        Path album = Files.createDirectories(root.resolve("albums/2024"));
+        Files.write(album.resolve("Alice - One.wav"), wav(0.5));
+        Files.write(album.resolve("Bob - Two.wav"), wav(0.25));
+        Files.write(album.resolve("Three.wav"), wav(0.25));
+        Files.write(album.resolve("Four.ogg"), new byte[]{1, 2, 3});
+        Files.write(album.resolve("broken.mp3"), new byte[0]);
+        Files.writeString(album.resolve("notes.txt"), "not audio");
+
+        ImportJobDTO job = await(imports.startImport(new ImportRequest("albums/2024", MusicCategory.ROCK)));
+
+        assertThat(job.getStatus()).isEqualTo(ImportJobStatus.COMPLETED);
+        assertThat(job.getTotalEntries()).isEqualTo(5);
+        assertThat(job.getImportedEntries()).isEqualTo(4);
+        assertThat(job.getFailedEntries()).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForList("SELECT artist FROM tracks WHERE category = 'ROCK' ORDER BY id", String.class))
+                .containsExactly("Alice", "Bob", "Unknown Artist", "Unknown Artist");
+        assertThat(jdbcTemplate.queryForObject("SELECT duration FROM tracks WHERE title = 'One'", Double.class))
+                .isEqualTo(0.5);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT message FROM import_job_items WHERE entry = 'broken.mp3' AND status = 'FAILED'", String.class))
+                .isEqualTo("File is empty");
+    }
+
+    @Test
+    @DisplayName("should import the audio files of a zip archive under their paths inside it")
+    void shouldImportZip() throws Exception {
+        long tempFiles = tempFiles();
+        try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(root.resolve("upload.zip")))) {
+            addEntry(zip, "a/Carol - Five.wav", wav(0.25));
+            addEntry(zip, "b/Six.mp3", new byte[]{(byte) 0xFF, (byte) 0xFB, 0, 0});
+            addEntry(zip, "b/cover.jpg", new byte[]{1});
+        }
+
+        ImportJobDTO job = await(imports.startImport(new ImportRequest("upload.zip", MusicCategory.JAZZ)));
+
+        assertThat(job.getStatus()).isEqualTo(ImportJobStatus.COMPLETED);
+        assertThat(job.getImportedEntries()).isEqualTo(2);
+        assertThat(jdbcTemplate.queryForList("SELECT entry FROM import_job_items ORDER BY entry", String.class))
+                .containsExactly("a/Carol - Five.wav", "b/Six.mp3");
+        assertThat(tempFiles()).isEqualTo(tempFiles);
+    }
+
+    @Test
+    @DisplayName("should refuse sources outside the import root or missing from it")
+    void shouldRestrictSourcesToRoot() {
+        assertThatThrownBy(() -> imports.startImport(new ImportRequest("albums/../../elsewhere", MusicCategory.POP)))
+                .isInstanceOf(InvalidRequestException.class)
+                .hasMessageContaining("inside the import root");
+        assertThatThrownBy(() -> imports.startImport(new ImportRequest("missing", MusicCategory.POP)))
+                .isInstanceOf(InvalidRequestException.class)
+                .hasMessageContaining("not found");
+        assertThat(importJobRepository.count()).isZero();
+    }
+
+    @Test
+    @DisplayName("should not follow symbolic links out of the import root")
+    void shouldNotFollowLinksOutOfRoot(@TempDir Path outside) throws Exception {
+        Files.write(outside.resolve("Eve - Secret.wav"), wav(0.25));
+        Files.createSymbolicLink(root.resolve("linked"), outside);
+        Path album = Files.createDirectories(root.resolve("album"));
+        Files.write(album.resolve("Dan - Own.wav"), wav(0.25));
+        Files.createSymbolicLink(album.resolve("Eve - Leak.wav"), outside.resolve("Eve - Secret.wav"));
+        Files.createSymbolicLink(album.resolve("more"), outside);
+
+        assertThatThrownBy(() -> imports.startImport(new ImportRequest("linked", MusicCategory.POP)))
+                .isInstanceOf(InvalidRequestException.class)
+                .hasMessageContaining("inside the import root");
+
+        ImportJobDTO job = await(imports.startImport(new ImportRequest("album", MusicCategory.POP)));
+
+        assertThat(job.getTotalEntries()).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForList("SELECT artist FROM tracks", String.class)).containsExactly("Dan");
+    }
+
+    @Test
+    @DisplayName("should retry failed entries on resume without importing the others again")
+    void shouldRetryFailedEntriesOnResume() throws Exception {
+        Path album = Files.createDirectories(root.resolve("album"));
+        Files.write(album.resolve("good.wav"), wav(0.25));
+        Files.write(album.resolve("late.mp3"), new byte[0]);
+        ImportJobDTO first = await(imports.startImport(new ImportRequest("album", MusicCategory.POP)));
+        assertThat(first.getFailedEntries()).isEqualTo(1);
+
+        // The file is fixed after the first run
+        Files.write(album.resolve("late.mp3"), new byte[]{(byte) 0xFF, (byte) 0xFB, 0, 0});
+        ImportJobDTO resumed = await(imports.resumeImport(UUID.fromString(first.getId())));
+
+        assertThat(resumed.getStatus()).isEqualTo(ImportJobStatus.COMPLETED);
+        assertThat(resumed.getImportedEntries()).isEqualTo(2);
+        assertThat(resumed.getFailedEntries()).isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM tracks", Integer.class)).isEqualTo(2);
+        assertThatThrownBy(() -> imports.resumeImport(UUID.fromString(first.getId())))
+                .isInstanceOf(InvalidRequestException.class);
+    }
+
+    @Test
+    @DisplayName("should write a batch to storage volumes with its items and counters in one go")
+    void shouldWriteBatchToVolumes() throws Exception {
+        BlobStoreServiceImpl store = new BlobStoreServiceImpl(jdbcTemplate, List.of(root.resolve("volume").toString()));
+        TrackImportWriter writer = new TrackImportWriter(jdbcTemplate, transactionTemplate, store);
+        UUID jobId = job();
+        Path audio = Files.write(root.resolve("one.mp3"), new byte[]{1, 2, 3, 4});
+
+        writer.write(jobId, MusicCategory.METAL, List.of(
+                new PreparedTrack("one.mp3", audio, null, "one.mp3", "audio/mpeg", 4, "One", "Dana", 1.5,
+                        new byte[]{9, 9}, "image/png", null),
+                new PreparedTrack("two.mp3", null, null, "two.mp3", "audio/mpeg", 0, null, null, null, null, null,
+                        "File is empty")));
+
+        UUID audioId = jdbcTemplate.queryForObject("SELECT audio_file_id FROM tracks WHERE title = 'One'", UUID.class);
+        UUID coverId = jdbcTemplate.queryForObject("SELECT cover_image_id FROM tracks WHERE title = 'One'", UUID.class);
+        assertThat(store.read(BlobStoreServiceImpl.Kind.AUDIO, audioId)).containsExactly(1, 2, 3, 4);
+        assertThat(store.read(BlobStoreServiceImpl.Kind.COVER, coverId)).containsExactly(9, 9);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM audio_files WHERE data IS NULL", Integer.class))
+                .isEqualTo(1);
+        assertThat(jdbcTemplate.queryForList("SELECT status FROM import_job_items ORDER BY entry", String.class))
+                .containsExactly("IMPORTED", "FAILED");
+        ImportJob job = importJobRepository.findById(jobId).orElseThrow();
+        assertThat(job.getImportedEntries()).isEqualTo(1);
+        assertThat(job.getFailedEntries()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("should remove the files a batch already copied when the batch fails")
+    void shouldCleanUpFailedBatch() throws Exception {
+        BlobStoreServiceImpl store = new BlobStoreServiceImpl(jdbcTemplate, List.of(root.resolve("volume").toString()));
+        TrackImportWriter writer = new TrackImportWriter(jdbcTemplate, transactionTemplate, store);
+        UUID jobId = job();
+        Path audio = Files.write(root.resolve("one.mp3"), new byte[]{1, 2, 3, 4});
+
+        assertThatThrownBy(() -> writer.write(jobId, MusicCategory.METAL, List.of(
+                new PreparedTrack("one.mp3", audio, null, "one.mp3", "audio/mpeg", 4, "One", "Dana", 1.5,
+                        null, null, null),
+                new PreparedTrack("gone.mp3", root.resolve("gone.mp3"), null, "gone.mp3", "audio/mpeg", 4, "Gone",
+                        "Dana", 1.5, null, null, null))))
+                .isInstanceOf(UncheckedIOException.class);
+
+        try (Stream<Path> files = Files.walk(root.resolve("volume"))) {
+            assertThat(files.filter(Files::isRegularFile)).isEmpty();
+        }
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM import_job_items", Integer.class)).isZero();
+    }
+
+    private UUID job() {
+        return importJobRepository.save(ImportJob.builder()
+                .source("manual")
+                .category(MusicCategory.METAL)
+                .status(ImportJobStatus.RUNNING)
+                .build()).getId();
+    }
+
+    private ImportJobDTO await(ImportJobDTO started) throws InterruptedException {
+        UUID id = UUID.fromString(started.getId());
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (true) {
+            ImportJobDTO job = imports.getImport(id);
+            // A resumed job still shows its previous outcome until the coordinator picks it up
+            boolean settled = job.getStatus() != ImportJobStatus.PENDING && job.getStatus() != ImportJobStatus.RUNNING
+                    && (started.getFinishedAt() == null || job.getFinishedAt().isAfter(started.getFinishedAt()));
+            if (settled) {
+                return job;
+            }
+            assertThat(System.nanoTime()).as("import %s to finish", id).isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+
+    private static long tempFiles() throws IOException {
+        try (Stream<Path> files = Files.list(Path.of(System.getProperty("java.io.tmpdir")))) {
+            return files.filter(file -> file.getFileName().toString().startsWith("mosiqa-import-")).count();
+        }
+    }
+
+    private static void addEntry(ZipOutputStream zip, String name, byte[] data) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        zip.write(data);
+        zip.closeEntry();
+    }
+
+    /**
+     * A mono 8 kHz 16-bit PCM WAV file of the given length.
+     */
+    private static byte[] wav(double seconds) {
+        int samples = (int) (8000 * seconds);
+        ByteBuffer wav = ByteBuffer.allocate(44 + samples * 2).order(ByteOrder.LITTLE_ENDIAN);
+        wav.put("RIFF".getBytes()).putInt(36 + samples * 2).put("WAVE".getBytes());
+        wav.put("fmt ".getBytes()).putInt(16).putShort((short) 1).putShort((short) 1)
+                .putInt(8000).putInt(16000).putShort((short) 2).putShort((short) 16);
+        wav.put("data".getBytes()).putInt(samples * 2);
+        for (int i = 0; i < samples; i++) {
+            wav.putShort((short) (Math.sin(i * 2 * Math.PI * 440 / 8000) * 8000));
+        }
+        return wav.array();
+    }
+}
@@ -0,0 +1,65 @@
+package com.kyojin.mosiqa.service.impl;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("SingleFlight Tests")
+class SingleFlightTest {
+
+    private final SingleFlight<String, String> flight = new SingleFlight<>();
+
+    @Test
+    @DisplayName("should run one load for concurrent callers and hand all of them its result")
+    void shouldCoalesceConcurrentLoads() throws Exception {
+        int callers = 8;
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit(() -> flight.load("blob", () -> {
+                    loads.incrementAndGet();
+                    release.await();
+                    return "bytes";
+                })));
+            }
+            // Give every caller time to join the in-flight load before it completes
+            Thread.sleep(200);
+            release.countDown();
+
+            for (Future<String> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("bytes");
+            }
+            assertThat(loads).hasValue(1);
+            assertThat(flight.loaded()).isEqualTo(1);
+            assertThat(flight.shared()).isEqualTo(callers - 1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("should not keep results or failures once the load has finished")
+    void shouldForgetFinishedLoads() throws Exception {
+        assertThatThrownBy(() -> flight.load("blob", () -> {
+            throw new IOException("disk gone");
+        })).isInstanceOf(IOException.class).hasMessage("disk gone");
+
+        assertThat(flight.load("blob", () -> "bytes")).isEqualTo("bytes");
+        assertThat(flight.load("blob", () -> "fresh")).isEqualTo("fresh");
+    }
+}
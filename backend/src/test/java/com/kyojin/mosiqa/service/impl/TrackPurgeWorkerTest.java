@@ -0,0 +1,153 @@
+package com.kyojin.mosiqa.service.impl;
+
+import com.kyojin.mosiqa.entity.Track;
+import com.kyojin.mosiqa.entity.UuidV7;
+import com.kyojin.mosiqa.repository.TrackRepository;
+import com.kyojin.mosiqa.service.impl.BlobStoreServiceImpl.Kind;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("TrackPurgeWorker Tests")
+class TrackPurgeWorkerTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private TrackRepository trackRepository;
+
+    @TempDir
+    private Path volume;
+
+    private BlobStoreServiceImpl blobStore;
+    private TrackPurgeWorker worker;
+
+    @BeforeEach
+    void setUp() {
+        for (String table : List.of("tracks", "audio_files", "cover_images")) {
+            jdbcTemplate.update("DELETE FROM " + table);
+        }
+        blobStore = new BlobStoreServiceImpl(jdbcTemplate, List.of(volume.toString()));
+        // Batches of two, so three tombstones take more than one batch
+        worker = new TrackPurgeWorker(jdbcTemplate, transactionTemplate, blobStore, 2, 10);
+    }
+
+    @Test
+    @DisplayName("should hide tombstoned tracks from queries until they are purged")
+    void shouldHideTombstones() throws Exception {
+        UUID live = insertTrack(insertAudio(), null, false);
+        UUID deleted = insertTrack(insertAudio(), null, true);
+
+        assertThat(trackRepository.findAll()).extracting(Track::getId).containsExactly(live);
+        assertThat(trackRepository.findById(deleted)).isEmpty();
+        assertThat(rows("tracks")).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("should purge tombstoned tracks with their rows and volume files")
+    void shouldPurgeTombstonesAndFiles() throws Exception {
+        UUID firstAudio = insertAudio();
+        UUID firstCover = insertCover();
+        UUID secondAudio = insertAudio();
+        UUID thirdAudio = insertAudio();
+        insertTrack(firstAudio, firstCover, true);
+        insertTrack(secondAudio, null, true);
+        insertTrack(thirdAudio, null, true);
+
+        worker.purgeTombstones();
+
+        assertThat(rows("tracks")).isZero();
+        assertThat(rows("audio_files")).isZero();
+        assertThat(rows("cover_images")).isZero();
+        for (UUID id : List.of(firstAudio, secondAudio, thirdAudio)) {
+            assertThat(blobStore.find(Kind.AUDIO, id)).isEmpty();
+        }
+        assertThat(blobStore.find(Kind.COVER, firstCover)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("should keep blobs and files still referenced by a live track")
+    void shouldKeepSharedBlobs() throws Exception {
+        UUID sharedAudio = insertAudio();
+        UUID sharedCover = insertCover();
+        UUID live = insertTrack(sharedAudio, sharedCover, false);
+        UUID deleted = insertTrack(sharedAudio, sharedCover, true);
+
+        worker.purgeTombstones();
+
+        assertThat(jdbcTemplate.queryForList("SELECT id FROM tracks", UUID.class)).containsExactly(live);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM tracks WHERE id = ?", Integer.class, deleted)).isZero();
+        assertThat(rows("audio_files")).isEqualTo(1);
+        assertThat(rows("cover_images")).isEqualTo(1);
+        assertThat(blobStore.read(Kind.AUDIO, sharedAudio)).isEqualTo(sharedAudio.toString().getBytes());
+        assertThat(blobStore.read(Kind.COVER, sharedCover)).isEqualTo(sharedCover.toString().getBytes());
+    }
+
+    @Test
+    @DisplayName("should leave the files in place while the rows that reference them are not yet committed away")
+    void shouldDeleteFilesOnlyAfterCommit() throws Exception {
+        UUID audio = insertAudio();
+        insertTrack(audio, null, true);
+
+        // The row is still there, so the file is not an orphan yet
+        blobStore.deleteOrphanedFiles(Kind.AUDIO, List.of(audio));
+        assertThat(blobStore.find(Kind.AUDIO, audio)).isPresent();
+
+        worker.purgeTombstones();
+        assertThat(blobStore.find(Kind.AUDIO, audio)).isEmpty();
+    }
+
+    private UUID insertAudio() throws Exception {
+        UUID id = UuidV7.next();
+        byte[] data = id.toString().getBytes();
+        jdbcTemplate.update("INSERT INTO audio_files (id, name, size, mime_type, encoding, data, created_at) "
+                + "VALUES (?, ?, ?, ?, 'RAW', NULL, ?)", id, "track.mp3", data.length, "audio/mpeg", now());
+        blobStore.write(Kind.AUDIO, id, data);
+        return id;
+    }
+
+    private UUID insertCover() throws Exception {
+        UUID id = UuidV7.next();
+        byte[] data = id.toString().getBytes();
+        jdbcTemplate.update("INSERT INTO cover_images (id, name, size, mime_type, data, created_at) "
+                + "VALUES (?, ?, ?, ?, NULL, ?)", id, "cover.png", data.length, "image/png", now());
+        blobStore.write(Kind.COVER, id, data);
+        return id;
+    }
+
+    private UUID insertTrack(UUID audioFileId, UUID coverImageId, boolean deleted) {
+        UUID id = UuidV7.next();
+        jdbcTemplate.update("INSERT INTO tracks (id, title, artist, category, duration, audio_file_id, cover_image_id, "
+                        + "created_at, updated_at, deleted_at) VALUES (?, ?, ?, 'POP', 180, ?, ?, ?, ?, ?)",
+                id, "Title", "Artist", audioFileId, coverImageId, now(), now(), deleted ? now() : null);
+        return id;
+    }
+
+    private int rows(String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Integer.class);
+    }
+
+    private static Timestamp now() {
+        return Timestamp.valueOf(LocalDateTime.now());
+    }
+}
@@ -0,0 +1,94 @@
+package com.kyojin.mosiqa.service.impl;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("WavCodec Tests")
+class WavCodecTest {
+
+    @Test
+    @DisplayName("should compress 16-bit stereo PCM and decode it byte for byte")
+    void shouldRoundTripStereo() throws Exception {
+        byte[] wav = wav(2, 16, 3 * WavCodec.BLOCK_FRAMES + 123, 1);
+
+        byte[] compressed = WavCodec.compress(wav);
+
+        assertThat(compressed).isNotNull();
+        assertThat(compressed.length).isLessThan(wav.length * 9 / 10);
+        WavCodec.Decoder decoder = new WavCodec.Decoder(compressed);
+        assertThat(decoder.length()).isEqualTo(wav.length);
+        assertThat(decode(decoder, 0, wav.length)).isEqualTo(wav);
+    }
+
+    @Test
+    @DisplayName("should decode arbitrary byte ranges, including a trailing odd byte and chunk")
+    void shouldDecodeRanges() throws Exception {
+        byte[] wav = wav(1, 24, 2 * WavCodec.BLOCK_FRAMES + 7, 2);
+        WavCodec.Decoder decoder = new WavCodec.Decoder(WavCodec.compress(wav));
+
+        Random random = new Random(42);
+        for (int i = 0; i < 100; i++) {
+            int start = random.nextInt(wav.length);
+            int end = start + 1 + random.nextInt(wav.length - start);
+            assertThat(decode(decoder, start, end)).isEqualTo(Arrays.copyOfRange(wav, start, end));
+        }
+    }
+
+    @Test
+    @DisplayName("should leave non-PCM content alone")
+    void shouldRejectUnsupportedContent() {
+        byte[] floatWav = wav(2, 16, 1000, 3);
+        floatWav[20] = 3;
+
+        assertThat(WavCodec.compress(floatWav)).isNull();
+        assertThat(WavCodec.compress("not a wav file".getBytes(StandardCharsets.US_ASCII))).isNull();
+    }
+
+    private static byte[] decode(WavCodec.Decoder decoder, long start, long end) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        decoder.write(start, end, out);
+        return out.toByteArray();
+    }
+
+    /**
+     * A tone with a little noise, an odd-sized data chunk when the frame count allows it, and a LIST chunk after the samples.
+     */
+    private static byte[] wav(int channels, int bits, int frames, long seed) {
+        int blockAlign = channels * bits / 8;
+        int dataSize = frames * blockAlign;
+        int pad = dataSize & 1;
+        ByteBuffer wav = ByteBuffer.allocate(12 + 24 + 8 + dataSize + pad + 20).order(ByteOrder.LITTLE_ENDIAN);
+        wav.put("RIFF".getBytes(StandardCharsets.US_ASCII)).putInt(wav.capacity() - 8).put("WAVE".getBytes(StandardCharsets.US_ASCII));
+        wav.put("fmt ".getBytes(StandardCharsets.US_ASCII)).putInt(16).putShort((short) 1).putShort((short) channels)
+                .putInt(44100).putInt(44100 * blockAlign).putShort((short) blockAlign).putShort((short) bits);
+        wav.put("data".getBytes(StandardCharsets.US_ASCII)).putInt(dataSize);
+
+        Random random = new Random(seed);
+        double peak = (1 << (bits - 1)) - 1;
+        for (int i = 0; i < frames; i++) {
+            for (int c = 0; c < channels; c++) {
+                double value = 0.5 * Math.sin(i * 0.03 * (c + 1)) + 0.01 * random.nextGaussian();
+                int sample = (int) Math.round(value * peak);
+                if (bits == 16) {
+                    wav.putShort((short) sample);
+                } else {
+                    wav.put((byte) sample).put((byte) (sample >> 8)).put((byte) (sample >> 16));
+                }
+            }
+        }
+        if (pad == 1) {
+            wav.put((byte) 0);
+        }
+        wav.put("LIST".getBytes(StandardCharsets.US_ASCII)).putInt(12).put("INFOISFT\0\0\0\0".getBytes(StandardCharsets.US_ASCII));
+        return wav.array();
+    }
+}
@@ -0,0 +1,57 @@
+export const COVER_BUNDLE_MEDIA_TYPE = 'application/x-mosiqa-covers';
+
+const MAGIC = 'MCVR';
+const VERSION = 1;
+
+const ENTRY = 1;
+const END = 0;
+
+const HEX = Array.from({ length: 256 }, (_, i) => i.toString(16).padStart(2, '0'));
+
+/**
+ * Decodes the cover bundle produced by the backend's CoverBundleCodec into one Blob per cover id.
+ * Ids the server did not find are absent from the map.
+ */
+export function decodeCoverBundle(buffer: ArrayBuffer): Map<string, Blob> {
+    const view = new DataView(buffer);
+    const bytes = new Uint8Array(buffer);
+    let offset = 0;
+
+    for (let i = 0; i < MAGIC.length; i++) {
+        if (view.getUint8(offset++) !== MAGIC.charCodeAt(i)) {
+            throw new Error('Not a cover bundle');
+        }
+    }
+    const version = view.getUint8(offset++);
+    if (version !== VERSION) {
+        throw new Error(`Unsupported cover bundle version: ${version}`);
+    }
+
+    const covers = new Map<string, Blob>();
+    for (;;) {
+        const tag = view.getUint8(offset++);
+        if (tag === END) {
+            return covers;
+        }
+        if (tag !== ENTRY) {
+            throw new Error(`Unknown cover bundle tag: ${tag}`);
+        }
+        const o = offset;
+        const id =
+            HEX[bytes[o]] + HEX[bytes[o + 1]] + HEX[bytes[o + 2]] + HEX[bytes[o + 3]] + '-' +
+            HEX[bytes[o + 4]] + HEX[bytes[o + 5]] + '-' +
+            HEX[bytes[o + 6]] + HEX[bytes[o + 7]] + '-' +
+            HEX[bytes[o + 8]] + HEX[bytes[o + 9]] + '-' +
+            HEX[bytes[o + 10]] + HEX[bytes[o + 11]] + HEX[bytes[o + 12]] + HEX[bytes[o + 13]] + HEX[bytes[o + 14]] + HEX[bytes[o + 15]];
+        offset += 16;
+
+        const typeLength = view.getUint8(offset++);
+        const type = String.fromCharCode(...bytes.subarray(offset, offset + typeLength));
+        offset += typeLength;
+
+        const length = view.getUint32(offset);
+        offset += 4;
+        covers.set(id, new Blob([bytes.subarray(offset, offset + length)], { type }));
+        offset += length;
+    }
+}
@@ -2,6 +2,7 @@ import { Injectable } from '@angular/core';
 import { HttpClient } from '@angular/common/http';
 import { Observable, map } from 'rxjs';
 import { environment } from '../../../environments/environment';
+import { COVER_BUNDLE_MEDIA_TYPE, decodeCoverBundle } from './cover-bundle';
 
 @Injectable({
     providedIn: 'root',
@@ -31,6 +32,23 @@ export class FileApiService {
         });
     }
 
+    /**
+     * Fetches many covers in one request, scaled server-side to fit `size` pixels.
+     */
+    getCoverImageBundle(coverImageIds: string[], size?: number): Observable<Map<string, Blob>> {
+        const params: Record<string, string> = { ids: coverImageIds.join(',') };
+        if (size) {
+            params['size'] = String(size);
+        }
+        return this.http
+            .get(`${this.baseUrl}/covers`, {
+                params,
+                headers: { Accept: COVER_BUNDLE_MEDIA_TYPE },
+                responseType: 'arraybuffer',
+            })
+            .pipe(map((buffer) => decodeCoverBundle(buffer)));
+    }
+
     getAudioObjectUrl(audioFileId: string): Observable<string> {
         return this.getAudioBlob(audioFileId).pipe(map((blob) => URL.createObjectURL(blob)));
     }
@@ -1,2 +1,4 @@
 export * from './track-api.service';
 export * from './file-api.service';
+export * from './track-list-codec';
+export * from './cover-bundle';
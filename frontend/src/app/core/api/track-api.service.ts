@@ -1,8 +1,9 @@
 import { Injectable } from '@angular/core';
 import { HttpClient, HttpParams } from '@angular/common/http';
-import { Observable } from 'rxjs';
+import { Observable, map } from 'rxjs';
 import { environment } from '../../../environments/environment';
 import { Track, MusicCategory } from '@core/models';
+import { TRACK_LIST_MEDIA_TYPE, decodeTrackList } from './track-list-codec';
 
 export interface TrackResponse {
     id: string;
@@ -17,6 +18,23 @@ export interface TrackResponse {
     updatedAt: string;
 }
 
+export interface TrackPageResponse {
+    items: TrackResponse[];
+    nextCursor?: string;
+    hasNext: boolean;
+}
+
+export interface TrackQueryParams {
+    category?: MusicCategory;
+    q?: string;
+    minDuration?: number;
+    maxDuration?: number;
+    sort?: 'createdAt' | 'title' | 'artist' | 'duration';
+    direction?: 'asc' | 'desc';
+    cursor?: string;
+    limit?: number;
+}
+
 export interface TrackCreateRequest {
     title: string;
     artist: string;
@@ -42,7 +60,7 @@ export class TrackApiService {
     constructor(private http: HttpClient) { }
 
     getAllTracks(): Observable<TrackResponse[]> {
-        return this.http.get<TrackResponse[]>(this.baseUrl);
+        return this.getTrackList(this.baseUrl);
     }
 
     getTrackById(id: string): Observable<TrackResponse> {
@@ -86,10 +104,30 @@ export class TrackApiService {
 
     searchTracks(query: string): Observable<TrackResponse[]> {
         const params = new HttpParams().set('q', query);
-        return this.http.get<TrackResponse[]>(`${this.baseUrl}/search`, { params });
+        return this.getTrackList(`${this.baseUrl}/search`, params);
+    }
+
+    queryTracks(query: TrackQueryParams): Observable<TrackPageResponse> {
+        let params = new HttpParams();
+        for (const [key, value] of Object.entries(query)) {
+            if (value !== undefined && value !== null && value !== '') {
+                params = params.set(key, String(value));
+            }
+        }
+        return this.http.get<TrackPageResponse>(`${this.baseUrl}/query`, { params });
     }
 
     getTracksByCategory(category: MusicCategory): Observable<TrackResponse[]> {
-        return this.http.get<TrackResponse[]>(`${this.baseUrl}/category/${category}`);
+        return this.getTrackList(`${this.baseUrl}/category/${category}`);
+    }
+
+    private getTrackList(url: string, params?: HttpParams): Observable<TrackResponse[]> {
+        return this.http
+            .get(url, {
+                params,
+                headers: { Accept: `${TRACK_LIST_MEDIA_TYPE}, application/json;q=0.5` },
+                responseType: 'arraybuffer',
+            })
+            .pipe(map((buffer) => decodeTrackList(buffer)));
     }
 }
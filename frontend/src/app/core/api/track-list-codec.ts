@@ -0,0 +1,146 @@
+import { MusicCategory } from '@core/models';
+import type { TrackResponse } from './track-api.service';
+
+export const TRACK_LIST_MEDIA_TYPE = 'application/x-mosiqa-tracks';
+
+const MAGIC = 'MTRK';
+const VERSION = 1;
+
+const ID_NULL = 0;
+const ID_UUID = 1;
+const ID_TEXT = 2;
+
+const HEX = Array.from({ length: 256 }, (_, i) => i.toString(16).padStart(2, '0'));
+
+/**
+ * Decodes the columnar track listing produced by the backend's TrackListCodec.
+ * Timestamps come back as zone-less ISO strings, matching the JSON representation.
+ */
+export function decodeTrackList(buffer: ArrayBuffer): TrackResponse[] {
+    const reader = new Reader(buffer);
+
+    for (let i = 0; i < MAGIC.length; i++) {
+        if (reader.byte() !== MAGIC.charCodeAt(i)) {
+            throw new Error('Not a track list payload');
+        }
+    }
+    const version = reader.byte();
+    if (version !== VERSION) {
+        throw new Error(`Unsupported track list version: ${version}`);
+    }
+
+    const count = reader.varint();
+    const dictionary: MusicCategory[] = [];
+    const dictionarySize = reader.varint();
+    for (let i = 0; i < dictionarySize; i++) {
+        dictionary.push(reader.string() as MusicCategory);
+    }
+
+    const tracks = new Array<TrackResponse>(count);
+    for (let i = 0; i < count; i++) {
+        tracks[i] = { id: reader.id() ?? '' } as TrackResponse;
+    }
+    for (const track of tracks) track.title = reader.string() ?? '';
+    for (const track of tracks) track.artist = reader.string() ?? '';
+    for (const track of tracks) track.description = reader.string();
+    for (const track of tracks) {
+        const index = reader.varint();
+        track.category = index === 0 ? 'other' : dictionary[index - 1];
+    }
+    for (const track of tracks) {
+        const duration = reader.double();
+        track.duration = Number.isNaN(duration) ? 0 : duration;
+    }
+    for (const track of tracks) track.audioFileId = reader.id() ?? '';
+    for (const track of tracks) track.coverImageId = reader.id();
+    readTimestamps(reader, tracks, (track, value) => (track.createdAt = value));
+    readTimestamps(reader, tracks, (track, value) => (track.updatedAt = value));
+    return tracks;
+}
+
+function readTimestamps(
+    reader: Reader,
+    tracks: TrackResponse[],
+    assign: (track: TrackResponse, value: string) => void
+): void {
+    let previous = 0;
+    for (const track of tracks) {
+        const encoded = reader.varint();
+        if (encoded === 0) {
+            assign(track, '');
+            continue;
+        }
+        const zigzag = encoded - 1;
+        previous += zigzag % 2 === 0 ? zigzag / 2 : -(zigzag + 1) / 2;
+        // The server encodes wall-clock time as UTC; drop the zone so it is read back as local time like JSON
+        assign(track, new Date(previous).toISOString().slice(0, 23));
+    }
+}
+
+class Reader {
+    private readonly view: DataView;
+    private readonly bytes: Uint8Array;
+    private readonly text = new TextDecoder();
+    private offset = 0;
+
+    constructor(buffer: ArrayBuffer) {
+        this.view = new DataView(buffer);
+        this.bytes = new Uint8Array(buffer);
+    }
+
+    byte(): number {
+        return this.view.getUint8(this.offset++);
+    }
+
+    varint(): number {
+        let result = 0;
+        let scale = 1;
+        for (;;) {
+            const b = this.byte();
+            result += (b & 0x7f) * scale;
+            if ((b & 0x80) === 0) {
+                return result;
+            }
+            scale *= 128;
+        }
+    }
+
+    double(): number {
+        const value = this.view.getFloat64(this.offset);
+        this.offset += 8;
+        return value;
+    }
+
+    string(): string | undefined {
+        const length = this.varint();
+        if (length === 0) {
+            return undefined;
+        }
+        const value = this.text.decode(this.bytes.subarray(this.offset, this.offset + length - 1));
+        this.offset += length - 1;
+        return value;
+    }
+
+    id(): string | undefined {
+        const tag = this.byte();
+        if (tag === ID_NULL) {
+            return undefined;
+        }
+        if (tag === ID_TEXT) {
+            return this.string();
+        }
+        if (tag !== ID_UUID) {
+            throw new Error(`Unknown id tag: ${tag}`);
+        }
+        const b = this.bytes;
+        const o = this.offset;
+        this.offset += 16;
+        return (
+            HEX[b[o]] + HEX[b[o + 1]] + HEX[b[o + 2]] + HEX[b[o + 3]] + '-' +
+            HEX[b[o + 4]] + HEX[b[o + 5]] + '-' +
+            HEX[b[o + 6]] + HEX[b[o + 7]] + '-' +
+            HEX[b[o + 8]] + HEX[b[o + 9]] + '-' +
+            HEX[b[o + 10]] + HEX[b[o + 11]] + HEX[b[o + 12]] + HEX[b[o + 13]] + HEX[b[o + 14]] + HEX[b[o + 15]]
+        );
+    }
+}
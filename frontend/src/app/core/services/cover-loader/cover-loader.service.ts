@@ -0,0 +1,102 @@
+import { Injectable, inject } from '@angular/core';
+import { Observable, ReplaySubject, catchError, map, of, take } from 'rxjs';
+import { FileApiService } from '@core/api';
+import { ToastService } from '@core/services/toast/toast.service';
+
+// The server accepts up to 200 ids per bundle, but 200 ids make a request line of ~7.5 KB, close to
+// the 8 KB header limit of the servlet container and any proxy in front; 100 leaves ample headroom
+const BATCH_LIMIT = 100;
+// Track cards are at most ~200 CSS pixels wide; this covers 2x displays
+const GRID_COVER_SIZE = 400;
+const CACHE_LIMIT = 500;
+
+/**
+ * Loads grid covers in bundles: every cover requested in the same turn, typically one library page
+ * of track cards, is fetched with a single `GET /api/files/covers` call.
+ */
+@Injectable({
+  providedIn: 'root',
+})
+export class CoverLoaderService {
+  private readonly fileApiService = inject(FileApiService);
+  private readonly toastService = inject(ToastService);
+
+  private readonly cache = new Map<string, Blob>();
+  private readonly requests = new Map<string, ReplaySubject<Blob | null>>();
+  private queue: string[] = [];
+  private flushScheduled = false;
+
+  /**
+   * Emits an object URL for the cover, or null when it does not exist; the caller revokes the URL.
+   */
+  load(coverImageId: string): Observable<string | null> {
+    return this.blob(coverImageId).pipe(map((blob) => (blob ? URL.createObjectURL(blob) : null)));
+  }
+
+  private blob(coverImageId: string): Observable<Blob | null> {
+    const cached = this.cache.get(coverImageId);
+    if (cached) {
+      return of(cached);
+    }
+    let request = this.requests.get(coverImageId);
+    if (!request) {
+      request = new ReplaySubject<Blob | null>(1);
+      this.requests.set(coverImageId, request);
+      this.queue.push(coverImageId);
+      this.scheduleFlush();
+    }
+    return request.pipe(take(1));
+  }
+
+  private scheduleFlush(): void {
+    if (this.flushScheduled) {
+      return;
+    }
+    this.flushScheduled = true;
+    // Cards of one page initialise in the same turn; wait for all of them before sending
+    setTimeout(() => {
+      this.flushScheduled = false;
+      this.flush();
+    });
+  }
+
+  private flush(): void {
+    const ids = this.queue;
+    this.queue = [];
+    for (let i = 0; i < ids.length; i += BATCH_LIMIT) {
+      const batch = ids.slice(i, i + BATCH_LIMIT);
+      this.fileApiService
+        .getCoverImageBundle(batch, GRID_COVER_SIZE)
+        .pipe(
+          catchError((error) => {
+            // The covers show their placeholder; the next load asks again since nothing is cached
+            console.warn(`Could not load ${batch.length} cover images:`, error);
+            this.toastService.warning('Some cover images could not be loaded');
+            return of(new Map<string, Blob>());
+          }),
+        )
+        .subscribe((covers) => {
+          for (const id of batch) {
+            const blob = covers.get(id) ?? null;
+            if (blob) {
+              this.remember(id, blob);
+            }
+            const request = this.requests.get(id);
+            this.requests.delete(id);
+            request?.next(blob);
+            request?.complete();
+          }
+        });
+    }
+  }
+
+  private remember(coverImageId: string, blob: Blob): void {
+    if (this.cache.size >= CACHE_LIMIT) {
+      const oldest = this.cache.keys().next().value;
+      if (oldest !== undefined) {
+        this.cache.delete(oldest);
+      }
+    }
+    this.cache.set(coverImageId, blob);
+  }
+}
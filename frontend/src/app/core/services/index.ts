@@ -2,3 +2,4 @@ export * from './storage/storage.service';
 export * from './track/track.service';
 export * from './audio-player/audio-player.service';
 export * from './toast/toast.service';
+export * from './cover-loader/cover-loader.service';
@@ -12,7 +12,7 @@ import {
   lucideListPlus,
 } from '@ng-icons/lucide';
 import { Track } from '@core/models';
-import { AudioPlayerService, TrackService, ToastService } from '@core/services';
+import { AudioPlayerService, CoverLoaderService, TrackService, ToastService } from '@core/services';
 import { DurationPipe } from '@shared/pipes';
 
 @Component({
@@ -46,6 +46,7 @@ export class TrackCardComponent implements OnInit, OnDestroy {
   protected readonly audioPlayer = inject(AudioPlayerService);
   protected readonly trackService = inject(TrackService);
   protected readonly toastService = inject(ToastService);
+  private readonly coverLoader = inject(CoverLoaderService);
 
   protected coverUrl = signal<string | null>(null);
   protected showMenu = signal(false);
@@ -66,8 +67,9 @@ export class TrackCardComponent implements OnInit, OnDestroy {
   private loadCoverImage(): void {
     const coverId = this.track().coverImageId;
     if (coverId) {
-      this.trackService
-        .getCoverImageUrl(coverId)
+      // Batched with the other cards on the page into one request
+      this.coverLoader
+        .load(coverId)
         .pipe(takeUntil(this.destroy$))
         .subscribe((url) => this.coverUrl.set(url));
     }